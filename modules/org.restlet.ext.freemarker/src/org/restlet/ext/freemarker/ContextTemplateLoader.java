@@ -37,12 +37,18 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.restlet.Context;
 import org.restlet.Request;
+import org.restlet.Response;
 import org.restlet.data.Method;
 import org.restlet.data.Reference;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
 import org.restlet.representation.Representation;
+import org.restlet.representation.RepresentationInfo;
 
 import freemarker.cache.TemplateLoader;
 import freemarker.template.Configuration;
@@ -50,18 +56,110 @@ import freemarker.template.Configuration;
 /**
  * FreeMarker template loader based on a Context's client dispatcher. You can
  * set an instance on a FreeMarker configuration via the
- * {@link Configuration#setTemplateLoader(TemplateLoader)} method.
+ * {@link Configuration#setTemplateLoader(TemplateLoader)} method.<br>
+ * <br>
+ * When FreeMarker checks whether a cached template was updated, the template
+ * is requested with conditions based on the tag and modification date of its
+ * last version. If the template wasn't modified, it isn't transferred and
+ * parsed again.
  * 
  * @author Jerome Louvel
  */
 public class ContextTemplateLoader implements TemplateLoader {
 
+    /**
+     * Template source, equal to the sources of the same template version.
+     */
+    private static class TemplateSource {
+
+        /** The modification date of the template version. */
+        private final Date modificationDate;
+
+        /** The template representation, or null if not modified. */
+        private final Representation representation;
+
+        /** The tag of the template version. */
+        private final Tag tag;
+
+        /** The template URI. */
+        private final String uri;
+
+        /**
+         * Constructor.
+         * 
+         * @param uri
+         *            The template URI.
+         * @param representation
+         *            The template representation, or null if not modified.
+         * @param info
+         *            The validators of the template version.
+         */
+        private TemplateSource(String uri, Representation representation,
+                RepresentationInfo info) {
+            this.modificationDate = info.getModificationDate();
+            this.representation = representation;
+            this.tag = info.getTag();
+            this.uri = uri;
+        }
+
+        /**
+         * Indicates if the other source is the same template version. Sources
+         * without tag nor modification date are never equal.
+         */
+        @Override
+        public boolean equals(Object other) {
+            boolean result = (this == other);
+
+            if (!result && (other instanceof TemplateSource)
+                    && hasValidators()) {
+                TemplateSource source = (TemplateSource) other;
+                result = this.uri.equals(source.uri)
+                        && equals(this.tag, source.tag)
+                        && equals(this.modificationDate,
+                                source.modificationDate);
+            }
+
+            return result;
+        }
+
+        /**
+         * Indicates if two values are both null or equal.
+         * 
+         * @param value1
+         *            The first value.
+         * @param value2
+         *            The second value.
+         * @return True if both values are null or equal.
+         */
+        private boolean equals(Object value1, Object value2) {
+            return (value1 == null) ? (value2 == null) : value1.equals(value2);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.uri.hashCode();
+        }
+
+        /**
+         * Indicates if the template version has a tag or a modification date.
+         * 
+         * @return True if the template version has a tag or a modification
+         *         date.
+         */
+        private boolean hasValidators() {
+            return (this.tag != null) || (this.modificationDate != null);
+        }
+    }
+
     /** The base URI. */
     private final String baseUri;
 
     /** The Restlet context. */
     private final Context context;
 
+    /** The validators of the last loaded templates by URI. */
+    private final ConcurrentMap<String, RepresentationInfo> validators;
+
     /**
      * Constructor.
      * 
@@ -85,29 +183,34 @@ public class ContextTemplateLoader implements TemplateLoader {
     public ContextTemplateLoader(Context context, String baseUri) {
         this.context = context;
         this.baseUri = baseUri;
+        this.validators = new ConcurrentHashMap<String, RepresentationInfo>();
     }
 
     /**
      * Close the template source.
      * 
      * @param templateSource
-     *            The template source {@link Representation}.
+     *            The template source.
      */
     public void closeTemplateSource(Object templateSource) throws IOException {
-        if (templateSource instanceof Representation) {
-            ((Representation) templateSource).release();
+        TemplateSource source = (TemplateSource) templateSource;
+
+        if (source.representation != null) {
+            source.representation.release();
         }
     }
 
     /**
      * Finds the object that acts as the source of the template with the given
-     * name.
+     * name. If a version of the template was already loaded, the template is
+     * only retrieved if it was modified since.
      * 
      * @param name
      *            The template name.
-     * @return The template source {@link Representation}.
+     * @return The template source, or null if not found.
      */
     public Object findTemplateSource(String name) throws IOException {
+        Object result = null;
         String fullUri;
 
         if (getBaseUri().endsWith("/")) {
@@ -116,9 +219,46 @@ public class ContextTemplateLoader implements TemplateLoader {
             fullUri = getBaseUri() + "/" + name;
         }
 
-        return (getContext() == null) ? null : getContext()
-                .getClientDispatcher().handle(new Request(Method.GET, fullUri))
-                .getEntity();
+        if (getContext() != null) {
+            RepresentationInfo info = this.validators.get(fullUri);
+            Request request = new Request(Method.GET, fullUri);
+
+            if (info != null) {
+                if (info.getTag() != null) {
+                    request.getConditions().getNoneMatch().add(info.getTag());
+                }
+
+                request.getConditions().setModifiedSince(
+                        info.getModificationDate());
+            }
+
+            Response response = getContext().getClientDispatcher().handle(
+                    request);
+
+            if ((info != null)
+                    && Status.REDIRECTION_NOT_MODIFIED.equals(response
+                            .getStatus())) {
+                result = new TemplateSource(fullUri, null, info);
+            } else if (response.getStatus().isSuccess()
+                    && (response.getEntity() != null)) {
+                Representation entity = response.getEntity();
+                info = new RepresentationInfo(entity.getMediaType(),
+                        entity.getModificationDate(), entity.getTag());
+
+                if ((info.getTag() != null)
+                        || (info.getModificationDate() != null)) {
+                    this.validators.put(fullUri, info);
+                } else {
+                    this.validators.remove(fullUri);
+                }
+
+                result = new TemplateSource(fullUri, entity, info);
+            } else if (response.getEntity() != null) {
+                response.getEntity().release();
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -143,26 +283,42 @@ public class ContextTemplateLoader implements TemplateLoader {
      * Returns the modification time.
      * 
      * @param templateSource
-     *            The template source {@link Representation}.
+     *            The template source.
      * @return The modification time.
      */
     public long getLastModified(Object templateSource) {
-        Date lastModified = ((Representation) templateSource)
-                .getModificationDate();
+        Date lastModified = ((TemplateSource) templateSource).modificationDate;
         return (lastModified == null) ? -1L : lastModified.getTime();
     }
 
     /**
-     * Returns the reader for the template source.
+     * Returns the reader for the template source. If the template wasn't
+     * transferred because it wasn't modified, it is retrieved again.
      * 
      * @param templateSource
-     *            The template source {@link Representation}.
+     *            The template source.
      * @param characterSet
      *            The reader character set.
      */
     public Reader getReader(Object templateSource, String characterSet)
             throws IOException {
-        Representation r = (Representation) templateSource;
+        TemplateSource source = (TemplateSource) templateSource;
+        Representation r = source.representation;
+
+        if (r == null) {
+            // The template isn't cached by FreeMarker anymore
+            Response response = getContext().getClientDispatcher().handle(
+                    new Request(Method.GET, source.uri));
+
+            if (!response.getStatus().isSuccess()
+                    || (response.getEntity() == null)) {
+                throw new IOException("Unable to retrieve the template "
+                        + source.uri + ". Status: " + response.getStatus());
+            }
+
+            r = response.getEntity();
+        }
+
         return new InputStreamReader(r.getStream(), characterSet);
     }
 
@@ -52,6 +52,12 @@ import freemarker.template.TemplateHashModel;
  * happen, the representations must have the {@link Encoding#FREEMARKER}
  * encoding set.<br>
  * <br>
+ * Each filter has its own FreeMarker configuration, which can be customized
+ * without affecting other filters. The configuration shared by the current
+ * application can be used instead by passing the result of
+ * {@link TemplateRepresentation#getDefaultConfiguration()} to
+ * {@link #setConfiguration(Configuration)}.<br>
+ * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
  * should be especially careful when storing state in member variables.
@@ -168,7 +174,8 @@ public class TemplateFilter extends Filter {
     }
 
     /**
-     * Returns the FreeMarker configuration.
+     * Returns the FreeMarker configuration. By default, it is dedicated to this
+     * filter.
      * 
      * @return The FreeMarker configuration.
      */
@@ -187,7 +194,9 @@ public class TemplateFilter extends Filter {
     }
 
     /**
-     * Sets the FreeMarker configuration.
+     * Sets the FreeMarker configuration. Pass the result of
+     * {@link TemplateRepresentation#getDefaultConfiguration()} to share the
+     * configuration of the current application.
      * 
      * @param config
      *            FreeMarker configuration.
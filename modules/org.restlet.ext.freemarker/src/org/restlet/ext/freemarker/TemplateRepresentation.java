@@ -33,14 +33,23 @@
 
 package org.restlet.ext.freemarker;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ConcurrentMap;
 
+import org.restlet.Application;
 import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.CharacterSet;
 import org.restlet.data.MediaType;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.engine.io.NioUtils;
 import org.restlet.ext.freemarker.internal.ResolverHashModel;
 import org.restlet.representation.Representation;
 import org.restlet.representation.WriterRepresentation;
@@ -52,13 +61,55 @@ import freemarker.template.TemplateException;
 
 /**
  * FreeMarker template representation. Useful for dynamic string-based
- * representations.
+ * representations.<br>
+ * <br>
+ * The constructors without configuration rely on the configuration shared by
+ * the current application, so that FreeMarker's template cache is effective.
+ * The template is rendered directly into the target output stream, and into a
+ * byte pipe when the content is read as a stream or a channel.
  * 
  * @see <a href="http://freemarker.org/">FreeMarker home page</a>
  * @author Jerome Louvel
  */
 public class TemplateRepresentation extends WriterRepresentation {
 
+    /** The application's context attribute holding the configuration. */
+    public static final String CONFIGURATION_ATTRIBUTE = "org.restlet.ext.freemarker.configuration";
+
+    /** The configuration used outside of any application. */
+    private static final Configuration defaultConfiguration = new Configuration();
+
+    /**
+     * Returns the FreeMarker configuration shared by the current application,
+     * creating it if needed, or a process-wide configuration if there is no
+     * current application. The configuration is stored in the
+     * {@link #CONFIGURATION_ATTRIBUTE} attribute of the application's context.
+     * 
+     * @return The shared FreeMarker configuration.
+     */
+    public static Configuration getDefaultConfiguration() {
+        Configuration result = defaultConfiguration;
+        Application application = Application.getCurrent();
+
+        if ((application != null) && (application.getContext() != null)) {
+            ConcurrentMap<String, Object> attributes = application
+                    .getContext().getAttributes();
+            result = (Configuration) attributes.get(CONFIGURATION_ATTRIBUTE);
+
+            if (result == null) {
+                result = new Configuration();
+                Configuration previous = (Configuration) attributes
+                        .putIfAbsent(CONFIGURATION_ATTRIBUTE, result);
+
+                if (previous != null) {
+                    result = previous;
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns a FreeMarker template from a representation and a configuration.
      * 
@@ -149,20 +200,21 @@ public class TemplateRepresentation extends WriterRepresentation {
     }
 
     /**
-     * Constructor.
+     * Constructor. Uses the shared FreeMarker configuration.
      * 
      * @param templateRepresentation
      *            The FreeMarker template provided via a representation.
      * @param mediaType
      *            The representation's media type.
+     * @see #getDefaultConfiguration()
      */
     public TemplateRepresentation(Representation templateRepresentation,
             MediaType mediaType) {
-        this(templateRepresentation, new Configuration(), mediaType);
+        this(templateRepresentation, getDefaultConfiguration(), mediaType);
     }
 
     /**
-     * Constructor. Uses a default FreeMarker configuration.
+     * Constructor. Uses the shared FreeMarker configuration.
      * 
      * @param templateRepresentation
      *            The FreeMarker template provided via a representation.
@@ -170,10 +222,12 @@ public class TemplateRepresentation extends WriterRepresentation {
      *            The template's data model.
      * @param mediaType
      *            The representation's media type.
+     * @see #getDefaultConfiguration()
      */
     public TemplateRepresentation(Representation templateRepresentation,
             Object dataModel, MediaType mediaType) {
-        this(templateRepresentation, new Configuration(), dataModel, mediaType);
+        this(templateRepresentation, getDefaultConfiguration(), dataModel,
+                mediaType);
     }
 
     /**
@@ -240,6 +294,17 @@ public class TemplateRepresentation extends WriterRepresentation {
         this.dataModel = dataModel;
     }
 
+    /**
+     * Returns a readable byte channel with the rendered template. Internally,
+     * it uses a pooled writer thread and a pipe channel.
+     * 
+     * @return A readable byte channel with the rendered template.
+     */
+    @Override
+    public ReadableByteChannel getChannel() throws IOException {
+        return NioUtils.getChannel(this);
+    }
+
     /**
      * Returns the template's data model.
      * 
@@ -249,6 +314,18 @@ public class TemplateRepresentation extends WriterRepresentation {
         return this.dataModel;
     }
 
+    /**
+     * Returns a stream with the rendered template. Internally, it uses a
+     * pooled writer thread and a byte pipe, instead of a characters pipe
+     * followed by an encoding step.
+     * 
+     * @return A stream with the rendered template.
+     */
+    @Override
+    public InputStream getStream() throws IOException {
+        return BioUtils.getStream(this);
+    }
+
     /**
      * Returns the FreeMarker template.
      * 
@@ -311,6 +388,22 @@ public class TemplateRepresentation extends WriterRepresentation {
         this.template = template;
     }
 
+    /**
+     * Renders the template directly into the output stream. The FreeMarker
+     * output is buffered before being encoded, as it is made of many small
+     * writes.
+     * 
+     * @param outputStream
+     *            The output stream.
+     */
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(BioUtils.getWriter(outputStream,
+                getCharacterSet()), IoUtils.BUFFER_SIZE);
+        write(writer);
+        writer.flush();
+    }
+
     /**
      * Writes the datum as a stream of characters.
      * 
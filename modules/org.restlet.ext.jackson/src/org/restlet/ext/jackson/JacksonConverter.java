@@ -35,6 +35,8 @@ package org.restlet.ext.jackson;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.restlet.data.MediaType;
 import org.restlet.data.Preference;
@@ -44,9 +46,25 @@ import org.restlet.representation.Representation;
 import org.restlet.representation.Variant;
 import org.restlet.resource.Resource;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+
 /**
  * Converter between the JSON, JSON Smile, CSV, XML, YAML and Representation
- * classes based on Jackson.
+ * classes based on Jackson.<br>
+ * <br>
+ * The Jackson object mappers are created once per media type and shared by all
+ * the conversions, so that Jackson can reuse its serializers and
+ * deserializers. The immutable object readers and writers are also cached per
+ * media type and class, and shared with the created representations when they
+ * are plain {@link JacksonRepresentation} instances. They are not shared with
+ * the representations created by subclasses overriding the
+ * {@link #create(MediaType, Object)} or {@link #create(Representation, Class)}
+ * methods, as they could customize the mapper or the CSV schema. A shared
+ * reader and writer is also released by a representation as soon as its own
+ * object mapper or CSV schema is accessed for customization.
  * 
  * @author Jerome Louvel
  * @author Thierry Boileau
@@ -80,6 +98,24 @@ public class JacksonConverter extends ConverterHelper {
     private static final VariantInfo VARIANT_TEXT_YAML = new VariantInfo(
             MediaType.TEXT_YAML);
 
+    /** The shared object mappers by media type name. */
+    private final ConcurrentMap<String, ObjectMapper> objectMappers;
+
+    /** The cached object readers by media type name and class. */
+    private final ConcurrentMap<String, ConcurrentMap<Class<?>, ObjectReader>> objectReaders;
+
+    /** The cached object writers by media type name and class. */
+    private final ConcurrentMap<String, ConcurrentMap<Class<?>, ObjectWriter>> objectWriters;
+
+    /**
+     * Constructor.
+     */
+    public JacksonConverter() {
+        this.objectMappers = new ConcurrentHashMap<String, ObjectMapper>();
+        this.objectReaders = new ConcurrentHashMap<String, ConcurrentMap<Class<?>, ObjectReader>>();
+        this.objectWriters = new ConcurrentHashMap<String, ConcurrentMap<Class<?>, ObjectWriter>>();
+    }
+
     /**
      * Creates the marshaling {@link JacksonRepresentation}.
      * 
@@ -91,7 +127,15 @@ public class JacksonConverter extends ConverterHelper {
      * @return The marshaling {@link JacksonRepresentation}.
      */
     protected <T> JacksonRepresentation<T> create(MediaType mediaType, T source) {
-        return new JacksonRepresentation<T>(mediaType, source);
+        JacksonRepresentation<T> result = new JacksonRepresentation<T>(
+                mediaType, source);
+
+        if (source != null) {
+            result.setSharedCodecs(null,
+                    getObjectWriter(mediaType, source.getClass()));
+        }
+
+        return result;
     }
 
     /**
@@ -106,7 +150,138 @@ public class JacksonConverter extends ConverterHelper {
      */
     protected <T> JacksonRepresentation<T> create(Representation source,
             Class<T> objectClass) {
-        return new JacksonRepresentation<T>(source, objectClass);
+        JacksonRepresentation<T> result = new JacksonRepresentation<T>(source,
+                objectClass);
+
+        if ((objectClass != null) && (source.getMediaType() != null)) {
+            result.setSharedCodecs(
+                    getObjectReader(source.getMediaType(), objectClass), null);
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates a Jackson object mapper for a media type. By default, it creates
+     * the same mappers as {@link JacksonRepresentation}.
+     * 
+     * @param mediaType
+     *            The target media type.
+     * @return The Jackson object mapper.
+     */
+    protected ObjectMapper createObjectMapper(MediaType mediaType) {
+        return JacksonRepresentation.createObjectMapper(mediaType);
+    }
+
+    /**
+     * Returns the shared Jackson object mapper for a media type, creating it if
+     * needed.
+     * 
+     * @param mediaType
+     *            The target media type.
+     * @return The shared Jackson object mapper.
+     */
+    public ObjectMapper getObjectMapper(MediaType mediaType) {
+        ObjectMapper result = this.objectMappers.get(mediaType.getName());
+
+        if (result == null) {
+            result = createObjectMapper(mediaType);
+            ObjectMapper previous = this.objectMappers.putIfAbsent(
+                    mediaType.getName(), result);
+
+            if (previous != null) {
+                result = previous;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the cached Jackson object reader for a media type and a class,
+     * creating it if needed. Has a special handling for CSV media types.
+     * 
+     * @param mediaType
+     *            The source media type.
+     * @param objectClass
+     *            The object class to instantiate.
+     * @return The cached Jackson object reader.
+     */
+    public ObjectReader getObjectReader(MediaType mediaType,
+            Class<?> objectClass) {
+        ConcurrentMap<Class<?>, ObjectReader> readers = this.objectReaders
+                .get(mediaType.getName());
+
+        if (readers == null) {
+            readers = new ConcurrentHashMap<Class<?>, ObjectReader>();
+            ConcurrentMap<Class<?>, ObjectReader> previous = this.objectReaders
+                    .putIfAbsent(mediaType.getName(), readers);
+
+            if (previous != null) {
+                readers = previous;
+            }
+        }
+
+        ObjectReader result = readers.get(objectClass);
+
+        if (result == null) {
+            ObjectMapper mapper = getObjectMapper(mediaType);
+
+            if (mapper instanceof CsvMapper) {
+                CsvMapper csvMapper = (CsvMapper) mapper;
+                result = csvMapper.reader(objectClass).with(
+                        csvMapper.schemaFor(objectClass));
+            } else {
+                result = mapper.reader(objectClass);
+            }
+
+            readers.putIfAbsent(objectClass, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the cached Jackson object writer for a media type and a class,
+     * creating it if needed. Has a special handling for CSV media types.
+     * 
+     * @param mediaType
+     *            The target media type.
+     * @param objectClass
+     *            The class of the objects to write.
+     * @return The cached Jackson object writer.
+     */
+    public ObjectWriter getObjectWriter(MediaType mediaType,
+            Class<?> objectClass) {
+        ConcurrentMap<Class<?>, ObjectWriter> writers = this.objectWriters
+                .get(mediaType.getName());
+
+        if (writers == null) {
+            writers = new ConcurrentHashMap<Class<?>, ObjectWriter>();
+            ConcurrentMap<Class<?>, ObjectWriter> previous = this.objectWriters
+                    .putIfAbsent(mediaType.getName(), writers);
+
+            if (previous != null) {
+                writers = previous;
+            }
+        }
+
+        ObjectWriter result = writers.get(objectClass);
+
+        if (result == null) {
+            ObjectMapper mapper = getObjectMapper(mediaType);
+
+            if (mapper instanceof CsvMapper) {
+                CsvMapper csvMapper = (CsvMapper) mapper;
+                result = csvMapper.writer(csvMapper.schemaFor(objectClass));
+            } else {
+                result = mapper.writerWithType(objectClass);
+            }
+
+            writers.putIfAbsent(objectClass, result);
+        }
+
+        return result;
     }
 
     @Override
@@ -35,6 +35,7 @@ package org.restlet.ext.jackson;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Writer;
 
 import org.restlet.data.MediaType;
 import org.restlet.representation.OutputRepresentation;
@@ -85,6 +86,12 @@ public class JacksonRepresentation<T> extends OutputRepresentation {
     /** The modifiable Jackson CSV schema. */
     private CsvSchema csvSchema;
 
+    /**
+     * Indicates if the object reader and writer were shared by a converter and
+     * must be recreated if the object mapper or the CSV schema is customized.
+     */
+    private boolean sharedCodecs;
+
     /**
      * Constructor.
      * 
@@ -150,30 +157,31 @@ public class JacksonRepresentation<T> extends OutputRepresentation {
      * Creates a Jackson object mapper based on a media type. It supports JSON,
      * JSON Smile, XML, YAML and CSV.
      * 
+     * @param mediaType
+     *            The target media type.
      * @return The Jackson object mapper.
      */
-    protected ObjectMapper createObjectMapper() {
+    static ObjectMapper createObjectMapper(MediaType mediaType) {
         ObjectMapper result = null;
 
-        if (MediaType.APPLICATION_JSON.isCompatible(getMediaType())) {
+        if (MediaType.APPLICATION_JSON.isCompatible(mediaType)) {
             JsonFactory jsonFactory = new JsonFactory();
             jsonFactory.configure(Feature.AUTO_CLOSE_TARGET, false);
             result = new ObjectMapper(jsonFactory);
-        } else if (MediaType.APPLICATION_JSON_SMILE
-                .isCompatible(getMediaType())) {
+        } else if (MediaType.APPLICATION_JSON_SMILE.isCompatible(mediaType)) {
             SmileFactory smileFactory = new SmileFactory();
             smileFactory.configure(Feature.AUTO_CLOSE_TARGET, false);
             result = new ObjectMapper(smileFactory);
-        } else if (MediaType.APPLICATION_XML.isCompatible(getMediaType())
-                || MediaType.TEXT_XML.isCompatible(getMediaType())) {
+        } else if (MediaType.APPLICATION_XML.isCompatible(mediaType)
+                || MediaType.TEXT_XML.isCompatible(mediaType)) {
             XmlFactory xmlFactory = new XmlFactory();
             xmlFactory.configure(Feature.AUTO_CLOSE_TARGET, false);
             result = new XmlMapper(xmlFactory);
-        } else if (MediaType.APPLICATION_YAML.isCompatible(getMediaType())) {
+        } else if (MediaType.APPLICATION_YAML.isCompatible(mediaType)) {
             YAMLFactory yamlFactory = new YAMLFactory();
             yamlFactory.configure(Feature.AUTO_CLOSE_TARGET, false);
             result = new ObjectMapper(yamlFactory);
-        } else if (MediaType.TEXT_CSV.isCompatible(getMediaType())) {
+        } else if (MediaType.TEXT_CSV.isCompatible(mediaType)) {
             CsvFactory csvFactory = new CsvFactory();
             csvFactory.configure(Feature.AUTO_CLOSE_TARGET, false);
             result = new CsvMapper(csvFactory);
@@ -186,6 +194,16 @@ public class JacksonRepresentation<T> extends OutputRepresentation {
         return result;
     }
 
+    /**
+     * Creates a Jackson object mapper based on a media type. It supports JSON,
+     * JSON Smile, XML, YAML and CSV.
+     * 
+     * @return The Jackson object mapper.
+     */
+    protected ObjectMapper createObjectMapper() {
+        return createObjectMapper(getMediaType());
+    }
+
     /**
      * Creates a Jackson object reader based on a mapper. Has a special handling
      * for CSV media types.
@@ -234,6 +252,7 @@ public class JacksonRepresentation<T> extends OutputRepresentation {
     public CsvSchema getCsvSchema() {
         if (this.csvSchema == null) {
             this.csvSchema = createCsvSchema((CsvMapper) getObjectMapper());
+            releaseSharedCodecs();
         }
 
         return this.csvSchema;
@@ -270,13 +289,16 @@ public class JacksonRepresentation<T> extends OutputRepresentation {
 
     /**
      * Returns the modifiable Jackson object mapper. Useful to customize
-     * mappings.
+     * mappings. If the object reader and writer were shared by a
+     * {@link JacksonConverter}, they are recreated from this mapper so that
+     * its customization is taken into account.
      * 
      * @return The modifiable Jackson object mapper.
      */
     public ObjectMapper getObjectMapper() {
         if (this.objectMapper == null) {
             this.objectMapper = createObjectMapper();
+            releaseSharedCodecs();
         }
 
         return this.objectMapper;
@@ -310,6 +332,19 @@ public class JacksonRepresentation<T> extends OutputRepresentation {
         return this.objectWriter;
     }
 
+    /**
+     * Releases the object reader and writer shared by a converter, so that
+     * they are recreated on demand from the customized object mapper and CSV
+     * schema.
+     */
+    private void releaseSharedCodecs() {
+        if (this.sharedCodecs) {
+            this.objectReader = null;
+            this.objectWriter = null;
+            this.sharedCodecs = false;
+        }
+    }
+
     /**
      * Sets the Jackson CSV schema.
      * 
@@ -318,6 +353,7 @@ public class JacksonRepresentation<T> extends OutputRepresentation {
      */
     public void setCsvSchema(CsvSchema csvSchema) {
         this.csvSchema = csvSchema;
+        releaseSharedCodecs();
     }
 
     /**
@@ -348,6 +384,7 @@ public class JacksonRepresentation<T> extends OutputRepresentation {
      */
     public void setObjectMapper(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        releaseSharedCodecs();
     }
 
     /**
@@ -358,6 +395,7 @@ public class JacksonRepresentation<T> extends OutputRepresentation {
      */
     public void setObjectReader(ObjectReader objectReader) {
         this.objectReader = objectReader;
+        this.sharedCodecs = false;
     }
 
     /**
@@ -368,6 +406,22 @@ public class JacksonRepresentation<T> extends OutputRepresentation {
      */
     public void setObjectWriter(ObjectWriter objectWriter) {
         this.objectWriter = objectWriter;
+        this.sharedCodecs = false;
+    }
+
+    /**
+     * Sets the object reader and writer shared by a converter. They are
+     * released as soon as the object mapper or the CSV schema is customized.
+     * 
+     * @param objectReader
+     *            The shared object reader or null.
+     * @param objectWriter
+     *            The shared object writer or null.
+     */
+    void setSharedCodecs(ObjectReader objectReader, ObjectWriter objectWriter) {
+        this.objectReader = objectReader;
+        this.objectWriter = objectWriter;
+        this.sharedCodecs = true;
     }
 
     @Override
@@ -378,4 +432,22 @@ public class JacksonRepresentation<T> extends OutputRepresentation {
             getObjectWriter().writeValue(outputStream, object);
         }
     }
+
+    /**
+     * Writes the representation to a characters writer. Textual formats are
+     * directly serialized as characters, without encoding and decoding bytes.
+     * 
+     * @param writer
+     *            The characters writer.
+     */
+    @Override
+    public void write(Writer writer) throws IOException {
+        if ((representation == null) && (object != null)
+                && !MediaType.APPLICATION_JSON_SMILE
+                        .isCompatible(getMediaType())) {
+            getObjectWriter().writeValue(writer, object);
+        } else {
+            super.write(writer);
+        }
+    }
 }
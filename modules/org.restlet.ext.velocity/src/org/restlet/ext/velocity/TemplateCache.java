@@ -0,0 +1,390 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.velocity;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.exception.ParseErrorException;
+import org.apache.velocity.exception.ResourceNotFoundException;
+import org.apache.velocity.runtime.RuntimeSingleton;
+import org.restlet.Application;
+import org.restlet.data.CharacterSet;
+import org.restlet.data.Reference;
+import org.restlet.representation.Representation;
+
+/**
+ * Cache of parsed Velocity templates, with a shared Velocity engine. There is
+ * one instance per application, stored in the attributes of the application's
+ * context, so that rendering pages doesn't initialize a new engine nor parse
+ * the same template again for each representation.<br>
+ * <br>
+ * Templates given as representations are parsed with the
+ * {@link RepresentationResourceLoader} and cached by location reference. A
+ * cached template is parsed again when the tag, modification date or size of
+ * the template representation changes. Representations without location
+ * reference or without such validators are never cached. The least recently
+ * used entries are evicted first when the maximum number of entries is
+ * reached.<br>
+ * <br>
+ * Templates given by name are loaded by the shared engine, with the caching of
+ * its file resource loader enabled.
+ * 
+ * @author Jerome Louvel
+ */
+public class TemplateCache {
+
+    /** A cached template, with the validators it was parsed from. */
+    private static class CachedTemplate {
+
+        /** The parsed template. */
+        private final Template template;
+
+        /** The validators of the template representation. */
+        private final String validators;
+
+        /**
+         * Constructor.
+         * 
+         * @param template
+         *            The parsed template.
+         * @param validators
+         *            The validators of the template representation.
+         */
+        private CachedTemplate(Template template, String validators) {
+            this.template = template;
+            this.validators = validators;
+        }
+    }
+
+    /** The name of the application's context attribute holding the cache. */
+    public static final String ATTRIBUTE_NAME = "org.restlet.ext.velocity.templateCache";
+
+    /** The default maximum number of cached templates. */
+    public static final int DEFAULT_MAX_ENTRIES = 128;
+
+    /** The instance used outside of any application. */
+    private static final TemplateCache defaultInstance = new TemplateCache();
+
+    /**
+     * Returns the cache of the current application, creating it if needed, or
+     * a default instance if there is no current application.
+     * 
+     * @return The current template cache.
+     */
+    public static TemplateCache getCurrent() {
+        TemplateCache result = defaultInstance;
+        Application application = Application.getCurrent();
+
+        if ((application != null) && (application.getContext() != null)) {
+            ConcurrentMap<String, Object> attributes = application
+                    .getContext().getAttributes();
+            result = (TemplateCache) attributes.get(ATTRIBUTE_NAME);
+
+            if (result == null) {
+                result = new TemplateCache();
+                TemplateCache previous = (TemplateCache) attributes
+                        .putIfAbsent(ATTRIBUTE_NAME, result);
+
+                if (previous != null) {
+                    result = previous;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the validators of a template representation, based on its tag,
+     * modification date and size, or null if it has no tag nor modification
+     * date.
+     * 
+     * @param templateRepresentation
+     *            The template representation.
+     * @return The validators or null.
+     */
+    private static String getValidators(Representation templateRepresentation) {
+        String result = null;
+
+        if ((templateRepresentation.getTag() != null)
+                || (templateRepresentation.getModificationDate() != null)) {
+            StringBuilder sb = new StringBuilder();
+
+            if (templateRepresentation.getTag() != null) {
+                sb.append(templateRepresentation.getTag().format());
+            }
+
+            sb.append(';');
+
+            if (templateRepresentation.getModificationDate() != null) {
+                sb.append(templateRepresentation.getModificationDate()
+                        .getTime());
+            }
+
+            sb.append(';').append(templateRepresentation.getSize());
+            result = sb.toString();
+        }
+
+        return result;
+    }
+
+    /**
+     * Parses a template representation with a
+     * {@link RepresentationResourceLoader}.
+     * 
+     * @param templateRepresentation
+     *            The template representation.
+     * @return The parsed template.
+     * @throws ResourceNotFoundException
+     * @throws ParseErrorException
+     * @throws IOException
+     */
+    public static Template parse(Representation templateRepresentation)
+            throws ResourceNotFoundException, ParseErrorException, IOException {
+        Template result = new Template();
+        CharacterSet charSet = (templateRepresentation.getCharacterSet() != null) ? templateRepresentation
+                .getCharacterSet() : CharacterSet.DEFAULT;
+        result.setEncoding(charSet.getName());
+        result.setLastModified((templateRepresentation.getModificationDate() == null) ? new Date()
+                .getTime()
+                : templateRepresentation.getModificationDate().getTime());
+        result.setName("org.restlet.resource.representation");
+        result.setRuntimeServices(RuntimeSingleton.getRuntimeServices());
+        result.setResourceLoader(new RepresentationResourceLoader(
+                templateRepresentation));
+        result.process();
+        return result;
+    }
+
+    /** The shared Velocity engine. */
+    private volatile VelocityEngine engine;
+
+    /** The cached templates by reference, from the least recently used. */
+    private final Map<String, CachedTemplate> entries;
+
+    /** The maximum number of cached templates. */
+    private final int maxEntries;
+
+    /**
+     * Constructor.
+     */
+    public TemplateCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxEntries
+     *            The maximum number of cached templates.
+     */
+    @SuppressWarnings("serial")
+    public TemplateCache(int maxEntries) {
+        this.engine = null;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, CachedTemplate>(16, 0.75f,
+                true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, CachedTemplate> eldest) {
+                return size() > getMaxEntries();
+            }
+        };
+    }
+
+    /**
+     * Removes all the cached templates.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Creates and initializes the shared Velocity engine. By default, it
+     * enables the caching of the file resource loader.
+     * 
+     * @return The initialized Velocity engine.
+     * @throws Exception
+     */
+    protected VelocityEngine createEngine() throws Exception {
+        VelocityEngine result = new VelocityEngine();
+        result.setProperty("file.resource.loader.cache", "true");
+        result.init();
+        return result;
+    }
+
+    /**
+     * Returns the shared Velocity engine, creating and initializing it if
+     * needed.
+     * 
+     * @return The shared Velocity engine.
+     * @throws Exception
+     */
+    public VelocityEngine getEngine() throws Exception {
+        // Lazy initialization with double-check.
+        VelocityEngine e = this.engine;
+        if (e == null) {
+            synchronized (this) {
+                e = this.engine;
+                if (e == null) {
+                    this.engine = e = createEngine();
+                }
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Returns the maximum number of cached templates.
+     * 
+     * @return The maximum number of cached templates.
+     */
+    public int getMaxEntries() {
+        return this.maxEntries;
+    }
+
+    /**
+     * Returns the parsed template of a representation, using its location
+     * reference as the cache key.
+     * 
+     * @param templateRepresentation
+     *            The template representation.
+     * @return The parsed template.
+     * @throws ResourceNotFoundException
+     * @throws ParseErrorException
+     * @throws IOException
+     */
+    public Template getTemplate(Representation templateRepresentation)
+            throws ResourceNotFoundException, ParseErrorException, IOException {
+        return getTemplate(templateRepresentation.getLocationRef(),
+                templateRepresentation);
+    }
+
+    /**
+     * Returns the parsed template of a representation, parsing and caching it
+     * if needed.
+     * 
+     * @param reference
+     *            The reference of the template, used as the cache key, or
+     *            null.
+     * @param templateRepresentation
+     *            The template representation.
+     * @return The parsed template.
+     * @throws ResourceNotFoundException
+     * @throws ParseErrorException
+     * @throws IOException
+     */
+    public Template getTemplate(Reference reference,
+            Representation templateRepresentation)
+            throws ResourceNotFoundException, ParseErrorException, IOException {
+        Template result = null;
+        String validators = getValidators(templateRepresentation);
+
+        if ((reference == null) || (validators == null)) {
+            result = parse(templateRepresentation);
+        } else {
+            String key = reference.getTargetRef().toString(false, false);
+            CachedTemplate entry;
+
+            synchronized (this) {
+                entry = this.entries.get(key);
+            }
+
+            if ((entry == null) || !entry.validators.equals(validators)) {
+                // Parse outside of the lock, concurrent misses are harmless
+                entry = new CachedTemplate(parse(templateRepresentation),
+                        validators);
+
+                synchronized (this) {
+                    this.entries.put(key, entry);
+                }
+            } else {
+                // The template representation doesn't need to be read
+                templateRepresentation.release();
+            }
+
+            result = entry.template;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a template loaded by name with the shared Velocity engine.
+     * 
+     * @param name
+     *            The template name.
+     * @return The template.
+     * @throws Exception
+     */
+    public Template getTemplate(String name) throws Exception {
+        return getEngine().getTemplate(name);
+    }
+
+    /**
+     * Removes the cached template at a given reference.
+     * 
+     * @param reference
+     *            The template reference.
+     */
+    public synchronized void invalidate(Reference reference) {
+        this.entries.remove(reference.getTargetRef().toString(false, false));
+    }
+
+    /**
+     * Sets the shared Velocity engine. It must be already initialized.
+     * 
+     * @param engine
+     *            The shared Velocity engine.
+     */
+    public void setEngine(VelocityEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Returns the number of cached templates.
+     * 
+     * @return The number of cached templates.
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+}
@@ -43,7 +43,11 @@ import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
 import org.restlet.data.Encoding;
+import org.restlet.data.LocalReference;
+import org.restlet.data.Reference;
 import org.restlet.data.Status;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.Representation;
 import org.restlet.routing.Filter;
 import org.restlet.util.Resolver;
 
@@ -54,6 +58,10 @@ import org.restlet.util.Resolver;
  * happen, the representations must have the {@link Encoding#VELOCITY} encoding
  * set.<br>
  * <br>
+ * The parsed templates are cached by the {@link TemplateCache} of the current
+ * application, using the location reference of the entity or the reference of
+ * its file.<br>
+ * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
  * should be especially careful when storing state in member variables.
@@ -139,9 +147,19 @@ public class TemplateFilter extends Filter {
                 && response.getEntity().getEncodings().contains(
                         Encoding.VELOCITY)) {
             try {
+                final Representation entity = response.getEntity();
+                Reference templateRef = entity.getLocationRef();
+
+                if ((templateRef == null)
+                        && (entity instanceof FileRepresentation)) {
+                    templateRef = LocalReference
+                            .createFileReference(((FileRepresentation) entity)
+                                    .getFile());
+                }
+
                 final TemplateRepresentation representation = new TemplateRepresentation(
-                        response.getEntity(), response.getEntity()
-                                .getMediaType());
+                        TemplateCache.getCurrent().getTemplate(templateRef,
+                                entity), entity.getMediaType());
 
                 if ((this.mapDataModel == null)
                         && (this.resolverDataModel == null)) {
@@ -35,7 +35,6 @@ package org.restlet.ext.velocity;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
@@ -45,11 +44,9 @@ import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.exception.ParseErrorException;
 import org.apache.velocity.exception.ResourceNotFoundException;
-import org.apache.velocity.runtime.RuntimeSingleton;
 import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
-import org.restlet.data.CharacterSet;
 import org.restlet.data.MediaType;
 import org.restlet.representation.Representation;
 import org.restlet.representation.WriterRepresentation;
@@ -57,7 +54,14 @@ import org.restlet.util.Resolver;
 
 /**
  * Velocity template representation. Useful for dynamic string-based
- * representations.
+ * representations.<br>
+ * <br>
+ * Templates are obtained through the {@link TemplateCache} of the current
+ * application, so that the Velocity engine is shared and template
+ * representations with a location reference are parsed only once. If the
+ * Velocity engine of a representation built from a template name is retrieved
+ * before the template, for example to customize its properties, a dedicated
+ * engine is used instead.
  * 
  * @see <a href="http://velocity.apache.org/">Velocity home page</a>
  * @author Jerome Louvel
@@ -172,22 +176,8 @@ public class TemplateRepresentation extends WriterRepresentation {
         super(mediaType);
         setDataModel(dataModel);
         this.engine = null;
-        this.template = new Template();
-
-        CharacterSet charSet = (templateRepresentation.getCharacterSet() != null) ? templateRepresentation
-                .getCharacterSet() : CharacterSet.DEFAULT;
-        this.template.setEncoding(charSet.getName());
-
-        if (templateRepresentation.getModificationDate() != null) {
-            this.template.setLastModified(templateRepresentation
-                    .getModificationDate().getTime());
-        }
-
-        this.template.setName("org.restlet.resource.representation");
-        this.template.setRuntimeServices(RuntimeSingleton.getRuntimeServices());
-        this.template.setResourceLoader(new RepresentationResourceLoader(
-                templateRepresentation));
-        this.template.process();
+        this.template = TemplateCache.getCurrent().getTemplate(
+                templateRepresentation);
         this.templateName = null;
     }
 
@@ -207,19 +197,8 @@ public class TemplateRepresentation extends WriterRepresentation {
             ParseErrorException, IOException {
         super(mediaType);
         this.engine = null;
-        this.template = new Template();
-
-        CharacterSet charSet = (templateRepresentation.getCharacterSet() != null) ? templateRepresentation
-                .getCharacterSet() : CharacterSet.DEFAULT;
-        this.template.setEncoding(charSet.getName());
-        this.template.setLastModified((templateRepresentation
-                .getModificationDate() == null) ? new Date().getTime()
-                : templateRepresentation.getModificationDate().getTime());
-        this.template.setName("org.restlet.resource.representation");
-        this.template.setRuntimeServices(RuntimeSingleton.getRuntimeServices());
-        this.template.setResourceLoader(new RepresentationResourceLoader(
-                templateRepresentation));
-        this.template.process();
+        this.template = TemplateCache.getCurrent().getTemplate(
+                templateRepresentation);
         this.templateName = null;
     }
 
@@ -237,15 +216,10 @@ public class TemplateRepresentation extends WriterRepresentation {
     public TemplateRepresentation(String templateName,
             Map<String, Object> dataModel, MediaType mediaType) {
         super(mediaType);
-
-        try {
-            setDataModel(dataModel);
-            this.engine = new VelocityEngine();
-            this.template = null;
-            this.templateName = templateName;
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        setDataModel(dataModel);
+        this.engine = null;
+        this.template = null;
+        this.templateName = templateName;
     }
 
     /**
@@ -305,11 +279,18 @@ public class TemplateRepresentation extends WriterRepresentation {
     }
 
     /**
-     * Returns the Velocity engine.
+     * Returns the Velocity engine. For representations built from a template
+     * name whose template isn't loaded yet, a dedicated engine is created, that
+     * can be customized before loading the template.
      * 
      * @return The Velocity engine.
      */
     public VelocityEngine getEngine() {
+        if ((this.engine == null) && (this.template == null)
+                && (this.templateName != null)) {
+            this.engine = new VelocityEngine();
+        }
+
         return this.engine;
     }
 
@@ -322,8 +303,15 @@ public class TemplateRepresentation extends WriterRepresentation {
         if (this.template == null) {
             if (this.templateName != null) {
                 try {
-                    getEngine().init();
-                    this.template = getEngine().getTemplate(this.templateName);
+                    if (this.engine == null) {
+                        // Rely on the shared engine
+                        this.template = TemplateCache.getCurrent()
+                                .getTemplate(this.templateName);
+                    } else {
+                        this.engine.init();
+                        this.template = this.engine
+                                .getTemplate(this.templateName);
+                    }
                 } catch (Exception e) {
                     final Context context = Context.getCurrent();
 
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.xml;
+
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+
+/**
+ * Compiled XSLT templates keeping a pool of idle transformers. JAXP
+ * transformers aren't thread-safe, so each one is used by a single thread
+ * between the {@link #acquire()} and {@link #release(Transformer)} calls, and
+ * is reset before being returned to the pool.
+ * 
+ * @author Jerome Louvel
+ */
+public class PooledTemplates implements Templates {
+
+    /** The default maximum number of idle transformers. */
+    public static final int DEFAULT_MAX_IDLE = 16;
+
+    /** The number of idle transformers. */
+    private final AtomicInteger idleCount;
+
+    /** The idle transformers. */
+    private final Queue<Transformer> idleTransformers;
+
+    /** The maximum number of idle transformers. */
+    private final int maxIdle;
+
+    /** The wrapped compiled templates. */
+    private final Templates templates;
+
+    /**
+     * Constructor.
+     * 
+     * @param templates
+     *            The wrapped compiled templates.
+     */
+    public PooledTemplates(Templates templates) {
+        this(templates, DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param templates
+     *            The wrapped compiled templates.
+     * @param maxIdle
+     *            The maximum number of idle transformers.
+     */
+    public PooledTemplates(Templates templates, int maxIdle) {
+        this.idleCount = new AtomicInteger();
+        this.idleTransformers = new ConcurrentLinkedQueue<Transformer>();
+        this.maxIdle = maxIdle;
+        this.templates = templates;
+    }
+
+    /**
+     * Returns an idle transformer from the pool, or a new one if the pool is
+     * empty. The transformer should be given back with
+     * {@link #release(Transformer)} once the transformation is done.
+     * 
+     * @return A transformer for the exclusive use of the caller.
+     * @throws TransformerConfigurationException
+     */
+    public Transformer acquire() throws TransformerConfigurationException {
+        Transformer result = this.idleTransformers.poll();
+
+        if (result == null) {
+            result = newTransformer();
+        } else {
+            this.idleCount.decrementAndGet();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of idle transformers.
+     * 
+     * @return The number of idle transformers.
+     */
+    public int getIdleCount() {
+        return this.idleCount.get();
+    }
+
+    /**
+     * Returns the maximum number of idle transformers.
+     * 
+     * @return The maximum number of idle transformers.
+     */
+    public int getMaxIdle() {
+        return this.maxIdle;
+    }
+
+    /**
+     * Returns the output properties of the wrapped templates.
+     * 
+     * @return The output properties.
+     */
+    public Properties getOutputProperties() {
+        return getTemplates().getOutputProperties();
+    }
+
+    /**
+     * Returns the wrapped compiled templates.
+     * 
+     * @return The wrapped compiled templates.
+     */
+    public Templates getTemplates() {
+        return this.templates;
+    }
+
+    /**
+     * Creates a new transformer, outside of the pool.
+     * 
+     * @return A new transformer.
+     */
+    public Transformer newTransformer()
+            throws TransformerConfigurationException {
+        return getTemplates().newTransformer();
+    }
+
+    /**
+     * Gives back a transformer obtained with {@link #acquire()}. It is reset
+     * and kept for later reuse unless the pool is full.
+     * 
+     * @param transformer
+     *            The transformer to release.
+     */
+    public void release(Transformer transformer) {
+        if (transformer != null) {
+            boolean pooled = false;
+
+            if (this.idleCount.incrementAndGet() <= getMaxIdle()) {
+                try {
+                    // Some implementations keep the parameters on reset
+                    transformer.clearParameters();
+                    transformer.reset();
+                    pooled = this.idleTransformers.offer(transformer);
+                } catch (UnsupportedOperationException uoe) {
+                    // The transformer can't be safely reused
+                }
+            }
+
+            if (!pooled) {
+                this.idleCount.decrementAndGet();
+            }
+        }
+    }
+
+}
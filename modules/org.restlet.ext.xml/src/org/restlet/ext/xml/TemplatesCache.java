@@ -0,0 +1,396 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.xml;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.TransformerFactoryConfigurationError;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.stream.StreamSource;
+
+import org.restlet.Application;
+import org.restlet.data.Reference;
+import org.restlet.representation.Representation;
+
+/**
+ * Cache of compiled XSLT transform sheets. There is one instance per
+ * application, stored in the attributes of the application's context.
+ * Compiling a sheet is usually much more expensive than applying it, so the
+ * compiled templates are kept by location reference and URI resolver, and
+ * reused as long as the sheet's tag, modification date and size don't change.
+ * Sheets without location reference or without such validators are never
+ * cached.<br>
+ * <br>
+ * As the URI resolver given when a sheet is compiled is used to resolve its
+ * imports and includes, it is part of the cache key. Resolvers should
+ * therefore implement equality consistently, as the context based resolver
+ * does. The least recently used entries are evicted first when the maximum
+ * number of entries is reached.
+ * 
+ * @author Jerome Louvel
+ */
+public class TemplatesCache {
+
+    /** A cached compiled sheet, with the validators it was compiled from. */
+    private static class CachedSheet {
+
+        /** The compiled templates. */
+        private final PooledTemplates templates;
+
+        /** The validators of the transform sheet. */
+        private final String validators;
+
+        /**
+         * Constructor.
+         * 
+         * @param templates
+         *            The compiled templates.
+         * @param validators
+         *            The validators of the transform sheet.
+         */
+        private CachedSheet(PooledTemplates templates, String validators) {
+            this.templates = templates;
+            this.validators = validators;
+        }
+    }
+
+    /** The key of a cached sheet. */
+    private static class SheetKey {
+
+        /** The location of the transform sheet. */
+        private final String location;
+
+        /** The optional URI resolver used for compilation. */
+        private final URIResolver uriResolver;
+
+        /**
+         * Constructor.
+         * 
+         * @param location
+         *            The location of the transform sheet.
+         * @param uriResolver
+         *            The optional URI resolver used for compilation.
+         */
+        private SheetKey(String location, URIResolver uriResolver) {
+            this.location = location;
+            this.uriResolver = uriResolver;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof SheetKey)) {
+                return false;
+            }
+
+            SheetKey other = (SheetKey) object;
+            return this.location.equals(other.location)
+                    && ((this.uriResolver == null) ? (other.uriResolver == null)
+                            : this.uriResolver.equals(other.uriResolver));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31
+                    * this.location.hashCode()
+                    + ((this.uriResolver == null) ? 0 : this.uriResolver
+                            .hashCode());
+        }
+    }
+
+    /** The name of the application's context attribute holding the cache. */
+    public static final String ATTRIBUTE_NAME = "org.restlet.ext.xml.templatesCache";
+
+    /** The default maximum number of cached sheets. */
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    /** The instance used outside of any application. */
+    private static final TemplatesCache defaultInstance = new TemplatesCache();
+
+    /**
+     * Compiles a transform sheet.
+     * 
+     * @param transformSheet
+     *            The XSLT transform sheet to compile.
+     * @param uriResolver
+     *            The optional JAXP URI resolver.
+     * @return The compiled templates.
+     * @throws IOException
+     */
+    public static Templates compile(Representation transformSheet,
+            URIResolver uriResolver) throws IOException {
+        try {
+            // Prepare the XSLT transformer documents
+            StreamSource transformSource = new StreamSource(
+                    transformSheet.getStream());
+
+            if (transformSheet.getLocationRef() != null) {
+                transformSource.setSystemId(transformSheet.getLocationRef()
+                        .getTargetRef().toString());
+            }
+
+            // Create the transformer factory
+            TransformerFactory transformerFactory = TransformerFactory
+                    .newInstance();
+
+            // Set the URI resolver
+            if (uriResolver != null) {
+                transformerFactory.setURIResolver(uriResolver);
+            }
+
+            // Create a new transformer
+            return transformerFactory.newTemplates(transformSource);
+        } catch (TransformerConfigurationException tce) {
+            throw new IOException("Transformer configuration exception. "
+                    + tce.getMessage());
+        } catch (TransformerFactoryConfigurationError tfce) {
+            throw new IOException(
+                    "Transformer factory configuration exception. "
+                            + tfce.getMessage());
+        }
+    }
+
+    /**
+     * Returns the cache of the current application, creating it if needed, or
+     * a default instance if there is no current application.
+     * 
+     * @return The current templates cache.
+     */
+    public static TemplatesCache getCurrent() {
+        TemplatesCache result = defaultInstance;
+        Application application = Application.getCurrent();
+
+        if ((application != null) && (application.getContext() != null)) {
+            ConcurrentMap<String, Object> attributes = application
+                    .getContext().getAttributes();
+            result = (TemplatesCache) attributes.get(ATTRIBUTE_NAME);
+
+            if (result == null) {
+                result = new TemplatesCache();
+                TemplatesCache previous = (TemplatesCache) attributes
+                        .putIfAbsent(ATTRIBUTE_NAME, result);
+
+                if (previous != null) {
+                    result = previous;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the location of a transform sheet, or null if it has no
+     * location reference.
+     * 
+     * @param transformSheet
+     *            The XSLT transform sheet.
+     * @return The location or null.
+     */
+    private static String getLocation(Representation transformSheet) {
+        Reference locationRef = transformSheet.getLocationRef();
+        return (locationRef == null) ? null : locationRef.getTargetRef()
+                .toString(true, false);
+    }
+
+    /**
+     * Returns the validators of a transform sheet, based on its tag,
+     * modification date and size, or null if it has no tag nor modification
+     * date.
+     * 
+     * @param transformSheet
+     *            The XSLT transform sheet.
+     * @return The validators or null.
+     */
+    private static String getValidators(Representation transformSheet) {
+        String result = null;
+
+        if ((transformSheet.getTag() != null)
+                || (transformSheet.getModificationDate() != null)) {
+            StringBuilder sb = new StringBuilder();
+
+            if (transformSheet.getTag() != null) {
+                sb.append(transformSheet.getTag().format());
+            }
+
+            sb.append(';');
+
+            if (transformSheet.getModificationDate() != null) {
+                sb.append(transformSheet.getModificationDate().getTime());
+            }
+
+            sb.append(';').append(transformSheet.getSize());
+            result = sb.toString();
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if the compiled templates of a transform sheet can be cached,
+     * that is if it has a location reference and validators.
+     * 
+     * @param transformSheet
+     *            The XSLT transform sheet.
+     * @return True if the compiled templates can be cached.
+     */
+    public static boolean isCacheable(Representation transformSheet) {
+        return (getLocation(transformSheet) != null)
+                && (getValidators(transformSheet) != null);
+    }
+
+    /** The cached sheets by key, from the least recently used. */
+    private final Map<SheetKey, CachedSheet> entries;
+
+    /** The maximum number of cached sheets. */
+    private final int maxEntries;
+
+    /**
+     * Constructor.
+     */
+    public TemplatesCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxEntries
+     *            The maximum number of cached sheets.
+     */
+    @SuppressWarnings("serial")
+    public TemplatesCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<SheetKey, CachedSheet>(16, 0.75f,
+                true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<SheetKey, CachedSheet> eldest) {
+                return size() > getMaxEntries();
+            }
+        };
+    }
+
+    /**
+     * Removes all the cached sheets.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Returns the compiled templates of a transform sheet, compiling and
+     * caching them if needed. Cached templates are recompiled when the tag,
+     * the modification date or the size of the sheet changes. The transform
+     * sheet isn't read when the cached templates are still valid.
+     * 
+     * @param transformSheet
+     *            The XSLT transform sheet.
+     * @param uriResolver
+     *            The optional JAXP URI resolver used for compilation.
+     * @return The compiled templates.
+     * @throws IOException
+     */
+    public PooledTemplates get(Representation transformSheet,
+            URIResolver uriResolver) throws IOException {
+        String location = getLocation(transformSheet);
+        String validators = getValidators(transformSheet);
+
+        if ((location == null) || (validators == null)) {
+            return new PooledTemplates(compile(transformSheet, uriResolver));
+        }
+
+        SheetKey key = new SheetKey(location, uriResolver);
+        CachedSheet entry;
+
+        synchronized (this) {
+            entry = this.entries.get(key);
+        }
+
+        if ((entry == null) || !entry.validators.equals(validators)) {
+            // Compile outside of the lock, concurrent misses are harmless
+            entry = new CachedSheet(new PooledTemplates(compile(transformSheet,
+                    uriResolver)), validators);
+
+            synchronized (this) {
+                this.entries.put(key, entry);
+            }
+        }
+
+        return entry.templates;
+    }
+
+    /**
+     * Returns the maximum number of cached sheets.
+     * 
+     * @return The maximum number of cached sheets.
+     */
+    public int getMaxEntries() {
+        return this.maxEntries;
+    }
+
+    /**
+     * Removes the cached sheets at a given location, whatever the URI
+     * resolver they were compiled with.
+     * 
+     * @param locationRef
+     *            The location reference of the sheet.
+     */
+    public synchronized void invalidate(Reference locationRef) {
+        String location = locationRef.getTargetRef().toString(true, false);
+
+        for (Iterator<SheetKey> iter = this.entries.keySet().iterator(); iter
+                .hasNext();) {
+            if (iter.next().location.equals(location)) {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of cached sheets.
+     * 
+     * @return The number of cached sheets.
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+}
@@ -53,7 +53,6 @@ import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 
 import org.restlet.Context;
 import org.restlet.ext.xml.internal.AbstractXmlReader;
@@ -75,7 +74,12 @@ import org.xml.sax.XMLReader;
  * a transform sheet on a source representation when it is read or written out.
  * Therefore, it isn't intended to be reused on different sources. For this use
  * case, you should instead use the {@link org.restlet.routing.Transformer}
- * filter.
+ * filter.<br>
+ * <br>
+ * The transform sheet is compiled through the {@link TemplatesCache} of the
+ * current application, so that sheets with a location reference and validators
+ * are only compiled once, and the JAXP transformers are pooled per compiled
+ * sheet.
  * 
  * @author Jerome Louvel
  */
@@ -158,6 +162,9 @@ public class TransformRepresentation extends WriterRepresentation {
     /** The template to be used and reused. */
     private volatile Templates templates;
 
+    /** The optional cache of compiled transform sheets. */
+    private volatile TemplatesCache templatesCache;
+
     /** The XSLT transform sheet to apply to message entities. */
     private volatile Representation transformSheet;
 
@@ -226,6 +233,7 @@ public class TransformRepresentation extends WriterRepresentation {
         super(null);
         this.sourceRepresentation = source;
         this.templates = templates;
+        this.templatesCache = TemplatesCache.getCurrent();
         this.transformSheet = transformSheet;
         this.uriResolver = uriResolver;
         this.parameters = new HashMap<String, Object>();
@@ -307,41 +315,22 @@ public class TransformRepresentation extends WriterRepresentation {
     }
 
     /**
-     * Returns the templates to be used and reused. If no one exists, it creates
-     * a new one based on the transformSheet representation and on the URI
-     * resolver.
+     * Returns the templates to be used and reused. If no one exists, it gets
+     * them from the templates cache, or compiles them based on the
+     * transformSheet representation and on the URI resolver if there is no
+     * cache.
      * 
      * @return The templates to be used and reused.
      */
     public Templates getTemplates() throws IOException {
         if (this.templates == null) {
             if (getTransformSheet() != null) {
-                try {
-                    // Prepare the XSLT transformer documents
-                    final StreamSource transformSource = new StreamSource(
-                            getTransformSheet().getStream());
-
-                    if (getTransformSheet().getLocationRef() != null) {
-                        transformSource.setSystemId(getTransformSheet()
-                                .getLocationRef().getTargetRef().toString());
-                    }
-
-                    // Create the transformer factory
-                    final TransformerFactory transformerFactory = TransformerFactory
-                            .newInstance();
-
-                    // Set the URI resolver
-                    if (getUriResolver() != null) {
-                        transformerFactory.setURIResolver(getUriResolver());
-                    }
-
-                    // Create a new transformer
-                    this.templates = transformerFactory
-                            .newTemplates(transformSource);
-                } catch (TransformerConfigurationException tce) {
-                    throw new IOException(
-                            "Transformer configuration exception. "
-                                    + tce.getMessage());
+                if (getTemplatesCache() != null) {
+                    this.templates = getTemplatesCache().get(
+                            getTransformSheet(), getUriResolver());
+                } else {
+                    this.templates = TemplatesCache.compile(
+                            getTransformSheet(), getUriResolver());
                 }
             }
         }
@@ -349,9 +338,21 @@ public class TransformRepresentation extends WriterRepresentation {
         return this.templates;
     }
 
+    /**
+     * Returns the optional cache of compiled transform sheets. By default, it
+     * is the cache of the current application, see
+     * {@link TemplatesCache#getCurrent()}.
+     * 
+     * @return The optional cache of compiled transform sheets.
+     */
+    public TemplatesCache getTemplatesCache() {
+        return this.templatesCache;
+    }
+
     /**
      * Returns a new transformer to be used. Creation is based on the
-     * {@link #getTemplates()}.newTransformer() method.
+     * {@link #getTemplates()}.newTransformer() method, or on the
+     * {@link PooledTemplates#acquire()} method for pooled templates.
      * 
      * @return The new transformer to be used.
      */
@@ -361,8 +362,13 @@ public class TransformRepresentation extends WriterRepresentation {
         try {
             Templates templates = getTemplates();
 
-            if (templates != null) {
+            if (templates instanceof PooledTemplates) {
+                result = ((PooledTemplates) templates).acquire();
+            } else if (templates != null) {
                 result = templates.newTransformer();
+            }
+
+            if (result != null) {
 
                 if (getErrorListener() != null) {
                     result.setErrorListener(getErrorListener());
@@ -533,6 +539,17 @@ public class TransformRepresentation extends WriterRepresentation {
         this.templates = templates;
     }
 
+    /**
+     * Sets the optional cache of compiled transform sheets. If null, the
+     * transform sheet is compiled for each representation.
+     * 
+     * @param templatesCache
+     *            The optional cache of compiled transform sheets.
+     */
+    public void setTemplatesCache(TemplatesCache templatesCache) {
+        this.templatesCache = templatesCache;
+    }
+
     /**
      * Sets the XSLT transform sheet to apply to message entities.
      * 
@@ -563,17 +580,23 @@ public class TransformRepresentation extends WriterRepresentation {
      * @throws IOException
      */
     public void transform(Source source, Result result) throws IOException {
-        if (getTransformer() == null) {
+        Transformer transformer = getTransformer();
+
+        if (transformer == null) {
             Context.getCurrentLogger()
                     .warning(
                             "Unable to apply the transformation. No transformer found!");
         } else {
             try {
                 // Generates the result of the transformation
-                getTransformer().transform(source, result);
+                transformer.transform(source, result);
             } catch (TransformerException te) {
                 throw new IOException("Transformer exception. "
                         + te.getMessage());
+            } finally {
+                if (this.templates instanceof PooledTemplates) {
+                    ((PooledTemplates) this.templates).release(transformer);
+                }
             }
         }
     }
@@ -33,8 +33,13 @@
 
 package org.restlet.ext.xml;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.URIResolver;
 
 import org.restlet.Request;
 import org.restlet.Response;
@@ -42,6 +47,7 @@ import org.restlet.data.CharacterSet;
 import org.restlet.data.Encoding;
 import org.restlet.data.Language;
 import org.restlet.data.MediaType;
+import org.restlet.ext.xml.internal.ContextResolver;
 import org.restlet.representation.Representation;
 import org.restlet.routing.Filter;
 
@@ -50,6 +56,11 @@ import org.restlet.routing.Filter;
  * sheet. It uses the {@link org.restlet.representation.TransformRepresentation}
  * to actually transform the XML entities.<br>
  * <br>
+ * The compiled transform sheet is looked up in the {@link TemplatesCache} of
+ * the current application for each transformed entity, so that it is compiled
+ * again when the sheet's validators change. Sheets that can't be cached are
+ * compiled once by the filter and reused until the sheet is replaced.<br>
+ * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
  * should be especially careful when storing state in member variables.
@@ -92,6 +103,12 @@ public class Transformer extends Filter {
      */
     private volatile MediaType resultMediaType;
 
+    /** The compiled transform sheet, if set or not cacheable. */
+    private volatile Templates templates;
+
+    /** The cache of compiled transform sheets. */
+    private volatile TemplatesCache templatesCache;
+
     /** The XSLT transform sheet to apply to message entities. */
     private volatile Representation transformSheet;
 
@@ -108,6 +125,8 @@ public class Transformer extends Filter {
         this.transformSheet = transformSheet;
         this.resultMediaType = MediaType.APPLICATION_XML;
         this.resultCharacterSet = null;
+        this.templates = null;
+        this.templatesCache = null;
     }
 
     @Override
@@ -205,6 +224,45 @@ public class Transformer extends Filter {
         return this.resultMediaType;
     }
 
+    /**
+     * Returns the compiled transform sheet. Unless it was explicitly set, it
+     * is obtained from the templates cache for each call, so that the sheet
+     * is compiled again when its validators change. Sheets that can't be
+     * cached are compiled once and kept by the filter.
+     * 
+     * @return The compiled transform sheet.
+     * @throws IOException
+     */
+    public Templates getTemplates() throws IOException {
+        Templates result = this.templates;
+        Representation transformSheet = getTransformSheet();
+
+        if ((result == null) && (transformSheet != null)) {
+            if (TemplatesCache.isCacheable(transformSheet)) {
+                result = getTemplatesCache().get(transformSheet,
+                        getUriResolver());
+            } else {
+                result = new PooledTemplates(TemplatesCache.compile(
+                        transformSheet, getUriResolver()));
+                this.templates = result;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the cache of compiled transform sheets. By default, it is the
+     * cache of the current application, see
+     * {@link TemplatesCache#getCurrent()}.
+     * 
+     * @return The cache of compiled transform sheets.
+     */
+    public TemplatesCache getTemplatesCache() {
+        TemplatesCache result = this.templatesCache;
+        return (result == null) ? TemplatesCache.getCurrent() : result;
+    }
+
     /**
      * Returns the XSLT transform sheet to apply to message entities.
      * 
@@ -214,6 +272,17 @@ public class Transformer extends Filter {
         return this.transformSheet;
     }
 
+    /**
+     * Returns the URI resolver based on the parent context, or null if there
+     * is no context.
+     * 
+     * @return The URI resolver.
+     */
+    private URIResolver getUriResolver() {
+        return (getContext() == null) ? null : new ContextResolver(
+                getContext());
+    }
+
     /**
      * Sets the transformation mode. See MODE_* constants.
      * 
@@ -265,13 +334,37 @@ public class Transformer extends Filter {
     }
 
     /**
-     * Sets the XSLT transform sheet to apply to message entities.
+     * Sets the compiled transform sheet, used instead of the templates cache.
+     * If null, it will be obtained again from the transform sheet.
+     * 
+     * @param templates
+     *            The compiled transform sheet.
+     */
+    public void setTemplates(Templates templates) {
+        this.templates = templates;
+    }
+
+    /**
+     * Sets the cache of compiled transform sheets. If null, the cache of the
+     * current application is used.
+     * 
+     * @param templatesCache
+     *            The cache of compiled transform sheets.
+     */
+    public void setTemplatesCache(TemplatesCache templatesCache) {
+        this.templatesCache = templatesCache;
+    }
+
+    /**
+     * Sets the XSLT transform sheet to apply to message entities. The
+     * previously compiled transform sheet is discarded.
      * 
      * @param transformSheet
      *            The XSLT transform sheet to apply to message entities.
      */
     public void setTransformSheet(Representation transformSheet) {
         this.transformSheet = transformSheet;
+        this.templates = null;
     }
 
     /**
@@ -283,8 +376,24 @@ public class Transformer extends Filter {
      * @return The generated result representation.
      */
     public Representation transform(Representation source) {
-        final Representation result = new TransformRepresentation(getContext(),
-                source, getTransformSheet());
+        Templates templates = null;
+
+        try {
+            templates = getTemplates();
+        } catch (IOException ioe) {
+            getLogger().log(Level.WARNING,
+                    "Unable to compile the XSLT transform sheet", ioe);
+        }
+
+        final Representation result;
+
+        if (templates == null) {
+            result = new TransformRepresentation(getContext(), source,
+                    getTransformSheet());
+        } else {
+            result = new TransformRepresentation(getUriResolver(), source,
+                    templates);
+        }
 
         if (this.resultLanguages != null) {
             result.getLanguages().addAll(getResultLanguages());
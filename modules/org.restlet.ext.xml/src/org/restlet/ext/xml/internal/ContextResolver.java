@@ -48,7 +48,9 @@ import org.restlet.data.Method;
 import org.restlet.data.Reference;
 
 /**
- * URI resolver based on a Restlet Context instance.
+ * URI resolver based on a Restlet Context instance. Two resolvers are equal if
+ * they are based on the same context, so that they can be part of the key of
+ * cached compiled transform sheets.
  * 
  * @author Jerome Louvel
  */
@@ -66,6 +68,17 @@ public class ContextResolver implements URIResolver {
         this.context = context;
     }
 
+    @Override
+    public boolean equals(Object object) {
+        return (object instanceof ContextResolver)
+                && (((ContextResolver) object).context == this.context);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this.context);
+    }
+
     /**
      * Resolves a target reference into a Source document.
      * 
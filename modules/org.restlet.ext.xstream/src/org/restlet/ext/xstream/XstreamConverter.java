@@ -35,6 +35,8 @@ package org.restlet.ext.xstream;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.restlet.data.MediaType;
 import org.restlet.data.Preference;
@@ -44,8 +46,19 @@ import org.restlet.representation.Representation;
 import org.restlet.representation.Variant;
 import org.restlet.resource.Resource;
 
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.json.JettisonMappedXmlDriver;
+import com.thoughtworks.xstream.io.xml.DomDriver;
+
 /**
  * Converter between the XML/JSON and Representation classes based on XStream.
+ * <br>
+ * <br>
+ * Building an XStream object and its converters is expensive, so the XStream
+ * objects are created once per media type and shared by all the conversions.
+ * They rely on the automatic detection of annotations, which covers every
+ * class reached while marshaling. The XStream object of a representation
+ * created by this converter must therefore not be customized.
  * 
  * @author Jerome Louvel
  */
@@ -63,6 +76,16 @@ public class XstreamConverter extends ConverterHelper {
     private static final VariantInfo VARIANT_TEXT_XML = new VariantInfo(
             MediaType.TEXT_XML);
 
+    /** The shared XStream objects by media type name. */
+    private final ConcurrentMap<String, XStream> xstreams;
+
+    /**
+     * Constructor.
+     */
+    public XstreamConverter() {
+        this.xstreams = new ConcurrentHashMap<String, XStream>();
+    }
+
     /**
      * Creates the marshaling {@link XstreamRepresentation}.
      * 
@@ -74,7 +97,18 @@ public class XstreamConverter extends ConverterHelper {
      * @return The marshaling {@link XstreamRepresentation}.
      */
     protected <T> XstreamRepresentation<T> create(MediaType mediaType, T source) {
-        return new XstreamRepresentation<T>(mediaType, source);
+        XstreamRepresentation<T> result = new XstreamRepresentation<T>(
+                mediaType, source);
+
+        if (source != null) {
+            try {
+                result.setSharedXstream(getXstream(mediaType));
+            } catch (IOException ioe) {
+                // Let the representation create its own XStream object
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -87,9 +121,35 @@ public class XstreamConverter extends ConverterHelper {
      */
     protected <T> XstreamRepresentation<T> create(Representation source, Class<T> target) {
         XstreamRepresentation<T> representation = new XstreamRepresentation<T>(source, target);
+
+        if (source.getMediaType() != null) {
+            try {
+                representation.setSharedXstream(getXstream(source
+                        .getMediaType()));
+            } catch (IOException ioe) {
+                // Let the representation create its own XStream object
+            }
+        }
+
         return representation;
     }
 
+    /**
+     * Creates an XStream object for a media type. By default, it relies on the
+     * {@link JettisonMappedXmlDriver} or on the {@link DomDriver} like
+     * {@link XstreamRepresentation}, with the automatic detection of
+     * annotations.
+     * 
+     * @param mediaType
+     *            The serialization media type.
+     * @return The XStream object.
+     * @throws IOException
+     */
+    protected XStream createXstream(MediaType mediaType) throws IOException {
+        return XstreamRepresentation.createXstream(mediaType,
+                JettisonMappedXmlDriver.class, DomDriver.class);
+    }
+
     @Override
     public List<Class<?>> getObjectClasses(Variant source) {
         List<Class<?>> result = null;
@@ -142,6 +202,31 @@ public class XstreamConverter extends ConverterHelper {
         return result;
     }
 
+    /**
+     * Returns the shared XStream object for a media type, creating it if
+     * needed.
+     * 
+     * @param mediaType
+     *            The serialization media type.
+     * @return The shared XStream object.
+     * @throws IOException
+     */
+    public XStream getXstream(MediaType mediaType) throws IOException {
+        XStream result = this.xstreams.get(mediaType.getName());
+
+        if (result == null) {
+            result = createXstream(mediaType);
+            XStream previous = this.xstreams.putIfAbsent(mediaType.getName(),
+                    result);
+
+            if (previous != null) {
+                result = previous;
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public <T> float score(Representation source, Class<T> target,
             Resource resource) {
@@ -177,7 +262,15 @@ public class XstreamConverter extends ConverterHelper {
 
         if (source instanceof XstreamRepresentation) {
             xstreamSource = (XstreamRepresentation<?>) source;
-            if (target != null) xstreamSource.getXstream().processAnnotations(target);
+
+            if (target != null) {
+                if (xstreamSource.isSharedXstream()) {
+                    xstreamSource.getXstream().getMapper()
+                            .serializedClass(target);
+                } else {
+                    xstreamSource.getXstream().processAnnotations(target);
+                }
+            }
             
         } else if (VARIANT_JSON.isCompatible(source)) {
             xstreamSource = create(source, target);
@@ -61,6 +61,12 @@ public class XstreamRepresentation<T> extends WriterRepresentation {
     /** The XStream JSON driver class. */
     private Class<? extends HierarchicalStreamDriver> jsonDriverClass;
 
+    /**
+     * Indicates if the XStream object is shared by a converter, which relies on
+     * the automatic detection of annotations.
+     */
+    private boolean sharedXstream;
+
     /** The (parsed) object to format. */
     private T object;
 
@@ -124,23 +130,30 @@ public class XstreamRepresentation<T> extends WriterRepresentation {
     }
 
     /**
-     * Creates an XStream object based on a media type. By default, it creates a
-     * {@link HierarchicalStreamDriver} or a {@link DomDriver}.
+     * Creates an XStream object based on a media type and on driver classes,
+     * with the automatic detection of annotations enabled.
      * 
      * @param mediaType
      *            The serialization media type.
+     * @param jsonDriverClass
+     *            The XStream JSON driver class.
+     * @param xmlDriverClass
+     *            The XStream XML driver class.
      * @return The XStream object.
      * @throws IOException
      */
-    protected XStream createXstream(MediaType mediaType) throws IOException {
+    static XStream createXstream(MediaType mediaType,
+            Class<? extends HierarchicalStreamDriver> jsonDriverClass,
+            Class<? extends HierarchicalStreamDriver> xmlDriverClass)
+            throws IOException {
         XStream result = null;
 
         try {
             if (MediaType.APPLICATION_JSON.isCompatible(mediaType)) {
-                result = new XStream(getJsonDriverClass().newInstance());
+                result = new XStream(jsonDriverClass.newInstance());
                 result.setMode(XStream.NO_REFERENCES);
             } else {
-                result = new XStream(getXmlDriverClass().newInstance());
+                result = new XStream(xmlDriverClass.newInstance());
             }
 
             result.autodetectAnnotations(true);
@@ -154,6 +167,21 @@ public class XstreamRepresentation<T> extends WriterRepresentation {
         return result;
     }
 
+    /**
+     * Creates an XStream object based on a media type. By default, it creates a
+     * {@link HierarchicalStreamDriver} or a {@link DomDriver}, and enables the
+     * automatic detection of annotations.
+     * 
+     * @param mediaType
+     *            The serialization media type.
+     * @return The XStream object.
+     * @throws IOException
+     */
+    protected XStream createXstream(MediaType mediaType) throws IOException {
+        return createXstream(mediaType, getJsonDriverClass(),
+                getXmlDriverClass());
+    }
+
     /**
      * Returns the XStream JSON driver class.
      * 
@@ -165,7 +193,10 @@ public class XstreamRepresentation<T> extends WriterRepresentation {
 
     /**
      * Returns the wrapped object, deserializing the representation with XStream
-     * if necessary.
+     * if necessary. The annotations of the object class are processed. For an
+     * XStream object shared by a converter, they are detected through its
+     * mapper instead, as processing them explicitly would disable their
+     * automatic detection for all the other conversions.
      * 
      * @return The wrapped object.
      * @throws IOException
@@ -175,11 +206,18 @@ public class XstreamRepresentation<T> extends WriterRepresentation {
         T result = null;
 
         if (this.object != null) {
-            getXstream().processAnnotations(this.object.getClass());
+            if (!isSharedXstream()) {
+                getXstream().processAnnotations(this.object.getClass());
+            }
+
             result = this.object;
         } else if (this.representation != null) {
             if (this.targetClass != null) {
-                getXstream().processAnnotations(this.targetClass);
+                if (isSharedXstream()) {
+                    getXstream().getMapper().serializedClass(this.targetClass);
+                } else {
+                    getXstream().processAnnotations(this.targetClass);
+                }
             }
 
             result = (T) getXstream().fromXML(this.representation.getStream());
@@ -211,6 +249,16 @@ public class XstreamRepresentation<T> extends WriterRepresentation {
         return this.xstream;
     }
 
+    /**
+     * Indicates if the XStream object is shared by a converter. Such an object
+     * must not be customized.
+     * 
+     * @return True if the XStream object is shared by a converter.
+     */
+    boolean isSharedXstream() {
+        return this.sharedXstream;
+    }
+
     /**
      * Sets the XStream JSON driver class.
      * 
@@ -241,6 +289,19 @@ public class XstreamRepresentation<T> extends WriterRepresentation {
      */
     public void setXstream(XStream xstream) {
         this.xstream = xstream;
+        this.sharedXstream = false;
+    }
+
+    /**
+     * Sets the XStream object shared by a converter, which relies on the
+     * automatic detection of annotations.
+     * 
+     * @param xstream
+     *            The shared XStream object.
+     */
+    void setSharedXstream(XStream xstream) {
+        this.xstream = xstream;
+        this.sharedXstream = true;
     }
 
     @Override
@@ -73,13 +73,16 @@ import org.restlet.test.ext.spring.SpringTestSuite;
 import org.restlet.test.ext.velocity.VelocityTestCase;
 import org.restlet.test.ext.wadl.WadlTestSuite;
 import org.restlet.test.ext.xml.XmlTestSuite;
+import org.restlet.test.ext.xstream.XstreamTestCase;
 import org.restlet.test.regression.RegressionTestSuite;
 import org.restlet.test.representation.AppendableRepresentationTestCase;
 import org.restlet.test.representation.DigesterRepresentationTestCase;
+import org.restlet.test.representation.MappedFileRepresentationTestCase;
 import org.restlet.test.representation.RangeRepresentationTestCase;
 import org.restlet.test.routing.FilterTestCase;
 import org.restlet.test.routing.RedirectTestCase;
 import org.restlet.test.routing.RouteListTestCase;
+import org.restlet.test.routing.RouteTrieTestCase;
 import org.restlet.test.routing.ValidatorTestCase;
 import org.restlet.test.security.HttpBasicTestCase;
 import org.restlet.test.security.RoleTestCase;
@@ -123,12 +126,14 @@ public class RestletTestSuite extends TestSuite {
         addTestSuite(JaxbBasicConverterTestCase.class);
         addTestSuite(JaxbIntegrationConverterTestCase.class);
         addTestSuite(LanguageTestCase.class);
+        addTestSuite(MappedFileRepresentationTestCase.class);
         addTestSuite(MediaTypeTestCase.class);
         addTestSuite(ProductTokenTestCase.class);
         addTestSuite(ReferenceTestCase.class);
         addTestSuite(RestartTestCase.class);
         addTestSuite(RiapTestCase.class);
         addTestSuite(RouteListTestCase.class);
+        addTestSuite(RouteTrieTestCase.class);
         addTestSuite(DigestVerifierTestCase.class);
         addTestSuite(RecipientInfoTestCase.class);
         addTestSuite(RoleTestCase.class);
@@ -136,6 +141,7 @@ public class RestletTestSuite extends TestSuite {
         addTestSuite(TemplateTestCase.class);
         addTestSuite(ValidatorTestCase.class);
         addTestSuite(VelocityTestCase.class);
+        addTestSuite(XstreamTestCase.class);
         addTest(RegressionTestSuite.suite());
         addTest(CryptoTestSuite.suite());
         addTest(EmfTestSuite.suite());
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.engine.Engine;
+import org.restlet.engine.connector.HttpClientHelper;
+import org.restlet.engine.connector.HttpServerHelper;
+import org.restlet.engine.io.ReadableChunkingChannel;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+
+public class TestChunkedThroughput {
+
+    private static final int PORT = 8554;
+
+    private static Representation createRepresentation(final long size) {
+        // Unknown size, so the entity is chunked
+        return new InputRepresentation(new InputStream() {
+            private long remaining = size;
+
+            @Override
+            public int read() {
+                return (remaining-- > 0) ? 'a' : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (remaining <= 0) {
+                    return -1;
+                }
+
+                int result = (int) Math.min(len, remaining);
+                remaining -= result;
+                return result;
+            }
+        }, MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    public static void main(String[] args) throws Exception {
+        long size = (args.length > 0) ? Long.parseLong(args[0])
+                : 256L * 1024 * 1024;
+        final long[] posted = new long[1];
+
+        Engine.getInstance().getRegisteredServers()
+                .add(0, new HttpServerHelper(null));
+        Engine.getInstance().getRegisteredClients()
+                .add(0, new HttpClientHelper(null));
+
+        final long entitySize = size;
+        Restlet restlet = new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                if (Method.POST.equals(request.getMethod())) {
+                    try {
+                        posted[0] = request.getEntity().exhaust();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+
+                    response.setEntity(new StringRepresentation("ok"));
+                } else {
+                    response.setEntity(createRepresentation(entitySize));
+                }
+            }
+        };
+
+        Server server = new Server(new Context(), Protocol.HTTP, PORT, restlet);
+        server.getContext().getParameters().add("tracing", "false");
+        server.start();
+
+        Client client = new Client(new Context(), Protocol.HTTP);
+        client.getContext().getParameters().add("tracing", "false");
+        client.start();
+
+        try {
+            for (int round = 0; round < 3; round++) {
+                // Framing only, from an in-memory source
+                ByteBuffer buffer = ByteBuffer.allocate(8192);
+                ReadableByteChannel source = createRepresentation(size)
+                        .getChannel();
+                ReadableChunkingChannel channel = new ReadableChunkingChannel(
+                        source, buffer.capacity());
+                long framed = 0;
+                long startTime = System.nanoTime();
+
+                for (int n = channel.read(buffer); n != -1; n = channel
+                        .read(buffer)) {
+                    framed += n;
+                    buffer.clear();
+                }
+
+                print("Framing", framed, System.nanoTime() - startTime);
+
+                // Chunked response
+                startTime = System.nanoTime();
+                Response response = client.handle(new Request(Method.GET,
+                        "http://localhost:" + PORT + "/"));
+                long received = response.getEntity().exhaust();
+                print("GET", received, System.nanoTime() - startTime);
+
+                // Chunked request
+                startTime = System.nanoTime();
+                Request request = new Request(Method.POST, "http://localhost:"
+                        + PORT + "/");
+                request.setEntity(createRepresentation(size));
+                response = client.handle(request);
+
+                if (response.getStatus().isSuccess()) {
+                    response.getEntity().exhaust();
+                    print("POST", posted[0], System.nanoTime() - startTime);
+                } else {
+                    System.out.println("POST: " + response.getStatus());
+                }
+            }
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+    private static void print(String name, long bytes, long nanos) {
+        System.out.println(name + ": " + bytes + " bytes in "
+                + (nanos / 1000000) + " ms, "
+                + ((bytes * 1000L) / Math.max(1, nanos)) + " MB/s");
+    }
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+
+import org.restlet.data.MediaType;
+import org.restlet.ext.jackson.JacksonConverter;
+import org.restlet.ext.jackson.JacksonRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.representation.Variant;
+import org.restlet.test.ext.jackson.Customer;
+import org.restlet.test.ext.jackson.Invoice;
+
+public class TestJacksonConverter {
+
+    private static class NullOutputStream extends OutputStream {
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+
+        @Override
+        public void write(int b) {
+        }
+    }
+
+    private static Customer createCustomer() {
+        Customer result = new Customer();
+        result.setFirstName("Foo");
+        result.setLastName("Bar");
+
+        for (int i = 0; i < 10; i++) {
+            Invoice invoice = new Invoice();
+            invoice.setAmount(1000 + i);
+            invoice.setDate(new Date(1356533333882L));
+            invoice.setPaid((i % 2) == 0);
+            result.getInvoices().add(invoice);
+        }
+
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0])
+                : 100000;
+        MediaType mediaType = (args.length > 1) ? MediaType.valueOf(args[1])
+                : MediaType.APPLICATION_JSON;
+
+        Customer customer = createCustomer();
+        JacksonConverter converter = new JacksonConverter();
+        Variant variant = new Variant(mediaType);
+        OutputStream out = new NullOutputStream();
+        String text = new JacksonRepresentation<Customer>(mediaType, customer)
+                .getText();
+
+        for (int round = 0; round < 5; round++) {
+            long startTime = System.nanoTime();
+
+            for (int i = 0; i < iterations; i++) {
+                new JacksonRepresentation<Customer>(mediaType, customer)
+                        .write(out);
+                new JacksonRepresentation<Customer>(new StringRepresentation(
+                        text, mediaType), Customer.class).getObject();
+            }
+
+            long freshTime = System.nanoTime() - startTime;
+            startTime = System.nanoTime();
+
+            for (int i = 0; i < iterations; i++) {
+                Representation rep = converter.toRepresentation(customer,
+                        variant, null);
+                rep.write(out);
+                converter.toObject(new StringRepresentation(text, mediaType),
+                        Customer.class, null);
+            }
+
+            long sharedTime = System.nanoTime() - startTime;
+
+            System.out.println("Round " + round + " (" + mediaType + ")");
+            System.out.println("Fresh mappers: " + (freshTime / iterations)
+                    + " ns/round trip");
+            System.out.println("Shared mappers: " + (sharedTime / iterations)
+                    + " ns/round trip");
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import org.restlet.data.MediaType;
+import org.restlet.representation.OutputRepresentation;
+import org.restlet.representation.Representation;
+
+public class TestPipeThreads {
+
+    private static final byte[] CONTENT = new byte[4096];
+
+    private static Representation createRepresentation() {
+        return new OutputRepresentation(MediaType.APPLICATION_OCTET_STREAM) {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                for (int i = 0; i < 16; i++) {
+                    outputStream.write(CONTENT);
+                }
+            }
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : 5000;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        byte[] bytes = new byte[8192];
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+        for (int round = 0; round < 3; round++) {
+            long startThreads = threads.getTotalStartedThreadCount();
+            long startTime = System.nanoTime();
+            long read = 0;
+
+            for (int i = 0; i < iterations; i++) {
+                InputStream stream = createRepresentation().getStream();
+
+                for (int n = stream.read(bytes); n != -1; n = stream
+                        .read(bytes)) {
+                    read += n;
+                }
+
+                stream.close();
+            }
+
+            for (int i = 0; i < iterations; i++) {
+                ReadableByteChannel channel = createRepresentation()
+                        .getChannel();
+
+                for (int n = channel.read(buffer); n != -1; n = channel
+                        .read(buffer)) {
+                    read += n;
+                    buffer.clear();
+                }
+
+                channel.close();
+            }
+
+            long time = System.nanoTime() - startTime;
+            long started = threads.getTotalStartedThreadCount()
+                    - startThreads;
+
+            System.out.println("Round " + round + " (" + read
+                    + " bytes read)");
+            System.out.println("Time: " + (time / (2 * iterations))
+                    + " ns/pipe");
+            System.out.println("Threads started: " + started);
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.restlet.routing.Template;
+import org.restlet.routing.Variable;
+
+public class TestTemplateParse {
+
+    private static final String PCHAR = "[a-zA-Z\\d\\-\\.\\_\\~"
+            + "\\!\\$\\&\\'\\(\\)\\*\\+\\,\\;\\=\\:\\@]"
+            + "|(?:\\%[\\dABCDEFabcdef][\\dABCDEFabcdef])";
+
+    private static final String URI = "/users/jdoe/orders/12345";
+
+    public static void main(String[] args) {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0])
+                : 2000000;
+
+        Template template = new Template("/users/{user}/orders/{order}",
+                Template.MODE_EQUALS, Variable.TYPE_URI_SEGMENT, "", true,
+                false);
+
+        // Regex pattern formerly compiled by the template
+        Pattern pattern = Pattern.compile("/users/((?:" + PCHAR
+                + ")+)/orders/((?:" + PCHAR + ")+)");
+
+        for (int round = 0; round < 3; round++) {
+            long startTime = System.nanoTime();
+            long matched = 0;
+
+            for (int i = 0; i < iterations; i++) {
+                Map<String, Object> variables = new HashMap<String, Object>();
+                Matcher matcher = pattern.matcher(URI);
+
+                if (matcher.matches()) {
+                    variables.put("user", matcher.group(1));
+                    variables.put("order", matcher.group(2));
+                    matched += matcher.end();
+                }
+            }
+
+            long regexTime = System.nanoTime() - startTime;
+            startTime = System.nanoTime();
+
+            for (int i = 0; i < iterations; i++) {
+                Map<String, Object> variables = new HashMap<String, Object>();
+                matched += template.parse(URI, variables, false);
+            }
+
+            long scanTime = System.nanoTime() - startTime;
+
+            System.out.println("Round " + round + " (" + matched
+                    + " chars matched)");
+            System.out.println("Regex: " + (regexTime / iterations)
+                    + " ns/parse");
+            System.out.println("Scanner: " + (scanTime / iterations)
+                    + " ns/parse");
+        }
+    }
+
+}
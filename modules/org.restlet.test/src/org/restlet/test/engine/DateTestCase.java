@@ -33,8 +33,14 @@
 
 package org.restlet.test.engine;
 
+import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
 
+import org.restlet.engine.header.DateWriter;
 import org.restlet.engine.util.DateUtils;
 import org.restlet.test.RestletTestCase;
 
@@ -111,6 +117,43 @@ public class DateTestCase extends RestletTestCase {
         assertEquals(DATE_ASC_1, dateFormat1);
     }
 
+    /**
+     * Tests that the HTTP formats produce the same results as the JDK date
+     * formats.
+     */
+    @SuppressWarnings("unchecked")
+    public void testHttpFormats() throws Exception {
+        Random random = new Random(42);
+        List<?>[] formats = { DateUtils.FORMAT_ASC_TIME,
+                DateUtils.FORMAT_RFC_1036, DateUtils.FORMAT_RFC_1123 };
+
+        for (List<?> format : formats) {
+            SimpleDateFormat jdkFormat = new SimpleDateFormat(
+                    (String) format.get(0), Locale.US);
+            jdkFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+
+            for (int i = 0; i < 2000; i++) {
+                Date date = new Date(((random.nextLong() >>> 1) % 4102444800L)
+                        * 1000);
+                String text = DateUtils.format(date, format.get(0)
+                        .toString());
+                assertEquals(jdkFormat.format(date), text);
+                assertEquals(jdkFormat.parse(text),
+                        DateUtils.parse(text, (List<String>) format));
+            }
+        }
+
+        // Non canonical dates
+        assertEquals(DateUtils.parse("Fri Apr 05 23:20:50 1985",
+                DateUtils.FORMAT_ASC_TIME), DateUtils.parse(
+                "Fri Apr  5 23:20:50 1985", DateUtils.FORMAT_ASC_TIME));
+        SimpleDateFormat jdkFormat = new SimpleDateFormat(
+                DateUtils.FORMAT_RFC_1123.get(0), Locale.US);
+        assertEquals(jdkFormat.parse("Fri, 12 Apr 1985 25:20:50 GMT"),
+                DateUtils.parse("Fri, 12 Apr 1985 25:20:50 GMT",
+                        DateUtils.FORMAT_RFC_1123));
+    }
+
     /**
      * Tests for dates in the RFC 3339 format.
      */
@@ -138,4 +181,20 @@ public class DateTestCase extends RestletTestCase {
         assertEquals("1991-01-01T00:00:00Z", dateFormat4);
         assertEquals("1937-01-01T11:40:27.87Z", dateFormat5);
     }
+
+    /**
+     * Tests that the date header value is formatted once per second.
+     */
+    public void testDateWriter() throws Exception {
+        Date date = DateUtils.parse(DATE_RFC1123_1);
+        String value = DateWriter.write(date);
+        assertEquals(DATE_RFC1123_1, value);
+        assertSame(value,
+                DateWriter.write(new Date(date.getTime() + 999)));
+
+        Date next = new Date(date.getTime() + 1000);
+        assertEquals(DateUtils.format(next), DateWriter.write(next));
+        assertEquals(DATE_RFC1123_1, DateWriter.write(date));
+    }
+
 }
@@ -0,0 +1,253 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Encoding;
+import org.restlet.data.Language;
+import org.restlet.data.MediaType;
+import org.restlet.data.Preference;
+import org.restlet.data.Reference;
+import org.restlet.data.Tag;
+import org.restlet.engine.application.CompressionPool;
+import org.restlet.engine.application.DecodeRepresentation;
+import org.restlet.engine.application.EncodeCache;
+import org.restlet.engine.application.EncodeRepresentation;
+import org.restlet.engine.application.Encoder;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.service.EncoderService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the encoding and decoding of entities.
+ * 
+ * @author Jerome Louvel
+ */
+public class EncoderTestCase extends RestletTestCase {
+
+    private static final String TEXT = "Encoded text, encoded text, "
+            + "encoded text, encoded text, encoded text, encoded text.";
+
+    private String decode(byte[] content, Encoding encoding)
+            throws Exception {
+        Representation received = new ByteArrayRepresentation(content,
+                MediaType.TEXT_PLAIN);
+        received.getEncodings().add(encoding);
+        return new DecodeRepresentation(received).getText();
+    }
+
+    private byte[] encode(Representation representation) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        representation.write(out);
+        return out.toByteArray();
+    }
+
+    public void testCache() throws Exception {
+        EncodeCache cache = new EncodeCache(1024, 512);
+        Reference resourceRef = new Reference("http://localhost/a");
+        StringRepresentation entity = new StringRepresentation(TEXT);
+        entity.setTag(new Tag("v1", false));
+
+        EncodeRepresentation encoded = new EncodeRepresentation(Encoding.GZIP,
+                entity, 9, cache, resourceRef);
+        assertEquals(Representation.UNKNOWN_SIZE, encoded.getSize());
+        byte[] content = encode(encoded);
+        assertTrue(cache.getSize() > 0);
+
+        // Served from the cache
+        encoded = new EncodeRepresentation(Encoding.GZIP, entity, 9, cache,
+                resourceRef);
+        assertEquals(content.length, encoded.getSize());
+        assertTrue(Arrays.equals(content, encode(encoded)));
+        assertEquals(TEXT, decode(content, Encoding.GZIP));
+
+        // Other levels and tags are cached separately
+        long size = cache.getSize();
+        encode(new EncodeRepresentation(Encoding.GZIP, entity, 1, cache,
+                resourceRef));
+        assertTrue(cache.getSize() > size);
+        entity.setTag(new Tag("v2", false));
+        assertEquals(Representation.UNKNOWN_SIZE, new EncodeRepresentation(
+                Encoding.GZIP, entity, 9, cache, resourceRef).getSize());
+
+        // Untagged, weakly tagged or unidentified entities aren't cached
+        cache.clear();
+        entity.setTag(null);
+        encode(new EncodeRepresentation(Encoding.GZIP, entity, 9, cache,
+                resourceRef));
+        entity.setTag(new Tag("v1", true));
+        encode(new EncodeRepresentation(Encoding.GZIP, entity, 9, cache,
+                resourceRef));
+        entity.setTag(new Tag("v1", false));
+        encode(new EncodeRepresentation(Encoding.GZIP, entity, 9, cache));
+        assertEquals(0, cache.getSize());
+    }
+
+    public void testCacheSharedTag() throws Exception {
+        EncodeCache cache = new EncodeCache(1024, 512);
+        StringRepresentation first = new StringRepresentation(TEXT);
+        first.setTag(new Tag("v1", false));
+        StringRepresentation second = new StringRepresentation(TEXT
+                + " Other resource.");
+        second.setTag(new Tag("v1", false));
+
+        encode(new EncodeRepresentation(Encoding.GZIP, first, 9, cache,
+                new Reference("http://localhost/a")));
+        byte[] content = encode(new EncodeRepresentation(Encoding.GZIP,
+                second, 9, cache, new Reference("http://localhost/b")));
+        assertEquals(second.getText(), decode(content, Encoding.GZIP));
+
+        // Variants of the same resource sharing the tag
+        StringRepresentation french = new StringRepresentation(
+                "Texte encode.", MediaType.TEXT_PLAIN, Language.FRENCH);
+        french.setTag(new Tag("v1", false));
+        content = encode(new EncodeRepresentation(Encoding.GZIP, french, 9,
+                cache, new Reference("http://localhost/a")));
+        assertEquals(french.getText(), decode(content, Encoding.GZIP));
+
+        // The location reference takes precedence
+        second.setLocationRef("http://localhost/a");
+        content = encode(new EncodeRepresentation(Encoding.GZIP, second, 9,
+                cache, new Reference("http://localhost/b")));
+        assertEquals(TEXT, decode(content, Encoding.GZIP));
+    }
+
+    public void testPool() throws Exception {
+        CompressionPool pool = new CompressionPool(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompressionPool.DeflaterStream gos = pool.createGzipStream(out, 9);
+        gos.write(TEXT.getBytes());
+        gos.finish();
+        assertEquals(1, pool.getIdleCount());
+
+        // Compatible with the JDK
+        GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(
+                out.toByteArray()));
+        assertEquals(TEXT, BioUtils.toString(gis));
+
+        // Reused once finished, a second one being ended
+        CompressionPool.DeflaterStream gos1 = pool.createGzipStream(
+                new ByteArrayOutputStream(), 1);
+        CompressionPool.DeflaterStream gos2 = pool.createGzipStream(
+                new ByteArrayOutputStream(), 1);
+        assertEquals(0, pool.getIdleCount());
+        gos1.release();
+        gos2.finish();
+        assertEquals(1, pool.getIdleCount());
+
+        out = new ByteArrayOutputStream();
+        CompressionPool.DeflaterStream dos = pool.createDeflaterStream(out, 6);
+        dos.write(TEXT.getBytes());
+        dos.finish();
+        assertEquals(2, pool.getIdleCount());
+
+        // Inflater released at the end of the stream
+        assertEquals(TEXT, BioUtils.toString(pool.createInflaterStream(
+                new ByteArrayInputStream(out.toByteArray()))));
+        assertEquals(3, pool.getIdleCount());
+        pool.clear();
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    public void testPrecompressed() throws Exception {
+        File testDir = new File(System.getProperty("java.io.tmpdir"),
+                "EncoderTestCase" + System.currentTimeMillis());
+        testDir.mkdirs();
+
+        try {
+            File file = new File(testDir, "test.txt");
+            FileWriter writer = new FileWriter(file);
+            writer.write(TEXT);
+            writer.close();
+            File sibling = new File(testDir, "test.txt.gz");
+            GZIPOutputStream gos = new GZIPOutputStream(new FileOutputStream(
+                    sibling));
+            gos.write(TEXT.getBytes());
+            gos.close();
+
+            ClientInfo clientInfo = new ClientInfo();
+            clientInfo.getAcceptedEncodings().add(
+                    new Preference<Encoding>(Encoding.GZIP));
+            EncoderService service = new EncoderService();
+            Encoder encoder = new Encoder(null, false, true, service);
+            FileRepresentation entity = new FileRepresentation(file,
+                    MediaType.TEXT_PLAIN);
+
+            Representation encoded = encoder.encode(clientInfo, entity);
+            assertTrue(encoded instanceof EncodeRepresentation);
+
+            service.setPrecompressed(true);
+            encoded = encoder.encode(clientInfo, entity);
+            assertTrue(encoded instanceof FileRepresentation);
+            assertEquals(sibling, ((FileRepresentation) encoded).getFile());
+            assertEquals(Arrays.asList(Encoding.GZIP), encoded.getEncodings());
+            assertEquals(MediaType.TEXT_PLAIN, encoded.getMediaType());
+            assertEquals(TEXT, new DecodeRepresentation(encoded).getText());
+
+            // Outdated sibling
+            sibling.setLastModified(file.lastModified() - 10000);
+            encoded = encoder.encode(clientInfo, entity);
+            assertTrue(encoded instanceof EncodeRepresentation);
+        } finally {
+            BioUtils.delete(testDir, true);
+        }
+    }
+
+    public void testRoundTrip() throws Exception {
+        for (Encoding encoding : Arrays.asList(Encoding.GZIP,
+                Encoding.DEFLATE, Encoding.ZIP)) {
+            for (int level : new int[] { -1, 0, 1, 9 }) {
+                Representation encoded = new EncodeRepresentation(encoding,
+                        new StringRepresentation(TEXT), level, null);
+                assertEquals(Arrays.asList(encoding), encoded.getEncodings());
+                assertEquals(TEXT, decode(encode(encoded), encoding));
+            }
+        }
+    }
+
+}
@@ -37,11 +37,22 @@ import junit.framework.Test;
 import junit.framework.TestSuite;
 
 import org.restlet.test.engine.connector.AsynchroneTestCase;
+import org.restlet.test.engine.connector.ConnectionRegistryTestCase;
+import org.restlet.test.engine.connector.DnsCacheTestCase;
+import org.restlet.test.engine.connector.FileTransferTestCase;
+import org.restlet.test.engine.connector.HeaderLineCacheTestCase;
 import org.restlet.test.engine.connector.HttpInboundRequestTestCase;
+import org.restlet.test.engine.connector.PipelineRecoveryTestCase;
+import org.restlet.test.engine.connector.PipeliningTestCase;
+import org.restlet.test.engine.connector.SelectorThreadsTestCase;
 import org.restlet.test.engine.io.BioUtilsTestCase;
+import org.restlet.test.engine.io.BufferPoolTestCase;
 import org.restlet.test.engine.io.BufferTestCase;
+import org.restlet.test.engine.io.ReadableChunkingChannelTestCase;
 import org.restlet.test.engine.io.ReaderInputStreamTestCase;
 import org.restlet.test.engine.util.Base64TestCase;
+import org.restlet.test.engine.util.IndexedSeriesTestCase;
+import org.restlet.test.engine.util.TimingWheelTestCase;
 
 /**
  * Suite of unit tests for the Restlet Framework.
@@ -65,11 +76,16 @@ public class EngineTestSuite extends TestSuite {
         addTestSuite(AlphaNumericComparatorTestCase.class);
         addTestSuite(AnnotationUtilsTestCase.class);
         addTestSuite(Base64TestCase.class);
+        addTestSuite(BufferPoolTestCase.class);
         addTestSuite(BufferTestCase.class);
         addTestSuite(BioUtilsTestCase.class);
+        addTestSuite(ConnectionRegistryTestCase.class);
         addTestSuite(CookiesTestCase.class);
+        addTestSuite(DnsCacheTestCase.class);
+        addTestSuite(EncoderTestCase.class);
         addTestSuite(ContentTypeTestCase.class);
         addTestSuite(HeaderTestCase.class);
+        addTestSuite(HeaderLineCacheTestCase.class);
         addTestSuite(HttpCallTestCase.class);
         addTestSuite(AsynchroneTestCase.class);
         addTestSuite(HttpInboundRequestTestCase.class);
@@ -77,7 +93,14 @@ public class EngineTestSuite extends TestSuite {
         addTestSuite(UnclosableInputStreamTestCase.class);
         addTestSuite(UnclosableOutputStreamTestCase.class);
         addTestSuite(PreferencesTestCase.class);
+        addTestSuite(ReadableChunkingChannelTestCase.class);
         addTestSuite(ReaderInputStreamTestCase.class);
+        addTestSuite(SelectorThreadsTestCase.class);
+        addTestSuite(PipelineRecoveryTestCase.class);
+        addTestSuite(PipeliningTestCase.class);
+        addTestSuite(FileTransferTestCase.class);
+        addTestSuite(IndexedSeriesTestCase.class);
+        addTestSuite(TimingWheelTestCase.class);
 
         // Tests based on HTTP client connectors are not supported by the GAE
         // edition.
@@ -0,0 +1,206 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import java.net.InetSocketAddress;
+import java.util.Iterator;
+import java.util.List;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.data.Protocol;
+import org.restlet.engine.connector.Connection;
+import org.restlet.engine.connector.ConnectionRegistry;
+import org.restlet.engine.connector.HttpClientHelper;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the registry of active connections.
+ * 
+ * @author Jerome Louvel
+ */
+public class ConnectionRegistryTestCase extends RestletTestCase {
+
+    private static final InetSocketAddress ADDRESS_1 = InetSocketAddress
+            .createUnresolved("host1", 80);
+
+    private static final InetSocketAddress ADDRESS_2 = InetSocketAddress
+            .createUnresolved("host2", 80);
+
+    private HttpClientHelper helper;
+
+    /**
+     * Creates a connection to the given address, without socket channel.
+     * 
+     * @param address
+     *            The socket address.
+     * @return The new connection.
+     */
+    private Connection<Client> createConnection(InetSocketAddress address)
+            throws Exception {
+        return new Connection<Client>(this.helper, null, null, address, 1024,
+                1024);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.helper = new HttpClientHelper(new Client(new Context(),
+                Protocol.HTTP));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.helper = null;
+        super.tearDown();
+    }
+
+    public void testAddRemove() throws Exception {
+        ConnectionRegistry<Client> registry = new ConnectionRegistry<Client>(
+                true);
+        Connection<Client> connection1 = createConnection(ADDRESS_1);
+        Connection<Client> connection2 = createConnection(ADDRESS_1);
+        Connection<Client> connection3 = createConnection(ADDRESS_2);
+
+        assertTrue(registry.add(connection1));
+        assertTrue(registry.add(connection2));
+        assertTrue(registry.add(connection3));
+        assertFalse(registry.add(connection1));
+        assertEquals(3, registry.size());
+        assertTrue(registry.contains(connection2));
+
+        assertTrue(registry.remove(connection2));
+        assertFalse(registry.remove(connection2));
+        assertEquals(2, registry.size());
+        assertFalse(registry.contains(connection2));
+
+        registry.clear();
+        assertEquals(0, registry.size());
+        assertTrue(registry.getConnections(ADDRESS_1).isEmpty());
+        assertTrue(registry.getConnections(ADDRESS_2).isEmpty());
+    }
+
+    public void testListView() throws Exception {
+        ConnectionRegistry<Client> registry = new ConnectionRegistry<Client>(
+                false);
+        List<Connection<Client>> list = registry.asList();
+        Connection<Client> connection1 = createConnection(ADDRESS_1);
+        Connection<Client> connection2 = createConnection(ADDRESS_2);
+
+        assertTrue(list.add(connection1));
+        assertTrue(list.add(connection2));
+        assertEquals(2, registry.size());
+        assertTrue(list.contains(connection1));
+        assertTrue(list.get(0) == connection1 || list.get(1) == connection1);
+
+        try {
+            list.get(2);
+            fail("Index out of bounds expected");
+        } catch (IndexOutOfBoundsException e) {
+            // Expected
+        }
+
+        assertTrue(list.remove(connection1));
+        assertEquals(1, registry.size());
+        assertSame(connection2, list.remove(0));
+        assertTrue(registry.isEmpty());
+
+        // Not indexed by destination
+        registry.add(connection1);
+        assertTrue(registry.getConnections(ADDRESS_1).isEmpty());
+    }
+
+    public void testLookup() throws Exception {
+        ConnectionRegistry<Client> registry = new ConnectionRegistry<Client>(
+                true);
+        Connection<Client> connection1 = createConnection(ADDRESS_1);
+        Connection<Client> connection2 = createConnection(ADDRESS_1);
+        Connection<Client> connection3 = createConnection(ADDRESS_2);
+        registry.add(connection1);
+        registry.add(connection2);
+        registry.add(connection3);
+
+        List<Connection<Client>> connections = registry
+                .getConnections(ADDRESS_1);
+        assertEquals(2, connections.size());
+        assertTrue(connections.contains(connection1));
+        assertTrue(connections.contains(connection2));
+        assertEquals(1, registry.getConnections(ADDRESS_2).size());
+        assertTrue(registry.getConnections(
+                InetSocketAddress.createUnresolved("host3", 80)).isEmpty());
+
+        // The lookup result is read-only
+        try {
+            connections.clear();
+            fail("Read-only view expected");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+
+        // The lookup result is a view
+        registry.remove(connection1);
+        assertEquals(1, connections.size());
+        assertSame(connection2, connections.get(0));
+    }
+
+    public void testRemoveDuringLookup() throws Exception {
+        ConnectionRegistry<Client> registry = new ConnectionRegistry<Client>(
+                true);
+        Connection<Client> connection1 = createConnection(ADDRESS_1);
+        Connection<Client> connection2 = createConnection(ADDRESS_1);
+        registry.add(connection1);
+        registry.add(connection2);
+
+        int count = 0;
+
+        for (Iterator<Connection<Client>> iterator = registry.getConnections(
+                ADDRESS_1).iterator(); iterator.hasNext();) {
+            Connection<Client> connection = iterator.next();
+            count++;
+
+            // Removing every connection doesn't affect the lookup
+            registry.remove(connection1);
+            registry.remove(connection2);
+            assertNotNull(connection);
+        }
+
+        assertEquals(2, count);
+        assertTrue(registry.getConnections(ADDRESS_1).isEmpty());
+
+        // The destination can be indexed again after its removal
+        registry.add(connection1);
+        assertEquals(1, registry.getConnections(ADDRESS_1).size());
+    }
+
+}
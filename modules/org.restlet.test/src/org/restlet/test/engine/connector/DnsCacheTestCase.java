@@ -0,0 +1,121 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.Executor;
+
+import org.restlet.engine.connector.DnsCache;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the {@link DnsCache} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class DnsCacheTestCase extends RestletTestCase {
+
+    /**
+     * DNS cache resolving fixed addresses and counting the lookups.
+     */
+    private static class TestDnsCache extends DnsCache {
+
+        private volatile int lookups;
+
+        public TestDnsCache(long timeToLive, Executor refreshExecutor) {
+            super(timeToLive, timeToLive, true, refreshExecutor);
+        }
+
+        @Override
+        protected InetAddress[] lookup(String host)
+                throws UnknownHostException {
+            lookups++;
+
+            if ("unknown".equals(host)) {
+                throw new UnknownHostException(host);
+            }
+
+            return new InetAddress[] {
+                    InetAddress.getByAddress(host, new byte[] { 10, 0, 0, 1 }),
+                    InetAddress.getByAddress(host, new byte[] { 10, 0, 0, 2 }) };
+        }
+    }
+
+    public void testCaching() throws Exception {
+        TestDnsCache cache = new TestDnsCache(60000, null);
+        InetAddress first = cache.resolve("example");
+        InetAddress second = cache.resolve("example");
+        assertEquals(1, cache.lookups);
+        assertFalse(first.equals(second));
+        assertEquals(first, cache.resolve("example"));
+        assertEquals("example", first.getHostName());
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.resolve("unknown");
+                fail("Unknown host resolved");
+            } catch (UnknownHostException e) {
+                // Expected
+            }
+        }
+
+        assertEquals(2, cache.lookups);
+    }
+
+    public void testRefresh() throws Exception {
+        TestDnsCache cache = new TestDnsCache(200, new Executor() {
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+
+        cache.resolve("example");
+        cache.resolve("example");
+        assertEquals(1, cache.lookups);
+
+        // Refreshed in the last quarter of the time to live
+        Thread.sleep(160);
+        cache.resolve("example");
+        assertEquals(2, cache.lookups);
+        cache.resolve("example");
+        assertEquals(2, cache.lookups);
+
+        // Expired
+        Thread.sleep(250);
+        cache.resolve("example");
+        assertEquals(3, cache.lookups);
+    }
+
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Range;
+import org.restlet.data.Status;
+import org.restlet.engine.application.RangeRepresentation;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the direct transfer of file entities to the socket channel by
+ * the internal HTTP server.
+ * 
+ * @author Jerome Louvel
+ */
+public class FileTransferTestCase extends RestletTestCase {
+
+    private Client client;
+
+    private byte[] content;
+
+    private File file;
+
+    /**
+     * Returns the entity bytes received for a given resource.
+     * 
+     * @param port
+     *            The server port.
+     * @param path
+     *            The resource path.
+     * @return The entity bytes received.
+     */
+    private byte[] get(int port, String path) throws IOException {
+        Response response = this.client.handle(new Request(Method.GET,
+                "http://localhost:" + port + path));
+        assertTrue(response.getStatus().isSuccess());
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        BioUtils.copy(response.getEntity().getStream(), result);
+        return result.toByteArray();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.content = new byte[1024 * 1024 + 17];
+        new Random(0).nextBytes(this.content);
+        this.file = File.createTempFile("restlet-transfer", ".bin");
+        FileOutputStream fos = new FileOutputStream(this.file);
+
+        try {
+            fos.write(this.content);
+        } finally {
+            fos.close();
+        }
+
+        this.client = new Client(Protocol.HTTP);
+        this.client.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.client.stop();
+        this.client = null;
+        this.file.delete();
+        this.file = null;
+        this.content = null;
+        super.tearDown();
+    }
+
+    public void testTransfers() throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        String path = request.getResourceRef().getPath();
+                        Representation entity = new FileRepresentation(file,
+                                MediaType.APPLICATION_OCTET_STREAM);
+
+                        if ("/chunked".equals(path)) {
+                            entity.setSize(Representation.UNKNOWN_SIZE);
+                        } else if ("/range".equals(path)) {
+                            entity = new RangeRepresentation(entity,
+                                    new Range(1000, 300000));
+                            response.setStatus(Status.SUCCESS_PARTIAL_CONTENT);
+                        } else if ("/last".equals(path)) {
+                            entity = new RangeRepresentation(entity,
+                                    new Range(Range.INDEX_LAST, 5000));
+                            response.setStatus(Status.SUCCESS_PARTIAL_CONTENT);
+                        }
+
+                        response.setEntity(entity);
+                    }
+                });
+        server.start();
+
+        try {
+            int port = server.getEphemeralPort();
+            int length = this.content.length;
+
+            // Several times to reuse the persistent connection
+            for (int i = 0; i < 3; i++) {
+                assertTrue(Arrays.equals(this.content, get(port, "/full")));
+                assertTrue(Arrays.equals(this.content, get(port, "/chunked")));
+                assertTrue(Arrays.equals(
+                        Arrays.copyOfRange(this.content, 1000, 301000),
+                        get(port, "/range")));
+                assertTrue(Arrays.equals(Arrays.copyOfRange(this.content,
+                        length - 5000, length), get(port, "/last")));
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.restlet.engine.connector.HeaderLineCache;
+import org.restlet.engine.header.Header;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the {@link HeaderLineCache} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class HeaderLineCacheTestCase extends RestletTestCase {
+
+    public void testCachedLines() {
+        Header chunked = new Header("Transfer-Encoding", "chunked");
+        byte[] line = HeaderLineCache.getLine(chunked);
+        assertEquals("Transfer-Encoding: chunked\r\n", new String(line));
+        assertSame(line, HeaderLineCache.getLine(new Header(
+                "Transfer-Encoding", new String("chunked"))));
+
+        Header date = new Header("Date", "Tue, 15 Nov 1994 08:12:31 GMT");
+        line = HeaderLineCache.getLine(date);
+        assertSame(line, HeaderLineCache.getLine(date));
+
+        assertNull(HeaderLineCache.getLine(new Header("X-Custom", "value")));
+    }
+
+    public void testContentType() {
+        assertEquals("Content-Type: text/html\r\n", new String(HeaderLineCache
+                .getLine(new Header("Content-Type", "text/html"))));
+        assertNull(HeaderLineCache.getLine(new Header("Content-Type",
+                "multipart/form-data; boundary=1234")));
+    }
+
+    public void testNullValue() {
+        Header header = new Header("Server", null);
+        assertEquals("Server: null\r\n",
+                new String(HeaderLineCache.encode(header)));
+        assertEquals("Server: null\r\n",
+                new String(HeaderLineCache.getLine(header)));
+        assertEquals("Date: null\r\n", new String(HeaderLineCache
+                .getLine(new Header("Date", null))));
+    }
+
+    public void testWrite() {
+        Header header = new Header("X-Custom", "caf\u00e9 \u20ac");
+        ByteBuffer buffer = ByteBuffer.allocate(HeaderLineCache
+                .getLength(header));
+        HeaderLineCache.write(header, buffer);
+        assertFalse(buffer.hasRemaining());
+        assertTrue(Arrays.equals(buffer.array(),
+                HeaderLineCache.encode(header)));
+        assertEquals((byte) 0xE9, buffer.get(13));
+        assertEquals((byte) '?', buffer.get(15));
+    }
+
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.engine.connector.Connection;
+import org.restlet.engine.connector.ConnectionState;
+import org.restlet.engine.connector.HttpClientHelper;
+import org.restlet.engine.connector.HttpClientInboundWay;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the recovery of the requests awaiting their response when a
+ * client connection is closed or fails.
+ * 
+ * @author Jerome Louvel
+ */
+public class PipelineRecoveryTestCase extends RestletTestCase {
+
+    /**
+     * Client helper recording the requests sent again and the failed ones
+     * instead of handling them.
+     */
+    private static class RecordingHelper extends HttpClientHelper {
+
+        private final List<Response> failed = new ArrayList<Response>();
+
+        private final List<Response> resent = new ArrayList<Response>();
+
+        public RecordingHelper(boolean pipelining) {
+            super(new Client(createContext(pipelining), Protocol.HTTP));
+        }
+
+        @Override
+        public void onInboundError(Status status, Response message) {
+            if (message != null) {
+                this.failed.add(message);
+            }
+        }
+
+        @Override
+        public void resend(Response response, boolean first) {
+            this.resent.add(response);
+        }
+    }
+
+    /**
+     * Creates a client context.
+     * 
+     * @param pipelining
+     *            Indicates if the connections are pipelining.
+     * @return The client context.
+     */
+    private static Context createContext(boolean pipelining) {
+        Context result = new Context();
+        result.getParameters().add("pipeliningConnections",
+                Boolean.toString(pipelining));
+        return result;
+    }
+
+    /**
+     * Creates a connection without socket channel, awaiting the responses to
+     * two GET requests.
+     * 
+     * @param helper
+     *            The client helper.
+     * @return The connection.
+     */
+    private Connection<Client> createConnection(RecordingHelper helper)
+            throws Exception {
+        Connection<Client> result = new Connection<Client>(helper, null,
+                null, InetSocketAddress.createUnresolved("localhost", 80),
+                1024, 1024);
+        result.setState(ConnectionState.OPEN);
+
+        for (int i = 0; i < 2; i++) {
+            ((HttpClientInboundWay) result.getInboundWay())
+                    .addMessage(new Response(new Request(Method.GET,
+                            "http://localhost/" + i)));
+        }
+
+        return result;
+    }
+
+    public void testCloseWithoutPipelining() throws Exception {
+        RecordingHelper helper = new RecordingHelper(false);
+        Connection<Client> connection = createConnection(helper);
+        connection.setState(ConnectionState.CLOSING);
+        connection.getInboundWay().updateState();
+
+        assertTrue(helper.resent.isEmpty());
+        assertTrue(helper.failed.isEmpty());
+        assertEquals(2, ((HttpClientInboundWay) connection.getInboundWay())
+                .getMessages().size());
+    }
+
+    public void testClosePipelining() throws Exception {
+        RecordingHelper helper = new RecordingHelper(true);
+        Connection<Client> connection = createConnection(helper);
+        connection.setState(ConnectionState.CLOSING);
+        connection.getInboundWay().updateState();
+
+        assertEquals(2, helper.resent.size());
+        assertTrue(helper.failed.isEmpty());
+    }
+
+    public void testCommunicationErrorWithoutPipelining() throws Exception {
+        RecordingHelper helper = new RecordingHelper(false);
+        createConnection(helper).getInboundWay().onError(
+                Status.CONNECTOR_ERROR_COMMUNICATION);
+
+        assertTrue(helper.resent.isEmpty());
+        assertEquals(2, helper.failed.size());
+    }
+
+    public void testCommunicationErrorPipelining() throws Exception {
+        RecordingHelper helper = new RecordingHelper(true);
+        createConnection(helper).getInboundWay().onError(
+                Status.CONNECTOR_ERROR_COMMUNICATION);
+
+        assertEquals(2, helper.resent.size());
+        assertTrue(helper.failed.isEmpty());
+    }
+
+    public void testInternalErrorPipelining() throws Exception {
+        RecordingHelper helper = new RecordingHelper(true);
+        createConnection(helper).getInboundWay().onError(
+                Status.CONNECTOR_ERROR_INTERNAL);
+
+        assertTrue(helper.resent.isEmpty());
+        assertEquals(2, helper.failed.size());
+    }
+
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.Uniform;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the pipelining of requests by the internal HTTP client.
+ * 
+ * @author Jerome Louvel
+ */
+public class PipeliningTestCase extends RestletTestCase {
+
+    private Client client;
+
+    /**
+     * Sends GET requests asynchronously and checks that each response matches
+     * its request.
+     * 
+     * @param port
+     *            The server port.
+     * @param count
+     *            The number of requests.
+     */
+    private void testCalls(int port, int count) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(count);
+        final String[] results = new String[count];
+
+        Uniform responseHandler = new Uniform() {
+            public void handle(Request request, Response response) {
+                int index = Integer.parseInt(request.getResourceRef()
+                        .getQuery());
+
+                try {
+                    if (response.getStatus().isSuccess()) {
+                        results[index] = response.getEntityAsText();
+                    } else {
+                        results[index] = response.getStatus().toString();
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            }
+        };
+
+        for (int i = 0; i < count; i++) {
+            Request request = new Request(Method.GET, "http://localhost:"
+                    + port + "/?" + i);
+            request.setOnResponse(responseHandler);
+            this.client.handle(request);
+        }
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+
+        for (int i = 0; i < count; i++) {
+            assertEquals("Hello " + i, results[i]);
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Context clientContext = new Context();
+        clientContext.getParameters().add("pipeliningConnections", "true");
+        clientContext.getParameters().add("maxConnectionsPerHost", "1");
+        this.client = new Client(clientContext, Protocol.HTTP);
+        this.client.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.client.stop();
+        this.client = null;
+        super.tearDown();
+    }
+
+    public void testPipelinedGets() throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity(new StringRepresentation("Hello "
+                                + request.getResourceRef().getQuery(),
+                                MediaType.TEXT_PLAIN));
+                    }
+                });
+        server.start();
+
+        try {
+            testCalls(server.getEphemeralPort(), 50);
+        } finally {
+            server.stop();
+        }
+    }
+
+    public void testServerClose() throws Exception {
+        // Server answering a single request per connection
+        final ServerSocket serverSocket = new ServerSocket(0);
+        Thread serverThread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Socket socket = serverSocket.accept();
+
+                        try {
+                            answerFirst(socket);
+                        } finally {
+                            socket.close();
+                        }
+                    }
+                } catch (IOException e) {
+                    // Server socket closed
+                }
+            }
+        };
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        try {
+            testCalls(serverSocket.getLocalPort(), 5);
+        } finally {
+            serverSocket.close();
+        }
+    }
+
+    /**
+     * Reads the first request sent on a socket and answers it, ignoring the
+     * next pipelined ones until the client closes the connection.
+     * 
+     * @param socket
+     *            The socket.
+     * @throws IOException
+     */
+    private static void answerFirst(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        StringBuilder head = new StringBuilder();
+
+        while ((head.indexOf("\r\n\r\n") == -1)) {
+            int next = in.read();
+
+            if (next == -1) {
+                return;
+            }
+
+            head.append((char) next);
+        }
+
+        String target = head.substring(head.indexOf(" ") + 1,
+                head.indexOf(" HTTP/"));
+        String body = "Hello " + target.substring(target.indexOf('?') + 1);
+        OutputStream out = socket.getOutputStream();
+        out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\n"
+                + "Content-Length: " + body.length() + "\r\n\r\n" + body)
+                .getBytes("US-ASCII"));
+        out.flush();
+
+        // Close gracefully, ignoring the pending requests
+        socket.shutdownOutput();
+
+        while (in.read() != -1) {
+        }
+    }
+
+}
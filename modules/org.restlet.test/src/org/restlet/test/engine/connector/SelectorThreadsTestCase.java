@@ -0,0 +1,140 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.engine.connector.ConnectionHelper;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the distribution of connections among several NIO selector
+ * threads.
+ * 
+ * @author Jerome Louvel
+ */
+public class SelectorThreadsTestCase extends RestletTestCase {
+
+    private Client client;
+
+    private Server server;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        start(false);
+    }
+
+    /**
+     * Starts the server and client connectors.
+     * 
+     * @param eventDriven
+     *            Indicates if the controllers should be event driven.
+     */
+    private void start(boolean eventDriven) throws Exception {
+        Context serverContext = new Context();
+        serverContext.getParameters().add("selectorThreads", "4");
+        serverContext.getParameters().add("maxQueued", "-1");
+        serverContext.getParameters().add("eventDrivenControl",
+                Boolean.toString(eventDriven));
+        this.server = new Server(serverContext, Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity(new StringRepresentation("Hello "
+                                + request.getResourceRef().getQuery(),
+                                MediaType.TEXT_PLAIN));
+                    }
+                });
+        this.server.start();
+
+        Context clientContext = new Context();
+        clientContext.getParameters().add("selectorThreads", "2");
+        clientContext.getParameters().add("maxConnectionsPerHost", "8");
+        clientContext.getParameters().add("eventDrivenControl",
+                Boolean.toString(eventDriven));
+        this.client = new Client(clientContext, Protocol.HTTP);
+        this.client.start();
+    }
+
+    /**
+     * Stops the server and client connectors.
+     */
+    private void stop() throws Exception {
+        this.client.stop();
+        this.server.stop();
+        this.client = null;
+        this.server = null;
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        stop();
+        super.tearDown();
+    }
+
+    public void testChildControllers() throws Exception {
+        ConnectionHelper<?> helper = (ConnectionHelper<?>) this.server
+                .getContext().getAttributes()
+                .get("org.restlet.engine.helper");
+
+        assertEquals(4, helper.getChildControllers().size());
+    }
+
+    public void testEventDrivenGet() throws Exception {
+        stop();
+        start(true);
+        testGet();
+    }
+
+    public void testGet() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            Request request = new Request(Method.GET, "http://localhost:"
+                    + this.server.getEphemeralPort() + "/?" + i);
+            Response response = this.client.handle(request);
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertEquals("Hello " + i, response.getEntityAsText());
+        }
+    }
+
+}
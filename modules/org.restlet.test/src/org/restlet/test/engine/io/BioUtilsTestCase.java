@@ -34,14 +34,18 @@
 package org.restlet.test.engine.io;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringWriter;
+import java.util.Arrays;
 
 import org.restlet.data.CharacterSet;
 import org.restlet.data.MediaType;
 import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.engine.io.PipeStream;
 import org.restlet.representation.OutputRepresentation;
 import org.restlet.test.RestletTestCase;
 
@@ -83,4 +87,69 @@ public class BioUtilsTestCase extends RestletTestCase {
         }
     }
 
+    public void testPipeChunks() throws Exception {
+        final byte[] content = new byte[IoUtils.BUFFER_SIZE * 3 + 10];
+
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+
+        final PipeStream pipe = new PipeStream();
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    OutputStream out = pipe.getOutputStream();
+                    out.write(content);
+                    out.close();
+                } catch (IOException e) {
+                    // The reader fails
+                }
+            }
+        };
+        writer.start();
+
+        // A single write is read back in chunks of bounded size
+        InputStream is = pipe.getInputStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[content.length];
+
+        for (int n = is.read(buffer); n != -1; n = is.read(buffer)) {
+            assertTrue(n <= IoUtils.BUFFER_SIZE);
+            baos.write(buffer, 0, n);
+        }
+
+        writer.join();
+        assertTrue(Arrays.equals(content, baos.toByteArray()));
+    }
+
+    public void testPipeLargeContent() throws IOException {
+        final byte[] content = new byte[100000];
+
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+
+        OutputRepresentation or = new OutputRepresentation(
+                MediaType.APPLICATION_OCTET_STREAM) {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                outputStream.write(content[0]);
+                outputStream.write(content, 1, content.length - 2);
+                outputStream.write(content[content.length - 1]);
+            }
+        };
+
+        InputStream is = or.getStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+
+        for (int n = is.read(buffer); n != -1; n = is.read(buffer)) {
+            baos.write(buffer, 0, n);
+        }
+
+        assertEquals(-1, is.read());
+        assertTrue(Arrays.equals(content, baos.toByteArray()));
+    }
+
 }
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.restlet.engine.io.Buffer;
+import org.restlet.engine.io.BufferPool;
+import org.restlet.engine.io.BufferState;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the {@link BufferPool} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class BufferPoolTestCase extends RestletTestCase {
+
+    public void testAcquire() {
+        BufferPool pool = new BufferPool(32 * 1024, 2, false);
+        ByteBuffer bb1 = pool.acquire(16 * 1024);
+        assertEquals(16 * 1024, bb1.capacity());
+        assertEquals(1, pool.getMisses());
+
+        // Sizes are rounded up to the next size class
+        ByteBuffer bb2 = pool.acquire(3000);
+        assertEquals(4096, bb2.capacity());
+        assertEquals(2, pool.getAcquiredCount());
+
+        pool.release(bb1);
+        pool.release(bb2);
+        assertEquals(0, pool.getAcquiredCount());
+        assertEquals(2, pool.getPooledCount());
+        assertEquals(20 * 1024, pool.getPooledBytes());
+
+        // Pooled buffers are reused
+        assertSame(bb1, pool.acquire(10000));
+        assertEquals(2, pool.getMisses());
+        assertEquals(3, pool.getAcquisitions());
+    }
+
+    public void testLimits() {
+        BufferPool pool = new BufferPool(8192, 1, false);
+
+        // Larger sizes aren't pooled
+        ByteBuffer large = pool.acquire(10000);
+        assertEquals(10000, large.capacity());
+        pool.release(large);
+        assertEquals(0, pool.getPooledCount());
+
+        // Full size classes don't keep more buffers
+        ByteBuffer bb1 = pool.acquire(8192);
+        ByteBuffer bb2 = pool.acquire(8192);
+        pool.release(bb1);
+        pool.release(bb2);
+        assertEquals(1, pool.getPooledCount());
+
+        pool.clear();
+        assertEquals(0, pool.getPooledCount());
+    }
+
+    public void testPooledBuffer() throws IOException {
+        BufferPool pool = new BufferPool(8192, 16, false);
+        Buffer buffer = new Buffer(8192, pool);
+        assertTrue(buffer.isReleased());
+        assertTrue(buffer.isEmpty());
+        assertTrue(buffer.canFill());
+        assertEquals(8192, buffer.remaining());
+        assertEquals(0, pool.getAcquisitions());
+
+        buffer.fill("abc");
+        assertFalse(buffer.isReleased());
+        assertEquals(1, pool.getAcquiredCount());
+        buffer.flip();
+
+        StringBuilder sb = new StringBuilder();
+        buffer.drain(sb, BufferState.FILLING);
+        assertEquals("abc", sb.toString());
+
+        buffer.release();
+        assertTrue(buffer.isReleased());
+        assertTrue(buffer.isFilling());
+        assertEquals(0, pool.getAcquiredCount());
+        assertEquals(1, pool.getPooledCount());
+
+        buffer.fill("def");
+        assertEquals(1, pool.getMisses());
+    }
+
+}
@@ -34,9 +34,11 @@
 package org.restlet.test.engine.io;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.restlet.engine.io.Buffer;
 import org.restlet.engine.io.BufferState;
+import org.restlet.engine.io.ByteLineBuilder;
 import org.restlet.test.RestletTestCase;
 
 /**
@@ -46,6 +48,48 @@ import org.restlet.test.RestletTestCase;
  */
 public class BufferTestCase extends RestletTestCase {
 
+    public void testDrainByteLine() throws IOException {
+        Buffer buffer = new Buffer(8192);
+        ByteLineBuilder line = new ByteLineBuilder(4);
+        buffer.fill("GET /a HTTP/1.1\r");
+        buffer.flip();
+
+        BufferState state = buffer.drain(line, BufferState.IDLE);
+        assertEquals(BufferState.FILLED, state);
+
+        buffer.flip();
+        buffer.fill("\nHost: localhost\r\n\r\n");
+        buffer.flip();
+
+        state = buffer.drain(line, state);
+        assertEquals(BufferState.DRAINING, state);
+        assertEquals("GET /a HTTP/1.1", line.toString());
+
+        String[][] table = ByteLineBuilder.createTable(Arrays.asList("GET",
+                "PUT"));
+        String method = line.toString(line.getLineStart(),
+                line.getLineStart() + 3, table);
+        assertSame(table[3][0], method);
+        line.clear();
+
+        state = buffer.drain(line, BufferState.IDLE);
+        assertEquals(BufferState.DRAINING, state);
+        assertEquals("Host: localhost", line.toString());
+        byte[] bytes = line.getBytes();
+        int start = line.getLineStart();
+        line.keepLine();
+
+        state = buffer.drain(line, BufferState.IDLE);
+        assertEquals(BufferState.DRAINING, state);
+        assertEquals(0, line.length());
+
+        // Kept bytes must survive a reset
+        line.reset();
+        assertNotSame(bytes, line.getBytes());
+        assertEquals("Host: localhost",
+                ByteLineBuilder.toString(bytes, start, start + 15));
+    }
+
     public void testFlip() throws IOException {
         Buffer buffer = new Buffer(8192);
         buffer.fill("abcdefghijklm");
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import org.restlet.engine.io.ReadableChunkingChannel;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the {@link ReadableChunkingChannel} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class ReadableChunkingChannelTestCase extends RestletTestCase {
+
+    public void testChunking() throws IOException {
+        byte[] content = new byte[1000];
+
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + (i % 26));
+        }
+
+        ReadableChunkingChannel channel = new ReadableChunkingChannel(
+                Channels.newChannel(new ByteArrayInputStream(content)), 256);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        StringBuilder chunked = new StringBuilder();
+        int read = 0;
+
+        while ((read = channel.read(buffer)) != -1) {
+            assertTrue(read > 0);
+            buffer.flip();
+            chunked.append(new String(buffer.array(), 0, buffer.limit(),
+                    "US-ASCII"));
+            buffer.clear();
+        }
+
+        // Constant length chunk size lines, then the last chunk
+        String text = chunked.toString();
+        assertTrue(text.startsWith("0f9\r\n"));
+        assertTrue(text.endsWith("\r\n000\r\n\r\n"));
+
+        StringBuilder decoded = new StringBuilder();
+        int index = 0;
+        int size = Integer.parseInt(text.substring(0, 3), 16);
+
+        while (size > 0) {
+            index += 5;
+            decoded.append(text.substring(index, index + size));
+            index += size;
+            assertEquals("\r\n", text.substring(index, index + 2));
+            index += 2;
+            size = Integer.parseInt(text.substring(index, index + 3), 16);
+        }
+
+        assertEquals(new String(content, "US-ASCII"), decoded.toString());
+    }
+
+    public void testNothingAvailable() throws IOException {
+        ReadableChunkingChannel channel = new ReadableChunkingChannel(
+                new ReadableByteChannel() {
+                    public void close() {
+                    }
+
+                    public boolean isOpen() {
+                        return true;
+                    }
+
+                    public int read(ByteBuffer dst) {
+                        return 0;
+                    }
+                }, 256);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        buffer.position(10);
+
+        // Returns instead of waiting for data
+        assertEquals(0, channel.read(buffer));
+        assertEquals(10, buffer.position());
+        assertEquals(256, buffer.limit());
+    }
+
+    public void testSingleChunk() throws IOException {
+        ReadableChunkingChannel channel = new ReadableChunkingChannel(
+                Channels.newChannel(new ByteArrayInputStream("abc"
+                        .getBytes())), 256);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        buffer.limit(100);
+
+        assertEquals(10, channel.read(buffer));
+        assertEquals(100, buffer.limit());
+        assertEquals(7, channel.read(buffer));
+        assertEquals(-1, channel.read(buffer));
+        buffer.flip();
+        assertEquals("003\r\nabc\r\n000\r\n\r\n", new String(buffer.array(),
+                0, buffer.limit(), "US-ASCII"));
+    }
+
+}
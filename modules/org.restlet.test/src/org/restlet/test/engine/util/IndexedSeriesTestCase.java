@@ -0,0 +1,165 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.util;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.restlet.engine.header.Header;
+import org.restlet.engine.util.IndexedSeries;
+import org.restlet.test.RestletTestCase;
+import org.restlet.util.Series;
+
+/**
+ * Unit tests for the {@link IndexedSeries} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class IndexedSeriesTestCase extends RestletTestCase {
+
+    private static final String[] NAMES = { "Accept", "accept", "ACCEPT",
+            "Host", "Content-Type", "content-type", "X-Custom", "Via" };
+
+    private static void assertLookups(Series<Header> expected,
+            Series<Header> actual) {
+        for (String name : NAMES) {
+            for (boolean ignoreCase : new boolean[] { true, false }) {
+                assertEquals(expected.getFirst(name, ignoreCase),
+                        actual.getFirst(name, ignoreCase));
+                assertEquals(expected.getValues(name, ",", ignoreCase),
+                        actual.getValues(name, ",", ignoreCase));
+                assertEquals(expected.subList(name, ignoreCase),
+                        actual.subList(name, ignoreCase));
+            }
+        }
+    }
+
+    public void testConcurrentLookups() throws Exception {
+        final Series<Header> series = new IndexedSeries<Header>(Header.class);
+        final Throwable[] failure = new Throwable[1];
+        Thread[] readers = new Thread[4];
+
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 20000; j++) {
+                            String name = NAMES[j % NAMES.length];
+                            series.getFirst(name, true);
+                            series.getValues(name, ",", true);
+                            series.subList(name, true);
+                        }
+                    } catch (Throwable t) {
+                        failure[0] = t;
+                    }
+                }
+            };
+            readers[i].start();
+        }
+
+        for (int i = 0; i < 20000; i++) {
+            series.add(NAMES[i % NAMES.length], Integer.toString(i));
+
+            if (series.size() > 16) {
+                series.remove(0);
+            }
+        }
+
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        if (failure[0] != null) {
+            throw new AssertionError(failure[0]);
+        }
+    }
+
+    public void testIteratorRemove() {
+        Series<Header> series = new IndexedSeries<Header>(Header.class);
+        series.add("Accept", "text/html");
+        series.add("Host", "localhost");
+        series.add("accept", "text/plain");
+        assertEquals("text/html,text/plain", series.getValues("ACCEPT"));
+
+        for (Iterator<Header> iter = series.iterator(); iter.hasNext();) {
+            if ("text/html".equals(iter.next().getValue())) {
+                iter.remove();
+            }
+        }
+
+        assertEquals("text/plain", series.getValues("ACCEPT"));
+        assertEquals("text/plain", series.getFirstValue("accept"));
+        assertNull(series.getFirstValue("Accept"));
+        assertEquals("localhost", series.getFirstValue("host", true));
+        assertNull(series.getFirst("Unknown", true));
+    }
+
+    public void testLookups() {
+        Series<Header> expected = new Series<Header>(Header.class);
+        Series<Header> actual = new IndexedSeries<Header>(Header.class);
+        Random random = new Random(0);
+
+        for (int i = 0; i < 200; i++) {
+            int operation = random.nextInt(10);
+            String name = NAMES[random.nextInt(NAMES.length)];
+
+            if ((operation < 6) || expected.isEmpty()) {
+                Header header = new Header(name, Integer.toString(i));
+                expected.add(header);
+                actual.add(header);
+            } else if (operation < 7) {
+                int index = random.nextInt(expected.size());
+                Header header = new Header(name, Integer.toString(i));
+                expected.add(index, header);
+                actual.add(index, header);
+            } else if (operation < 8) {
+                int index = random.nextInt(expected.size());
+                Header header = new Header(name, Integer.toString(i));
+                expected.set(index, header);
+                actual.set(index, header);
+            } else if (operation < 9) {
+                expected.removeFirst(name, true);
+                actual.removeFirst(name, true);
+            } else {
+                expected.set(name, Integer.toString(i), false);
+                actual.set(name, Integer.toString(i), false);
+            }
+
+            assertEquals(expected, actual);
+            assertLookups(expected, actual);
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restlet.engine.util.TimingWheel;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the {@link TimingWheel} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class TimingWheelTestCase extends RestletTestCase {
+
+    public void testCancel() {
+        TimingWheel<String> wheel = new TimingWheel<String>(10, 8);
+        long now = System.currentTimeMillis();
+        wheel.schedule("a", now + 20);
+        wheel.schedule("b", now + 20);
+        assertTrue(wheel.cancel("a"));
+        assertFalse(wheel.cancel("a"));
+        assertEquals(1, wheel.size());
+
+        List<String> expired = new ArrayList<String>();
+        wheel.expire(now + 100, expired);
+        assertEquals(1, expired.size());
+        assertEquals("b", expired.get(0));
+        assertTrue(wheel.isEmpty());
+    }
+
+    public void testExpire() {
+        TimingWheel<String> wheel = new TimingWheel<String>(10, 8);
+        long now = System.currentTimeMillis();
+        wheel.schedule("a", now + 15);
+        wheel.schedule("b", now + 55);
+        assertEquals(2, wheel.size());
+
+        List<String> expired = new ArrayList<String>();
+        assertEquals(0, wheel.expire(now, expired));
+        assertEquals(1, wheel.expire(now + 30, expired));
+        assertEquals("a", expired.get(0));
+        assertEquals(1, wheel.size());
+
+        expired.clear();
+        assertEquals(1, wheel.expire(now + 70, expired));
+        assertEquals("b", expired.get(0));
+        assertTrue(wheel.isEmpty());
+    }
+
+    public void testLongDeadline() {
+        // Deadline beyond one rotation of the wheel
+        TimingWheel<String> wheel = new TimingWheel<String>(10, 4);
+        long now = System.currentTimeMillis();
+        wheel.schedule("a", now + 105);
+
+        List<String> expired = new ArrayList<String>();
+        assertEquals(0, wheel.expire(now + 50, expired));
+        assertEquals(0, wheel.expire(now + 90, expired));
+        assertEquals(1, wheel.expire(now + 130, expired));
+        assertEquals("a", expired.get(0));
+    }
+
+    public void testPastDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<String>(10, 8);
+        long now = System.currentTimeMillis();
+        wheel.schedule("a", now - 1000);
+
+        List<String> expired = new ArrayList<String>();
+        assertEquals(1, wheel.expire(now + 20, expired));
+    }
+
+    public void testReschedule() {
+        TimingWheel<String> wheel = new TimingWheel<String>(10, 8);
+        long now = System.currentTimeMillis();
+        wheel.schedule("a", now + 15);
+        wheel.schedule("a", now + 65);
+        assertEquals(1, wheel.size());
+
+        List<String> expired = new ArrayList<String>();
+        assertEquals(0, wheel.expire(now + 30, expired));
+        assertEquals(1, wheel.expire(now + 80, expired));
+    }
+
+}
@@ -33,17 +33,31 @@
 
 package org.restlet.test.ext.freemarker;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.restlet.Application;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.CharacterSet;
 import org.restlet.data.MediaType;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
 import org.restlet.engine.io.BioUtils;
+import org.restlet.ext.freemarker.ContextTemplateLoader;
+import org.restlet.ext.freemarker.TemplateFilter;
 import org.restlet.ext.freemarker.TemplateRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
 import org.restlet.test.RestletTestCase;
 
 import freemarker.template.Configuration;
+import freemarker.template.Template;
 
 /**
  * Unit test for the FreeMarker extension.
@@ -52,6 +66,98 @@ import freemarker.template.Configuration;
  */
 public class FreeMarkerTestCase extends RestletTestCase {
 
+    public void testContextTemplateLoader() throws Exception {
+        final String[] version = { "1" };
+        final int[] transfers = { 0 };
+        Context context = new Context();
+        context.setClientDispatcher(new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                Tag tag = new Tag(version[0]);
+
+                if (request.getConditions().getNoneMatch().contains(tag)) {
+                    response.setStatus(Status.REDIRECTION_NOT_MODIFIED);
+                } else {
+                    Representation template = new StringRepresentation(
+                            "Version=" + version[0] + " Value=${value}");
+                    template.setTag(tag);
+                    response.setEntity(template);
+                    transfers[0]++;
+                }
+            }
+        });
+
+        Configuration fmc = new Configuration();
+        fmc.setTemplateLoader(new ContextTemplateLoader(context,
+                "http://localhost/templates"));
+        fmc.setTemplateUpdateDelay(0);
+
+        Template template = fmc.getTemplate("test.ftl");
+        Map<String, Object> map = new TreeMap<String, Object>();
+        map.put("value", "myValue");
+        assertEquals("Version=1 Value=myValue", new TemplateRepresentation(
+                template, map, MediaType.TEXT_PLAIN).getText());
+
+        // Not modified templates aren't transferred nor parsed again
+        assertSame(template, fmc.getTemplate("test.ftl"));
+        assertEquals(1, transfers[0]);
+
+        version[0] = "2";
+        template = fmc.getTemplate("test.ftl");
+        assertEquals(2, transfers[0]);
+        assertEquals("Version=2 Value=myValue", new TemplateRepresentation(
+                template, map, MediaType.TEXT_PLAIN).getText());
+
+        // Templates evicted by FreeMarker are transferred again
+        fmc.clearTemplateCache();
+        assertNotSame(template, fmc.getTemplate("test.ftl"));
+        assertEquals(3, transfers[0]);
+    }
+
+    public void testDefaultConfiguration() throws Exception {
+        Application current = Application.getCurrent();
+
+        try {
+            Application.setCurrent(null);
+            assertSame(TemplateRepresentation.getDefaultConfiguration(),
+                    TemplateRepresentation.getDefaultConfiguration());
+
+            Application application = new Application(new Context());
+            Application.setCurrent(application);
+            Configuration config = TemplateRepresentation
+                    .getDefaultConfiguration();
+            assertSame(config, TemplateRepresentation.getDefaultConfiguration());
+            assertSame(config, application.getContext().getAttributes()
+                    .get(TemplateRepresentation.CONFIGURATION_ATTRIBUTE));
+
+            // Filters keep their own configuration unless told otherwise
+            TemplateFilter filter = new TemplateFilter();
+            assertNotSame(config, filter.getConfiguration());
+            assertNotSame(filter.getConfiguration(),
+                    new TemplateFilter().getConfiguration());
+            filter.setConfiguration(TemplateRepresentation
+                    .getDefaultConfiguration());
+            assertSame(config, filter.getConfiguration());
+        } finally {
+            Application.setCurrent(current);
+        }
+    }
+
+    public void testStream() throws Exception {
+        Map<String, Object> map = new TreeMap<String, Object>();
+        map.put("value", "caf\u00e9");
+        TemplateRepresentation tr = new TemplateRepresentation(
+                new StringRepresentation("Value=${value}"), map,
+                MediaType.TEXT_PLAIN);
+        tr.setCharacterSet(CharacterSet.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tr.write(out);
+        assertEquals("Value=caf\u00e9", out.toString("UTF-8"));
+        assertEquals("Value=caf\u00e9",
+                BioUtils.toString(tr.getStream(), CharacterSet.UTF_8));
+    }
+
     public void testTemplate() throws Exception {
         // Create a temporary directory for the tests
         final File testDir = new File(System.getProperty("java.io.tmpdir"),
@@ -36,10 +36,15 @@ package org.restlet.test.ext.jackson;
 import java.util.Date;
 
 import org.restlet.data.MediaType;
+import org.restlet.ext.jackson.JacksonConverter;
 import org.restlet.ext.jackson.JacksonRepresentation;
+import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
+import org.restlet.representation.Variant;
 import org.restlet.test.RestletTestCase;
 
+import com.fasterxml.jackson.databind.SerializationFeature;
+
 /**
  * Unit test for the Jackson extension.
  * 
@@ -78,6 +83,53 @@ public class JacksonTestCase extends RestletTestCase {
         return invoice;
     }
 
+    public void testConverter() throws Exception {
+        JacksonConverter converter = new JacksonConverter();
+        Customer customer = createCustomer();
+        Representation rep = converter.toRepresentation(customer, new Variant(
+                MediaType.APPLICATION_JSON), null);
+        String text = rep.getText();
+        assertTrue(text.startsWith("{\"firstName\":\"Foo\""));
+
+        Customer result = converter.toObject(new StringRepresentation(text,
+                MediaType.APPLICATION_JSON), Customer.class, null);
+        verify(customer, result);
+
+        // The mappers, readers and writers are shared between conversions
+        assertSame(converter.getObjectMapper(MediaType.APPLICATION_JSON),
+                converter.getObjectMapper(MediaType.APPLICATION_JSON));
+        assertSame(converter.getObjectReader(MediaType.APPLICATION_JSON,
+                Customer.class), converter.getObjectReader(
+                MediaType.APPLICATION_JSON, Customer.class));
+        assertSame(converter.getObjectWriter(MediaType.APPLICATION_JSON,
+                Customer.class), ((JacksonRepresentation<?>) rep)
+                .getObjectWriter());
+        assertNotSame(converter.getObjectMapper(MediaType.APPLICATION_JSON),
+                converter.getObjectMapper(MediaType.APPLICATION_YAML));
+
+        // Customizing the mapper of a representation releases the shared
+        // writer
+        JacksonRepresentation<?> jacksonRep = (JacksonRepresentation<?>) converter
+                .toRepresentation(customer, new Variant(
+                        MediaType.APPLICATION_JSON), null);
+        jacksonRep.getObjectMapper().configure(
+                SerializationFeature.INDENT_OUTPUT, true);
+        assertTrue(jacksonRep.getText().contains("\n"));
+        assertNotSame(converter.getObjectWriter(MediaType.APPLICATION_JSON,
+                Customer.class), jacksonRep.getObjectWriter());
+        assertFalse(converter.toRepresentation(customer,
+                new Variant(MediaType.APPLICATION_JSON), null).getText()
+                .contains("\n"));
+
+        Invoice invoice = createInvoice();
+        rep = converter.toRepresentation(invoice, new Variant(
+                MediaType.TEXT_CSV), null);
+        text = rep.getText();
+        assertEquals("1356533333882,12456,false\n", text);
+        verify(invoice, converter.toObject(new StringRepresentation(text,
+                MediaType.TEXT_CSV), Invoice.class, null));
+    }
+
     public void testCsv() throws Exception {
         Invoice invoice = createInvoice();
         JacksonRepresentation<Invoice> rep = new JacksonRepresentation<Invoice>(
@@ -35,15 +35,20 @@ package org.restlet.test.ext.velocity;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.util.Date;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.apache.velocity.Template;
+
 import org.restlet.data.LocalReference;
 import org.restlet.data.MediaType;
 import org.restlet.data.Reference;
 import org.restlet.engine.io.BioUtils;
+import org.restlet.ext.velocity.TemplateCache;
 import org.restlet.ext.velocity.TemplateRepresentation;
 import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.ClientResource;
 import org.restlet.test.RestletTestCase;
 
@@ -83,6 +88,52 @@ public class VelocityTestCase extends RestletTestCase {
         BioUtils.delete(testDir, true);
     }
 
+    public void testTemplateCache() throws Exception {
+        TemplateCache cache = new TemplateCache(1);
+        Reference ref = new Reference("http://localhost/templates/test.vm");
+        Date date = new Date(1356533333000L);
+
+        Representation templateRep = new StringRepresentation("Value=$value");
+        templateRep.setLocationRef(ref);
+        templateRep.setModificationDate(date);
+        Template template = cache.getTemplate(templateRep);
+
+        // The same template version isn't parsed again
+        templateRep = new StringRepresentation("Value=$value");
+        templateRep.setLocationRef(ref);
+        templateRep.setModificationDate(date);
+        assertSame(template, cache.getTemplate(templateRep));
+        assertEquals(1, cache.size());
+
+        // A modified template is parsed again
+        templateRep = new StringRepresentation("Other=$value");
+        templateRep.setLocationRef(ref);
+        templateRep.setModificationDate(new Date(date.getTime() + 1000L));
+        Template modified = cache.getTemplate(templateRep);
+        assertNotSame(template, modified);
+
+        Map<String, Object> map = new TreeMap<String, Object>();
+        map.put("value", "myValue");
+        assertEquals("Other=myValue", new TemplateRepresentation(modified,
+                map, MediaType.TEXT_PLAIN).getText());
+
+        // Templates without location or validators aren't cached
+        templateRep = new StringRepresentation("Value=$value");
+        templateRep.setModificationDate(date);
+        cache.getTemplate(templateRep);
+        templateRep = new StringRepresentation("Value=$value");
+        templateRep.setLocationRef(ref);
+        assertNotSame(modified, cache.getTemplate(templateRep));
+        assertEquals(1, cache.size());
+
+        cache.invalidate(ref);
+        assertEquals(0, cache.size());
+
+        // The Velocity engine is shared
+        assertSame(cache.getEngine(), cache.getEngine());
+        assertSame(TemplateCache.getCurrent(), TemplateCache.getCurrent());
+    }
+
     public void testStandardTemplate() throws Exception {
         // Create a temporary directory for the tests
         final File testDir = new File(System.getProperty("java.io.tmpdir"),
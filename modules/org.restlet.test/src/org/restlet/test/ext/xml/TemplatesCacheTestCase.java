@@ -0,0 +1,222 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.xml;
+
+import java.io.ByteArrayInputStream;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+
+import org.restlet.Application;
+import org.restlet.Context;
+import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
+import org.restlet.data.Tag;
+import org.restlet.ext.xml.PooledTemplates;
+import org.restlet.ext.xml.TemplatesCache;
+import org.restlet.ext.xml.TransformRepresentation;
+import org.restlet.ext.xml.internal.ContextResolver;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the {@link TemplatesCache} and {@link PooledTemplates}
+ * classes.
+ * 
+ * @author Jerome Louvel
+ */
+public class TemplatesCacheTestCase extends RestletTestCase {
+
+    private static final String OUTPUT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><buyer>cust123</buyer>";
+
+    private static final String SOURCE = "<?xml version=\"1.0\"?>"
+            + "<purchase id=\"p001\">" + "<customer db=\"cust123\"/>"
+            + "<product db=\"prod345\">" + "<amount>23.45</amount>"
+            + "</product>" + "</purchase>";
+
+    private static final String XSLT = "<?xml version=\"1.0\"?>"
+            + "<xsl:transform xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\" version=\"1.0\">"
+            + "<xsl:template match =\"customer\">"
+            + "<buyer><xsl:value-of select=\"@db\"/></buyer>"
+            + "</xsl:template><xsl:template match =\"amount\"/>"
+            + "</xsl:transform>";
+
+    private Representation createSheet(String location, String tag) {
+        Representation result = new StringRepresentation(XSLT,
+                MediaType.TEXT_XML);
+
+        if (location != null) {
+            result.setLocationRef(location);
+        }
+
+        if (tag != null) {
+            result.setTag(new Tag(tag));
+        }
+
+        return result;
+    }
+
+    public void testCache() throws Exception {
+        TemplatesCache cache = new TemplatesCache(2);
+        String location = "http://localhost/sheets/one.xsl";
+
+        Templates templates = cache.get(createSheet(location, "v1"), null);
+        assertSame(templates, cache.get(createSheet(location, "v1"), null));
+        assertEquals(1, cache.size());
+
+        // A new version of the sheet is compiled again
+        Templates newTemplates = cache.get(createSheet(location, "v2"), null);
+        assertNotSame(templates, newTemplates);
+        assertSame(newTemplates, cache.get(createSheet(location, "v2"), null));
+        assertEquals(1, cache.size());
+
+        // Sheets without location or validators are never cached
+        assertNotSame(cache.get(createSheet(null, "v1"), null),
+                cache.get(createSheet(null, "v1"), null));
+        assertNotSame(cache.get(createSheet(location, null), null),
+                cache.get(createSheet(location, null), null));
+        assertEquals(1, cache.size());
+
+        // Sheets compiled with other URI resolvers are cached separately
+        Context context = new Context();
+        Templates resolved = cache.get(createSheet(location, "v2"),
+                new ContextResolver(context));
+        assertNotSame(newTemplates, resolved);
+        assertSame(resolved, cache.get(createSheet(location, "v2"),
+                new ContextResolver(context)));
+        assertNotSame(resolved, cache.get(createSheet(location, "v2"),
+                new ContextResolver(new Context())));
+        assertEquals(2, cache.size());
+        cache.invalidate(new Reference(location));
+        assertEquals(0, cache.size());
+        newTemplates = cache.get(createSheet(location, "v2"), null);
+
+        // Least recently used sheets are evicted
+        cache.get(createSheet("http://localhost/sheets/two.xsl", "v1"), null);
+        cache.get(createSheet("http://localhost/sheets/three.xsl", "v1"),
+                null);
+        assertEquals(2, cache.size());
+        assertNotSame(newTemplates,
+                cache.get(createSheet(location, "v2"), null));
+
+        cache.invalidate(new Reference(location));
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void testCurrent() throws Exception {
+        Application application = new Application(new Context());
+        Application.setCurrent(application);
+
+        try {
+            TemplatesCache cache = TemplatesCache.getCurrent();
+            assertSame(cache, TemplatesCache.getCurrent());
+            assertSame(cache, application.getContext().getAttributes()
+                    .get(TemplatesCache.ATTRIBUTE_NAME));
+
+            Application.setCurrent(new Application(new Context()));
+            assertNotSame(cache, TemplatesCache.getCurrent());
+        } finally {
+            Application.setCurrent(null);
+        }
+    }
+
+    public void testFilter() throws Exception {
+        TemplatesCache cache = new TemplatesCache(1);
+        Representation sheet = createSheet("http://localhost/sheets/one.xsl",
+                "v1");
+        org.restlet.ext.xml.Transformer filter = new org.restlet.ext.xml.Transformer(
+                org.restlet.ext.xml.Transformer.MODE_RESPONSE, sheet);
+        filter.setTemplatesCache(cache);
+
+        Templates templates = filter.getTemplates();
+        assertSame(templates, filter.getTemplates());
+
+        // The cache is checked again for each call
+        sheet.setTag(new Tag("v2"));
+        assertNotSame(templates, filter.getTemplates());
+        assertEquals(1, cache.size());
+
+        // Sheets that can't be cached are kept by the filter
+        filter.setTransformSheet(createSheet(null, null));
+        templates = filter.getTemplates();
+        assertSame(templates, filter.getTemplates());
+        assertEquals(1, cache.size());
+    }
+
+    public void testPool() throws Exception {
+        PooledTemplates templates = new TemplatesCache(1).get(
+                createSheet(null, null), null);
+        Transformer transformer = templates.acquire();
+        transformer.setParameter("param", "value");
+        templates.release(transformer);
+        assertEquals(1, templates.getIdleCount());
+
+        // The released transformer is reset and reused
+        Transformer reused = templates.acquire();
+        assertSame(transformer, reused);
+        assertNull(reused.getParameter("param"));
+        assertEquals(0, templates.getIdleCount());
+        assertNotSame(reused, templates.acquire());
+    }
+
+    public void testTransform() throws Exception {
+        TemplatesCache cache = new TemplatesCache(1);
+
+        for (int i = 0; i < 3; i++) {
+            // The transient sheet is only read when first compiled
+            Representation sheet = new InputRepresentation(
+                    new ByteArrayInputStream(XSLT.getBytes("UTF-8")),
+                    MediaType.TEXT_XML);
+            sheet.setLocationRef("http://localhost/sheets/one.xsl");
+            sheet.setTag(new Tag("v1"));
+
+            if (i > 0) {
+                sheet.exhaust();
+            }
+
+            TransformRepresentation tr = new TransformRepresentation(
+                    new StringRepresentation(SOURCE, MediaType.TEXT_XML),
+                    sheet);
+            tr.setTemplatesCache(cache);
+            assertEquals(OUTPUT, tr.getText());
+        }
+
+        assertEquals(1, cache.size());
+    }
+
+}
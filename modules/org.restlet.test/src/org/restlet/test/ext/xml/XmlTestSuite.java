@@ -49,6 +49,7 @@ public class XmlTestSuite extends TestCase {
         result.setName("XML extension");
         result.addTestSuite(ResolvingTransformerTestCase.class);
         result.addTestSuite(RestletXmlTestCase.class);
+        result.addTestSuite(TemplatesCacheTestCase.class);
         result.addTestSuite(TransformerTestCase.class);
         result.addTestSuite(TransformRepresentationTestCase.class);
         return result;
@@ -0,0 +1,181 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.xstream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restlet.data.MediaType;
+import org.restlet.ext.xstream.XstreamConverter;
+import org.restlet.ext.xstream.XstreamRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.representation.Variant;
+import org.restlet.test.RestletTestCase;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+
+/**
+ * Unit test for the XStream extension.
+ * 
+ * @author Jerome Louvel
+ */
+public class XstreamTestCase extends RestletTestCase {
+
+    @XStreamAlias("customer")
+    public static class Customer {
+
+        @XStreamAlias("first")
+        private String firstName;
+
+        private String lastName;
+
+        public Customer() {
+        }
+
+        public Customer(String firstName, String lastName) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+    }
+
+    @XStreamAlias("order")
+    public static class Order {
+
+        private Object owner;
+
+        public Order() {
+        }
+
+        public Order(Object owner) {
+            this.owner = owner;
+        }
+
+        public Object getOwner() {
+            return owner;
+        }
+    }
+
+    private void verify(Customer expected, Customer actual) {
+        assertEquals(expected.getFirstName(), actual.getFirstName());
+        assertEquals(expected.getLastName(), actual.getLastName());
+    }
+
+    public void testConverter() throws Exception {
+        XstreamConverter converter = new XstreamConverter();
+        Customer customer = new Customer("Foo", "Bar");
+
+        for (MediaType mediaType : new MediaType[] { MediaType.TEXT_XML,
+                MediaType.APPLICATION_JSON }) {
+            Representation rep = converter.toRepresentation(customer,
+                    new Variant(mediaType), null);
+            String text = rep.getText();
+            assertTrue(text.contains("customer"));
+            assertTrue(text.contains("first"));
+            assertFalse(text.contains("firstName"));
+
+            // Round trip with the annotations registered by the converter
+            verify(customer, converter.toObject(new StringRepresentation(
+                    text, mediaType), Customer.class, null));
+
+            // The annotations of the target class are detected on unmarshaling
+            verify(customer, new XstreamConverter().toObject(
+                    new StringRepresentation(text, mediaType), Customer.class,
+                    null));
+
+            // The XStream objects are shared between conversions
+            assertSame(converter.getXstream(mediaType),
+                    ((XstreamRepresentation<?>) rep).getXstream());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testConverterList() throws Exception {
+        XstreamConverter converter = new XstreamConverter();
+        List<Customer> customers = new ArrayList<Customer>();
+        customers.add(new Customer("Foo", "Bar"));
+        customers.add(new Customer("Bar", "Foo"));
+
+        // The shared XStream object is already in use before the customers
+        converter.toRepresentation("Foo", new Variant(MediaType.TEXT_XML),
+                null).getText();
+        String text = converter.toRepresentation(customers,
+                new Variant(MediaType.TEXT_XML), null).getText();
+        assertTrue(text.contains("<customer>"));
+        assertTrue(text.contains("<first>Foo</first>"));
+        assertFalse(text.contains("XstreamTestCase"));
+
+        List<Customer> result = converter.toObject(new StringRepresentation(
+                text, MediaType.TEXT_XML), List.class, null);
+        assertEquals(2, result.size());
+        verify(customers.get(0), result.get(0));
+        verify(customers.get(1), result.get(1));
+    }
+
+    public void testConverterObjectField() throws Exception {
+        XstreamConverter converter = new XstreamConverter();
+        Customer customer = new Customer("Foo", "Bar");
+        String text = converter.toRepresentation(new Order(customer),
+                new Variant(MediaType.TEXT_XML), null).getText();
+        assertTrue(text.contains("<order>"));
+        assertTrue(text.contains("class=\"customer\""));
+        assertTrue(text.contains("<first>Foo</first>"));
+        assertFalse(text.contains("XstreamTestCase"));
+
+        Order result = converter.toObject(new StringRepresentation(text,
+                MediaType.TEXT_XML), Order.class, null);
+        verify(customer, (Customer) result.getOwner());
+    }
+
+    public void testRepresentation() throws Exception {
+        Customer customer = new Customer("Foo", "Bar");
+        XstreamRepresentation<Customer> rep = new XstreamRepresentation<Customer>(
+                customer);
+        String text = rep.getText();
+        assertTrue(text.contains("<first>Foo</first>"));
+
+        rep = new XstreamRepresentation<Customer>(new StringRepresentation(
+                text, MediaType.APPLICATION_XML), Customer.class);
+        verify(customer, rep.getObject());
+    }
+
+}
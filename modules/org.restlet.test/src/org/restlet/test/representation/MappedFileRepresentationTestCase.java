@@ -0,0 +1,140 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.representation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.restlet.data.MediaType;
+import org.restlet.data.Range;
+import org.restlet.engine.application.RangeRepresentation;
+import org.restlet.engine.io.MappedFileCache;
+import org.restlet.representation.MappedFileRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test case for the {@link MappedFileRepresentation} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class MappedFileRepresentationTestCase extends RestletTestCase {
+
+    private File file;
+
+    private void write(String content) throws IOException {
+        FileOutputStream fos = new FileOutputStream(this.file);
+
+        try {
+            fos.write(content.getBytes("US-ASCII"));
+        } finally {
+            fos.close();
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.file = File.createTempFile("restlet-mapped", ".txt");
+        write("1234567890");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.file.delete();
+        this.file = null;
+        super.tearDown();
+    }
+
+    public void testEviction() throws Exception {
+        MappedFileCache cache = new MappedFileCache(5);
+        MappedFileRepresentation mfr = new MappedFileRepresentation(file,
+                MediaType.TEXT_PLAIN, -1, cache);
+        assertEquals("1234567890", mfr.getText());
+
+        // Over the cap but still referenced
+        assertEquals(10, cache.getMappedBytes());
+        mfr.release();
+        assertEquals(0, cache.getMappedBytes());
+    }
+
+    public void testModification() throws Exception {
+        MappedFileCache cache = new MappedFileCache(1024);
+        MappedFileRepresentation mfr = new MappedFileRepresentation(file,
+                MediaType.TEXT_PLAIN, -1, cache);
+        assertEquals("1234567890", mfr.getText());
+        mfr.release();
+
+        write("abcdefghijklmnopqrstuvwxyz");
+        mfr = new MappedFileRepresentation(file, MediaType.TEXT_PLAIN, -1,
+                cache);
+        assertEquals("abcdefghijklmnopqrstuvwxyz", mfr.getText());
+        assertEquals(26, cache.getMappedBytes());
+        mfr.release();
+    }
+
+    public void testRange() throws Exception {
+        MappedFileRepresentation mfr = new MappedFileRepresentation(file,
+                MediaType.TEXT_PLAIN, -1, new MappedFileCache(1024));
+        assertEquals(5, mfr.getBuffer(new Range(2, 5)).remaining());
+        assertEquals('3', mfr.getBuffer(new Range(2, 5)).get());
+        assertEquals('8', mfr.getBuffer(new Range(Range.INDEX_LAST, 3))
+                .get());
+        assertEquals(8, mfr.getBuffer(new Range(2, 100)).remaining());
+
+        RangeRepresentation rr = new RangeRepresentation(mfr, new Range(2, 5));
+        assertEquals("34567", rr.getText());
+        mfr.release();
+    }
+
+    public void testSharing() throws Exception {
+        MappedFileCache cache = new MappedFileCache(1024);
+        MappedFileRepresentation mfr1 = new MappedFileRepresentation(file,
+                MediaType.TEXT_PLAIN, -1, cache);
+        MappedFileRepresentation mfr2 = new MappedFileRepresentation(file,
+                MediaType.TEXT_PLAIN, -1, cache);
+        assertEquals("1234567890", mfr1.getText());
+        assertEquals("1234567890", mfr2.getText());
+        assertEquals(10, cache.getMappedBytes());
+
+        // Still cached once released
+        mfr1.release();
+        mfr2.release();
+        assertEquals(10, cache.getMappedBytes());
+        cache.clear();
+        assertEquals(0, cache.getMappedBytes());
+    }
+
+}
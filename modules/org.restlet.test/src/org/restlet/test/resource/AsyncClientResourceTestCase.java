@@ -0,0 +1,212 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.resource.ClientResource;
+import org.restlet.resource.Get;
+import org.restlet.resource.ResourceException;
+import org.restlet.resource.Result;
+import org.restlet.resource.ResultFuture;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the asynchronous methods of the client resource.
+ * 
+ * @author Jerome Louvel
+ */
+public class AsyncClientResourceTestCase extends RestletTestCase {
+
+    /**
+     * Annotated interface with an asynchronous method.
+     */
+    public static interface AsyncResource {
+
+        @Get
+        Future<String> represent();
+
+    }
+
+    private Client client;
+
+    private Server server;
+
+    /**
+     * Creates a client resource targeting the test server.
+     * 
+     * @param query
+     *            The query sent to the server.
+     * @return The client resource.
+     */
+    private ClientResource createClientResource(String query) {
+        ClientResource result = new ClientResource("http://localhost:"
+                + this.server.getActualPort() + "/?" + query);
+        result.setNext(this.client);
+        return result;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        String query = request.getResourceRef().getQuery();
+
+                        if ("missing".equals(query)) {
+                            response.setStatus(Status.CLIENT_ERROR_NOT_FOUND);
+                        } else {
+                            response.setEntity(new StringRepresentation(
+                                    "Hello " + query, MediaType.TEXT_PLAIN));
+                        }
+                    }
+                });
+        this.server.start();
+        this.client = new Client(new Context(), Protocol.HTTP);
+        this.client.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.client.stop();
+        this.client = null;
+        this.server.stop();
+        this.server = null;
+        super.tearDown();
+    }
+
+    public void testConnectionError() throws Exception {
+        ClientResource clientResource = new ClientResource(
+                "http://unknown.invalid/");
+        clientResource.setNext(this.client);
+        ResultFuture<String> future = clientResource.getAsync(String.class);
+
+        try {
+            future.get(30, TimeUnit.SECONDS);
+            fail("The future should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ResourceException);
+            assertTrue(((ResourceException) e.getCause()).getStatus()
+                    .isConnectorError());
+        }
+    }
+
+    public void testErrorStatus() throws Exception {
+        ResultFuture<String> future = createClientResource("missing")
+                .getAsync(String.class);
+
+        try {
+            future.get(30, TimeUnit.SECONDS);
+            fail("The future should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ResourceException);
+            assertEquals(Status.CLIENT_ERROR_NOT_FOUND,
+                    ((ResourceException) e.getCause()).getStatus());
+        }
+    }
+
+    public void testFanOut() throws Exception {
+        List<ResultFuture<String>> futures = new ArrayList<ResultFuture<String>>();
+
+        for (int i = 0; i < 20; i++) {
+            futures.add(createClientResource(Integer.toString(i)).getAsync(
+                    String.class));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals("Hello " + i, futures.get(i)
+                    .get(30, TimeUnit.SECONDS));
+        }
+    }
+
+    public void testListener() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final String[] results = new String[2];
+        ResultFuture<String> future = createClientResource("listener")
+                .postAsync("entity", String.class);
+        future.addResult(new Result<Object>() {
+            public void onFailure(Throwable caught) {
+                latch.countDown();
+            }
+
+            public void onSuccess(Object result) {
+                results[0] = (String) result;
+                latch.countDown();
+            }
+        });
+
+        assertEquals("Hello listener", future.get(30, TimeUnit.SECONDS));
+
+        // Listeners added after completion are immediately called back
+        future.addResult(new Result<String>() {
+            public void onFailure(Throwable caught) {
+                latch.countDown();
+            }
+
+            public void onSuccess(String result) {
+                results[1] = result;
+                latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertEquals("Hello listener", results[0]);
+        assertEquals("Hello listener", results[1]);
+    }
+
+    public void testProxy() throws Exception {
+        AsyncResource proxy = createClientResource("proxy").wrap(
+                AsyncResource.class);
+        Future<String> future = proxy.represent();
+        assertEquals("Hello proxy", future.get(30, TimeUnit.SECONDS));
+    }
+
+}
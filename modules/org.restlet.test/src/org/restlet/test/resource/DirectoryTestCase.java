@@ -34,21 +34,30 @@
 package org.restlet.test.resource;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.zip.GZIPOutputStream;
 
 import org.restlet.Application;
 import org.restlet.Component;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
+import org.restlet.data.Encoding;
 import org.restlet.data.Language;
 import org.restlet.data.LocalReference;
 import org.restlet.data.Method;
+import org.restlet.data.Preference;
 import org.restlet.data.Protocol;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.engine.application.DecodeRepresentation;
 import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.local.DirectoryCache;
 import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.Directory;
@@ -163,6 +172,76 @@ public class DirectoryTestCase extends RestletTestCase {
         return response;
     }
 
+    public void testCache() throws Exception {
+        this.testDir = new File(System.getProperty("java.io.tmpdir"),
+                "DirectoryTestCase/cache" + new Date().getTime());
+        this.testDir.mkdirs();
+        File testFile = new File(this.testDir, "cached.txt");
+        writeFile(testFile, "cached content cached content cached content");
+
+        Component clientComponent = new Component();
+        clientComponent.getClients().add(Protocol.FILE);
+        MyApplication application = new MyApplication(this.testDir);
+        DirectoryCache cache = new DirectoryCache(1024 * 1024, 1024, 0);
+        application.getDirectory().setCache(cache);
+        clientComponent.getDefaultHost().attach("", application);
+        clientComponent.start();
+
+        try {
+            String url = this.webSiteURL.concat("cached.txt");
+            Response response = handle(application, this.webSiteURL, url,
+                    Method.GET, null, "cache 1");
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertEquals("cached content cached content cached content",
+                    response.getEntityAsText());
+            assertTrue(cache.getSize() > 0);
+
+            // Served from the cache
+            response = handle(application, this.webSiteURL, url, Method.GET,
+                    null, "cache 2");
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            Tag tag = response.getEntity().getTag();
+            assertNotNull(tag);
+            assertEquals("cached content cached content cached content",
+                    response.getEntityAsText());
+
+            // Conditional request
+            Request request = new Request(Method.GET, url);
+            request.getResourceRef().setBaseRef(this.webSiteURL);
+            request.getConditions().getNoneMatch().add(tag);
+            response = new Response(request);
+            application.handle(request, response);
+            assertEquals(Status.REDIRECTION_NOT_MODIFIED, response.getStatus());
+
+            // Precomputed compressed variant
+            request = new Request(Method.GET, url);
+            request.getResourceRef().setBaseRef(this.webSiteURL);
+            request.getClientInfo().getAcceptedEncodings()
+                    .add(new Preference<Encoding>(Encoding.GZIP));
+            response = new Response(request);
+            application.handle(request, response);
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertTrue(response.getEntity().getEncodings()
+                    .contains(Encoding.GZIP));
+            assertEquals("cached content cached content cached content",
+                    new DecodeRepresentation(response.getEntity()).getText());
+
+            // Revalidation
+            writeFile(testFile, "modified");
+            response = handle(application, this.webSiteURL, url, Method.GET,
+                    null, "cache 3");
+            assertEquals("modified", response.getEntityAsText());
+
+            testFile.delete();
+            response = handle(application, this.webSiteURL, url, Method.GET,
+                    null, "cache 4");
+            assertEquals(Status.CLIENT_ERROR_NOT_FOUND, response.getStatus());
+        } finally {
+            clientComponent.stop();
+            BioUtils.delete(this.testDir, true);
+        }
+    }
+
     public void testDirectory() throws Exception {
         // Create a temporary directory for the tests
         this.testDir = new File(System.getProperty("java.io.tmpdir"),
@@ -230,6 +309,64 @@ public class DirectoryTestCase extends RestletTestCase {
         clientComponent.stop();
     }
 
+    public void testPrecompressed() throws Exception {
+        this.testDir = new File(System.getProperty("java.io.tmpdir"),
+                "DirectoryTestCase/precompressed" + new Date().getTime());
+        this.testDir.mkdirs();
+        File testFile = new File(this.testDir, "styles.txt");
+        writeFile(testFile, "precompressed content");
+        File siblingFile = new File(this.testDir, "styles.txt.gz");
+        GZIPOutputStream gos = new GZIPOutputStream(new FileOutputStream(
+                siblingFile));
+        gos.write("precompressed content".getBytes());
+        gos.close();
+
+        Component clientComponent = new Component();
+        clientComponent.getClients().add(Protocol.FILE);
+        MyApplication application = new MyApplication(this.testDir);
+        application.getDirectory().setPrecompressed(true);
+        clientComponent.getDefaultHost().attach("", application);
+        clientComponent.start();
+
+        try {
+            String url = this.webSiteURL.concat("styles.txt");
+            Response response = handle(application, this.webSiteURL, url,
+                    Method.GET, null, "precompressed 1");
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertTrue(response.getEntity().getEncodings().isEmpty());
+            assertEquals("precompressed content", response.getEntityAsText());
+
+            // Served from the sibling
+            Request request = new Request(Method.GET, url);
+            request.getResourceRef().setBaseRef(this.webSiteURL);
+            request.getClientInfo().getAcceptedEncodings()
+                    .add(new Preference<Encoding>(Encoding.GZIP));
+            response = new Response(request);
+            application.handle(request, response);
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertEquals(Arrays.asList(Encoding.GZIP), response.getEntity()
+                    .getEncodings());
+            assertEquals(siblingFile.length(), response.getEntity().getSize());
+            assertEquals("precompressed content", new DecodeRepresentation(
+                    response.getEntity()).getText());
+
+            // Outdated sibling
+            siblingFile.setLastModified(testFile.lastModified() - 10000);
+            request = new Request(Method.GET, url);
+            request.getResourceRef().setBaseRef(this.webSiteURL);
+            request.getClientInfo().getAcceptedEncodings()
+                    .add(new Preference<Encoding>(Encoding.GZIP));
+            response = new Response(request);
+            application.handle(request, response);
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertTrue(response.getEntity().getEncodings().isEmpty());
+            assertEquals("precompressed content", response.getEntityAsText());
+        } finally {
+            clientComponent.stop();
+            BioUtils.delete(this.testDir, true);
+        }
+    }
+
     /**
      * Helper
      * 
@@ -554,4 +691,24 @@ public class DirectoryTestCase extends RestletTestCase {
         BioUtils.delete(testDirectory, true);
         System.out.println("End of tests*********************");
     }
+
+    /**
+     * Writes a text file.
+     * 
+     * @param file
+     *            The file to write.
+     * @param text
+     *            The text content.
+     * @throws IOException
+     */
+    private void writeFile(File file, String text) throws IOException {
+        FileWriter writer = new FileWriter(file);
+
+        try {
+            writer.write(text);
+        } finally {
+            writer.close();
+        }
+    }
+
 }
@@ -62,6 +62,12 @@ public class ResourceTestSuite {
         suite.addTestSuite(AnnotatedResource17TestCase.class);
         suite.addTestSuite(AnnotatedResource18TestCase.class);
 
+        // Tests based on HTTP client connectors are not supported by the GAE
+        // edition.
+        // [ifndef gae]
+        suite.addTestSuite(AsyncClientResourceTestCase.class);
+        // [enddef]
+
         // Tests based on HTTP client connectors are not supported by the GAE
         // edition.
         // [ifndef gae]
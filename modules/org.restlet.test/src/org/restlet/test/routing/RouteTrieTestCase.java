@@ -0,0 +1,185 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.routing;
+
+import java.util.List;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.Method;
+import org.restlet.data.Reference;
+import org.restlet.routing.Route;
+import org.restlet.routing.RouteTrie;
+import org.restlet.routing.Router;
+import org.restlet.routing.Template;
+import org.restlet.routing.TemplateRoute;
+import org.restlet.routing.Variable;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the RouteTrie class and the indexed routing of Router.
+ * 
+ * @author Jerome Louvel
+ */
+public class RouteTrieTestCase extends RestletTestCase {
+
+    private static final String[] PATTERNS = { "/users", "/users/{id}",
+            "/users/{id}/orders", "/users/{id}/orders/{order}",
+            "/users/{id}.json", "/users/me", "/orders/{order}", "/{all}/x",
+            "/files/{path}", "/v{version}/users", "/items+{x}", "" };
+
+    private static final String[] URIS = { "/users", "/users/",
+            "/users/12", "/users/12/orders", "/users/12/orders/7",
+            "/users/12.json", "/users/me", "/users/me/orders", "/orders/7",
+            "/orders", "/abc/x", "/files/a/b/c", "/v2/users", "/items+y",
+            "/itemsy", "/unknown", "/", "", "/users/12?x=/y" };
+
+    private static Request createRequest(String path) {
+        Request request = new Request(Method.GET, "http://localhost" + path);
+        request.getResourceRef().setBaseRef(new Reference("http://localhost"));
+        return request;
+    }
+
+    private static Restlet createTarget() {
+        return new Restlet() {
+        };
+    }
+
+    private static Router createRouter(int matchingMode) {
+        Router router = new Router();
+        router.setDefaultMatchingMode(matchingMode);
+
+        for (String pattern : PATTERNS) {
+            router.attach(pattern, createTarget());
+        }
+
+        TemplateRoute pathRoute = (TemplateRoute) router.getRoutes().get(8);
+        pathRoute.getTemplate().getVariables()
+                .put("path", new Variable(Variable.TYPE_URI_PATH));
+        router.getRoutes().reindex();
+        return router;
+    }
+
+    private void checkSameRoutes(int routingMode, int matchingMode) {
+        Router router = createRouter(matchingMode);
+        router.setRoutingMode(routingMode);
+
+        for (String uri : URIS) {
+            router.setIndexedRouting(false);
+            Restlet expected = router.getNext(createRequest(uri),
+                    new Response(null));
+            router.setIndexedRouting(true);
+            Restlet actual = router.getNext(createRequest(uri),
+                    new Response(null));
+            assertSame("Routing of " + uri, expected, actual);
+        }
+    }
+
+    public void testCandidates() {
+        Router router = createRouter(Template.MODE_EQUALS);
+        RouteTrie trie = new RouteTrie(router.getRoutes());
+        List<Route> candidates = trie.getCandidates(createRequest("/orders/7"));
+
+        // Only "/orders/{order}" and ""
+        assertEquals(2, candidates.size());
+        assertSame(router.getRoutes().get(6), candidates.get(0));
+        assertSame(router.getRoutes().get(11), candidates.get(1));
+
+        // The whole segment variable is skipped
+        candidates = trie.getCandidates(createRequest("/abc/x"));
+        assertEquals(2, candidates.size());
+        assertSame(router.getRoutes().get(7), candidates.get(0));
+
+        candidates = trie.getCandidates(createRequest("/users/12/orders"));
+        assertTrue(candidates.contains(router.getRoutes().get(2)));
+        assertFalse(candidates.contains(router.getRoutes().get(3)));
+        assertFalse(candidates.contains(router.getRoutes().get(6)));
+    }
+
+    public void testCustomRoute() {
+        Router router = createRouter(Template.MODE_EQUALS);
+        Route custom = new Route(router, createTarget()) {
+            @Override
+            public float score(Request request, Response response) {
+                return 1.0F;
+            }
+        };
+        router.getRoutes().add(0, custom);
+        router.setIndexedRouting(true);
+        assertSame(custom,
+                router.getNext(createRequest("/orders/7"), new Response(null)));
+    }
+
+    public void testMatchingQuery() {
+        Router router = new Router();
+        router.setDefaultMatchingMode(Template.MODE_EQUALS);
+        router.setDefaultMatchingQuery(true);
+        TemplateRoute route = router.attach("/search?q={q}", createTarget());
+        router.setIndexedRouting(true);
+
+        assertSame(route,
+                router.getNext(createRequest("/search?q=a"), new Response(null)));
+        assertNull(router.getNext(createRequest("/search?p=a"), new Response(
+                null)));
+    }
+
+    public void testReindex() {
+        Router router = createRouter(Template.MODE_EQUALS);
+        router.setIndexedRouting(true);
+        TemplateRoute route = (TemplateRoute) router.getRoutes().get(6);
+        assertSame(route,
+                router.getNext(createRequest("/orders/7"), new Response(null)));
+
+        route.getTemplate().setPattern("/purchases/{order}");
+        router.getRoutes().reindex();
+        assertSame(route, router.getNext(createRequest("/purchases/7"),
+                new Response(null)));
+
+        router.getRoutes().remove(route);
+        assertNotSame(route, router.getNext(createRequest("/purchases/7"),
+                new Response(null)));
+    }
+
+    public void testSameBestMatch() {
+        checkSameRoutes(Router.MODE_BEST_MATCH, Template.MODE_EQUALS);
+        checkSameRoutes(Router.MODE_BEST_MATCH, Template.MODE_STARTS_WITH);
+    }
+
+    public void testSameFirstMatch() {
+        checkSameRoutes(Router.MODE_FIRST_MATCH, Template.MODE_EQUALS);
+        checkSameRoutes(Router.MODE_FIRST_MATCH, Template.MODE_STARTS_WITH);
+    }
+
+}
@@ -0,0 +1,238 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.service.TaskService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the task service.
+ * 
+ * @author Jerome Louvel
+ */
+public class TaskServiceTestCase extends RestletTestCase {
+
+    /** The context set in the calling thread. */
+    private Context context;
+
+    /** The response set in the calling thread. */
+    private Response response;
+
+    /**
+     * Returns a task checking the thread local variables of the thread
+     * executing it.
+     * 
+     * @return A task checking the thread local variables.
+     */
+    private Callable<Boolean> createCheck() {
+        return new Callable<Boolean>() {
+            public Boolean call() {
+                return (Context.getCurrent() == context)
+                        && (Response.getCurrent() == response);
+            }
+        };
+    }
+
+    /**
+     * Returns a started task service.
+     * 
+     * @param maxConcurrentTasks
+     *            The maximum number of tasks running concurrently on their own
+     *            thread, or 0 to run them on the core pool.
+     * @return A started task service.
+     */
+    private TaskService createTaskService(int maxConcurrentTasks)
+            throws Exception {
+        TaskService result = new TaskService();
+        result.setMaxConcurrentTasks(maxConcurrentTasks);
+        result.setShutdownAllowed(true);
+        result.start();
+        return result;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.context = new Context();
+        this.response = new Response(new Request());
+        Context.setCurrent(this.context);
+        Response.setCurrent(this.response);
+    }
+
+    /**
+     * Stops a task service and waits for its termination.
+     * 
+     * @param taskService
+     *            The task service to stop.
+     */
+    private void stop(TaskService taskService) throws Exception {
+        taskService.shutdown();
+        assertTrue(taskService.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(taskService.isTerminated());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Context.setCurrent(null);
+        Response.setCurrent(null);
+        super.tearDown();
+    }
+
+    public void testInvokeAll() throws Exception {
+        for (int maxConcurrentTasks : new int[] { 0, 3 }) {
+            TaskService taskService = createTaskService(maxConcurrentTasks);
+            List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+
+            for (int i = 0; i < 5; i++) {
+                tasks.add(createCheck());
+            }
+
+            @SuppressWarnings("unchecked")
+            List<Future<Boolean>> futures = taskService.invokeAll(tasks);
+            assertEquals(5, futures.size());
+
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+
+            futures = taskService.invokeAll(tasks, 5, TimeUnit.SECONDS);
+
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+
+            stop(taskService);
+        }
+    }
+
+    public void testInvokeAny() throws Exception {
+        for (int maxConcurrentTasks : new int[] { 0, 3 }) {
+            TaskService taskService = createTaskService(maxConcurrentTasks);
+            List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+            tasks.add(createCheck());
+            tasks.add(createCheck());
+
+            assertEquals(Boolean.TRUE, taskService.invokeAny(tasks));
+            assertEquals(Boolean.TRUE,
+                    taskService.invokeAny(tasks, 5, TimeUnit.SECONDS));
+            stop(taskService);
+        }
+    }
+
+    public void testSubmit() throws Exception {
+        for (int maxConcurrentTasks : new int[] { 0, 3 }) {
+            TaskService taskService = createTaskService(maxConcurrentTasks);
+            assertTrue(taskService.submit(createCheck()).get(5,
+                    TimeUnit.SECONDS));
+
+            final AtomicInteger checks = new AtomicInteger();
+            Runnable runnable = new Runnable() {
+                public void run() {
+                    if ((Context.getCurrent() == context)
+                            && (Response.getCurrent() == response)) {
+                        checks.incrementAndGet();
+                    }
+                }
+            };
+
+            assertNull(taskService.submit(runnable).get(5, TimeUnit.SECONDS));
+            assertEquals("done",
+                    taskService.submit(runnable, "done").get(5,
+                            TimeUnit.SECONDS));
+            assertEquals(2, checks.get());
+            stop(taskService);
+        }
+    }
+
+    public void testThreadPerTask() throws Exception {
+        final int tasks = 10;
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger contexts = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(3);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(tasks);
+        TaskService taskService = createTaskService(3);
+
+        for (int i = 0; i < tasks; i++) {
+            taskService.execute(new Runnable() {
+                public void run() {
+                    int current = running.incrementAndGet();
+
+                    synchronized (maxRunning) {
+                        maxRunning.set(Math.max(maxRunning.get(), current));
+                    }
+
+                    if (Context.getCurrent() == context) {
+                        contexts.incrementAndGet();
+                    }
+
+                    started.countDown();
+
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        // Ends the task
+                    } finally {
+                        running.decrementAndGet();
+                        done.countDown();
+                    }
+                }
+            });
+        }
+
+        // Tasks beyond the limit don't block the caller
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(tasks, done.getCount());
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(3, maxRunning.get());
+        assertEquals(tasks, contexts.get());
+        stop(taskService);
+    }
+
+}
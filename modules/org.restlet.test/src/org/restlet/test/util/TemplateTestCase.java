@@ -90,6 +90,38 @@ public class TemplateTestCase extends RestletTestCase {
         assertEquals("123/456", variables3.get("v1"));
     }
 
+    public void testSegmentParsing() {
+        Template template = new Template("/users/{user}/orders/{order}",
+                Template.MODE_EQUALS, Variable.TYPE_URI_SEGMENT, "", true,
+                false);
+        Map<String, Object> variables = new HashMap<String, Object>();
+        String string = "/users/j%20doe/orders/1;v=2";
+        assertEquals(string.length(), template.parse(string, variables));
+        assertEquals("j%20doe", variables.get("user"));
+        assertEquals("1;v=2", variables.get("order"));
+
+        // Percent sign not followed by two hexadecimal digits
+        variables.clear();
+        assertEquals(-1, template.parse("/users/j%2/orders/1", variables));
+        assertTrue(variables.isEmpty());
+
+        // Required variables
+        assertEquals(-1, template.match("/users//orders/1"));
+        assertEquals(-1, template.match("/users/jdoe/orders/1/items"));
+        template.setMatchingMode(Template.MODE_STARTS_WITH);
+        assertEquals(20, template.match("/users/jdoe/orders/1/items"));
+
+        // Decoding variable
+        Variable user = new Variable(Variable.TYPE_URI_SEGMENT);
+        user.setDecodingOnParse(true);
+        template.getVariables().put("user", user);
+        template.setPattern("/users/{user}/{format}");
+        variables.clear();
+        assertEquals(19, template.parse("/users/j%20doe/json?q", variables));
+        assertEquals("j doe", variables.get("user"));
+        assertEquals("json", variables.get("format"));
+    }
+
     public void testVariableNames() throws Exception {
         Template tpl = new Template(
                 "http://{userId}.restlet.com/invoices/{invoiceId}");
@@ -144,25 +144,23 @@ public class Engine {
 
     // [ifndef gwt] method
     /**
-     * Creates a new standalone thread with local Restlet thread variable
-     * properly set.
+     * Creates a new task copying the local Restlet thread variables of the
+     * current thread into the thread running it, and clearing them afterwards.
      * 
      * @param runnable
      *            The runnable task to execute.
-     * @param name
-     *            The thread name.
-     * @return The thread with proper variables ready to run the given runnable
+     * @return The task with proper variables ready to run the given runnable
      *         task.
      */
-    public static Thread createThreadWithLocalVariables(
-            final Runnable runnable, String name) {
+    public static Runnable createTaskWithLocalVariables(
+            final Runnable runnable) {
         // Save the thread local variables
         final org.restlet.Application currentApplication = org.restlet.Application.getCurrent();
         final Context currentContext = Context.getCurrent();
         final Integer currentVirtualHost = org.restlet.routing.VirtualHost.getCurrent();
         final Response currentResponse = Response.getCurrent();
 
-        return new Thread(new Runnable() {
+        return new Runnable() {
 
             @Override
             public void run() {
@@ -180,7 +178,24 @@ public class Engine {
                 }
             }
 
-        }, name);
+        };
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Creates a new standalone thread with local Restlet thread variable
+     * properly set.
+     * 
+     * @param runnable
+     *            The runnable task to execute.
+     * @param name
+     *            The thread name.
+     * @return The thread with proper variables ready to run the given runnable
+     *         task.
+     */
+    public static Thread createThreadWithLocalVariables(
+            final Runnable runnable, String name) {
+        return new Thread(createTaskWithLocalVariables(runnable), name);
     }
 
     // [ifndef gwt] method
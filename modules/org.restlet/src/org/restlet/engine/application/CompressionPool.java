@@ -0,0 +1,445 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.application;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+// [excludes gwt]
+/**
+ * Pool of the native deflaters and inflaters used to encode and decode the
+ * GZip and Deflate encodings. Each JDK compression stream otherwise allocates
+ * its own native zlib context, whose memory is only released on end or
+ * finalization. The pooled instances are reset on release and reused by the
+ * streams created by this pool, up to a maximum number of idle instances per
+ * kind.
+ * 
+ * @author Jerome Louvel
+ */
+public class CompressionPool {
+
+    /**
+     * Deflater output stream returning its deflater to the pool once finished
+     * or released. Supports the GZip format by writing the GZip header and
+     * trailer around the raw deflated data.
+     */
+    public final class DeflaterStream extends DeflaterOutputStream {
+
+        /** The CRC of the uncompressed data, for the GZip format. */
+        private final CRC32 crc;
+
+        /** Indicates if the deflater has been released. */
+        private boolean released;
+
+        /** The number of uncompressed bytes. */
+        private long size;
+
+        /**
+         * Constructor.
+         * 
+         * @param out
+         *            The output stream to write the compressed data to.
+         * @param level
+         *            The compression level.
+         * @param gzip
+         *            True for the GZip format, false for the Zlib format.
+         * @throws IOException
+         */
+        private DeflaterStream(OutputStream out, int level, boolean gzip)
+                throws IOException {
+            super(out, acquireDeflater(level, gzip));
+            this.crc = gzip ? new CRC32() : null;
+            this.released = false;
+            this.size = 0L;
+
+            if (gzip) {
+                out.write(GZIP_HEADER);
+            }
+        }
+
+        /**
+         * Finishes writing the compressed data and releases the deflater,
+         * without closing the underlying stream.
+         */
+        @Override
+        public void finish() throws IOException {
+            if (!this.released) {
+                super.finish();
+
+                if (this.crc != null) {
+                    writeInt((int) this.crc.getValue());
+                    writeInt((int) this.size);
+                }
+
+                release();
+            }
+        }
+
+        /**
+         * Returns the deflater to the pool if not done yet. Further writes
+         * aren't allowed.
+         */
+        public void release() {
+            if (!this.released) {
+                this.released = true;
+                releaseDeflater(this.def, this.crc != null);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (this.released) {
+                throw new IOException("Deflater stream already finished");
+            }
+
+            super.write(b, off, len);
+
+            if (this.crc != null) {
+                this.crc.update(b, off, len);
+            }
+
+            this.size += len;
+        }
+
+        /**
+         * Writes a little-endian integer of the GZip trailer.
+         * 
+         * @param value
+         *            The value to write.
+         * @throws IOException
+         */
+        private void writeInt(int value) throws IOException {
+            this.out.write(value & 0xff);
+            this.out.write((value >> 8) & 0xff);
+            this.out.write((value >> 16) & 0xff);
+            this.out.write((value >> 24) & 0xff);
+        }
+    }
+
+    /**
+     * Inflater input stream returning its inflater to the pool once the end of
+     * the compressed data is reached or once closed.
+     */
+    public final class InflaterStream extends InflaterInputStream {
+
+        /** Indicates if the inflater has been released. */
+        private boolean released;
+
+        /**
+         * Constructor.
+         * 
+         * @param in
+         *            The input stream to read the compressed data from.
+         */
+        private InflaterStream(InputStream in) {
+            super(in, acquireInflater());
+            this.released = false;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return this.released ? 0 : super.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.released) {
+                return -1;
+            }
+
+            int result = super.read(b, off, len);
+
+            if (result == -1) {
+                release();
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns the inflater to the pool if not done yet. Further reads
+         * return the end of stream.
+         */
+        private void release() {
+            if (!this.released) {
+                this.released = true;
+                releaseInflater(this.inf);
+            }
+        }
+    }
+
+    /** The default maximum number of idle instances per kind. */
+    public static final int DEFAULT_MAX_IDLE = Integer.getInteger(
+            "org.restlet.engine.application.maxIdleCompressors", 32);
+
+    /** The GZip header, without modification time nor extra fields. */
+    private static final byte[] GZIP_HEADER = { (byte) 0x1f, (byte) 0x8b,
+            Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    /** The shared instance. */
+    private static final CompressionPool instance = new CompressionPool(
+            DEFAULT_MAX_IDLE);
+
+    /**
+     * Returns the shared instance.
+     * 
+     * @return The shared instance.
+     */
+    public static CompressionPool getInstance() {
+        return instance;
+    }
+
+    /** The idle Zlib format deflaters. */
+    private final Queue<Deflater> deflaters;
+
+    /** The number of idle Zlib format deflaters. */
+    private final AtomicInteger deflatersCount;
+
+    /** The idle GZip format deflaters. */
+    private final Queue<Deflater> gzipDeflaters;
+
+    /** The number of idle GZip format deflaters. */
+    private final AtomicInteger gzipDeflatersCount;
+
+    /** The idle Zlib format inflaters. */
+    private final Queue<Inflater> inflaters;
+
+    /** The number of idle Zlib format inflaters. */
+    private final AtomicInteger inflatersCount;
+
+    /** The maximum number of idle instances per kind. */
+    private final int maxIdle;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxIdle
+     *            The maximum number of idle instances per kind.
+     */
+    public CompressionPool(int maxIdle) {
+        this.deflaters = new ConcurrentLinkedQueue<Deflater>();
+        this.deflatersCount = new AtomicInteger();
+        this.gzipDeflaters = new ConcurrentLinkedQueue<Deflater>();
+        this.gzipDeflatersCount = new AtomicInteger();
+        this.inflaters = new ConcurrentLinkedQueue<Inflater>();
+        this.inflatersCount = new AtomicInteger();
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Acquires a deflater from the pool, or creates a new one.
+     * 
+     * @param level
+     *            The compression level.
+     * @param gzip
+     *            True for the raw deflate data of the GZip format, false for
+     *            the Zlib format.
+     * @return The deflater.
+     */
+    private Deflater acquireDeflater(int level, boolean gzip) {
+        Deflater result = gzip ? this.gzipDeflaters.poll() : this.deflaters
+                .poll();
+
+        if (result == null) {
+            result = new Deflater(level, gzip);
+        } else {
+            (gzip ? this.gzipDeflatersCount : this.deflatersCount)
+                    .decrementAndGet();
+            result.setLevel(level);
+        }
+
+        return result;
+    }
+
+    /**
+     * Acquires a Zlib format inflater from the pool, or creates a new one.
+     * 
+     * @return The inflater.
+     */
+    private Inflater acquireInflater() {
+        Inflater result = this.inflaters.poll();
+
+        if (result == null) {
+            result = new Inflater();
+        } else {
+            this.inflatersCount.decrementAndGet();
+        }
+
+        return result;
+    }
+
+    /**
+     * Ends all the idle instances.
+     */
+    public void clear() {
+        Deflater deflater;
+        Inflater inflater;
+
+        while ((deflater = this.deflaters.poll()) != null) {
+            this.deflatersCount.decrementAndGet();
+            deflater.end();
+        }
+
+        while ((deflater = this.gzipDeflaters.poll()) != null) {
+            this.gzipDeflatersCount.decrementAndGet();
+            deflater.end();
+        }
+
+        while ((inflater = this.inflaters.poll()) != null) {
+            this.inflatersCount.decrementAndGet();
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns a stream applying the Deflate encoding, which is the Zlib
+     * format.
+     * 
+     * @param out
+     *            The output stream to write the compressed data to.
+     * @param level
+     *            The compression level.
+     * @return The encoding stream.
+     * @throws IOException
+     */
+    public DeflaterStream createDeflaterStream(OutputStream out, int level)
+            throws IOException {
+        return new DeflaterStream(out, level, false);
+    }
+
+    /**
+     * Returns a stream applying the GZip encoding.
+     * 
+     * @param out
+     *            The output stream to write the compressed data to.
+     * @param level
+     *            The compression level.
+     * @return The encoding stream.
+     * @throws IOException
+     */
+    public DeflaterStream createGzipStream(OutputStream out, int level)
+            throws IOException {
+        return new DeflaterStream(out, level, true);
+    }
+
+    /**
+     * Returns a stream decoding the Deflate encoding, which is the Zlib format.
+     * 
+     * @param in
+     *            The input stream to read the compressed data from.
+     * @return The decoding stream.
+     */
+    public InflaterStream createInflaterStream(InputStream in) {
+        return new InflaterStream(in);
+    }
+
+    /**
+     * Returns the number of idle instances of all kinds.
+     * 
+     * @return The number of idle instances.
+     */
+    public int getIdleCount() {
+        return this.deflatersCount.get() + this.gzipDeflatersCount.get()
+                + this.inflatersCount.get();
+    }
+
+    /**
+     * Returns the maximum number of idle instances per kind.
+     * 
+     * @return The maximum number of idle instances per kind.
+     */
+    public int getMaxIdle() {
+        return this.maxIdle;
+    }
+
+    /**
+     * Resets a deflater and returns it to the pool, or ends it if enough
+     * deflaters are idle.
+     * 
+     * @param deflater
+     *            The deflater to release.
+     * @param gzip
+     *            True for the raw deflate data of the GZip format, false for
+     *            the Zlib format.
+     */
+    private void releaseDeflater(Deflater deflater, boolean gzip) {
+        AtomicInteger count = gzip ? this.gzipDeflatersCount
+                : this.deflatersCount;
+
+        if (count.incrementAndGet() <= this.maxIdle) {
+            deflater.reset();
+            (gzip ? this.gzipDeflaters : this.deflaters).offer(deflater);
+        } else {
+            count.decrementAndGet();
+            deflater.end();
+        }
+    }
+
+    /**
+     * Resets an inflater and returns it to the pool, or ends it if enough
+     * inflaters are idle.
+     * 
+     * @param inflater
+     *            The inflater to release.
+     */
+    private void releaseInflater(Inflater inflater) {
+        if (this.inflatersCount.incrementAndGet() <= this.maxIdle) {
+            inflater.reset();
+            this.inflaters.offer(inflater);
+        } else {
+            this.inflatersCount.decrementAndGet();
+            inflater.end();
+        }
+    }
+
+}
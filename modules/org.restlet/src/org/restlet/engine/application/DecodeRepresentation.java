@@ -44,7 +44,6 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.InflaterInputStream;
 import java.util.zip.ZipInputStream;
 
 import org.restlet.data.Encoding;
@@ -125,7 +124,8 @@ public class DecodeRepresentation extends WrapperRepresentation {
             if (encoding.equals(Encoding.GZIP)) {
                 result = new GZIPInputStream(encodedStream);
             } else if (encoding.equals(Encoding.DEFLATE)) {
-                result = new InflaterInputStream(encodedStream);
+                result = CompressionPool.getInstance().createInflaterStream(
+                        encodedStream);
             } else if (encoding.equals(Encoding.ZIP)) {
                 @SuppressWarnings("resource")
                 final ZipInputStream stream = new ZipInputStream(encodedStream);
@@ -0,0 +1,212 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.application;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.restlet.data.Encoding;
+import org.restlet.data.Reference;
+import org.restlet.data.Tag;
+import org.restlet.representation.Representation;
+
+// [excludes gwt]
+/**
+ * In-memory cache of encoded entities, keyed by the reference of the resource,
+ * the variant metadata and the tag of the original entity, plus the encoding
+ * and the compression level. It allows an {@link Encoder} to compress
+ * identical entities only once, as long as their tag doesn't change. As tags
+ * are only unique within a resource, entities without a location or resource
+ * reference are never cached, nor are entities without tag or with a weak
+ * tag.<br>
+ * <br>
+ * The total size of the cached content is bounded, the least recently used
+ * entries being evicted first.
+ * 
+ * @author Jerome Louvel
+ */
+public class EncodeCache {
+
+    /**
+     * Returns the cache key of an encoded entity, or null if the original
+     * entity can't be cached. The reference identifying the resource is the
+     * location reference of the entity if available, or the given resource
+     * reference otherwise.
+     * 
+     * @param entity
+     *            The original entity.
+     * @param resourceRef
+     *            The reference of the resource, or null.
+     * @param encoding
+     *            The applied encoding.
+     * @param level
+     *            The compression level.
+     * @return The cache key or null.
+     */
+    public static String getKey(Representation entity, Reference resourceRef,
+            Encoding encoding, int level) {
+        Tag tag = entity.getTag();
+        Reference reference = (entity.getLocationRef() != null) ? entity
+                .getLocationRef() : resourceRef;
+
+        if ((tag == null) || (tag.getName() == null) || tag.isWeak()
+                || Tag.ALL.equals(tag) || (reference == null)) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(encoding.getName()).append(';').append(level).append(';');
+        sb.append(reference.getTargetRef().toString(true, false)).append(';');
+        sb.append(entity.getMediaType()).append(';');
+        sb.append(entity.getLanguages()).append(';');
+        sb.append(entity.getCharacterSet()).append(';');
+        sb.append(tag.format());
+        return sb.toString();
+    }
+
+    /** The encoded entities by key, from the least recently used. */
+    private final Map<String, byte[]> entries;
+
+    /** The maximum number of cached bytes. */
+    private final long maxBytes;
+
+    /** The maximum size of a cached encoded entity. */
+    private final long maxEntrySize;
+
+    /** The number of cached bytes. */
+    private long size;
+
+    /**
+     * Default constructor. Caches up to 16 MB of encoded entities smaller than
+     * 256 KB.
+     */
+    public EncodeCache() {
+        this(16L * 1024 * 1024, 256L * 1024);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxBytes
+     *            The maximum number of cached bytes.
+     * @param maxEntrySize
+     *            The maximum size of a cached encoded entity.
+     */
+    public EncodeCache(long maxBytes, long maxEntrySize) {
+        this.entries = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+        this.maxBytes = maxBytes;
+        this.maxEntrySize = maxEntrySize;
+        this.size = 0L;
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.size = 0L;
+    }
+
+    /**
+     * Returns the encoded entity for a key, or null.
+     * 
+     * @param key
+     *            The cache key.
+     * @return The encoded entity or null.
+     */
+    public synchronized byte[] get(String key) {
+        return (key == null) ? null : this.entries.get(key);
+    }
+
+    /**
+     * Returns the maximum number of cached bytes.
+     * 
+     * @return The maximum number of cached bytes.
+     */
+    public long getMaxBytes() {
+        return this.maxBytes;
+    }
+
+    /**
+     * Returns the maximum size of a cached encoded entity.
+     * 
+     * @return The maximum size of a cached encoded entity.
+     */
+    public long getMaxEntrySize() {
+        return this.maxEntrySize;
+    }
+
+    /**
+     * Returns the number of cached bytes.
+     * 
+     * @return The number of cached bytes.
+     */
+    public synchronized long getSize() {
+        return this.size;
+    }
+
+    /**
+     * Caches an encoded entity, evicting the least recently used ones if
+     * needed. Entities larger than the maximum entry size are ignored.
+     * 
+     * @param key
+     *            The cache key.
+     * @param content
+     *            The encoded entity.
+     */
+    public synchronized void put(String key, byte[] content) {
+        if ((key == null) || (content.length > this.maxEntrySize)
+                || (content.length > this.maxBytes)) {
+            return;
+        }
+
+        byte[] previous = this.entries.put(key, content);
+
+        if (previous != null) {
+            this.size -= previous.length;
+        }
+
+        this.size += content.length;
+
+        Iterator<byte[]> iter = this.entries.values().iterator();
+
+        while ((this.size > this.maxBytes) && iter.hasNext()) {
+            this.size -= iter.next().length;
+            iter.remove();
+        }
+    }
+
+}
@@ -33,6 +33,7 @@
 
 package org.restlet.engine.application;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -43,13 +44,15 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
-import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import org.restlet.data.Disposition;
 import org.restlet.data.Encoding;
+import org.restlet.data.Reference;
+import org.restlet.engine.application.CompressionPool.DeflaterStream;
 import org.restlet.engine.io.BioUtils;
 import org.restlet.engine.io.NioUtils;
 import org.restlet.representation.Representation;
@@ -73,6 +76,9 @@ public class EncodeRepresentation extends WrapperRepresentation {
                 Encoding.ZIP, Encoding.IDENTITY);
     }
 
+    /** The optional cache of encoded entities. */
+    private final EncodeCache cache;
+
     /** Indicates if the encoding can happen. */
     private volatile boolean canEncode;
 
@@ -82,8 +88,14 @@ public class EncodeRepresentation extends WrapperRepresentation {
     /** The applied encodings. */
     private volatile List<Encoding> encodings;
 
+    /** The compression level. */
+    private final int level;
+
+    /** The reference of the resource, used to key the cached content. */
+    private final Reference resourceRef;
+
     /**
-     * Constructor.
+     * Constructor using the default compression level and no cache.
      * 
      * @param encoding
      *            Encoder algorithm.
@@ -92,10 +104,57 @@ public class EncodeRepresentation extends WrapperRepresentation {
      */
     public EncodeRepresentation(Encoding encoding,
             Representation wrappedRepresentation) {
+        this(encoding, wrappedRepresentation, Deflater.DEFAULT_COMPRESSION,
+                null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param encoding
+     *            Encoder algorithm.
+     * @param wrappedRepresentation
+     *            The wrapped representation.
+     * @param level
+     *            The compression level, from 0 to 9 or -1 for the default
+     *            level.
+     * @param cache
+     *            The optional cache of encoded entities, used when the wrapped
+     *            representation has a strong tag and a location reference.
+     */
+    public EncodeRepresentation(Encoding encoding,
+            Representation wrappedRepresentation, int level,
+            EncodeCache cache) {
+        this(encoding, wrappedRepresentation, level, cache, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param encoding
+     *            Encoder algorithm.
+     * @param wrappedRepresentation
+     *            The wrapped representation.
+     * @param level
+     *            The compression level, from 0 to 9 or -1 for the default
+     *            level.
+     * @param cache
+     *            The optional cache of encoded entities, used when the wrapped
+     *            representation has a strong tag.
+     * @param resourceRef
+     *            The reference of the resource, used when the wrapped
+     *            representation has no location reference.
+     */
+    public EncodeRepresentation(Encoding encoding,
+            Representation wrappedRepresentation, int level,
+            EncodeCache cache, Reference resourceRef) {
         super(wrappedRepresentation);
+        this.cache = cache;
         this.canEncode = getSupportedEncodings().contains(encoding);
         this.encodings = null;
         this.encoding = encoding;
+        this.level = level;
+        this.resourceRef = resourceRef;
     }
 
     /**
@@ -121,6 +180,12 @@ public class EncodeRepresentation extends WrapperRepresentation {
         if (canEncode()) {
             if (this.encoding.equals(Encoding.IDENTITY)) {
                 result = getWrappedRepresentation().getAvailableSize();
+            } else {
+                byte[] content = getCachedContent();
+
+                if (content != null) {
+                    result = content.length;
+                }
             }
         } else {
             result = getWrappedRepresentation().getAvailableSize();
@@ -129,6 +194,28 @@ public class EncodeRepresentation extends WrapperRepresentation {
         return result;
     }
 
+    /**
+     * Returns the key of the encoded content in the cache, or null if it can't
+     * be cached.
+     * 
+     * @return The cache key or null.
+     */
+    private String getCacheKey() {
+        return (this.cache == null) ? null : EncodeCache.getKey(
+                getWrappedRepresentation(), this.resourceRef, this.encoding,
+                this.level);
+    }
+
+    /**
+     * Returns the cached encoded content if available.
+     * 
+     * @return The cached encoded content or null.
+     */
+    private byte[] getCachedContent() {
+        String key = getCacheKey();
+        return (key == null) ? null : this.cache.get(key);
+    }
+
     /**
      * Returns a readable byte channel. If it is supported by a file a read-only
      * instance of FileChannel is returned.
@@ -239,6 +326,12 @@ public class EncodeRepresentation extends WrapperRepresentation {
         if (canEncode()) {
             if (this.encoding.equals(Encoding.IDENTITY)) {
                 result = getWrappedRepresentation().getSize();
+            } else {
+                byte[] content = getCachedContent();
+
+                if (content != null) {
+                    result = content.length;
+                }
             }
         } else {
             result = getWrappedRepresentation().getSize();
@@ -267,38 +360,25 @@ public class EncodeRepresentation extends WrapperRepresentation {
 
     @Override
     public void write(OutputStream outputStream) throws IOException {
-        if (canEncode()) {
-            DeflaterOutputStream encoderOutputStream = null;
-
-            if (this.encoding.equals(Encoding.GZIP)) {
-                encoderOutputStream = new GZIPOutputStream(outputStream);
-            } else if (this.encoding.equals(Encoding.DEFLATE)) {
-                encoderOutputStream = new DeflaterOutputStream(outputStream);
-            } else if (this.encoding.equals(Encoding.ZIP)) {
-                @SuppressWarnings("resource")
-                final ZipOutputStream stream = new ZipOutputStream(outputStream);
-                String name = "entry";
-                
-                if (getWrappedRepresentation().getDisposition() != null) {
-                    name = getWrappedRepresentation()
-                            .getDisposition()
-                            .getParameters()
-                            .getFirstValue(Disposition.NAME_FILENAME, true,
-                                    name);
-                }
-                
-                stream.putNextEntry(new ZipEntry(name));
-                encoderOutputStream = stream;
-            } else if (this.encoding.equals(Encoding.IDENTITY)) {
-                // Encoder unnecessary for identity encoding
+        if (canEncode() && !this.encoding.equals(Encoding.IDENTITY)) {
+            String key = getCacheKey();
+            byte[] content = (key == null) ? null : this.cache.get(key);
+            long size = getWrappedRepresentation().getSize();
+
+            if ((content == null) && (key != null) && (size != UNKNOWN_SIZE)
+                    && (size <= this.cache.getMaxEntrySize())) {
+                // Encode once for this tag
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+                        (int) size);
+                writeEncoded(buffer);
+                content = buffer.toByteArray();
+                this.cache.put(key, content);
             }
 
-            if (encoderOutputStream != null) {
-                getWrappedRepresentation().write(encoderOutputStream);
-                encoderOutputStream.flush();
-                encoderOutputStream.finish();
+            if (content != null) {
+                outputStream.write(content);
             } else {
-                getWrappedRepresentation().write(outputStream);
+                writeEncoded(outputStream);
             }
         } else {
             getWrappedRepresentation().write(outputStream);
@@ -328,4 +408,54 @@ public class EncodeRepresentation extends WrapperRepresentation {
         }
     }
 
+    /**
+     * Encodes the wrapped representation to a byte stream. The deflaters of
+     * the GZip and Deflate encodings are taken from the shared
+     * {@link CompressionPool}.
+     * 
+     * @param outputStream
+     *            The output stream.
+     * @throws IOException
+     */
+    private void writeEncoded(OutputStream outputStream) throws IOException {
+        DeflaterOutputStream encoderOutputStream = null;
+
+        if (this.encoding.equals(Encoding.GZIP)) {
+            encoderOutputStream = CompressionPool.getInstance()
+                    .createGzipStream(outputStream, this.level);
+        } else if (this.encoding.equals(Encoding.DEFLATE)) {
+            encoderOutputStream = CompressionPool.getInstance()
+                    .createDeflaterStream(outputStream, this.level);
+        } else if (this.encoding.equals(Encoding.ZIP)) {
+            @SuppressWarnings("resource")
+            final ZipOutputStream stream = new ZipOutputStream(outputStream);
+            String name = "entry";
+
+            if (getWrappedRepresentation().getDisposition() != null) {
+                name = getWrappedRepresentation()
+                        .getDisposition()
+                        .getParameters()
+                        .getFirstValue(Disposition.NAME_FILENAME, true, name);
+            }
+
+            stream.setLevel(this.level);
+            stream.putNextEntry(new ZipEntry(name));
+            encoderOutputStream = stream;
+        }
+
+        if (encoderOutputStream != null) {
+            try {
+                getWrappedRepresentation().write(encoderOutputStream);
+                encoderOutputStream.flush();
+                encoderOutputStream.finish();
+            } finally {
+                if (encoderOutputStream instanceof DeflaterStream) {
+                    ((DeflaterStream) encoderOutputStream).release();
+                }
+            }
+        } else {
+            getWrappedRepresentation().write(outputStream);
+        }
+    }
+
 }
@@ -33,6 +33,7 @@
 
 package org.restlet.engine.application;
 
+import java.io.File;
 import java.util.Iterator;
 import java.util.List;
 
@@ -42,6 +43,9 @@ import org.restlet.Response;
 import org.restlet.data.ClientInfo;
 import org.restlet.data.Encoding;
 import org.restlet.data.Preference;
+import org.restlet.data.Reference;
+import org.restlet.data.Tag;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.routing.Filter;
 import org.restlet.service.EncoderService;
@@ -65,6 +69,56 @@ import org.restlet.service.EncoderService;
  */
 public class Encoder extends Filter {
 
+    /**
+     * Returns the precompressed sibling of a file representation, with the
+     * same name plus a ".gz" extension, or null if it doesn't exist or is older
+     * than the file. The returned representation has the metadata of the
+     * original one plus the GZip encoding, its tag being derived from the
+     * original tag if any.
+     * 
+     * @param representation
+     *            The file representation.
+     * @return The precompressed sibling or null.
+     */
+    public static Representation getGzipSibling(
+            FileRepresentation representation) {
+        File file = representation.getFile();
+
+        if (file == null) {
+            return null;
+        }
+
+        for (Encoding encoding : representation.getEncodings()) {
+            if (!Encoding.IDENTITY.equals(encoding)) {
+                return null;
+            }
+        }
+
+        File sibling = new File(file.getPath() + ".gz");
+
+        if (!sibling.isFile()
+                || (sibling.lastModified() < file.lastModified())) {
+            return null;
+        }
+
+        FileRepresentation result = new FileRepresentation(sibling,
+                representation.getMediaType());
+        result.setCharacterSet(representation.getCharacterSet());
+        result.setDisposition(representation.getDisposition());
+        result.getEncodings().add(Encoding.GZIP);
+        result.setExpirationDate(representation.getExpirationDate());
+        result.setLanguages(representation.getLanguages());
+        result.setLocationRef(representation.getLocationRef());
+        result.setModificationDate(representation.getModificationDate());
+
+        if (representation.getTag() != null) {
+            Tag tag = representation.getTag();
+            result.setTag(new Tag(tag.getName() + "-gzip", tag.isWeak()));
+        }
+
+        return result;
+    }
+
     /** Indicates if the request entity should be encoded. */
     private final boolean encodingRequest;
 
@@ -109,7 +163,7 @@ public class Encoder extends Filter {
         if (isEncodingResponse()
                 && getEncoderService().canEncode(response.getEntity())) {
             response.setEntity(encode(request.getClientInfo(),
-                    response.getEntity()));
+                    response.getEntity(), request.getResourceRef()));
         }
     }
 
@@ -147,11 +201,43 @@ public class Encoder extends Filter {
      */
     public Representation encode(ClientInfo client,
             Representation representation) {
+        return encode(client, representation, null);
+    }
+
+    /**
+     * Encodes a given representation if an encoding is supported by the client.
+     * 
+     * @param client
+     *            The client preferences to use.
+     * @param representation
+     *            The representation to encode.
+     * @param resourceRef
+     *            The reference of the resource, used to cache the encoded
+     *            representation when it has no location reference.
+     * @return The encoded representation or the original one if no encoding
+     *         supported by the client.
+     */
+    public Representation encode(ClientInfo client,
+            Representation representation, Reference resourceRef) {
         Representation result = representation;
         Encoding bestEncoding = getBestEncoding(client);
 
         if (bestEncoding != null) {
-            result = new EncodeRepresentation(bestEncoding, representation);
+            EncoderService service = getEncoderService();
+            Representation sibling = null;
+
+            if (Encoding.GZIP.equals(bestEncoding) && service.isPrecompressed()
+                    && (representation instanceof FileRepresentation)) {
+                sibling = getGzipSibling((FileRepresentation) representation);
+            }
+
+            if (sibling != null) {
+                result = sibling;
+            } else {
+                result = new EncodeRepresentation(bestEncoding,
+                        representation, service.getCompressionLevel(),
+                        service.getCache(), resourceRef);
+            }
         }
 
         return result;
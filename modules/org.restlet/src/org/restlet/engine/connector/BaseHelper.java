@@ -54,6 +54,7 @@ import org.restlet.data.Status;
 import org.restlet.engine.ConnectorHelper;
 import org.restlet.engine.Engine;
 import org.restlet.engine.log.LoggingThreadFactory;
+import org.restlet.engine.util.ThreadPerTaskExecutor;
 
 /**
  * Base connector helper. Here is the list of parameters that are supported.
@@ -116,6 +117,15 @@ import org.restlet.engine.log.LoggingThreadFactory;
  * and the behavior of the {@link ThreadPoolExecutor} configured internally.</td>
  * </tr>
  * <tr>
+ * <td>maxConcurrentCalls</td>
+ * <td>int</td>
+ * <td>1000</td>
+ * <td>Maximum number of calls that can be processed concurrently when the
+ * "threadPerCall" parameter is enabled. Each running call holds a permit and
+ * additional calls wait for a permit to be released, without blocking any
+ * thread. The connector is considered overloaded when all permits are used.</td>
+ * </tr>
+ * <tr>
  * <td>maxIoIdleTimeMs</td>
  * <td>int</td>
  * <td>60 000</td>
@@ -129,6 +139,17 @@ import org.restlet.engine.log.LoggingThreadFactory;
  * <td>Time for an idle thread to wait for an operation before being collected.</td>
  * </tr>
  * <tr>
+ * <td>threadPerCall</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if each call should be processed by its own worker thread,
+ * created on demand and reused while idle, instead of a bounded pool of worker
+ * threads. This suits calls that block for a long time, for example on
+ * databases or remote services. The "minThreads", "lowThreads", "maxThreads"
+ * and "maxQueued" parameters are then replaced by the "maxConcurrentCalls"
+ * one.</td>
+ * </tr>
+ * <tr>
  * <td>tracing</td>
  * <td>boolean</td>
  * <td>false</td>
@@ -164,6 +185,15 @@ import org.restlet.engine.log.LoggingThreadFactory;
  * use direct buffers.</td>
  * </tr>
  * <tr>
+ * <td>directTransfers</td>
+ * <td>boolean</td>
+ * <td>true</td>
+ * <td>Indicates if the entities read from files should be directly transferred
+ * to the socket channel with FileChannel#transferTo, without being copied into
+ * the outbound buffer. Note that tracing must be disabled and the connection
+ * must not be secure to use direct transfers.</td>
+ * </tr>
+ * <tr>
  * <td>throttleTimeMs</td>
  * <td>int</td>
  * <td>0</td>
@@ -217,6 +247,16 @@ public abstract class BaseHelper<T extends Connector> extends
         this.controller = createController();
     }
 
+    /**
+     * Adds the inbound message to the queue of messages pending for handling.
+     * 
+     * @param response
+     *            The inbound message.
+     */
+    public void addInboundMessage(Response response) {
+        getInboundMessages().add(response);
+    }
+
     /**
      * Controls the helper for inbound or outbound messages to handle.
      * 
@@ -275,22 +315,31 @@ public abstract class BaseHelper<T extends Connector> extends
      * @return The handler service.
      */
     protected ThreadPoolExecutor createWorkerService() {
-        int maxThreads = getMaxThreads();
-        int minThreads = getMinThreads();
+        ThreadPoolExecutor result = null;
 
-        BlockingQueue<Runnable> queue = null;
-
-        if (getMaxQueued() == 0) {
-            queue = new SynchronousQueue<Runnable>();
-        } else if (getMaxQueued() < 0) {
-            queue = new LinkedBlockingQueue<Runnable>();
+        if (isThreadPerCall()) {
+            result = new ThreadPerTaskExecutor(getMaxConcurrentCalls(),
+                    getMaxThreadIdleTimeMs(), new LoggingThreadFactory(
+                            getLogger(), true));
         } else {
-            queue = new ArrayBlockingQueue<Runnable>(getMaxQueued());
+            int maxThreads = getMaxThreads();
+            int minThreads = getMinThreads();
+
+            BlockingQueue<Runnable> queue = null;
+
+            if (getMaxQueued() == 0) {
+                queue = new SynchronousQueue<Runnable>();
+            } else if (getMaxQueued() < 0) {
+                queue = new LinkedBlockingQueue<Runnable>();
+            } else {
+                queue = new ArrayBlockingQueue<Runnable>(getMaxQueued());
+            }
+
+            result = new ThreadPoolExecutor(minThreads, maxThreads,
+                    getMaxThreadIdleTimeMs(), TimeUnit.MILLISECONDS, queue,
+                    new LoggingThreadFactory(getLogger(), true));
         }
 
-        ThreadPoolExecutor result = new ThreadPoolExecutor(minThreads,
-                maxThreads, getMaxThreadIdleTimeMs(), TimeUnit.MILLISECONDS,
-                queue, new LoggingThreadFactory(getLogger(), true));
         result.setRejectedExecutionHandler(new RejectedExecutionHandler() {
             public void rejectedExecution(Runnable r,
                     ThreadPoolExecutor executor) {
@@ -324,7 +373,7 @@ public abstract class BaseHelper<T extends Connector> extends
 
         // Stops the controller
         if (this.controllerService != null) {
-            this.controller.shutdown();
+            shutdownControllers();
             this.controllerService.shutdown();
 
             try {
@@ -396,6 +445,15 @@ public abstract class BaseHelper<T extends Connector> extends
         return controller;
     }
 
+    /**
+     * Returns the controller service.
+     * 
+     * @return The controller service.
+     */
+    protected ExecutorService getControllerService() {
+        return controllerService;
+    }
+
     /**
      * Returns the time for the controller thread to sleep between each control.
      * 
@@ -435,6 +493,17 @@ public abstract class BaseHelper<T extends Connector> extends
                 "lowThreads", "8"));
     }
 
+    /**
+     * Returns the maximum number of calls that can be processed concurrently
+     * when each call has its own worker thread.
+     * 
+     * @return The maximum number of calls that can be processed concurrently.
+     */
+    public int getMaxConcurrentCalls() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxConcurrentCalls", "1000"));
+    }
+
     /**
      * Returns the time for an idle IO connection or request to wait for an
      * operation before being closed. For an unlimited wait, use '0' as value.
@@ -684,6 +753,20 @@ public abstract class BaseHelper<T extends Connector> extends
                         "directBuffers", "false"));
     }
 
+    /**
+     * Indicates if the entities read from files should be directly transferred
+     * to the socket channel, without being copied into the outbound buffer.
+     * Note that tracing must be disabled to use direct transfers.
+     * 
+     * @return True if the entities read from files should be directly
+     *         transferred to the socket channel.
+     */
+    public boolean isDirectTransfers() {
+        return !isTracing()
+                && Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                        "directTransfers", "true"));
+    }
+
     /**
      * Indicates if it is helping a server connector.
      * 
@@ -693,6 +776,16 @@ public abstract class BaseHelper<T extends Connector> extends
         return !isClientSide();
     }
 
+    /**
+     * Indicates if each call should be processed by its own worker thread.
+     * 
+     * @return True if each call should be processed by its own worker thread.
+     */
+    public boolean isThreadPerCall() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "threadPerCall", "false"));
+    }
+
     /**
      * Indicates if console tracing is enabled.
      * 
@@ -706,13 +799,22 @@ public abstract class BaseHelper<T extends Connector> extends
     /**
      * Indicates if the worker service is busy. This state is detected by
      * checking if the number of active task running is superior or equal to the
-     * maximum pool size.
+     * maximum pool size. When each call has its own worker thread, it is
+     * detected by checking if all the permits are used.
      * 
      * @return True if the worker service is busy.
      */
     protected boolean isWorkerServiceOverloaded() {
-        return (getWorkerService() != null)
-                && getWorkerService().getActiveCount() >= getLowThreads();
+        boolean result = false;
+
+        if (getWorkerService() instanceof ThreadPerTaskExecutor) {
+            result = ((ThreadPerTaskExecutor) getWorkerService())
+                    .isSaturated();
+        } else if (getWorkerService() != null) {
+            result = getWorkerService().getActiveCount() >= getLowThreads();
+        }
+
+        return result;
     }
 
     /**
@@ -726,7 +828,7 @@ public abstract class BaseHelper<T extends Connector> extends
     public void onInboundError(Status status, Response message) {
         if (message != null) {
             message.setStatus(status);
-            getInboundMessages().add(message);
+            addInboundMessage(message);
         }
     }
 
@@ -747,10 +849,17 @@ public abstract class BaseHelper<T extends Connector> extends
                 request.getOnError().handle(request, message);
             }
 
-            getInboundMessages().add(message);
+            addInboundMessage(message);
         }
     }
 
+    /**
+     * Shuts down the controller task.
+     */
+    protected void shutdownControllers() {
+        this.controller.shutdown();
+    }
+
     @Override
     public void start() throws Exception {
         super.start();
@@ -779,10 +888,16 @@ public abstract class BaseHelper<T extends Connector> extends
                     "Worker service state: "
                             + (isWorkerServiceOverloaded() ? "Overloaded"
                                     : "Normal"));
-            getLogger()
-                    .fine("Worker service tasks: "
-                            + getWorkerService().getQueue().size()
-                            + " queued, " + getWorkerService().getActiveCount()
+            int queued = getWorkerService().getQueue().size();
+
+            if (getWorkerService() instanceof ThreadPerTaskExecutor) {
+                queued = ((ThreadPerTaskExecutor) getWorkerService())
+                        .getPendingCount();
+            }
+
+            getLogger().fine(
+                    "Worker service tasks: " + queued + " queued, "
+                            + getWorkerService().getActiveCount()
                             + " active, "
                             + getWorkerService().getCompletedTaskCount()
                             + " completed, "
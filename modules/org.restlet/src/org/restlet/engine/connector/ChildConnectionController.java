@@ -0,0 +1,80 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.connector;
+
+import java.io.IOException;
+
+/**
+ * Controls the IO work of a subset of the connections of the parent connector
+ * helper, using its own NIO selector and thread. The acceptance of new
+ * connections and the handling of the helper's message queues are left to the
+ * main controller returned by {@link BaseHelper#getController()}.
+ * 
+ * @author Jerome Louvel
+ */
+public class ChildConnectionController extends ConnectionController {
+
+    /**
+     * Constructor.
+     * 
+     * @param helper
+     *            The parent connector helper.
+     */
+    public ChildConnectionController(ConnectionHelper<?> helper) {
+        super(helper);
+    }
+
+    /**
+     * Does nothing as the overload state is only maintained by the main
+     * controller.
+     */
+    @Override
+    protected void controlOverload() {
+    }
+
+    /**
+     * Only controls the IO of the attached connections as the helper's message
+     * queues are handled by the main controller.
+     */
+    @Override
+    protected void doRun(long sleepTime) throws IOException {
+        controlIo(sleepTime);
+    }
+
+    @Override
+    public boolean isOverloaded() {
+        return getHelper().getController().isOverloaded();
+    }
+
+}
@@ -39,6 +39,9 @@ import java.net.UnknownHostException;
 import java.nio.channels.SocketChannel;
 import java.util.Iterator;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 
 import org.restlet.Client;
@@ -46,6 +49,7 @@ import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
+import org.restlet.engine.log.LoggingThreadFactory;
 
 /**
  * Base client helper based on NIO non blocking sockets. Here is the list of
@@ -59,6 +63,37 @@ import org.restlet.data.Status;
  * <th>Description</th>
  * </tr>
  * <tr>
+ * <td>dnsCacheTtlMs</td>
+ * <td>int</td>
+ * <td>30000</td>
+ * <td>Time to live in milliseconds of the cached host name resolutions, or 0
+ * to resolve host names for each request. Resolutions used during the last
+ * quarter of their time to live are refreshed in the background.</td>
+ * </tr>
+ * <tr>
+ * <td>dnsNegativeCacheTtlMs</td>
+ * <td>int</td>
+ * <td>10000</td>
+ * <td>Time to live in milliseconds of the cached host name resolution
+ * failures.</td>
+ * </tr>
+ * <tr>
+ * <td>dnsRoundRobin</td>
+ * <td>boolean</td>
+ * <td>true</td>
+ * <td>Indicates if the addresses of hosts resolved to several addresses are
+ * used in a round-robin manner. Note that the maximum number of connections
+ * per host applies to each address.</td>
+ * </tr>
+ * <tr>
+ * <td>maxPipelineDepth</td>
+ * <td>int</td>
+ * <td>4</td>
+ * <td>Maximum number of requests awaiting their response on a pipelining
+ * connection. Only requests with idempotent methods are pipelined, see the
+ * "pipeliningConnections" parameter.</td>
+ * </tr>
+ * <tr>
  * <td>proxyHost</td>
  * <td>String</td>
  * <td>System property "http.proxyHost"</td>
@@ -84,6 +119,14 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
 
     protected static final String CONNECTOR_LATCH = "org.restlet.engine.connector.latch";
 
+    protected static final String CONNECTOR_RESENT = "org.restlet.engine.connector.resent";
+
+    /** The cache of host name resolutions, or null if disabled. */
+    private volatile DnsCache dnsCache;
+
+    /** The service refreshing the cached host name resolutions. */
+    private volatile ExecutorService dnsRefreshService;
+
     /**
      * Constructor.
      * 
@@ -158,6 +201,18 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                 hostPort));
     }
 
+    /**
+     * Creates the cache of host name resolutions.
+     * 
+     * @param refreshExecutor
+     *            The executor refreshing entries in the background.
+     * @return The cache of host name resolutions.
+     */
+    protected DnsCache createDnsCache(Executor refreshExecutor) {
+        return new DnsCache(getDnsCacheTtlMs(), getDnsNegativeCacheTtlMs(),
+                isDnsRoundRobin(), refreshExecutor);
+    }
+
     @Override
     public void doHandleInbound(Response response) {
         if (response != null) {
@@ -196,12 +251,13 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
 
                 if (bestConn != null) {
                     bestConn.getOutboundWay().handle(response);
+                    wakeupController(bestConn);
                 } else {
                     getLogger().log(Level.WARNING,
                             "Unable to find a connection to send the request");
                     response.setStatus(Status.CONNECTOR_ERROR_COMMUNICATION,
                             "Unable to find a connection to send the request");
-                    unblock(response);
+                    handleInbound(response);
                 }
             }
         } catch (Throwable t) {
@@ -210,7 +266,7 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                             "An error occured during the communication with the remote server.",
                             t);
             response.setStatus(Status.CONNECTOR_ERROR_COMMUNICATION, t);
-            unblock(response);
+            handleInbound(response);
         }
     }
 
@@ -234,6 +290,8 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
         int hostConnectionCount = 0;
         int bestScore = Integer.MAX_VALUE;
         boolean foundConn = false;
+        Connection<Client> pipelineConn = null;
+        int pipelineScore = getMaxPipelineDepth();
 
         // Determine the target host domain and port of the request.
         InetSocketAddress socketAddress = getSocketAddress(request);
@@ -245,30 +303,35 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
         } else {
             // Associate the given request to the first available connection
             // opened on the same host domain and port.
-            for (Iterator<Connection<Client>> iterator = getConnections()
-                    .iterator(); !foundConn && iterator.hasNext();) {
+            for (Iterator<Connection<Client>> iterator = getConnectionRegistry()
+                    .getConnections(socketAddress).iterator(); !foundConn
+                    && iterator.hasNext();) {
                 Connection<Client> currConn = iterator.next();
 
-                if (socketAddress.equals(currConn.getSocketAddress())) {
-                    if (currConn.isAvailable()) {
+                if (currConn.isAvailable()) {
+                    result = currConn;
+                    foundConn = true;
+                } else if (currConn.getState().compareTo(
+                        ConnectionState.OPEN) <= 0) {
+                    // Assign the request to the busy connection that handles
+                    // the less number of messages. This is useful in case the
+                    // maximum number of connections has been reached. As a
+                    // drawback, the message will only be handled as soon as
+                    // possible.
+                    int currScore = currConn.getLoadScore();
+
+                    if (bestScore > currScore) {
+                        bestScore = currScore;
                         result = currConn;
-                        foundConn = true;
-                    } else if (currConn.getState().compareTo(
-                            ConnectionState.OPEN) <= 0) {
-                        // Assign the request to the busy connection that
-                        // handles the less number of messages. This is useful
-                        // in case the maximum number of connections has been
-                        // reached. As a drawback, the message will only be
-                        // handled as soon as possible.
-                        int currScore = currConn.getLoadScore();
-
-                        if (bestScore > currScore) {
-                            bestScore = currScore;
-                            result = currConn;
-                        }
-
-                        hostConnectionCount++;
                     }
+
+                    if (isPipelinable(currConn, request)
+                            && (pipelineScore > currScore)) {
+                        pipelineScore = currScore;
+                        pipelineConn = currConn;
+                    }
+
+                    hostConnectionCount++;
                 }
             }
 
@@ -279,6 +342,12 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                         Level.FINE,
                         "Reusing an existing client connection to: "
                                 + socketAddress);
+            } else if (pipelineConn != null) {
+                result = pipelineConn;
+                getLogger().log(
+                        Level.FINE,
+                        "Pipelining request on an existing client connection to: "
+                                + socketAddress);
             } else if ((getMaxTotalConnections() != -1)
                     && (getConnections().size() >= getMaxTotalConnections())) {
                 if (result == null) {
@@ -315,14 +384,60 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
 
                 result = checkout(
                         createSocketChannel(request.isConfidential(),
-                                socketAddress), getController(), socketAddress);
-                getConnections().add(result);
+                                socketAddress), getNextController(),
+                        socketAddress);
+                addConnection(result);
             }
         }
 
         return result;
     }
 
+    /**
+     * Returns the cache of host name resolutions, or null if disabled.
+     * 
+     * @return The cache of host name resolutions.
+     */
+    public DnsCache getDnsCache() {
+        return dnsCache;
+    }
+
+    /**
+     * Returns the time to live in milliseconds of the cached host name
+     * resolutions, or 0 if they aren't cached.
+     * 
+     * @return The time to live in milliseconds of the cached host name
+     *         resolutions.
+     */
+    public int getDnsCacheTtlMs() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "dnsCacheTtlMs", "30000"));
+    }
+
+    /**
+     * Returns the time to live in milliseconds of the cached host name
+     * resolution failures.
+     * 
+     * @return The time to live in milliseconds of the cached host name
+     *         resolution failures.
+     */
+    public int getDnsNegativeCacheTtlMs() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "dnsNegativeCacheTtlMs", "10000"));
+    }
+
+    /**
+     * Returns the maximum number of requests awaiting their response on a
+     * pipelining connection.
+     * 
+     * @return The maximum number of requests awaiting their response on a
+     *         pipelining connection.
+     */
+    public int getMaxPipelineDepth() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxPipelineDepth", "4"));
+    }
+
     /**
      * Returns the host name of the HTTP proxy, if specified.
      * 
@@ -397,7 +512,10 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
             }
         }
 
-        if (hostDomain != null) {
+        if ((hostDomain != null) && (getDnsCache() != null)) {
+            result = new InetSocketAddress(getDnsCache().resolve(hostDomain),
+                    hostPort);
+        } else if (hostDomain != null) {
             result = new InetSocketAddress(hostDomain, hostPort);
             if (result != null && result.getAddress() == null) {
                 throw new UnknownHostException(hostDomain);
@@ -471,14 +589,102 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                 "controllerDaemon", "true"));
     }
 
+    /**
+     * Indicates if the addresses of hosts resolved to several addresses are
+     * used in a round-robin manner.
+     * 
+     * @return True if the addresses are used in a round-robin manner.
+     */
+    public boolean isDnsRoundRobin() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "dnsRoundRobin", "true"));
+    }
+
+    /**
+     * Indicates if a request can be sent on a given connection before the
+     * responses to the requests previously sent have been received.
+     * 
+     * @param connection
+     *            The busy connection.
+     * @param request
+     *            The request to send.
+     * @return True if the request can be pipelined on the connection.
+     */
+    protected boolean isPipelinable(Connection<Client> connection,
+            Request request) {
+        return (connection.getOutboundWay() instanceof HttpClientOutboundWay)
+                && (connection.getLoadScore() < getMaxPipelineDepth())
+                && ((HttpClientOutboundWay) connection.getOutboundWay())
+                        .isPipelinable(request);
+    }
+
+    /**
+     * Indicates if a request can be pipelined. By default, only requests with
+     * an idempotent method and expecting a response can be pipelined.
+     * 
+     * @param request
+     *            The request to test.
+     * @return True if the request can be pipelined.
+     */
+    public boolean isPipelinable(Request request) {
+        return (request != null) && (request.getMethod() != null)
+                && request.getMethod().isIdempotent()
+                && request.isExpectingResponse();
+    }
+
     @Override
     public boolean isProxying() {
         return getProxyHost() != null;
     }
 
+    /**
+     * Sends again a request whose connection was closed before its response
+     * was received, for example when the server closed a persistent connection
+     * in the middle of a pipeline. Only requests with an idempotent method and
+     * a non transient entity are sent again, others fail with a
+     * {@link Status#CONNECTOR_ERROR_COMMUNICATION} status. In order to prevent
+     * endless retries, a request that was the first one awaiting its response
+     * on a connection that didn't receive any response is only sent again
+     * once.
+     * 
+     * @param response
+     *            The response whose request must be sent again.
+     * @param first
+     *            Indicates if it was the first response awaited on a
+     *            connection that didn't receive any response.
+     */
+    public void resend(Response response, boolean first) {
+        Request request = response.getRequest();
+        boolean resendable = isPipelinable(request)
+                && (!request.isEntityAvailable() || !request.getEntity()
+                        .isTransient())
+                && !(first && request.getAttributes().containsKey(
+                        CONNECTOR_RESENT));
+
+        if (resendable) {
+            if (first) {
+                request.getAttributes().put(CONNECTOR_RESENT, Boolean.TRUE);
+            }
+
+            getLogger().log(Level.FINE,
+                    "Sending again a request whose connection was closed");
+            addOutboundMessage(response);
+        } else {
+            onInboundError(Status.CONNECTOR_ERROR_COMMUNICATION, response);
+        }
+    }
+
     @Override
     public void start() throws Exception {
         getLogger().info("Starting the internal " + getProtocols() + " client");
+
+        if (getDnsCacheTtlMs() > 0) {
+            this.dnsRefreshService = Executors
+                    .newSingleThreadExecutor(new LoggingThreadFactory(
+                            getLogger(), true));
+            this.dnsCache = createDnsCache(this.dnsRefreshService);
+        }
+
         super.start();
     }
 
@@ -486,6 +692,13 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
     public void stop() throws Exception {
         getLogger().info("Stopping the internal " + getProtocols() + " client");
         super.stop();
+
+        if (this.dnsRefreshService != null) {
+            this.dnsRefreshService.shutdown();
+            this.dnsRefreshService = null;
+        }
+
+        this.dnsCache = null;
     }
 
     /**
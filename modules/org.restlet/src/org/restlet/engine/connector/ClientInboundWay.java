@@ -166,7 +166,7 @@ public abstract class ClientInboundWay extends InboundWay {
     @Override
     protected void onReceived(Response message) throws IOException {
         // Add it to the helper queue
-        getHelper().getInboundMessages().add(getMessage());
+        getHelper().addInboundMessage(getMessage());
 
         if (getMessage().isEntityAvailable()) {
             // Let's wait for the entity to be consumed by the caller
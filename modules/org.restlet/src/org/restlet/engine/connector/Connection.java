@@ -49,6 +49,7 @@ import org.restlet.engine.io.IoState;
 import org.restlet.engine.io.ReadableSelectionChannel;
 import org.restlet.engine.io.ReadableSocketChannel;
 import org.restlet.engine.io.ReadableTraceChannel;
+import org.restlet.engine.io.WakeupListener;
 import org.restlet.engine.io.WritableSelectionChannel;
 import org.restlet.engine.io.WritableSocketChannel;
 import org.restlet.engine.io.WritableTraceChannel;
@@ -63,7 +64,11 @@ import org.restlet.util.SelectionRegistration;
  *            The parent connector type.
  * @author Jerome Louvel
  */
-public class Connection<T extends Connector> implements SelectionListener {
+public class Connection<T extends Connector> implements SelectionListener,
+        WakeupListener {
+
+    /** The IO controller. */
+    private volatile ConnectionController controller;
 
     /** The parent connector helper. */
     private final ConnectionHelper<T> helper;
@@ -260,6 +265,15 @@ public class Connection<T extends Connector> implements SelectionListener {
                         .getInetAddress().getHostAddress();
     }
 
+    /**
+     * Returns the IO controller.
+     * 
+     * @return The IO controller.
+     */
+    public ConnectionController getController() {
+        return controller;
+    }
+
     /**
      * Returns the parent connector helper.
      * 
@@ -449,6 +463,7 @@ public class Connection<T extends Connector> implements SelectionListener {
         this.pipelining = helper.isPipeliningConnections();
         this.maxIoIdleTimeMs = helper.getMaxIoIdleTimeMs();
         this.state = ConnectionState.OPENING;
+        this.controller = controller;
         this.socketChannel = socketChannel;
         this.socketAddress = socketAddress;
 
@@ -466,9 +481,11 @@ public class Connection<T extends Connector> implements SelectionListener {
                         this.writableSelectionChannel);
             }
 
-            // Setup the wakeup listener
-            getInboundWay().getRegistration().setWakeupListener(controller);
-            getOutboundWay().getRegistration().setWakeupListener(controller);
+            // Setup the wakeup listener so that the controller knows which
+            // connection signaled a state change
+            this.registration.setWakeupListener(this);
+            getInboundWay().getRegistration().setWakeupListener(this);
+            getOutboundWay().getRegistration().setWakeupListener(this);
         }
 
         onActivity();
@@ -540,6 +557,20 @@ public class Connection<T extends Connector> implements SelectionListener {
         return getHelper().isServerSide();
     }
 
+    /**
+     * Indicates if the entities read from files can be directly transferred to
+     * the socket channel, without being copied into the outbound buffer. This
+     * isn't possible if the bytes written to the writable selection channel are
+     * transformed, for example encrypted.
+     * 
+     * @return True if the entities read from files can be directly
+     *         transferred to the socket channel.
+     * @see BaseHelper#isDirectTransfers()
+     */
+    public boolean isTransferable() {
+        return getHelper().isDirectTransfers();
+    }
+
     /**
      * Notifies the connection that a new activity has been detected and that it
      * should be kept alive.
@@ -572,7 +603,7 @@ public class Connection<T extends Connector> implements SelectionListener {
         close(false);
 
         // Give the controller a hint to clean up the closed connection
-        getHelper().getController().wakeup();
+        getController().wakeup(this);
     }
 
     /**
@@ -670,6 +701,8 @@ public class Connection<T extends Connector> implements SelectionListener {
                     }
                 }
             } while (readyFound);
+
+            getController().onChanged(this);
         } catch (Throwable t) {
             onError("Unexpected error detected. Closing the connection.", t,
                     Status.CONNECTOR_ERROR_INTERNAL);
@@ -693,6 +726,18 @@ public class Connection<T extends Connector> implements SelectionListener {
         close(false);
     }
 
+    /**
+     * Invoked when one of the registrations of the connection needs to wake up
+     * the controller.
+     * 
+     * @param selectionRegistration
+     *            The registration requesting the wake up.
+     */
+    public void onWokeup(SelectionRegistration selectionRegistration)
+            throws IOException {
+        getController().wakeup(this);
+    }
+
     /**
      * Opens the connection. By default, set the IO state of the connection to
      * {@link ConnectionState#OPEN} and the IO state of the inbound way to
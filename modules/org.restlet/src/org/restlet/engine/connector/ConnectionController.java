@@ -39,13 +39,18 @@ import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 
 import org.restlet.Context;
 import org.restlet.engine.io.WakeupListener;
+import org.restlet.engine.util.TimingWheel;
 import org.restlet.util.SelectionListener;
 import org.restlet.util.SelectionRegistration;
 
@@ -57,6 +62,36 @@ import org.restlet.util.SelectionRegistration;
 public class ConnectionController extends Controller implements Runnable,
         WakeupListener {
 
+    /**
+     * The number of ticks per rotation of the timing wheel detecting idle
+     * connections.
+     */
+    private static final int IDLE_TICKS_PER_WHEEL = 512;
+
+    /**
+     * The queue of connections that signaled a state change, used by the event
+     * driven control.
+     */
+    private final Queue<Connection<?>> changedConnections;
+
+    /** The set of connections controlled. */
+    private final Set<Connection<?>> connections;
+
+    /** The connections to control during the current loop. */
+    private final Set<Connection<?>> controlledConnections;
+
+    /**
+     * Indicates if only the connections that signaled a state change are
+     * controlled.
+     */
+    private volatile boolean eventDriven;
+
+    /**
+     * The timing wheel detecting idle connections, used by the event driven
+     * control.
+     */
+    private volatile TimingWheel<Connection<?>> idleConnections;
+
     /** The list of new selection registrations. */
     private final Queue<SelectionRegistration> newRegistrations;
 
@@ -74,10 +109,57 @@ public class ConnectionController extends Controller implements Runnable,
      */
     public ConnectionController(ConnectionHelper<?> helper) {
         super(helper);
+        this.changedConnections = new ConcurrentLinkedQueue<Connection<?>>();
+        this.connections = Collections
+                .newSetFromMap(new ConcurrentHashMap<Connection<?>, Boolean>());
+        this.controlledConnections = new HashSet<Connection<?>>();
         this.newRegistrations = new ConcurrentLinkedQueue<SelectionRegistration>();
         this.updatedRegistrations = new ConcurrentLinkedQueue<SelectionRegistration>();
     }
 
+    /**
+     * Controls the connections that signaled a state change since the previous
+     * loop or whose idle deadline has been reached. Connections where some
+     * concrete activity occurred are controlled again during the next loop,
+     * then the idle deadline of the remaining ones is updated.
+     * 
+     * @throws IOException
+     */
+    protected void controlChangedConnections() throws IOException {
+        Connection<?> changed = getChangedConnections().poll();
+
+        while (changed != null) {
+            this.controlledConnections.add(changed);
+            changed = getChangedConnections().poll();
+        }
+
+        if (getIdleConnections() != null) {
+            getIdleConnections().expire(System.currentTimeMillis(),
+                    this.controlledConnections);
+        }
+
+        for (Connection<?> connection : this.controlledConnections) {
+            if (getConnections().contains(connection)) {
+                if (controlConnection(connection)) {
+                    getChangedConnections().add(connection);
+                }
+
+                if (getIdleConnections() != null) {
+                    if (getConnections().contains(connection)) {
+                        getIdleConnections().schedule(
+                                connection,
+                                connection.getLastActivity()
+                                        + connection.getMaxIoIdleTimeMs());
+                    } else {
+                        getIdleConnections().cancel(connection);
+                    }
+                }
+            }
+        }
+
+        this.controlledConnections.clear();
+    }
+
     /**
      * Controls a given connection for messages to read or write. Close inactive
      * connections, select ready connections or register interest in NIO
@@ -85,9 +167,12 @@ public class ConnectionController extends Controller implements Runnable,
      * 
      * @param conn
      *            The connection to control.
+     * @return True if some concrete activity occurred.
      * @throws IOException
      */
-    protected void controlConnection(Connection<?> conn) throws IOException {
+    protected boolean controlConnection(Connection<?> conn) throws IOException {
+        boolean result = true;
+
         if (getHelper().getLogger().isLoggable(Level.FINEST)) {
             getHelper().getLogger().log(Level.FINEST,
                     "Connection status: " + conn);
@@ -95,6 +180,7 @@ public class ConnectionController extends Controller implements Runnable,
 
         if (conn.getState() == ConnectionState.CLOSED) {
             // Detach the connection and collect it
+            getConnections().remove(conn);
             getHelper().getConnections().remove(conn);
             getHelper().checkin(conn);
         } else if ((conn.getState() == ConnectionState.CLOSING)
@@ -102,22 +188,69 @@ public class ConnectionController extends Controller implements Runnable,
             conn.close(false);
         } else if (conn.hasTimedOut()) {
             conn.onTimeOut();
-        } else if (conn.updateState()) {
-            getUpdatedRegistrations().add(conn.getRegistration());
         } else if (conn.isReady()) {
+            // Process the buffered bytes before updating the state, which
+            // would replace the READY state of an outbound way by an interest
             conn.onSelected(conn.getRegistration());
+
+            if (conn.isReady() || !getHelper().getInboundMessages().isEmpty()) {
+                // Bytes are still buffered or messages were completed, which
+                // must be handled without waiting for a selection
+                wakeup();
+            } else if (conn.updateState()) {
+                getUpdatedRegistrations().add(conn.getRegistration());
+            }
+        } else if (conn.updateState()) {
+            getUpdatedRegistrations().add(conn.getRegistration());
+        } else {
+            result = false;
         }
+
+        return result;
     }
 
     /**
-     * Controls all helper connections.
+     * Controls the connections attached to this controller. By default, all
+     * of them are controlled. With event driven control, only the ones that
+     * signaled a state change or reached their idle deadline are controlled.
      * 
      * @throws IOException
      */
     protected void controlConnections() throws IOException {
-        for (Connection<?> connection : getHelper().getConnections()) {
-            controlConnection(connection);
+        if (isEventDriven()) {
+            controlChangedConnections();
+        } else {
+            for (Connection<?> connection : getConnections()) {
+                controlConnection(connection);
+            }
+        }
+    }
+
+    /**
+     * Controls the attached connections, updates the NIO registrations and
+     * selects the keys ready for IO operations.
+     * 
+     * @param sleepTime
+     *            The max sleep time.
+     * @throws IOException
+     */
+    protected void controlIo(long sleepTime) throws IOException {
+        getHelper().getLogger().log(Level.FINEST, "controlConnections()");
+        controlConnections();
+        getHelper().getLogger().log(Level.FINEST, "registerKeys()");
+        registerKeys();
+        getHelper().getLogger().log(Level.FINEST, "updateKeys()");
+        updateKeys();
+
+        if ((getIdleConnections() != null) && !getIdleConnections().isEmpty()) {
+            // Make sure that idle deadlines are detected on time
+            sleepTime = Math.min(sleepTime, getIdleConnections()
+                    .getTickDuration());
         }
+
+        getHelper().getLogger().log(Level.FINEST,
+                "selectKeys(" + sleepTime + ")");
+        selectKeys(sleepTime);
     }
 
     /**
@@ -141,9 +274,24 @@ public class ConnectionController extends Controller implements Runnable,
     @Override
     protected void doInit() {
         this.selector = createSelector();
-        // Done in the controller for thread safety reason regarding the byte
-        // buffers part of the pooled connections
-        getHelper().createConnectionPool();
+        this.eventDriven = getHelper().isEventDrivenControl();
+        this.controlledConnections.clear();
+        this.idleConnections = null;
+
+        if (isEventDriven() && (getHelper().getMaxIoIdleTimeMs() > 0)) {
+            // Detect idle connections with a precision of a fraction of the
+            // maximum idle time, within the [1, 1000] ms range
+            long tickDuration = Math.max(1, Math.min(1000, getHelper()
+                    .getMaxIoIdleTimeMs() / 16));
+            this.idleConnections = new TimingWheel<Connection<?>>(
+                    tickDuration, IDLE_TICKS_PER_WHEEL);
+        }
+
+        if (getHelper().getController() == this) {
+            // Done in the main controller for thread safety reason regarding
+            // the byte buffers part of the pooled connections
+            getHelper().createConnectionPool();
+        }
     }
 
     @Override
@@ -160,15 +308,35 @@ public class ConnectionController extends Controller implements Runnable,
     protected void doRun(long sleepTime) throws IOException {
         getHelper().getLogger().log(Level.FINEST, "helper.control()");
         super.doRun(sleepTime);
-        getHelper().getLogger().log(Level.FINEST, "controlConnections()");
-        controlConnections();
-        getHelper().getLogger().log(Level.FINEST, "registerKeys()");
-        registerKeys();
-        getHelper().getLogger().log(Level.FINEST, "updateKeys()");
-        updateKeys();
-        getHelper().getLogger().log(Level.FINEST,
-                "selectKeys(" + sleepTime + ")");
-        selectKeys(sleepTime);
+        controlIo(sleepTime);
+    }
+
+    /**
+     * Returns the queue of connections that signaled a state change.
+     * 
+     * @return The queue of connections that signaled a state change.
+     */
+    protected Queue<Connection<?>> getChangedConnections() {
+        return this.changedConnections;
+    }
+
+    /**
+     * Returns the set of connections attached to this controller.
+     * 
+     * @return The set of connections attached to this controller.
+     */
+    protected Set<Connection<?>> getConnections() {
+        return this.connections;
+    }
+
+    /**
+     * Returns the timing wheel detecting idle connections, or null if idle
+     * connections aren't tracked this way.
+     * 
+     * @return The timing wheel detecting idle connections.
+     */
+    protected TimingWheel<Connection<?>> getIdleConnections() {
+        return this.idleConnections;
     }
 
     /**
@@ -198,6 +366,31 @@ public class ConnectionController extends Controller implements Runnable,
         return this.updatedRegistrations;
     }
 
+    /**
+     * Indicates if only the connections that signaled a state change are
+     * controlled.
+     * 
+     * @return True if only the connections that signaled a state change are
+     *         controlled.
+     */
+    public boolean isEventDriven() {
+        return this.eventDriven;
+    }
+
+    /**
+     * Called back when the state of a connection might have changed. With
+     * event driven control, the connection is queued in order to be controlled
+     * during the next loop. Does nothing otherwise.
+     * 
+     * @param connection
+     *            The connection whose state might have changed.
+     */
+    public void onChanged(Connection<?> connection) {
+        if (isEventDriven()) {
+            getChangedConnections().add(connection);
+        }
+    }
+
     /**
      * Called back when a ready key has been selected.
      * 
@@ -342,6 +535,19 @@ public class ConnectionController extends Controller implements Runnable,
         }
     }
 
+    /**
+     * Queues the given connection for control if needed and wakes up the
+     * controller thread.
+     * 
+     * @param connection
+     *            The connection whose state might have changed.
+     * @see #onChanged(Connection)
+     */
+    public void wakeup(Connection<?> connection) {
+        onChanged(connection);
+        wakeup();
+    }
+
     /**
      * Wakes up the controller thread if wait for an NIO selection.
      */
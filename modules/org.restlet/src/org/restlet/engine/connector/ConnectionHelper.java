@@ -40,11 +40,16 @@ import java.net.SocketException;
 import java.nio.channels.SocketChannel;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
 
 import org.restlet.Application;
 import org.restlet.Connector;
 import org.restlet.Context;
 import org.restlet.Response;
+import org.restlet.engine.io.BufferPool;
+import org.restlet.engine.log.LoggingThreadFactory;
 import org.restlet.routing.VirtualHost;
 
 /**
@@ -65,6 +70,16 @@ import org.restlet.routing.VirtualHost;
  * <td>Maximum number of concurrent connections per host (IP address).</td>
  * </tr>
  * <tr>
+ * <td>eventDrivenControl</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if the controllers should only control the connections that
+ * signaled a state change, instead of all their connections after each NIO
+ * selection. Idle connections are then detected using a hashed timing wheel,
+ * making the cost of each control loop proportional to the number of active
+ * connections.</td>
+ * </tr>
+ * <tr>
  * <td>initialConnections</td>
  * <td>int</td>
  * <td>100</td>
@@ -73,6 +88,13 @@ import org.restlet.routing.VirtualHost;
  * simply reused.</td>
  * </tr>
  * <tr>
+ * <td>maxPooledBuffers</td>
+ * <td>int</td>
+ * <td>1024</td>
+ * <td>Maximum number of idle byte buffers kept per size class in the shared
+ * buffer pool. See the "pooledBuffers" parameter.</td>
+ * </tr>
+ * <tr>
  * <td>maxTotalConnections</td>
  * <td>int</td>
  * <td>-1</td>
@@ -91,12 +113,32 @@ import org.restlet.routing.VirtualHost;
  * <td>Indicates if pipelining connections are supported.</td>
  * </tr>
  * <tr>
+ * <td>pooledBuffers</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if the byte buffers of the connections should be borrowed from
+ * a pool shared by all the connections of the connector, only while bytes are
+ * in flight. Otherwise, each connection allocates its own buffers, kept even
+ * while the connection is idle or pooled.</td>
+ * </tr>
+ * <tr>
  * <td>pooledConnections</td>
  * <td>boolean</td>
  * <td>true</td>
  * <td>Indicates if connections should be pooled to save instantiation time.</td>
  * </tr>
  * <tr>
+ * <td>selectorThreads</td>
+ * <td>int</td>
+ * <td>1</td>
+ * <td>Number of NIO selector threads controlling the IO of connections. If
+ * superior to 1, the main controller thread only accepts new connections and
+ * handles the messages queues while the connections are distributed among this
+ * number of child controller threads, each one owning a separate NIO selector.
+ * New connections are given to the least loaded child controller. If the value
+ * is '0', then one selector thread per available processor is used.</td>
+ * </tr>
+ * <tr>
  * <td>socketKeepAlive</td>
  * <td>boolean</td>
  * <td>true</td>
@@ -157,11 +199,18 @@ import org.restlet.routing.VirtualHost;
  */
 public abstract class ConnectionHelper<T extends Connector> extends
         BaseHelper<T> {
+
+    /** The child controllers sharing the control of connections. */
+    private final List<ChildConnectionController> childControllers;
+
+    /** The shared byte buffer pool. */
+    private volatile BufferPool bufferPool;
+
     /** The connection pool. */
     private volatile ConnectionPool<T> connectionPool;
 
-    /** The set of active connections. */
-    private final List<Connection<T>> connections;
+    /** The registry of active connections. */
+    private final ConnectionRegistry<T> connections;
 
     /**
      * Constructor.
@@ -173,10 +222,41 @@ public abstract class ConnectionHelper<T extends Connector> extends
      */
     public ConnectionHelper(T connector, boolean clientSide) {
         super(connector, clientSide);
-        this.connections = new CopyOnWriteArrayList<Connection<T>>();
+        this.bufferPool = null;
+        this.childControllers = new CopyOnWriteArrayList<ChildConnectionController>();
+        this.connections = new ConnectionRegistry<T>(clientSide);
         this.connectionPool = null;
     }
 
+    /**
+     * Adds a new connection to the set of active connections and attaches it
+     * to its IO controller.
+     * 
+     * @param connection
+     *            The connection to add.
+     */
+    protected void addConnection(Connection<T> connection) {
+        getConnections().add(connection);
+        connection.getController().getConnections().add(connection);
+        wakeupController(connection);
+    }
+
+    /**
+     * Adds the inbound message to the queue. As it might be added by a child
+     * controller thread, the main controller is woken up in this case.
+     * 
+     * @param response
+     *            The inbound message.
+     */
+    @Override
+    public void addInboundMessage(Response response) {
+        super.addInboundMessage(response);
+
+        if (!getChildControllers().isEmpty()) {
+            getController().wakeup();
+        }
+    }
+
     /**
      * Add the outbound message to the queue and wake up the IO controller.
      * 
@@ -264,6 +344,15 @@ public abstract class ConnectionHelper<T extends Connector> extends
         socket.setTrafficClass(getSocketTrafficClass());
     }
 
+    /**
+     * Creates a child controller sharing the control of connections.
+     * 
+     * @return A new child controller.
+     */
+    protected ChildConnectionController createChildController() {
+        return new ChildConnectionController(this);
+    }
+
     /**
      * Creates a connection associated to the given socket.
      * 
@@ -290,6 +379,33 @@ public abstract class ConnectionHelper<T extends Connector> extends
         }
     }
 
+    /**
+     * Creates the byte buffer pool shared by the connections.
+     * 
+     * @return The byte buffer pool.
+     */
+    protected BufferPool createBufferPool() {
+        return new BufferPool(Math.max(getInboundBufferSize(),
+                getOutboundBufferSize()), getMaxPooledBuffers(),
+                isDirectBuffers());
+    }
+
+    /**
+     * Creates the connector controller service. If child controllers are used,
+     * a thread is added for each one of them.
+     * 
+     * @return The connector controller service.
+     */
+    @Override
+    protected ExecutorService createControllerService() {
+        if (getChildControllers().isEmpty()) {
+            return super.createControllerService();
+        }
+
+        return Executors.newFixedThreadPool(1 + getChildControllers().size(),
+                new LoggingThreadFactory(getLogger(), isControllerDaemon()));
+    }
+
     /**
      * Creates an inbound way for the given connection.
      * 
@@ -321,6 +437,14 @@ public abstract class ConnectionHelper<T extends Connector> extends
         if (isPooledConnection()) {
             this.connectionPool = null;
         }
+
+        if (getBufferPool() != null) {
+            if (getLogger().isLoggable(Level.FINE)) {
+                getLogger().fine(getBufferPool().toString());
+            }
+
+            getBufferPool().clear();
+        }
     }
 
     @Override
@@ -330,9 +454,33 @@ public abstract class ConnectionHelper<T extends Connector> extends
         // Gracefully close the open connections
         for (Connection<T> connection : getConnections()) {
             connection.close(true);
+
+            if (connection.getController() != null) {
+                connection.getController().wakeup(connection);
+            }
         }
     }
 
+    /**
+     * Returns the byte buffer pool shared by the connections, or null if
+     * buffers aren't pooled.
+     * 
+     * @return The byte buffer pool.
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Returns the child controllers sharing the control of connections. The
+     * list is empty if the main controller controls all the connections.
+     * 
+     * @return The child controllers sharing the control of connections.
+     */
+    public List<ChildConnectionController> getChildControllers() {
+        return childControllers;
+    }
+
     /**
      * Returns the connection pool.
      * 
@@ -343,12 +491,23 @@ public abstract class ConnectionHelper<T extends Connector> extends
     }
 
     /**
-     * Returns the set of active connections.
+     * Returns the registry of active connections. On the client side, the
+     * connections are indexed by destination.
+     * 
+     * @return The registry of active connections.
+     */
+    public ConnectionRegistry<T> getConnectionRegistry() {
+        return connections;
+    }
+
+    /**
+     * Returns the set of active connections. This is a list view of the
+     * registry returned by {@link #getConnectionRegistry()}.
      * 
      * @return The set of active connections.
      */
     public List<Connection<T>> getConnections() {
-        return connections;
+        return connections.asList();
     }
 
     /**
@@ -375,6 +534,17 @@ public abstract class ConnectionHelper<T extends Connector> extends
                 "maxConnectionsPerHost", "-1"));
     }
 
+    /**
+     * Returns the maximum number of idle byte buffers kept per size class in
+     * the shared buffer pool.
+     * 
+     * @return The maximum number of idle byte buffers kept per size class.
+     */
+    public int getMaxPooledBuffers() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxPooledBuffers", "1024"));
+    }
+
     /**
      * Returns the maximum number of concurrent connections allowed. By default,
      * it is unbounded.
@@ -387,6 +557,47 @@ public abstract class ConnectionHelper<T extends Connector> extends
 
     }
 
+    /**
+     * Returns the controller that should control the IO of a new connection.
+     * This is the main controller unless child controllers are used, in which
+     * case the least loaded one is returned.
+     * 
+     * @return The controller of a new connection.
+     */
+    protected ConnectionController getNextController() {
+        ConnectionController result = getController();
+        int bestSize = Integer.MAX_VALUE;
+
+        for (ChildConnectionController childController : getChildControllers()) {
+            int size = childController.getConnections().size();
+
+            if (size < bestSize) {
+                bestSize = size;
+                result = childController;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of NIO selector threads controlling the IO of
+     * connections. If the related parameter is set to '0', it returns the
+     * number of available processors.
+     * 
+     * @return The number of NIO selector threads.
+     */
+    public int getSelectorThreads() {
+        int result = Integer.parseInt(getHelpedParameters().getFirstValue(
+                "selectorThreads", "1"));
+
+        if (result <= 0) {
+            result = Runtime.getRuntime().availableProcessors();
+        }
+
+        return result;
+    }
+
     /**
      * Returns the time to block when a socket close is requested or -1 to not
      * block at all.
@@ -437,6 +648,18 @@ public abstract class ConnectionHelper<T extends Connector> extends
 
     }
 
+    /**
+     * Indicates if the controllers should only control the connections that
+     * signaled a state change.
+     * 
+     * @return True if the controllers should only control the connections that
+     *         signaled a state change.
+     */
+    public boolean isEventDrivenControl() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "eventDrivenControl", "false"));
+    }
+
     /**
      * Indicates if persistent connections should be used if possible.
      * 
@@ -457,6 +680,17 @@ public abstract class ConnectionHelper<T extends Connector> extends
                 "pipeliningConnections", "false"));
     }
 
+    /**
+     * Indicates if the byte buffers of the connections should be borrowed from
+     * a shared pool.
+     * 
+     * @return True if the byte buffers should be borrowed from a shared pool.
+     */
+    public boolean isPooledBuffers() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "pooledBuffers", "false"));
+    }
+
     /**
      * Indicates if the connection objects should be pooled to save
      * instantiation time.
@@ -523,4 +757,49 @@ public abstract class ConnectionHelper<T extends Connector> extends
         return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
                 "socketReuseAddress", "true"));
     }
+
+    @Override
+    protected void shutdownControllers() {
+        super.shutdownControllers();
+
+        for (ChildConnectionController childController : getChildControllers()) {
+            childController.shutdown();
+        }
+    }
+
+    @Override
+    public void start() throws Exception {
+        this.bufferPool = isPooledBuffers() ? createBufferPool() : null;
+        getChildControllers().clear();
+        int selectorThreads = getSelectorThreads();
+
+        if (selectorThreads > 1) {
+            for (int i = 0; i < selectorThreads; i++) {
+                getChildControllers().add(createChildController());
+            }
+        }
+
+        super.start();
+
+        for (ChildConnectionController childController : getChildControllers()) {
+            getControllerService().submit(childController);
+        }
+    }
+
+    /**
+     * Signals a state change of the given connection to its IO controller,
+     * waking it up if it isn't the main controller. This is needed when the
+     * main controller updates the state of a connection controlled by a child
+     * controller.
+     * 
+     * @param connection
+     *            The connection whose controller should be woken up.
+     */
+    public void wakeupController(Connection<?> connection) {
+        if (connection.getController() != getController()) {
+            connection.getController().wakeup(connection);
+        } else {
+            connection.getController().onChanged(connection);
+        }
+    }
 }
@@ -0,0 +1,363 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.connector;
+
+import java.net.SocketAddress;
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Connector;
+
+/**
+ * Concurrent registry of the active connections of a connector. Connections
+ * can be added and removed in constant time, without copying the whole
+ * registry, and can optionally be indexed by destination socket address so
+ * that the connections to a given host can be found without scanning all the
+ * others.<br>
+ * <br>
+ * A connection is indexed with the socket address it has when added. It must
+ * be removed and added again if this address changes, for example when the
+ * connection is recycled by a pool.
+ * 
+ * @author Jerome Louvel
+ * @param <T>
+ *            The parent connector type.
+ */
+public class ConnectionRegistry<T extends Connector> extends
+        AbstractCollection<Connection<T>> {
+
+    /**
+     * Connections to the same destination. The list is copied on write, as
+     * there are few connections per destination and lookups are much more
+     * frequent than additions and removals.
+     */
+    private static final class Destination<C extends Connector> {
+
+        /** The connections to the destination. */
+        private final List<Connection<C>> connections;
+
+        /** Indicates if the destination was removed from the registry. */
+        private boolean removed;
+
+        /** The read-only view of the connections. */
+        private final List<Connection<C>> view;
+
+        /**
+         * Constructor.
+         */
+        private Destination() {
+            this.connections = new CopyOnWriteArrayList<Connection<C>>();
+            this.removed = false;
+            this.view = Collections.unmodifiableList(this.connections);
+        }
+    }
+
+    /**
+     * List view of the registry, for the callers expecting a list of
+     * connections.
+     */
+    private final class ListView extends AbstractList<Connection<T>> {
+
+        @Override
+        public boolean add(Connection<T> connection) {
+            return ConnectionRegistry.this.add(connection);
+        }
+
+        @Override
+        public void clear() {
+            ConnectionRegistry.this.clear();
+        }
+
+        @Override
+        public boolean contains(Object connection) {
+            return ConnectionRegistry.this.contains(connection);
+        }
+
+        /**
+         * Returns the connection at the given position of the iteration order.
+         * The registry has no positional index, so the connections are
+         * iterated to reach it.
+         * 
+         * @param index
+         *            The position of the connection.
+         * @return The connection at the given position.
+         */
+        @Override
+        public Connection<T> get(int index) {
+            if (index >= 0) {
+                int i = 0;
+
+                for (Connection<T> connection : ConnectionRegistry.this) {
+                    if (i++ == index) {
+                        return connection;
+                    }
+                }
+            }
+
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+
+        @Override
+        public Iterator<Connection<T>> iterator() {
+            return ConnectionRegistry.this.iterator();
+        }
+
+        @Override
+        public Connection<T> remove(int index) {
+            Connection<T> result = get(index);
+            ConnectionRegistry.this.remove(result);
+            return result;
+        }
+
+        @Override
+        public boolean remove(Object connection) {
+            return ConnectionRegistry.this.remove(connection);
+        }
+
+        @Override
+        public int size() {
+            return ConnectionRegistry.this.size();
+        }
+    }
+
+    /** Marker of the connections that aren't indexed by destination. */
+    private static final Object UNINDEXED = new Object();
+
+    /**
+     * The active connections, associated to the socket address used to index
+     * them or to the {@link #UNINDEXED} marker.
+     */
+    private final ConcurrentMap<Connection<T>, Object> connections;
+
+    /** The connections indexed by destination, or null if not indexed. */
+    private final ConcurrentMap<SocketAddress, Destination<T>> destinations;
+
+    /** The list view of the registry. */
+    private final List<Connection<T>> list;
+
+    /** The number of active connections. */
+    private final AtomicInteger size;
+
+    /**
+     * Constructor.
+     * 
+     * @param indexed
+     *            True if the connections should be indexed by destination.
+     */
+    public ConnectionRegistry(boolean indexed) {
+        this.connections = new ConcurrentHashMap<Connection<T>, Object>();
+
+        if (indexed) {
+            this.destinations = new ConcurrentHashMap<SocketAddress, Destination<T>>();
+        } else {
+            this.destinations = null;
+        }
+
+        this.list = new ListView();
+        this.size = new AtomicInteger();
+    }
+
+    /**
+     * Adds a connection, indexing it by its current socket address if needed.
+     * 
+     * @param connection
+     *            The connection to add.
+     * @return True if the connection wasn't already registered.
+     */
+    @Override
+    public boolean add(Connection<T> connection) {
+        SocketAddress address = (this.destinations == null) ? null
+                : connection.getSocketAddress();
+        Object key = (address == null) ? UNINDEXED : address;
+        Object previousKey = this.connections.putIfAbsent(connection, key);
+        boolean result = (previousKey == null);
+
+        if (result) {
+            this.size.incrementAndGet();
+
+            if (address != null) {
+                boolean added = false;
+
+                while (!added) {
+                    Destination<T> destination = this.destinations
+                            .get(address);
+
+                    if (destination == null) {
+                        destination = new Destination<T>();
+                        Destination<T> previous = this.destinations
+                                .putIfAbsent(address, destination);
+
+                        if (previous != null) {
+                            destination = previous;
+                        }
+                    }
+
+                    synchronized (destination) {
+                        if (!destination.removed) {
+                            destination.connections.add(connection);
+                            added = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a list view of the registry. The view is backed by the registry
+     * and has no positional index, so accessing a connection by position
+     * iterates over the connections.
+     * 
+     * @return A list view of the registry.
+     */
+    public List<Connection<T>> asList() {
+        return this.list;
+    }
+
+    @Override
+    public void clear() {
+        for (Connection<T> connection : this.connections.keySet()) {
+            remove(connection);
+        }
+    }
+
+    @Override
+    public boolean contains(Object connection) {
+        return this.connections.containsKey(connection);
+    }
+
+    /**
+     * Returns a read-only view of the connections indexed with the given
+     * destination. Its iterators work on a snapshot, so connections can be
+     * added or removed while a lookup is in progress. The list is empty if the
+     * registry isn't indexed.
+     * 
+     * @param address
+     *            The destination socket address.
+     * @return The connections to the destination.
+     */
+    public List<Connection<T>> getConnections(SocketAddress address) {
+        Destination<T> destination = (this.destinations == null) ? null
+                : this.destinations.get(address);
+        return (destination == null) ? Collections
+                .<Connection<T>> emptyList() : destination.view;
+    }
+
+    /**
+     * Indicates if the connections are indexed by destination.
+     * 
+     * @return True if the connections are indexed by destination.
+     */
+    public boolean isIndexed() {
+        return this.destinations != null;
+    }
+
+    @Override
+    public Iterator<Connection<T>> iterator() {
+        final Iterator<Connection<T>> iterator = this.connections.keySet()
+                .iterator();
+
+        return new Iterator<Connection<T>>() {
+            private Connection<T> current;
+
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            public Connection<T> next() {
+                this.current = iterator.next();
+                return this.current;
+            }
+
+            public void remove() {
+                if (this.current == null) {
+                    throw new IllegalStateException();
+                }
+
+                ConnectionRegistry.this.remove(this.current);
+                this.current = null;
+            }
+        };
+    }
+
+    /**
+     * Removes a connection and its index entry.
+     * 
+     * @param connection
+     *            The connection to remove.
+     * @return True if the connection was registered.
+     */
+    @Override
+    public boolean remove(Object connection) {
+        Object key = this.connections.remove(connection);
+
+        if (key == null) {
+            return false;
+        }
+
+        this.size.decrementAndGet();
+
+        if (key != UNINDEXED) {
+            Destination<T> destination = this.destinations.get(key);
+
+            if (destination != null) {
+                synchronized (destination) {
+                    destination.connections.remove(connection);
+
+                    if (destination.connections.isEmpty()) {
+                        destination.removed = true;
+                        this.destinations.remove(key, destination);
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return this.size.get();
+    }
+
+}
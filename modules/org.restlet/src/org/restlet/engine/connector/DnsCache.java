@@ -0,0 +1,268 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.connector;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache of host name resolutions used by client connectors. Successful
+ * resolutions are kept during a positive time to live and failures during a
+ * negative one. When a cached resolution is used during the last quarter of
+ * its time to live, it is refreshed in the background so that the callers
+ * are not blocked by the resolution of frequently used hosts.<br>
+ * <br>
+ * When a host has several addresses, they can be returned in a round-robin
+ * manner.
+ * 
+ * @author Jerome Louvel
+ */
+public class DnsCache {
+
+    /**
+     * Cached resolution of a host name.
+     */
+    private static final class Entry {
+
+        /** The resolved addresses, or null if the resolution failed. */
+        private final InetAddress[] addresses;
+
+        /** The expiration time. */
+        private final long expirationTime;
+
+        /** The index of the next address to return. */
+        private final AtomicInteger next;
+
+        /** The time after which the entry should be refreshed. */
+        private final long refreshTime;
+
+        /** Indicates if a background refresh is in progress. */
+        private final AtomicBoolean refreshing;
+
+        /**
+         * Constructor.
+         * 
+         * @param addresses
+         *            The resolved addresses, or null if the resolution failed.
+         * @param time
+         *            The resolution time.
+         * @param timeToLive
+         *            The time to live in milliseconds.
+         */
+        private Entry(InetAddress[] addresses, long time, long timeToLive) {
+            this.addresses = addresses;
+            this.expirationTime = time + timeToLive;
+            this.next = new AtomicInteger();
+            this.refreshTime = time + (timeToLive * 3) / 4;
+            this.refreshing = new AtomicBoolean();
+        }
+    }
+
+    /** The number of entries above which expired entries are purged. */
+    private static final int PURGE_THRESHOLD = 1024;
+
+    /** The cached entries indexed by host name. */
+    private final ConcurrentMap<String, Entry> entries;
+
+    /** The time to live of failed resolutions in milliseconds. */
+    private final long negativeTimeToLive;
+
+    /** The executor refreshing entries in the background, or null. */
+    private final Executor refreshExecutor;
+
+    /** Indicates if multiple addresses are returned in a round-robin manner. */
+    private final boolean roundRobin;
+
+    /** The time to live of successful resolutions in milliseconds. */
+    private final long timeToLive;
+
+    /**
+     * Constructor.
+     * 
+     * @param timeToLive
+     *            The time to live of successful resolutions in milliseconds.
+     * @param negativeTimeToLive
+     *            The time to live of failed resolutions in milliseconds.
+     * @param roundRobin
+     *            Indicates if multiple addresses are returned in a
+     *            round-robin manner.
+     * @param refreshExecutor
+     *            The executor refreshing entries in the background, or null
+     *            to only resolve expired entries synchronously.
+     */
+    public DnsCache(long timeToLive, long negativeTimeToLive,
+            boolean roundRobin, Executor refreshExecutor) {
+        this.entries = new ConcurrentHashMap<String, Entry>();
+        this.negativeTimeToLive = negativeTimeToLive;
+        this.refreshExecutor = refreshExecutor;
+        this.roundRobin = roundRobin;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Removes all the cached entries.
+     */
+    public void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Resolves a host name and caches the result.
+     * 
+     * @param host
+     *            The host name.
+     * @return The new entry.
+     */
+    private Entry load(String host) {
+        Entry result = null;
+        long now = System.currentTimeMillis();
+
+        try {
+            result = new Entry(lookup(host), now, this.timeToLive);
+        } catch (UnknownHostException e) {
+            result = new Entry(null, now, this.negativeTimeToLive);
+        }
+
+        if (this.entries.size() >= PURGE_THRESHOLD) {
+            purge(now);
+        }
+
+        this.entries.put(host, result);
+        return result;
+    }
+
+    /**
+     * Resolves all the addresses of a host name, bypassing the cache. By
+     * default, it calls {@link InetAddress#getAllByName(String)}.
+     * 
+     * @param host
+     *            The host name.
+     * @return The addresses of the host.
+     * @throws UnknownHostException
+     */
+    protected InetAddress[] lookup(String host) throws UnknownHostException {
+        return InetAddress.getAllByName(host);
+    }
+
+    /**
+     * Removes the expired entries.
+     * 
+     * @param now
+     *            The current time.
+     */
+    private void purge(long now) {
+        Iterator<Entry> iterator = this.entries.values().iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next().expirationTime <= now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Refreshes an entry in the background if it is close to expiration and
+     * not already being refreshed.
+     * 
+     * @param host
+     *            The host name.
+     * @param entry
+     *            The current entry.
+     * @param now
+     *            The current time.
+     */
+    private void refresh(final String host, final Entry entry, long now) {
+        if ((this.refreshExecutor != null) && (entry.addresses != null)
+                && (now >= entry.refreshTime)
+                && entry.refreshing.compareAndSet(false, true)) {
+            try {
+                this.refreshExecutor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            InetAddress[] addresses = lookup(host);
+                            entries.replace(host, entry, new Entry(addresses,
+                                    System.currentTimeMillis(), timeToLive));
+                        } catch (UnknownHostException e) {
+                            // Keep the current entry until its expiration
+                            entry.refreshing.set(false);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                entry.refreshing.set(false);
+            }
+        }
+    }
+
+    /**
+     * Returns an address of a host name, using the cache when possible.
+     * 
+     * @param host
+     *            The host name.
+     * @return An address of the host.
+     * @throws UnknownHostException
+     *             If the host can't be resolved.
+     */
+    public InetAddress resolve(String host) throws UnknownHostException {
+        long now = System.currentTimeMillis();
+        Entry entry = this.entries.get(host);
+
+        if ((entry == null) || (now >= entry.expirationTime)) {
+            entry = load(host);
+        } else {
+            refresh(host, entry, now);
+        }
+
+        if ((entry.addresses == null) || (entry.addresses.length == 0)) {
+            throw new UnknownHostException(host);
+        }
+
+        int index = 0;
+
+        if (this.roundRobin && (entry.addresses.length > 1)) {
+            index = (entry.next.getAndIncrement() & Integer.MAX_VALUE)
+                    % entry.addresses.length;
+        }
+
+        return entry.addresses[index];
+    }
+
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.connector;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.restlet.data.CharacterSet;
+import org.restlet.data.MediaType;
+import org.restlet.engine.header.ContentType;
+import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderConstants;
+
+/**
+ * Cache of header lines pre-encoded as ISO-8859-1 bytes, including the
+ * trailing CRLF. Only the values of a few headers with a low cardinality are
+ * cached as they are met, such as "Server", "Connection" or
+ * "Transfer-Encoding". For "Content-Type", whose values can carry arbitrary
+ * parameters, only the common media types pre-encoded at initialization are
+ * cached. The last "Date" header line is also kept so that it is only encoded
+ * once per second. Other lines can be encoded directly into a byte buffer. A
+ * null header value is written as "null".
+ * 
+ * @author Jerome Louvel
+ */
+public final class HeaderLineCache {
+
+    /**
+     * Encoded header line associated to its value.
+     */
+    private static final class CachedLine {
+
+        /** The encoded header line. */
+        private final byte[] bytes;
+
+        /** The header value. */
+        private final String value;
+
+        /**
+         * Constructor.
+         * 
+         * @param value
+         *            The header value.
+         * @param bytes
+         *            The encoded header line.
+         */
+        private CachedLine(String value, byte[] bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+
+    /** The maximum number of values cached per header name. */
+    private static final int MAX_VALUES = 64;
+
+    /** The last "Date" header line. */
+    private static volatile CachedLine dateLine = new CachedLine(null, null);
+
+    /** The pre-encoded "Content-Type" lines indexed by header value. */
+    private static final Map<String, byte[]> CONTENT_TYPE_LINES;
+
+    /** The cached lines indexed by header name then by header value. */
+    private static final Map<String, ConcurrentMap<String, byte[]>> LINES;
+
+    static {
+        Map<String, ConcurrentMap<String, byte[]>> lines;
+        lines = new HashMap<String, ConcurrentMap<String, byte[]>>();
+        String[] names = { HeaderConstants.HEADER_ACCEPT_RANGES,
+                HeaderConstants.HEADER_CONNECTION,
+                HeaderConstants.HEADER_CONTENT_ENCODING,
+                HeaderConstants.HEADER_SERVER,
+                HeaderConstants.HEADER_TRANSFER_ENCODING,
+                HeaderConstants.HEADER_VARY };
+
+        for (String name : names) {
+            lines.put(name, new ConcurrentHashMap<String, byte[]>());
+        }
+
+        LINES = Collections.unmodifiableMap(lines);
+
+        // Pre-encode the most common content types
+        Map<String, byte[]> contentTypeLines = new HashMap<String, byte[]>();
+        MediaType[] mediaTypes = { MediaType.APPLICATION_JSON,
+                MediaType.APPLICATION_OCTET_STREAM, MediaType.APPLICATION_XML,
+                MediaType.TEXT_CSS, MediaType.TEXT_HTML,
+                MediaType.TEXT_JAVASCRIPT, MediaType.TEXT_PLAIN,
+                MediaType.TEXT_XML };
+
+        for (MediaType mediaType : mediaTypes) {
+            for (CharacterSet characterSet : new CharacterSet[] { null,
+                    CharacterSet.UTF_8 }) {
+                Header header = new Header(HeaderConstants.HEADER_CONTENT_TYPE,
+                        ContentType.writeHeader(mediaType, characterSet));
+                contentTypeLines.put(header.getValue(), encode(header));
+            }
+        }
+
+        CONTENT_TYPE_LINES = Collections.unmodifiableMap(contentTypeLines);
+        getLine(new Header(HeaderConstants.HEADER_TRANSFER_ENCODING,
+                "chunked"));
+    }
+
+    /**
+     * Encodes a header line into a new byte array.
+     * 
+     * @param header
+     *            The header to encode.
+     * @return The encoded header line.
+     */
+    public static byte[] encode(Header header) {
+        ByteBuffer result = ByteBuffer.allocate(getLength(header));
+        write(header, result);
+        return result.array();
+    }
+
+    /**
+     * Returns the length of an encoded header line.
+     * 
+     * @param header
+     *            The header.
+     * @return The length of the encoded header line.
+     */
+    public static int getLength(Header header) {
+        return getName(header).length() + getValue(header).length() + 4;
+    }
+
+    /**
+     * Returns the cached encoded line of a header, or null if the header isn't
+     * cacheable. The returned array must not be modified.
+     * 
+     * @param header
+     *            The header.
+     * @return The cached encoded line or null.
+     */
+    public static byte[] getLine(Header header) {
+        byte[] result = null;
+        String name = header.getName();
+        String value = getValue(header);
+
+        if (HeaderConstants.HEADER_DATE.equals(name)) {
+            CachedLine line = dateLine;
+
+            if (value.equals(line.value)) {
+                result = line.bytes;
+            } else {
+                result = encode(header);
+                dateLine = new CachedLine(value, result);
+            }
+        } else if (HeaderConstants.HEADER_CONTENT_TYPE.equals(name)) {
+            result = CONTENT_TYPE_LINES.get(value);
+        } else if (name != null) {
+            ConcurrentMap<String, byte[]> lines = LINES.get(name);
+
+            if (lines != null) {
+                result = lines.get(value);
+
+                if ((result == null) && (lines.size() < MAX_VALUES)) {
+                    result = encode(header);
+                    lines.putIfAbsent(value, result);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the name of a header, or "null" if it has no name.
+     * 
+     * @param header
+     *            The header.
+     * @return The name of the header.
+     */
+    private static String getName(Header header) {
+        return String.valueOf(header.getName());
+    }
+
+    /**
+     * Returns the value of a header, or "null" if it has no value.
+     * 
+     * @param header
+     *            The header.
+     * @return The value of the header.
+     */
+    private static String getValue(Header header) {
+        return String.valueOf(header.getValue());
+    }
+
+    /**
+     * Writes a header line into a byte buffer, which must have enough space
+     * remaining (see {@link #getLength(Header)}). Characters that can't be
+     * encoded are replaced by '?'.
+     * 
+     * @param header
+     *            The header to write.
+     * @param buffer
+     *            The target byte buffer.
+     */
+    public static void write(Header header, ByteBuffer buffer) {
+        write(getName(header), buffer);
+        buffer.put((byte) ':');
+        buffer.put((byte) ' ');
+        write(getValue(header), buffer);
+        buffer.put((byte) '\r');
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Writes characters into a byte buffer, as ISO-8859-1 bytes.
+     * 
+     * @param chars
+     *            The characters to write.
+     * @param buffer
+     *            The target byte buffer.
+     */
+    private static void write(String chars, ByteBuffer buffer) {
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            buffer.put((byte) ((c > 0xFF) ? '?' : c));
+        }
+    }
+
+    /**
+     * Private constructor to ensure that the class acts as a true utility
+     * class i.e. it isn't instantiable and extensible.
+     */
+    private HeaderLineCache() {
+    }
+
+}
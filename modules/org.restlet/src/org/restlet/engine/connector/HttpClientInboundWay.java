@@ -52,6 +52,9 @@ public class HttpClientInboundWay extends ClientInboundWay {
     /** The queue of messages. */
     private final Queue<Response> messages;
 
+    /** Indicates if a response was received since the way was cleared. */
+    private volatile boolean responded;
+
     /**
      * Constructor.
      * 
@@ -64,12 +67,30 @@ public class HttpClientInboundWay extends ClientInboundWay {
     public HttpClientInboundWay(Connection<Client> connection, int bufferSize) {
         super(connection, bufferSize);
         this.messages = new ConcurrentLinkedQueue<Response>();
+        this.responded = false;
+    }
+
+    /**
+     * Adds a message whose response is awaited after the ones already queued.
+     * If no response is being read, the way is ready to read the start line of
+     * the next one.
+     * 
+     * @param message
+     *            The message whose response is awaited.
+     */
+    public synchronized void addMessage(Response message) {
+        getMessages().add(message);
+
+        if (getMessageState() == MessageState.IDLE) {
+            setMessageState(MessageState.START);
+        }
     }
 
     @Override
     public void clear() {
         super.clear();
         this.messages.clear();
+        this.responded = false;
     }
 
     @Override
@@ -113,17 +134,32 @@ public class HttpClientInboundWay extends ClientInboundWay {
     }
 
     @Override
-    public void onMessageCompleted(boolean endDetected) throws IOException {
+    public synchronized void onMessageCompleted(boolean endDetected)
+            throws IOException {
         getMessages().remove(getMessage());
+        this.responded = true;
         super.onMessageCompleted(endDetected);
+
+        if (!getMessages().isEmpty()) {
+            // Read the next pipelined response
+            setMessageState(MessageState.START);
+            processBuffered();
+        }
     }
 
     @Override
     public void onError(Status status) {
-        for (Response rsp : getMessages()) {
-            if (rsp != getMessage()) {
-                getMessages().remove(rsp);
-                getHelper().onInboundError(status, rsp);
+        if (getConnection().isPipelining()
+                && Status.CONNECTOR_ERROR_COMMUNICATION.equals(status)) {
+            // The pipelining connection was closed by the server, for example
+            // with a reset, the requests can be sent again on another one
+            recoverMessages();
+        } else {
+            for (Response rsp : getMessages()) {
+                if (rsp != getMessage()) {
+                    getMessages().remove(rsp);
+                    getHelper().onInboundError(status, rsp);
+                }
             }
         }
 
@@ -143,4 +179,55 @@ public class HttpClientInboundWay extends ClientInboundWay {
         super.onTimeOut();
     }
 
+    /**
+     * Recovers the messages that won't be answered because the pipelining
+     * connection is closing, for example when the server closed it in the
+     * middle of a pipeline. The requests not sent yet are handed back to the helper in
+     * order to be sent on another connection. The requests already sent, even
+     * partially, are handled by the
+     * {@link ClientConnectionHelper#resend(Response, boolean)} method.
+     */
+    protected synchronized void recoverMessages() {
+        HttpClientOutboundWay outboundWay = (HttpClientOutboundWay) getConnection()
+                .getOutboundWay();
+        Response sending = outboundWay.getMessage();
+        boolean first = !this.responded;
+
+        if (sending != null) {
+            // The request being sent can't be completed anymore
+            outboundWay.getMessages().remove(sending);
+            outboundWay.onClosed();
+
+            if (!getMessages().contains(sending)) {
+                getMessages().add(sending);
+            }
+        }
+
+        for (Response rsp : getMessages()) {
+            if ((rsp != getMessage()) && getMessages().remove(rsp)) {
+                getHelper().resend(rsp, first);
+            }
+
+            first = false;
+        }
+
+        for (Response rsp : outboundWay.getMessages()) {
+            if (outboundWay.getMessages().remove(rsp)) {
+                getHelper().addOutboundMessage(rsp);
+            }
+        }
+    }
+
+    @Override
+    public void updateState() {
+        if (getConnection().isPipelining()
+                && (getConnection().getState() == ConnectionState.CLOSING)
+                && (getMessage() == null) && getBuffer().isEmpty()) {
+            // No more response will be received on this pipelining connection
+            recoverMessages();
+        }
+
+        super.updateState();
+    }
+
 }
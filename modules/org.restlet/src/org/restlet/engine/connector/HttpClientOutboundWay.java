@@ -34,6 +34,7 @@
 package org.restlet.engine.connector;
 
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -94,6 +95,34 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
         return super.isEmpty() && getMessages().isEmpty();
     }
 
+    /**
+     * Indicates if a request can be sent on this way before the responses to
+     * the requests previously sent have been received. This requires an open,
+     * persistent and pipelining connection, a number of requests awaiting their
+     * response below the maximum pipeline depth and only pipelinable requests
+     * awaiting their response.
+     * 
+     * @param request
+     *            The request to send.
+     * @return True if the request can be pipelined.
+     */
+    public boolean isPipelinable(Request request) {
+        Queue<Response> inboundMessages = ((HttpClientInboundWay) getConnection()
+                .getInboundWay()).getMessages();
+        boolean result = getConnection().isPipelining()
+                && getConnection().isPersistent()
+                && (getConnection().getState() == ConnectionState.OPEN)
+                && (inboundMessages.size() < getHelper().getMaxPipelineDepth())
+                && getHelper().isPipelinable(request);
+
+        for (Iterator<Response> iter = inboundMessages.iterator(); result
+                && iter.hasNext();) {
+            result = getHelper().isPipelinable(iter.next().getRequest());
+        }
+
+        return result;
+    }
+
     @Override
     public void onError(Status status) {
         for (Response rsp : getMessages()) {
@@ -114,11 +143,8 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
             Request request = message.getRequest();
 
             if (request.isExpectingResponse()) {
-                Queue<Response> inboundMessages = ((HttpClientInboundWay) getConnection()
-                        .getInboundWay()).getMessages();
-                inboundMessages.add(message);
-                getConnection().getInboundWay().setMessageState(
-                        MessageState.START);
+                ((HttpClientInboundWay) getConnection().getInboundWay())
+                        .addMessage(message);
             }
         }
 
@@ -151,9 +177,16 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
     @Override
     public void updateState() {
         // Update the IO state if necessary
-        if (getMessage() == null
-                && getConnection().getInboundWay().isAvailable()) {
-            setMessage(getMessages().peek());
+        if (getMessage() == null) {
+            Response next = getMessages().peek();
+
+            if ((next != null)
+                    && (getConnection().getState().compareTo(
+                            ConnectionState.OPEN) <= 0)
+                    && (getConnection().getInboundWay().isAvailable() || isPipelinable(next
+                            .getRequest()))) {
+                setMessage(next);
+            }
         }
 
         super.updateState();
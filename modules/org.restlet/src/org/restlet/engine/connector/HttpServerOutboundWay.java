@@ -113,6 +113,16 @@ public class HttpServerOutboundWay extends ServerOutboundWay {
                 // inbound queue
                 inboundMessages.remove(inboundMessage);
             }
+
+            InboundWay inboundWay = getConnection().getInboundWay();
+
+            if (inboundMessages.isEmpty()
+                    && ((inboundWay.getMessageState() == MessageState.IDLE) || (inboundWay
+                            .getMessageState() == MessageState.START))) {
+                // Read the next request if it was pipelined by the client
+                inboundWay.setMessageState(MessageState.START);
+                inboundWay.processBuffered();
+            }
         }
 
         super.onMessageCompleted(endDetected);
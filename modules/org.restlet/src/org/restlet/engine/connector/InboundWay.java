@@ -34,20 +34,27 @@
 package org.restlet.engine.connector;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 
 import org.restlet.Response;
 import org.restlet.data.Status;
 import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderConstants;
 import org.restlet.engine.header.HeaderReader;
 import org.restlet.engine.header.HeaderUtils;
 import org.restlet.engine.io.Buffer;
 import org.restlet.engine.io.BufferState;
+import org.restlet.engine.io.ByteLineBuilder;
 import org.restlet.engine.io.IoState;
 import org.restlet.engine.io.ReadableChunkedChannel;
 import org.restlet.engine.io.ReadableSelectionChannel;
 import org.restlet.engine.io.ReadableSizedSelectionChannel;
+import org.restlet.engine.util.IndexedSeries;
 import org.restlet.representation.EmptyRepresentation;
 import org.restlet.representation.ReadableRepresentation;
 import org.restlet.representation.Representation;
@@ -62,9 +69,42 @@ import org.restlet.util.Series;
  */
 public abstract class InboundWay extends Way {
 
+    /** The standard header names, grouped by length. */
+    private static final String[][] HEADER_NAMES = createHeaderNames();
+
+    /**
+     * Creates the table of standard header names declared by
+     * {@link HeaderConstants}.
+     * 
+     * @return The table of standard header names.
+     */
+    private static String[][] createHeaderNames() {
+        List<String> names = new ArrayList<String>();
+
+        for (Field field : HeaderConstants.class.getFields()) {
+            if (field.getName().startsWith("HEADER_")
+                    && Modifier.isStatic(field.getModifiers())
+                    && (field.getType() == String.class)) {
+                try {
+                    names.add((String) field.get(null));
+                } catch (IllegalAccessException e) {
+                    // Ignore this header name
+                }
+            }
+        }
+
+        return ByteLineBuilder.createTable(names);
+    }
+
     /** The line builder index. */
     private volatile int builderIndex;
 
+    /** Indicates if buffered bytes are ready to be processed. */
+    private volatile boolean bufferedReady;
+
+    /** The byte line builder, or null if lines are read as characters. */
+    private volatile ByteLineBuilder byteLineBuilder;
+
     /** The NIO selection registration of the entity. */
     private volatile SelectionRegistration entityRegistration;
 
@@ -79,13 +119,28 @@ public abstract class InboundWay extends Way {
     public InboundWay(Connection<?> connection, int bufferSize) {
         super(connection, bufferSize);
         this.builderIndex = 0;
+        this.bufferedReady = false;
     }
 
     @Override
     public void clear() {
         super.clear();
         this.builderIndex = 0;
+        this.bufferedReady = false;
         this.entityRegistration = null;
+
+        if (getByteLineBuilder() != null) {
+            getByteLineBuilder().reset();
+        }
+    }
+
+    @Override
+    protected void clearLineBuilder() {
+        super.clearLineBuilder();
+
+        if (getByteLineBuilder() != null) {
+            getByteLineBuilder().clear();
+        }
     }
 
     /**
@@ -154,14 +209,25 @@ public abstract class InboundWay extends Way {
      */
     protected boolean fillLine() throws IOException {
         boolean result = false;
-        setLineBuilderState(getBuffer().drain(getLineBuilder(),
-                getLineBuilderState()));
+
+        if (getByteLineBuilder() != null) {
+            setLineBuilderState(getBuffer().drain(getByteLineBuilder(),
+                    getLineBuilderState()));
+        } else {
+            setLineBuilderState(getBuffer().drain(getLineBuilder(),
+                    getLineBuilderState()));
+        }
 
         if (getLineBuilderState() == BufferState.DRAINING) {
             result = true;
 
             if (getLogger().isLoggable(Level.FINE)) {
-                getLogger().log(Level.FINE, getLineBuilder().toString());
+                if (getByteLineBuilder() != null) {
+                    getLogger().log(Level.FINE,
+                            getByteLineBuilder().toString());
+                } else {
+                    getLogger().log(Level.FINE, getLineBuilder().toString());
+                }
             }
         }
 
@@ -177,6 +243,17 @@ public abstract class InboundWay extends Way {
         return builderIndex;
     }
 
+    /**
+     * Returns the byte line builder, or null if lines are read as characters
+     * with the line builder. When available, the start line and the headers
+     * are parsed directly from the bytes received.
+     * 
+     * @return The byte line builder.
+     */
+    protected ByteLineBuilder getByteLineBuilder() {
+        return byteLineBuilder;
+    }
+
     /**
      * Returns the NIO selection registration of the entity.
      * 
@@ -197,6 +274,16 @@ public abstract class InboundWay extends Way {
         return result;
     }
 
+    /**
+     * Returns the length of the current message line.
+     * 
+     * @return The length of the current message line.
+     */
+    protected int getLineLength() {
+        return (getByteLineBuilder() != null) ? getByteLineBuilder().length()
+                : getLineBuilder().length();
+    }
+
     /**
      * Indicates if the next message line is readable.
      * 
@@ -215,7 +302,7 @@ public abstract class InboundWay extends Way {
 
         // Wakeup the controller to update the registrations,
         // since this callback can be called asynchronous
-        getHelper().getController().wakeup();
+        getConnection().getController().wakeup(getConnection());
 
         if (getLogger().isLoggable(Level.FINER)) {
             getLogger().finer("Inbound message completed");
@@ -235,7 +322,7 @@ public abstract class InboundWay extends Way {
         while (continueReading && isLineReadable()) {
             // Parse next ready lines
             if (getMessageState() == MessageState.START) {
-                if (getLineBuilder().length() == 0) {
+                if (getLineLength() == 0) {
                     // Silently eat empty lines used for keep alive purpose
                     // sometimes (SIP)
                     continueReading = false;
@@ -253,7 +340,7 @@ public abstract class InboundWay extends Way {
 
                 if (header != null) {
                     if (getHeaders() == null) {
-                        setHeaders(new Series<Header>(Header.class));
+                        setHeaders(new IndexedSeries<Header>(Header.class));
                     }
 
                     getHeaders().add(header);
@@ -326,6 +413,20 @@ public abstract class InboundWay extends Way {
      */
     protected abstract void onReceived(Response message) throws IOException;
 
+    @Override
+    public void onSelected(SelectionRegistration selectionRegistration) {
+        if (this.bufferedReady) {
+            this.bufferedReady = false;
+
+            if (getIoState() == IoState.READY) {
+                // Process the buffered bytes like freshly received ones
+                setIoState(IoState.PROCESSING);
+            }
+        }
+
+        super.onSelected(selectionRegistration);
+    }
+
     @Override
     public void onTimeOut() {
         if (getMessage() != null) {
@@ -334,6 +435,19 @@ public abstract class InboundWay extends Way {
         }
     }
 
+    /**
+     * Ensures that the bytes already buffered, typically the beginning of a
+     * pipelined message received along with the previous one, are processed
+     * without waiting for a NIO selection that might never happen.
+     */
+    protected void processBuffered() {
+        if (getBuffer().canDrain()) {
+            this.bufferedReady = true;
+            setIoState(IoState.READY);
+            getConnection().getController().wakeup(getConnection());
+        }
+    }
+
     @Override
     public int processIoBuffer() throws IOException {
         int result = 0;
@@ -370,11 +484,67 @@ public abstract class InboundWay extends Way {
      * @throws IOException
      */
     protected Header readHeader() throws IOException {
-        Header header = HeaderReader.readHeader(getLineBuilder());
+        Header header = null;
+
+        if (getByteLineBuilder() != null) {
+            header = readHeader(getByteLineBuilder());
+        } else {
+            header = HeaderReader.readHeader(getLineBuilder());
+        }
+
         clearLineBuilder();
         return header;
     }
 
+    /**
+     * Read a message header from a byte line. The standard header names are
+     * recognized without allocation and the value is only decoded when first
+     * read, but a {@link LazyHeader} is created for each line. Return null if
+     * the last header was already read.
+     * 
+     * @param line
+     *            The byte line builder.
+     * @return The new message header or null.
+     * @throws IOException
+     */
+    private Header readHeader(ByteLineBuilder line) throws IOException {
+        Header result = null;
+
+        if (line.length() == 0) {
+            // End of headers
+            line.reset();
+        } else {
+            byte[] bytes = line.getBytes();
+            int end = line.getLineEnd();
+            int index = line.getLineStart();
+
+            // Parse the header name
+            while ((index < end) && (bytes[index] != ':')) {
+                index++;
+            }
+
+            if (index == end) {
+                throw new IOException(
+                        "Unable to parse the header name. End of line reached too early.");
+            }
+
+            String name = line.toString(line.getLineStart(), index,
+                    HEADER_NAMES);
+            index++;
+
+            while ((index < end) && HeaderUtils.isSpace(bytes[index])) {
+                // Skip any separator space between colon and header value
+                index++;
+            }
+
+            // Keep the value bytes for lazy decoding
+            result = new LazyHeader(name, bytes, index, end);
+            line.keepLine();
+        }
+
+        return result;
+    }
+
     /**
      * Read the start line of the current message received.
      * 
@@ -392,6 +562,17 @@ public abstract class InboundWay extends Way {
         this.builderIndex = builderIndex;
     }
 
+    /**
+     * Sets the byte line builder, or null to read lines as characters with the
+     * line builder.
+     * 
+     * @param byteLineBuilder
+     *            The byte line builder.
+     */
+    protected void setByteLineBuilder(ByteLineBuilder byteLineBuilder) {
+        this.byteLineBuilder = byteLineBuilder;
+    }
+
     /**
      * Sets the NIO selection registration of the entity.
      * 
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.connector;
+
+import org.restlet.engine.header.Header;
+import org.restlet.engine.io.ByteLineBuilder;
+
+/**
+ * Header whose value is only decoded from the received bytes when it is first
+ * read. This saves the allocation of strings for the header values that are
+ * never read by the application. A header object is still created for each
+ * received header, as it is kept by the message after parsing.
+ * 
+ * @author Jerome Louvel
+ */
+public class LazyHeader extends Header {
+
+    /** The bytes holding the value, or null once decoded. */
+    private volatile byte[] bytes;
+
+    /** The index in the array where the value ends. */
+    private final int end;
+
+    /** The index in the array where the value starts. */
+    private final int start;
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            The header name.
+     * @param bytes
+     *            The bytes holding the value, that must not be modified.
+     * @param start
+     *            The index in the array where the value starts.
+     * @param end
+     *            The index in the array where the value ends.
+     */
+    public LazyHeader(String name, byte[] bytes, int start, int end) {
+        super(name, null);
+        this.bytes = bytes;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns the value, decoding it if needed.
+     * 
+     * @return The value.
+     */
+    @Override
+    public String getValue() {
+        if (this.bytes != null) {
+            synchronized (this) {
+                if (this.bytes != null) {
+                    super.setValue(ByteLineBuilder.toString(this.bytes,
+                            this.start, this.end));
+                    this.bytes = null;
+                }
+            }
+        }
+
+        return super.getValue();
+    }
+
+    /**
+     * Sets the value.
+     * 
+     * @param value
+     *            The value.
+     */
+    @Override
+    public synchronized void setValue(String value) {
+        this.bytes = null;
+        super.setValue(value);
+    }
+
+}
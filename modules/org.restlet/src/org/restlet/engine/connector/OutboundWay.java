@@ -44,17 +44,21 @@ import org.restlet.Message;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.Protocol;
+import org.restlet.data.Range;
 import org.restlet.data.Status;
 import org.restlet.engine.ConnectorHelper;
+import org.restlet.engine.application.RangeRepresentation;
 import org.restlet.engine.header.Header;
 import org.restlet.engine.header.HeaderConstants;
 import org.restlet.engine.header.HeaderUtils;
 import org.restlet.engine.io.BlockableChannel;
 import org.restlet.engine.io.Buffer;
+import org.restlet.engine.io.ByteLineBuilder;
 import org.restlet.engine.io.IoState;
 import org.restlet.engine.io.ReadableChunkingChannel;
 import org.restlet.engine.io.ReadableSizedChannel;
 import org.restlet.engine.util.StringUtils;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.service.ConnectorService;
 import org.restlet.util.Series;
@@ -67,6 +71,9 @@ import org.restlet.util.Series;
  */
 public abstract class OutboundWay extends Way {
 
+    /** The encoded end of the headers section. */
+    private static final byte[] END_OF_HEADERS = { '\r', '\n' };
+
     /**
      * Returns the protocol version.
      * 
@@ -96,6 +103,24 @@ public abstract class OutboundWay extends Way {
     /** The header index. */
     private volatile int headerIndex;
 
+    /** The encoded line being filled into the buffer, or null. */
+    private volatile byte[] lineBytes;
+
+    /** The index of the next byte of the encoded line to fill. */
+    private volatile int lineIndex;
+
+    /** The chunk header to fill before a directly transferred entity. */
+    private volatile byte[] transferHeader;
+
+    /** The position in the file of the next entity byte to transfer. */
+    private volatile long transferPosition;
+
+    /** The number of entity bytes remaining to transfer. */
+    private volatile long transferRemaining;
+
+    /** The chunk trailer to fill after a directly transferred entity. */
+    private volatile byte[] transferTrailer;
+
     /**
      * Constructor.
      * 
@@ -109,6 +134,12 @@ public abstract class OutboundWay extends Way {
         this.entityChannel = null;
         this.entitySelectionKey = null;
         this.headerIndex = 0;
+        this.lineBytes = null;
+        this.lineIndex = 0;
+        this.transferHeader = null;
+        this.transferPosition = 0;
+        this.transferRemaining = 0;
+        this.transferTrailer = null;
     }
 
     /**
@@ -155,6 +186,11 @@ public abstract class OutboundWay extends Way {
         this.entityChannel = null;
         this.entitySelectionKey = null;
         this.headerIndex = 0;
+        setLineBytes(null);
+        this.transferHeader = null;
+        this.transferPosition = 0;
+        this.transferRemaining = 0;
+        this.transferTrailer = null;
     }
 
     /**
@@ -227,6 +263,15 @@ public abstract class OutboundWay extends Way {
         return headerIndex;
     }
 
+    /**
+     * Returns the encoded line being filled into the buffer, or null.
+     * 
+     * @return The encoded line being filled into the buffer.
+     */
+    protected byte[] getLineBytes() {
+        return lineBytes;
+    }
+
     @Override
     public int getInterestOperations() {
         int result = 0;
@@ -272,37 +317,42 @@ public abstract class OutboundWay extends Way {
             }
 
             setMessageState(MessageState.BODY);
-            ReadableByteChannel rbc = getActualMessage().getEntity()
-                    .getChannel();
 
-            if (rbc instanceof FileChannel) {
-                setEntityChannelType(EntityType.TRANSFERABLE);
-            } else if (rbc instanceof BlockableChannel) {
-                BlockableChannel bc = (BlockableChannel) rbc;
+            if (getConnection().isTransferable()
+                    && prepareTransfer(getActualMessage().getEntity())) {
+                // The entity will be directly transferred from its file
+            } else {
+                ReadableByteChannel rbc = getActualMessage().getEntity()
+                        .getChannel();
 
-                if (bc.isBlocking()) {
-                    setEntityChannelType(EntityType.BLOCKING);
+                if (rbc instanceof BlockableChannel) {
+                    BlockableChannel bc = (BlockableChannel) rbc;
+
+                    if (bc.isBlocking()) {
+                        setEntityChannelType(EntityType.BLOCKING);
+                    } else {
+                        setEntityChannelType(EntityType.NON_BLOCKING);
+                    }
+                } else if (rbc instanceof SelectableChannel) {
+                    SelectableChannel sc = (SelectableChannel) rbc;
+
+                    if (sc.isBlocking()) {
+                        setEntityChannelType(EntityType.BLOCKING);
+                    } else {
+                        setEntityChannelType(EntityType.NON_BLOCKING);
+                    }
                 } else {
-                    setEntityChannelType(EntityType.NON_BLOCKING);
+                    setEntityChannelType(EntityType.BLOCKING);
                 }
-            } else if (rbc instanceof SelectableChannel) {
-                SelectableChannel sc = (SelectableChannel) rbc;
 
-                if (sc.isBlocking()) {
-                    setEntityChannelType(EntityType.BLOCKING);
+                long size = getActualMessage().getEntity().getAvailableSize();
+
+                if (size == Representation.UNKNOWN_SIZE) {
+                    setEntityChannel(new ReadableChunkingChannel(rbc,
+                            getBuffer().capacity()));
                 } else {
-                    setEntityChannelType(EntityType.NON_BLOCKING);
+                    setEntityChannel(new ReadableSizedChannel(rbc, size));
                 }
-            } else {
-                setEntityChannelType(EntityType.BLOCKING);
-            }
-
-            if (getActualMessage().getEntity().getAvailableSize() == Representation.UNKNOWN_SIZE) {
-                setEntityChannel(new ReadableChunkingChannel(rbc, getBuffer()
-                        .capacity()));
-            } else {
-                setEntityChannel(new ReadableSizedChannel(rbc,
-                        getActualMessage().getEntity().getAvailableSize()));
             }
 
         } else {
@@ -383,7 +433,8 @@ public abstract class OutboundWay extends Way {
 
         // Write the message or part of it in the byte
         // buffer
-        if (getMessageState() == MessageState.BODY) {
+        if ((getMessageState() == MessageState.BODY)
+                && (getEntityChannelType() != EntityType.TRANSFERABLE)) {
             try {
                 int filled = buffer.fill(getEntityChannel());
 
@@ -401,32 +452,30 @@ public abstract class OutboundWay extends Way {
             }
         } else if (getMessageState() != MessageState.END) {
             // Write the start line or the headers,
-            // relying on the line builder
-            if (getLineBuilder().length() == 0) {
-                // A new line can be written in the builder
+            // relying on the encoded line bytes
+            if (getLineBytes() == null) {
+                // A new line can be written, directly into the byte buffer
+                // when possible
                 writeLine();
             }
 
-            if (getLineBuilder().length() > 0) {
+            if (getLineBytes() != null) {
                 // We can fill the byte buffer with the
-                // remaining line builder
-                if (remaining >= getLineBuilder().length()) {
-                    // Put the whole builder line in the buffer
-                    buffer.fill(StringUtils.getLatin1Bytes(getLineBuilder()
-                            .toString()));
+                // remaining line bytes
+                int length = Math.min(remaining, getLineBytes().length
+                        - this.lineIndex);
+                buffer.fill(getLineBytes(), this.lineIndex, length);
+                this.lineIndex += length;
 
+                if (this.lineIndex == getLineBytes().length) {
                     if (getLogger().isLoggable(Level.FINE)) {
-                        String line = getLineBuilder().toString();
-                        line = line.substring(0, line.length() - 2);
-                        getLogger().log(Level.FINE, line);
+                        getLogger().log(
+                                Level.FINE,
+                                ByteLineBuilder.toString(getLineBytes(), 0,
+                                        getLineBytes().length - 2));
                     }
 
-                    clearLineBuilder();
-                } else {
-                    // Put the maximum number of characters into the byte buffer
-                    buffer.fill(StringUtils.getLatin1Bytes(getLineBuilder()
-                            .substring(0, remaining)));
-                    getLineBuilder().delete(0, remaining);
+                    setLineBytes(null);
                 }
             }
         }
@@ -458,10 +507,103 @@ public abstract class OutboundWay extends Way {
         }
     }
 
+    /**
+     * Prepares the direct transfer of an entity read from a file, or from a
+     * range of a file, to the socket channel. If the size of the entity is
+     * unknown, the file region is framed as a single chunk.
+     * 
+     * @param entity
+     *            The entity to transfer.
+     * @return True if the entity will be directly transferred.
+     * @throws IOException
+     */
+    private boolean prepareTransfer(Representation entity) throws IOException {
+        Representation source = entity;
+        Range range = null;
+
+        if (entity instanceof RangeRepresentation) {
+            source = ((RangeRepresentation) entity).getWrappedRepresentation();
+            range = entity.getRange();
+        }
+
+        if (!(source instanceof FileRepresentation)) {
+            return false;
+        }
+
+        FileChannel fileChannel = ((FileRepresentation) source).getChannel();
+
+        if (fileChannel == null) {
+            return false;
+        }
+
+        long size = fileChannel.size();
+        long position = 0;
+
+        if (range != null) {
+            if (range.getIndex() != Range.INDEX_LAST) {
+                position = range.getIndex();
+            } else if (range.getSize() != Range.SIZE_MAX) {
+                position = size - range.getSize();
+            }
+        }
+
+        long count = entity.getAvailableSize();
+        boolean chunked = (count == Representation.UNKNOWN_SIZE);
+
+        if (chunked) {
+            count = size - position;
+        }
+
+        if ((position < 0) || (count < 0) || (position + count > size)) {
+            // Let the regular path report the inconsistency
+            fileChannel.close();
+            return false;
+        }
+
+        setEntityChannelType(EntityType.TRANSFERABLE);
+        setEntityChannel(fileChannel);
+        this.transferPosition = position;
+        this.transferRemaining = count;
+        this.transferHeader = null;
+        this.transferTrailer = null;
+
+        if (chunked && (count > 0)) {
+            this.transferHeader = StringUtils.getLatin1Bytes(Long
+                    .toHexString(count) + "\r\n");
+            this.transferTrailer = StringUtils.getLatin1Bytes("\r\n0\r\n\r\n");
+        } else if (chunked) {
+            this.transferTrailer = StringUtils.getLatin1Bytes("0\r\n\r\n");
+        }
+
+        return true;
+    }
+
     @Override
     public int processIoBuffer() throws IOException {
         int result = super.processIoBuffer();
 
+        if ((getMessageState() == MessageState.BODY)
+                && (getEntityChannelType() == EntityType.TRANSFERABLE)
+                && (this.transferRemaining > 0) && (getLineBytes() == null)
+                && (this.transferHeader == null) && !getBuffer().canDrain()
+                && canLoop(getBuffer())) {
+            // The buffered bytes are written, transfer the file region
+            int transferred = transfer();
+
+            if (transferred > 0) {
+                result = Math.max(result, 0) + transferred;
+            }
+
+            if (this.transferRemaining == 0) {
+                // Write the end of the message
+                int drained = super.processIoBuffer();
+
+                if (drained > 0) {
+                    result = Math.max(result, 0) + drained;
+                }
+            }
+        }
+
         if (getMessage() != null) {
             if (getMessageState() == MessageState.END) {
                 // Message fully written, ready for a new one
@@ -516,6 +658,18 @@ public abstract class OutboundWay extends Way {
         this.headerIndex = headerIndex;
     }
 
+    /**
+     * Sets the encoded line to fill into the buffer, or null. The array is not
+     * modified by the way.
+     * 
+     * @param lineBytes
+     *            The encoded line to fill into the buffer.
+     */
+    protected void setLineBytes(byte[] lineBytes) {
+        this.lineBytes = lineBytes;
+        this.lineIndex = 0;
+    }
+
     /**
      * Indicates if the entity should be chunked because its length is unknown.
      * 
@@ -528,6 +682,39 @@ public abstract class OutboundWay extends Way {
                 && (entity.getAvailableSize() == Representation.UNKNOWN_SIZE);
     }
 
+    /**
+     * Transfers the next bytes of the file region directly to the socket
+     * channel.
+     * 
+     * @return The number of bytes transferred.
+     * @throws IOException
+     */
+    private int transfer() throws IOException {
+        FileChannel fileChannel = getEntityFileChannel();
+        long result = fileChannel.transferTo(this.transferPosition, Math.min(
+                this.transferRemaining, Integer.MAX_VALUE), getConnection()
+                .getSocketChannel());
+
+        if (result > 0) {
+            this.transferPosition += result;
+            this.transferRemaining -= result;
+            getConnection().onActivity();
+        } else if (this.transferPosition >= fileChannel.size()) {
+            throw new IOException(
+                    "Unable to transfer the entity, the file was truncated");
+        } else if (getIoState() == IoState.PROCESSING) {
+            // The socket channel can't write more, wait for a new NIO
+            // selection
+            setIoState(IoState.INTEREST);
+        }
+
+        if (getLogger().isLoggable(Level.FINER)) {
+            getLogger().log(Level.FINER, result + " bytes transferred");
+        }
+
+        return (int) result;
+    }
+
     @Override
     public void updateState() {
         if ((getMessageState() == MessageState.IDLE) && (getMessage() != null)) {
@@ -538,7 +725,8 @@ public abstract class OutboundWay extends Way {
     }
 
     /**
-     * Write a new line into the line builder.
+     * Write a new line, either directly into the buffer or into the encoded
+     * line bytes.
      * 
      * @throws IOException
      */
@@ -553,9 +741,27 @@ public abstract class OutboundWay extends Way {
             }
 
             writeStartLine();
+            setLineBytes(StringUtils.getLatin1Bytes(getLineBuilder()
+                    .toString()));
+            clearLineBuilder();
             setMessageState(MessageState.HEADERS);
             break;
 
+        case BODY:
+            // Frame the directly transferred entity if it is chunked
+            if (this.transferHeader != null) {
+                setLineBytes(this.transferHeader);
+                this.transferHeader = null;
+            } else if (this.transferRemaining == 0) {
+                if (this.transferTrailer != null) {
+                    setLineBytes(this.transferTrailer);
+                    this.transferTrailer = null;
+                } else {
+                    setMessageState(MessageState.END);
+                }
+            }
+            break;
+
         case HEADERS:
             if (getHeaders() == null) {
                 setHeaders(new Series<Header>(Header.class));
@@ -564,20 +770,29 @@ public abstract class OutboundWay extends Way {
             }
 
             if (getHeaderIndex() < getHeaders().size()) {
-                // Write header
+                // Write header, reusing its pre-encoded line if possible
                 Header header = getHeaders().get(getHeaderIndex());
-                getLineBuilder().append(header.getName());
-                getLineBuilder().append(": ");
-                getLineBuilder().append(header.getValue());
-                getLineBuilder().append('\r'); // CR
-                getLineBuilder().append('\n'); // LF
+                byte[] line = HeaderLineCache.getLine(header);
+
+                if (line != null) {
+                    setLineBytes(line);
+                } else if (getBuffer().remaining() >= HeaderLineCache
+                        .getLength(header)) {
+                    HeaderLineCache.write(header, getBuffer().getBytes());
+
+                    if (getLogger().isLoggable(Level.FINE)) {
+                        getLogger().log(Level.FINE,
+                                header.getName() + ": " + header.getValue());
+                    }
+                } else {
+                    setLineBytes(HeaderLineCache.encode(header));
+                }
 
                 // Move to the next header
                 setHeaderIndex(getHeaderIndex() + 1);
             } else {
                 // Write the end of the headers section
-                getLineBuilder().append('\r'); // CR
-                getLineBuilder().append('\n'); // LF
+                setLineBytes(END_OF_HEADERS);
                 onHeadersCompleted();
             }
             break;
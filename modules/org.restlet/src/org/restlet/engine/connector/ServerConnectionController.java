@@ -114,11 +114,11 @@ public class ServerConnectionController extends ConnectionController {
                                     .getMaxTotalConnections())) {
                         Connection<Server> connection = getHelper().checkout(
                                 socketChannel,
-                                this,
+                                getHelper().getNextController(),
                                 (InetSocketAddress) socketChannel.socket()
                                         .getRemoteSocketAddress());
                         connection.open();
-                        getHelper().getConnections().add(connection);
+                        getHelper().addConnection(connection);
 
                         if (getHelper().getLogger().isLoggable(Level.FINE)) {
                             getHelper().getLogger().fine(
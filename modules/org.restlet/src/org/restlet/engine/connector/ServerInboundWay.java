@@ -34,12 +34,15 @@
 package org.restlet.engine.connector;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.restlet.Message;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Server;
+import org.restlet.data.Method;
 import org.restlet.engine.header.HeaderUtils;
+import org.restlet.engine.io.ByteLineBuilder;
 import org.restlet.engine.io.IoState;
 import org.restlet.representation.Representation;
 
@@ -50,6 +53,18 @@ import org.restlet.representation.Representation;
  */
 public abstract class ServerInboundWay extends InboundWay {
 
+    /** The common request methods, grouped by length. */
+    private static final String[][] METHODS = ByteLineBuilder
+            .createTable(Arrays.asList(Method.CONNECT.getName(),
+                    Method.DELETE.getName(), Method.GET.getName(),
+                    Method.HEAD.getName(), Method.OPTIONS.getName(),
+                    Method.PATCH.getName(), Method.POST.getName(),
+                    Method.PUT.getName(), Method.TRACE.getName()));
+
+    /** The common protocol versions, grouped by length. */
+    private static final String[][] PROTOCOLS = ByteLineBuilder
+            .createTable(Arrays.asList("HTTP/1.0", "HTTP/1.1"));
+
     /**
      * Constructor.
      * 
@@ -60,6 +75,7 @@ public abstract class ServerInboundWay extends InboundWay {
      */
     public ServerInboundWay(Connection<?> connection, int bufferSize) {
         super(connection, bufferSize);
+        setByteLineBuilder(new ByteLineBuilder(1024));
     }
 
     /**
@@ -132,7 +148,7 @@ public abstract class ServerInboundWay extends InboundWay {
     protected void onReceived(Response message) throws IOException {
         if (message.getRequest() != null) {
             // Add it to the helper queue
-            getHelper().getInboundMessages().add(message);
+            getHelper().addInboundMessage(message);
 
             if (!message.getRequest().isEntityAvailable()) {
                 // The request has been completely read
@@ -143,66 +159,44 @@ public abstract class ServerInboundWay extends InboundWay {
 
     @Override
     protected void readStartLine() throws IOException {
-        String requestMethod = null;
-        String requestUri = null;
-        String protocol = null;
+        ByteLineBuilder line = getByteLineBuilder();
 
-        int i = 0;
-        int start = 0;
-        int size = getLineBuilder().length();
-        char next;
-
-        if (size == 0) {
+        if (line.length() == 0) {
             // Skip leading empty lines per HTTP specification
         } else {
-            // Parse the request method
-            for (i = start; (requestMethod == null) && (i < size); i++) {
-                next = getLineBuilder().charAt(i);
+            byte[] bytes = line.getBytes();
+            int size = line.getLineEnd();
+            int start = line.getLineStart();
+            int i = start;
 
-                if (HeaderUtils.isSpace(next)) {
-                    requestMethod = getLineBuilder().substring(start, i);
-                    start = i + 1;
-                }
+            // Parse the request method
+            while ((i < size) && !HeaderUtils.isSpace(bytes[i])) {
+                i++;
             }
 
-            if ((requestMethod == null) || (i == size)) {
+            if (i >= size - 1) {
                 throw new IOException(
                         "Unable to parse the request method. End of line reached too early.");
             }
 
-            // Parse the request URI
-            for (i = start; (requestUri == null) && (i < size); i++) {
-                next = getLineBuilder().charAt(i);
+            String requestMethod = line.toString(start, i, METHODS);
+            start = ++i;
 
-                if (HeaderUtils.isSpace(next)) {
-                    requestUri = getLineBuilder().substring(start, i);
-                    start = i + 1;
-                }
+            // Parse the request URI
+            while ((i < size) && !HeaderUtils.isSpace(bytes[i])) {
+                i++;
             }
 
-            if (i == size) {
+            if (i >= size - 1) {
                 throw new IOException(
                         "Unable to parse the request URI. End of line reached too early.");
             }
 
-            if ((requestUri == null) || (requestUri.equals(""))) {
-                requestUri = "/";
-            }
+            String requestUri = (i == start) ? "/" : line.toString(start, i);
+            start = i + 1;
 
             // Parse the protocol version
-            for (i = start; (protocol == null) && (i < size); i++) {
-                next = getLineBuilder().charAt(i);
-            }
-
-            if (i == size) {
-                protocol = getLineBuilder().substring(start, i);
-                start = i + 1;
-            }
-
-            if (protocol == null) {
-                throw new IOException(
-                        "Unable to parse the protocol version. End of line reached too early.");
-            }
+            String protocol = line.toString(start, size, PROTOCOLS);
 
             // Create a new request object
             Request request = getHelper().createRequest(getConnection(),
@@ -99,7 +99,9 @@ public abstract class Way implements SelectionListener, CompletionListener,
      */
     public Way(Connection<?> connection, int bufferSize) {
         this.connection = connection;
-        this.buffer = new Buffer(bufferSize, getHelper().isDirectBuffers());
+        this.buffer = (getHelper().getBufferPool() != null) ? new Buffer(
+                bufferSize, getHelper().getBufferPool()) : new Buffer(
+                bufferSize, getHelper().isDirectBuffers());
         this.headers = null;
         this.ioState = IoState.IDLE;
         this.lineBuilder = new StringBuilder();
@@ -137,6 +139,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
         }
 
         this.buffer.clear();
+        this.buffer.release();
         this.headers = null;
         this.ioState = IoState.IDLE;
         clearLineBuilder();
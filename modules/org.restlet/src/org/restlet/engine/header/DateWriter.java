@@ -45,14 +45,60 @@ import org.restlet.engine.util.DateUtils;
 public class DateWriter {
 
     /**
-     * Writes a date header.
+     * Date formatted in the default format, associated to its second.
+     */
+    private static final class FormattedDate {
+
+        /** The second since the epoch. */
+        private final long second;
+
+        /** The formatted date. */
+        private final String value;
+
+        /**
+         * Constructor.
+         * 
+         * @param second
+         *            The second since the epoch.
+         * @param value
+         *            The formatted date.
+         */
+        private FormattedDate(long second, String value) {
+            this.second = second;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The last date formatted in the default format. Responses sent during the
+     * same second share the same "Date" header value.
+     */
+    private static volatile FormattedDate lastDate = new FormattedDate(
+            Long.MIN_VALUE, null);
+
+    /**
+     * Writes a date header. The value is only formatted once per second.
      * 
      * @param date
      *            The date to write.
      * @return The formatted date.
      */
     public static String write(Date date) {
-        return write(date, false);
+        if (date == null) {
+            return write(date, false);
+        }
+
+        long time = date.getTime();
+        long second = (time >= 0) ? time / 1000 : (time - 999) / 1000;
+        FormattedDate last = lastDate;
+
+        if (last.second == second) {
+            return last.value;
+        }
+
+        String result = write(date, false);
+        lastDate = new FormattedDate(second, result);
+        return result;
     }
 
     /**
@@ -48,7 +48,6 @@ import org.restlet.Context;
 import org.restlet.data.CharacterSet;
 import org.restlet.data.Range;
 import org.restlet.engine.Edition;
-import org.restlet.engine.Engine;
 import org.restlet.representation.Representation;
 
 /**
@@ -316,7 +315,7 @@ public final class BioUtils {
     // [ifndef gwt] method
     /**
      * Returns a reader from a writer representation.Internally, it uses a
-     * writer thread and a pipe stream.
+     * pooled writer thread and a pipe stream.
      * 
      * @param representation
      *            The representation to read from.
@@ -335,8 +334,8 @@ public final class BioUtils {
             java.io.PipedReader pipedReader = new java.io.PipedReader(
                     pipedWriter);
 
-            // Gets a thread that will handle the task of continuously
-            // writing the representation into the input side of the pipe
+            // Gets a task that will continuously write the representation
+            // into the input side of the pipe, run by a pooled writer thread
             Runnable task = new Runnable() {
                 public void run() {
                     try {
@@ -358,14 +357,7 @@ public final class BioUtils {
                 }
             };
 
-            org.restlet.Context context = org.restlet.Context.getCurrent();
-
-            if (context != null && context.getExecutorService() != null) {
-                context.getExecutorService().execute(task);
-            } else {
-                Engine.createThreadWithLocalVariables(task, "Restlet-BioUtils")
-                        .start();
-            }
+            IoUtils.executePipeTask(task, "Restlet-BioUtils");
 
             result = pipedReader;
             // [enddef]
@@ -419,8 +411,8 @@ public final class BioUtils {
     // [ifndef gwt] method
     /**
      * Returns an input stream based on the given representation's content and
-     * its write(OutputStream) method. Internally, it uses a writer thread and a
-     * pipe stream.
+     * its write(OutputStream) method. Internally, it uses a pooled writer
+     * thread and a pipe stream.
      * 
      * @param representation
      *            the representation to get the {@link java.io.OutputStream}
@@ -439,8 +431,8 @@ public final class BioUtils {
             final PipeStream pipe = new PipeStream();
             final java.io.OutputStream os = pipe.getOutputStream();
 
-            // Creates a thread that will handle the task of continuously
-            // writing the representation into the input side of the pipe
+            // Creates a task that will continuously write the representation
+            // into the input side of the pipe, run by a pooled writer thread
             Runnable task = new Runnable() {
                 public void run() {
                     try {
@@ -462,14 +454,7 @@ public final class BioUtils {
                 }
             };
 
-            org.restlet.Context context = org.restlet.Context.getCurrent();
-
-            if (context != null && context.getExecutorService() != null) {
-                context.getExecutorService().execute(task);
-            } else {
-                Engine.createThreadWithLocalVariables(task, "Restlet-BioUtils")
-                        .start();
-            }
+            IoUtils.executePipeTask(task, "Restlet-BioUtils");
 
             result = pipe.getInputStream();
             // [enddef]
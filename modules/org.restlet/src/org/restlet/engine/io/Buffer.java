@@ -43,7 +43,10 @@ import org.restlet.Context;
 import org.restlet.engine.header.HeaderUtils;
 
 /**
- * Wrapper around a byte buffer and its state.
+ * Wrapper around a byte buffer and its state. The byte buffer can either be
+ * owned by the wrapper or borrowed from a shared {@link BufferPool}. In the
+ * later case, it is only acquired when bytes need to be stored and is released
+ * back to the pool as soon as the buffer is empty after a processing.
  * 
  * @author Jerome Louvel
  */
@@ -70,12 +73,18 @@ public class Buffer {
         return result;
     }
 
-    /** The byte buffer. */
-    private final ByteBuffer bytes;
+    /** The byte buffer, null if released to the pool. */
+    private volatile ByteBuffer bytes;
 
     /** The index of the buffer's beginning while filling. */
     private volatile int fillBegin;
 
+    /** The pool to borrow the byte buffer from or null. */
+    private final BufferPool pool;
+
+    /** The byte buffer size to borrow from the pool. */
+    private final int size;
+
     /** The byte buffer IO state. */
     private volatile BufferState state;
 
@@ -101,6 +110,8 @@ public class Buffer {
         super();
         this.fillBegin = 0;
         this.bytes = byteBuffer;
+        this.pool = null;
+        this.size = byteBuffer.capacity();
         this.state = byteBufferState;
     }
 
@@ -128,6 +139,24 @@ public class Buffer {
         this(createByteBuffer(bufferSize, direct));
     }
 
+    /**
+     * Constructor. The byte buffer is lazily borrowed from the given pool when
+     * bytes need to be stored and released once the buffer is empty.
+     * 
+     * @param bufferSize
+     *            The minimum byte buffer size.
+     * @param pool
+     *            The pool to borrow the byte buffer from.
+     */
+    public Buffer(int bufferSize, BufferPool pool) {
+        super();
+        this.fillBegin = 0;
+        this.bytes = null;
+        this.pool = pool;
+        this.size = bufferSize;
+        this.state = BufferState.FILLING;
+    }
+
     /**
      * Ensure that the buffer is ready to be drained, flipping it if necessary
      * only.
@@ -154,7 +183,9 @@ public class Buffer {
      * @return True if a compacting operation can be beneficial.
      */
     public boolean canCompact() {
-        return isFilling() ? (this.fillBegin > 0) : (getBytes().position() > 0);
+        return !isReleased()
+                && (isFilling() ? (this.fillBegin > 0)
+                        : (getBytes().position() > 0));
     }
 
     /**
@@ -181,7 +212,8 @@ public class Buffer {
      * @return The maximum capacity of this buffer.
      */
     public final int capacity() {
-        return getBytes().capacity();
+        ByteBuffer byteBuffer = this.bytes;
+        return (byteBuffer == null) ? this.size : byteBuffer.capacity();
     }
 
     /**
@@ -189,7 +221,11 @@ public class Buffer {
      */
     public void clear() {
         this.fillBegin = 0;
-        this.bytes.clear();
+
+        if (!isReleased()) {
+            this.bytes.clear();
+        }
+
         this.state = BufferState.FILLING;
     }
 
@@ -213,7 +249,8 @@ public class Buffer {
      * @return True if bytes could be drained.
      */
     public boolean couldDrain() {
-        return (isFilling() && (getBytes().position() > this.fillBegin));
+        return (isFilling() && !isReleased()
+                && (getBytes().position() > this.fillBegin));
     }
 
     /**
@@ -276,6 +313,68 @@ public class Buffer {
         return NioUtils.copy(getBytes(), targetBuffer, maxDrained);
     }
 
+    /**
+     * Drains the buffer into a byte line builder (start line or header line).
+     * The bytes preceding the carriage return are copied in bulk.
+     * 
+     * @param lineBuilder
+     *            The byte line builder to fill.
+     * @param builderState
+     *            The builder state.
+     * @return The new builder state.
+     * @throws IOException
+     */
+    public BufferState drain(ByteLineBuilder lineBuilder,
+            BufferState builderState) throws IOException {
+        ByteBuffer bytes = getBytes();
+        int next;
+
+        if (builderState == BufferState.IDLE) {
+            builderState = BufferState.FILLING;
+        }
+
+        while ((builderState != BufferState.DRAINING) && bytes.hasRemaining()) {
+            switch (builderState) {
+            case FILLING:
+                int end = bytes.position();
+
+                while ((end < bytes.limit())
+                        && !HeaderUtils.isCarriageReturn(bytes.get(end))) {
+                    end++;
+                }
+
+                lineBuilder.append(bytes, end - bytes.position());
+
+                if (bytes.hasRemaining()) {
+                    // Skip the carriage return
+                    bytes.get();
+                    builderState = BufferState.FILLED;
+                }
+
+                break;
+
+            case FILLED:
+                next = (int) bytes.get();
+
+                if (HeaderUtils.isLineFeed(next)) {
+                    builderState = BufferState.DRAINING;
+                } else {
+                    throw new IOException(
+                            "Missing line feed character at the end of the line. Found character \""
+                                    + (char) next + "\" (" + next + ") instead");
+                }
+
+                break;
+
+            default:
+                // Nothing to do
+                break;
+            }
+        }
+
+        return builderState;
+    }
+
     /**
      * Drains the buffer into a line builder (start line or header line).
      * 
@@ -352,6 +451,21 @@ public class Buffer {
         getBytes().put(sourceBuffer);
     }
 
+    /**
+     * Fills the byte buffer by copying a range of bytes from the source array,
+     * with no modification.
+     * 
+     * @param sourceBuffer
+     *            The source array.
+     * @param offset
+     *            The index of the first byte to copy.
+     * @param length
+     *            The number of bytes to copy.
+     */
+    public void fill(byte[] sourceBuffer, int offset, int length) {
+        getBytes().put(sourceBuffer, offset, length);
+    }
+
     /**
      * Fills the byte buffer by copying as many bytes as possible from the
      * source buffer, with no modification.
@@ -436,7 +550,19 @@ public class Buffer {
      * @return The byte buffer.
      */
     public ByteBuffer getBytes() {
-        return bytes;
+        ByteBuffer result = this.bytes;
+
+        if (result == null) {
+            synchronized (getLock()) {
+                if (this.bytes == null) {
+                    this.bytes = getPool().acquire(this.size);
+                }
+
+                result = this.bytes;
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -446,7 +572,16 @@ public class Buffer {
      * @return The lock on which multiple thread can synchronize.
      */
     public Object getLock() {
-        return this.bytes;
+        return this;
+    }
+
+    /**
+     * Returns the pool to borrow the byte buffer from or null.
+     * 
+     * @return The pool to borrow the byte buffer from or null.
+     */
+    public BufferPool getPool() {
+        return pool;
     }
 
     /**
@@ -464,7 +599,7 @@ public class Buffer {
      * @return True if the buffer has remaining bytes to be read or written.
      */
     public final boolean hasRemaining() {
-        return getBytes().hasRemaining();
+        return isReleased() || getBytes().hasRemaining();
     }
 
     /**
@@ -497,6 +632,16 @@ public class Buffer {
         return getState() == BufferState.FILLING;
     }
 
+    /**
+     * Indicates if the byte buffer is currently released to the pool. In this
+     * case, the buffer is considered empty and filling.
+     * 
+     * @return True if the byte buffer is currently released to the pool.
+     */
+    public boolean isReleased() {
+        return this.bytes == null;
+    }
+
     /**
      * Processes as a loop the IO event by draining or filling the IO buffer.
      * Note that synchronization of the {@link #getLock()} object is
@@ -649,6 +794,10 @@ public class Buffer {
             }
 
             processor.postProcess(result);
+
+            if ((getPool() != null) && isEmpty()) {
+                release();
+            }
         }
 
         return result;
@@ -661,7 +810,26 @@ public class Buffer {
      * @return The number of bytes that can be read or written.
      */
     public final int remaining() {
-        return getBytes().remaining();
+        return isReleased() ? capacity() : getBytes().remaining();
+    }
+
+    /**
+     * Clears the buffer and releases its byte buffer to the pool, if any. It
+     * will be borrowed again when bytes need to be stored.
+     */
+    public void release() {
+        if (getPool() != null) {
+            synchronized (getLock()) {
+                ByteBuffer byteBuffer = this.bytes;
+
+                if (byteBuffer != null) {
+                    this.bytes = null;
+                    this.fillBegin = 0;
+                    this.state = BufferState.FILLING;
+                    getPool().release(byteBuffer);
+                }
+            }
+        }
     }
 
     /**
@@ -676,7 +844,8 @@ public class Buffer {
 
     @Override
     public String toString() {
-        return getBytes().toString() + ", " + getState() + ", " + isEmpty();
+        return (isReleased() ? "Released buffer" : getBytes().toString())
+                + ", " + getState() + ", " + isEmpty();
     }
 
 }
@@ -0,0 +1,328 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.io;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of NIO byte buffers shared by several {@link Buffer} instances. Buffers
+ * are organized in size classes, each class holding buffers whose capacity is
+ * a power of two. A requested size is rounded up to the capacity of the
+ * smallest class that fits it. Sizes larger than the largest class are
+ * allocated on demand and never pooled.<br>
+ * <br>
+ * The pool keeps track of its occupancy and of the number of acquisitions that
+ * couldn't be served by a pooled buffer (misses).
+ * 
+ * @author Jerome Louvel
+ */
+public class BufferPool {
+
+    /** The capacity of the smallest size class. */
+    public static final int MIN_CLASS_SIZE = 1024;
+
+    /** The number of buffers currently acquired and not released yet. */
+    private final AtomicInteger acquiredCount;
+
+    /** The total number of acquisitions. */
+    private final AtomicLong acquisitions;
+
+    /** Indicates if direct NIO buffers should be allocated. */
+    private final boolean direct;
+
+    /** The capacity of the largest size class. */
+    private final int maxClassSize;
+
+    /** The maximum number of idle buffers kept per size class. */
+    private final int maxPooledBuffers;
+
+    /** The total number of acquisitions that required an allocation. */
+    private final AtomicLong misses;
+
+    /** The number of idle buffers currently pooled, per size class. */
+    private final AtomicInteger[] pooledCounts;
+
+    /** The stores of idle buffers, per size class. */
+    private final Queue<ByteBuffer>[] stores;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxSize
+     *            The largest buffer size to pool, rounded up to the next power
+     *            of two.
+     * @param maxPooledBuffers
+     *            The maximum number of idle buffers kept per size class.
+     * @param direct
+     *            Indicates if direct NIO buffers should be allocated.
+     */
+    public BufferPool(int maxSize, int maxPooledBuffers, boolean direct) {
+        int classes = getClassIndex(Math.max(maxSize, MIN_CLASS_SIZE)) + 1;
+        this.acquiredCount = new AtomicInteger();
+        this.acquisitions = new AtomicLong();
+        this.direct = direct;
+        this.maxClassSize = getClassSize(classes - 1);
+        this.maxPooledBuffers = maxPooledBuffers;
+        this.misses = new AtomicLong();
+        this.pooledCounts = new AtomicInteger[classes];
+        this.stores = createStores(classes);
+
+        for (int i = 0; i < classes; i++) {
+            this.pooledCounts[i] = new AtomicInteger();
+            this.stores[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+        }
+    }
+
+    /**
+     * Acquires a cleared byte buffer with at least the given capacity. Reuses
+     * a pooled buffer of the matching size class if available, otherwise
+     * allocates a new one.
+     * 
+     * @param size
+     *            The minimum capacity.
+     * @return The acquired byte buffer.
+     */
+    public ByteBuffer acquire(int size) {
+        ByteBuffer result = null;
+        this.acquisitions.incrementAndGet();
+        this.acquiredCount.incrementAndGet();
+
+        if (size <= this.maxClassSize) {
+            int index = getClassIndex(size);
+            result = this.stores[index].poll();
+
+            if (result == null) {
+                result = allocate(getClassSize(index));
+            } else {
+                this.pooledCounts[index].decrementAndGet();
+            }
+        } else {
+            result = allocate(size);
+        }
+
+        return result;
+    }
+
+    /**
+     * Allocates a new byte buffer and counts a miss.
+     * 
+     * @param capacity
+     *            The buffer capacity.
+     * @return The new byte buffer.
+     */
+    private ByteBuffer allocate(int capacity) {
+        this.misses.incrementAndGet();
+        return this.direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer
+                .allocate(capacity);
+    }
+
+    /**
+     * Removes all the idle buffers from the pool.
+     */
+    public void clear() {
+        for (int i = 0; i < this.stores.length; i++) {
+            while (this.stores[i].poll() != null) {
+                this.pooledCounts[i].decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Creates the array of idle buffer stores, one per size class.
+     * 
+     * @param classes
+     *            The number of size classes.
+     * @return The array of idle buffer stores.
+     */
+    @SuppressWarnings("unchecked")
+    private static Queue<ByteBuffer>[] createStores(int classes) {
+        return (Queue<ByteBuffer>[]) new Queue<?>[classes];
+    }
+
+    /**
+     * Returns the number of buffers currently acquired and not released yet.
+     * 
+     * @return The number of buffers currently acquired.
+     */
+    public int getAcquiredCount() {
+        return this.acquiredCount.get();
+    }
+
+    /**
+     * Returns the total number of acquisitions.
+     * 
+     * @return The total number of acquisitions.
+     */
+    public long getAcquisitions() {
+        return this.acquisitions.get();
+    }
+
+    /**
+     * Returns the index of the smallest size class fitting the given size.
+     * 
+     * @param size
+     *            The requested size.
+     * @return The size class index.
+     */
+    private int getClassIndex(int size) {
+        int result = 0;
+
+        while (getClassSize(result) < size) {
+            result++;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the capacity of the buffers of a given size class.
+     * 
+     * @param index
+     *            The size class index.
+     * @return The capacity of the buffers.
+     */
+    private int getClassSize(int index) {
+        return MIN_CLASS_SIZE << index;
+    }
+
+    /**
+     * Returns the capacity of the largest size class.
+     * 
+     * @return The capacity of the largest size class.
+     */
+    public int getMaxClassSize() {
+        return maxClassSize;
+    }
+
+    /**
+     * Returns the maximum number of idle buffers kept per size class.
+     * 
+     * @return The maximum number of idle buffers kept per size class.
+     */
+    public int getMaxPooledBuffers() {
+        return maxPooledBuffers;
+    }
+
+    /**
+     * Returns the total number of acquisitions that required an allocation.
+     * 
+     * @return The total number of misses.
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Returns the total capacity of the idle buffers in the pool.
+     * 
+     * @return The total capacity of the idle buffers in bytes.
+     */
+    public long getPooledBytes() {
+        long result = 0;
+
+        for (int i = 0; i < this.pooledCounts.length; i++) {
+            result += (long) this.pooledCounts[i].get() * getClassSize(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of idle buffers in the pool.
+     * 
+     * @return The number of idle buffers in the pool.
+     */
+    public int getPooledCount() {
+        int result = 0;
+
+        for (AtomicInteger pooledCount : this.pooledCounts) {
+            result += pooledCount.get();
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if direct NIO buffers are allocated.
+     * 
+     * @return True if direct NIO buffers are allocated.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Releases a byte buffer previously acquired. It is cleared and pooled if
+     * its capacity matches a size class that isn't full, otherwise it is left
+     * to the garbage collector.
+     * 
+     * @param byteBuffer
+     *            The byte buffer to release.
+     */
+    public void release(ByteBuffer byteBuffer) {
+        if (byteBuffer != null) {
+            this.acquiredCount.decrementAndGet();
+            int capacity = byteBuffer.capacity();
+
+            if ((capacity <= this.maxClassSize)
+                    && (byteBuffer.isDirect() == this.direct)) {
+                int index = getClassIndex(capacity);
+
+                if (getClassSize(index) == capacity) {
+                    if (this.pooledCounts[index].incrementAndGet() <= this.maxPooledBuffers) {
+                        byteBuffer.clear();
+                        this.stores[index].offer(byteBuffer);
+                    } else {
+                        // The size class is full
+                        this.pooledCounts[index].decrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Buffer pool: " + getAcquiredCount() + " acquired, "
+                + getPooledCount() + " pooled (" + getPooledBytes()
+                + " bytes), " + getMisses() + " misses out of "
+                + getAcquisitions() + " acquisitions";
+    }
+
+}
@@ -0,0 +1,286 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Byte level line builder used to parse message lines (start line or header
+ * line) without decoding them into characters. Successive lines can be kept in
+ * the same byte array, allowing parsed values to be decoded lazily from it
+ * later. The array is never modified once a line has been kept, a new one is
+ * allocated when the builder is reset instead. Parsing a message with headers
+ * therefore still allocates one byte array per message.<br>
+ * <br>
+ * Bytes are decoded using the ISO-8859-1 character set.
+ * 
+ * @author Jerome Louvel
+ */
+public class ByteLineBuilder {
+
+    /** The ISO-8859-1 character set used to decode bytes. */
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    /**
+     * Creates a table of canonical strings that can be matched without
+     * allocation by the {@link #toString(int, int, String[][])} method. The
+     * strings are grouped by length.
+     * 
+     * @param strings
+     *            The canonical strings.
+     * @return The table of canonical strings.
+     */
+    public static String[][] createTable(List<String> strings) {
+        int maxLength = 0;
+
+        for (String string : strings) {
+            maxLength = Math.max(maxLength, string.length());
+        }
+
+        List<List<String>> groups = new ArrayList<List<String>>();
+
+        for (int i = 0; i <= maxLength; i++) {
+            groups.add(new ArrayList<String>());
+        }
+
+        for (String string : strings) {
+            if (!groups.get(string.length()).contains(string)) {
+                groups.get(string.length()).add(string);
+            }
+        }
+
+        String[][] result = new String[maxLength + 1][];
+
+        for (int i = 0; i <= maxLength; i++) {
+            result[i] = groups.get(i).toArray(new String[0]);
+        }
+
+        return result;
+    }
+
+    /** The bytes of the kept lines followed by the current line. */
+    private byte[] bytes;
+
+    /** The index in the array where the current line starts. */
+    private int lineStart;
+
+    /** The index in the array where the current line ends. */
+    private int lineEnd;
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            The initial capacity of the byte array.
+     */
+    public ByteLineBuilder(int capacity) {
+        this.bytes = new byte[Math.max(capacity, 16)];
+        this.lineStart = 0;
+        this.lineEnd = 0;
+    }
+
+    /**
+     * Appends bytes from a source buffer to the current line.
+     * 
+     * @param source
+     *            The source buffer, whose position is updated.
+     * @param count
+     *            The number of bytes to append.
+     */
+    public void append(ByteBuffer source, int count) {
+        ensureCapacity(this.lineEnd + count);
+        source.get(this.bytes, this.lineEnd, count);
+        this.lineEnd += count;
+    }
+
+    /**
+     * Clears the current line. Previously kept lines are preserved.
+     */
+    public void clear() {
+        this.lineEnd = this.lineStart;
+    }
+
+    /**
+     * Ensures that the byte array can hold the given number of bytes. The
+     * bytes are copied into a larger array if needed, leaving the previous
+     * array untouched for the values lazily decoded from it.
+     * 
+     * @param capacity
+     *            The minimum capacity.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.bytes.length) {
+            byte[] newBytes = new byte[Math.max(capacity,
+                    this.bytes.length * 2)];
+            System.arraycopy(this.bytes, 0, newBytes, 0, this.lineEnd);
+            this.bytes = newBytes;
+        }
+    }
+
+    /**
+     * Returns the byte array holding the lines. The indexes of the current line
+     * are given by {@link #getLineStart()} and {@link #getLineEnd()}.
+     * 
+     * @return The byte array holding the lines.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the index in the array where the current line ends.
+     * 
+     * @return The index in the array where the current line ends.
+     */
+    public int getLineEnd() {
+        return lineEnd;
+    }
+
+    /**
+     * Returns the index in the array where the current line starts.
+     * 
+     * @return The index in the array where the current line starts.
+     */
+    public int getLineStart() {
+        return lineStart;
+    }
+
+    /**
+     * Keeps the current line in the byte array, so that its bytes can still
+     * be referenced after the next lines are appended.
+     */
+    public void keepLine() {
+        this.lineStart = this.lineEnd;
+    }
+
+    /**
+     * Returns the length of the current line.
+     * 
+     * @return The length of the current line.
+     */
+    public int length() {
+        return this.lineEnd - this.lineStart;
+    }
+
+    /**
+     * Discards all the lines. If some lines were kept, a new byte array of the
+     * same capacity is allocated as the previous one might still be
+     * referenced by values not yet decoded. Otherwise the array is reused.
+     */
+    public void reset() {
+        if (this.lineStart > 0) {
+            this.bytes = new byte[this.bytes.length];
+        }
+
+        this.lineStart = 0;
+        this.lineEnd = 0;
+    }
+
+    /**
+     * Decodes a range of bytes.
+     * 
+     * @param bytes
+     *            The byte array.
+     * @param start
+     *            The start index, inclusive.
+     * @param end
+     *            The end index, exclusive.
+     * @return The decoded string.
+     */
+    public static String toString(byte[] bytes, int start, int end) {
+        return new String(bytes, start, end - start, ISO_8859_1);
+    }
+
+    /**
+     * Returns the current line decoded.
+     * 
+     * @return The current line decoded.
+     */
+    @Override
+    public String toString() {
+        return toString(this.lineStart, this.lineEnd);
+    }
+
+    /**
+     * Decodes a range of bytes of the array.
+     * 
+     * @param start
+     *            The start index, inclusive.
+     * @param end
+     *            The end index, exclusive.
+     * @return The decoded string.
+     */
+    public String toString(int start, int end) {
+        return toString(this.bytes, start, end);
+    }
+
+    /**
+     * Decodes a range of bytes of the array. If the bytes exactly match one of
+     * the canonical strings of the given table, this string is returned
+     * without allocation.
+     * 
+     * @param start
+     *            The start index, inclusive.
+     * @param end
+     *            The end index, exclusive.
+     * @param table
+     *            The table of canonical strings, see
+     *            {@link #createTable(List)}.
+     * @return The decoded or canonical string.
+     */
+    public String toString(int start, int end, String[][] table) {
+        int length = end - start;
+
+        if (length < table.length) {
+            for (String candidate : table[length]) {
+                boolean matching = true;
+
+                for (int i = 0; matching && (i < length); i++) {
+                    matching = ((this.bytes[start + i] & 0xFF) == candidate
+                            .charAt(i));
+                }
+
+                if (matching) {
+                    return candidate;
+                }
+            }
+        }
+
+        return toString(start, end);
+    }
+
+}
@@ -51,6 +51,81 @@ public class IoUtils {
     public static final int BUFFER_SIZE = getProperty(
             "org.restlet.engine.io.bufferSize", 8192);
 
+    // [ifndef gwt] member
+    /**
+     * The maximum number of pooled threads writing representations into pipes.
+     * It looks for the System property "org.restlet.engine.io.pipeThreads" and
+     * if not defined, uses the "64" default value.
+     */
+    public static final int PIPE_THREADS = getProperty(
+            "org.restlet.engine.io.pipeThreads", 64);
+
+    // [ifndef gwt] member
+    /** The shared executor writing representations into pipes. */
+    private static volatile java.util.concurrent.ThreadPoolExecutor pipeExecutor;
+
+    // [ifndef gwt] method
+    /**
+     * Executes a task writing a representation into the sink side of a pipe
+     * read by the caller. The executor service of the current context is used
+     * if available. Otherwise, the task is executed by a shared pool of daemon
+     * threads reused while idle, so that no thread is created per pipe under a
+     * steady load. When all the pooled threads are busy, a dedicated thread is
+     * created as the task can't be queued without risking a deadlock with the
+     * reader of the pipe.
+     * 
+     * @param task
+     *            The task to execute.
+     * @param name
+     *            The name of the dedicated thread, if any.
+     */
+    public static void executePipeTask(Runnable task, String name) {
+        org.restlet.Context context = org.restlet.Context.getCurrent();
+
+        if ((context != null) && (context.getExecutorService() != null)) {
+            context.getExecutorService().execute(task);
+        } else {
+            try {
+                getPipeExecutor().execute(
+                        org.restlet.engine.Engine
+                                .createTaskWithLocalVariables(task));
+            } catch (java.util.concurrent.RejectedExecutionException ree) {
+                org.restlet.engine.Engine.createThreadWithLocalVariables(task,
+                        name).start();
+            }
+        }
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Returns the shared executor writing representations into pipes, creating
+     * it if needed.
+     * 
+     * @return The shared executor writing representations into pipes.
+     */
+    private static java.util.concurrent.ThreadPoolExecutor getPipeExecutor() {
+        java.util.concurrent.ThreadPoolExecutor result = pipeExecutor;
+
+        if (result == null) {
+            synchronized (IoUtils.class) {
+                result = pipeExecutor;
+
+                if (result == null) {
+                    result = new java.util.concurrent.ThreadPoolExecutor(0,
+                            PIPE_THREADS, 60L,
+                            java.util.concurrent.TimeUnit.SECONDS,
+                            new java.util.concurrent.SynchronousQueue<Runnable>(),
+                            new org.restlet.engine.log.LoggingThreadFactory(
+                                    org.restlet.Context.getCurrentLogger(),
+                                    true));
+                    pipeExecutor = result;
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * The number of milliseconds after which IO operation will time out. It
      * looks for the System property "org.restlet.engine.io.timeoutMs" and if
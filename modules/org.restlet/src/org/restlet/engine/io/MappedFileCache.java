@@ -0,0 +1,342 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// [excludes gwt]
+/**
+ * Cache of read-only memory mappings of files. The mappings are shared by all
+ * the users of the same unmodified file and reference counted. When the total
+ * size of the mappings exceeds a maximum, the least recently used ones that
+ * aren't referenced anymore are evicted. Note that referenced mappings are
+ * never evicted, so the maximum can temporarily be exceeded.<br>
+ * <br>
+ * As the JVM doesn't offer a way to explicitly unmap a file, evicted mappings
+ * are only released by the garbage collector once no buffer refers to them.
+ * 
+ * @author Jerome Louvel
+ */
+public class MappedFileCache {
+
+    /**
+     * Shared mapping of a file. It must be released once not used anymore.
+     */
+    public final class Mapping {
+
+        /** The mapped buffer. */
+        private final MappedByteBuffer buffer;
+
+        /** Indicates if the mapping is still cached. */
+        private boolean cached;
+
+        /** The absolute path of the mapped file. */
+        private final String key;
+
+        /** The modification date of the mapped file. */
+        private final long lastModified;
+
+        /** The number of acquisitions not yet released. */
+        private int references;
+
+        /** The size of the mapped file. */
+        private final long size;
+
+        /**
+         * Constructor.
+         * 
+         * @param key
+         *            The absolute path of the mapped file.
+         * @param buffer
+         *            The mapped buffer.
+         * @param size
+         *            The size of the mapped file.
+         * @param lastModified
+         *            The modification date of the mapped file.
+         */
+        private Mapping(String key, MappedByteBuffer buffer, long size,
+                long lastModified) {
+            this.buffer = buffer;
+            this.cached = false;
+            this.key = key;
+            this.lastModified = lastModified;
+            this.references = 0;
+            this.size = size;
+        }
+
+        /**
+         * Returns a new read-only buffer sharing the mapped content, with
+         * independent position and limit.
+         * 
+         * @return A new read-only buffer sharing the mapped content.
+         */
+        public ByteBuffer getBuffer() {
+            return this.buffer.asReadOnlyBuffer();
+        }
+
+        /**
+         * Returns the size of the mapped file.
+         * 
+         * @return The size of the mapped file.
+         */
+        public long getSize() {
+            return this.size;
+        }
+
+        /**
+         * Indicates if the mapping still reflects the given file state.
+         * 
+         * @param size
+         *            The current file size.
+         * @param lastModified
+         *            The current file modification date.
+         * @return True if the mapping still reflects the given file state.
+         */
+        private boolean matches(long size, long lastModified) {
+            return (this.size == size) && (this.lastModified == lastModified);
+        }
+
+        /**
+         * Releases the mapping. Buffers previously returned must not be used
+         * anymore.
+         */
+        public void release() {
+            MappedFileCache.this.release(this);
+        }
+    }
+
+    /** The default maximum size of the cached mappings. */
+    public static final long DEFAULT_MAX_BYTES = Long.getLong(
+            "org.restlet.engine.io.maxMappedBytes", 256L * 1024 * 1024);
+
+    /** The shared instance. */
+    private static final MappedFileCache instance = new MappedFileCache(
+            DEFAULT_MAX_BYTES);
+
+    /**
+     * Returns the shared instance.
+     * 
+     * @return The shared instance.
+     */
+    public static MappedFileCache getInstance() {
+        return instance;
+    }
+
+    /** The size of the mappings cached or still referenced. */
+    private long mappedBytes;
+
+    /** The cached mappings by file path, from the least recently used. */
+    private final Map<String, Mapping> mappings;
+
+    /** The maximum size of the cached mappings. */
+    private final long maxBytes;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxBytes
+     *            The maximum size of the cached mappings.
+     */
+    public MappedFileCache(long maxBytes) {
+        this.mappedBytes = 0;
+        this.mappings = new LinkedHashMap<String, Mapping>(16, 0.75f, true);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Acquires the mapping of a file, mapping it if needed. The returned
+     * mapping must be released once not used anymore.
+     * 
+     * @param file
+     *            The file to map.
+     * @return The shared mapping.
+     * @throws IOException
+     */
+    public Mapping acquire(File file) throws IOException {
+        String key = file.getAbsolutePath();
+        long size = file.length();
+        long lastModified = file.lastModified();
+
+        synchronized (this) {
+            Mapping result = this.mappings.get(key);
+
+            if ((result != null) && result.matches(size, lastModified)) {
+                result.references++;
+                return result;
+            }
+        }
+
+        // Map the file outside of the lock
+        Mapping created = new Mapping(key, map(file, size), size,
+                lastModified);
+
+        synchronized (this) {
+            Mapping result = this.mappings.get(key);
+
+            if ((result == null) || !result.matches(size, lastModified)) {
+                if (result != null) {
+                    // The file was modified
+                    remove(result);
+                }
+
+                result = created;
+                result.cached = true;
+                this.mappings.put(key, result);
+                this.mappedBytes += size;
+            }
+
+            result.references++;
+            evict(this.maxBytes);
+            return result;
+        }
+    }
+
+    /**
+     * Evicts all the mappings not referenced anymore.
+     */
+    public synchronized void clear() {
+        evict(0);
+    }
+
+    /**
+     * Evicts the least recently used mappings not referenced anymore until
+     * the size of the remaining ones is lower than a given limit.
+     * 
+     * @param limit
+     *            The maximum size of the remaining mappings.
+     */
+    private void evict(long limit) {
+        Iterator<Mapping> iter = this.mappings.values().iterator();
+
+        while ((this.mappedBytes > limit) && iter.hasNext()) {
+            Mapping mapping = iter.next();
+
+            if (mapping.references == 0) {
+                iter.remove();
+                mapping.cached = false;
+                this.mappedBytes -= mapping.size;
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the mappings cached or still referenced.
+     * 
+     * @return The size of the mappings cached or still referenced.
+     */
+    public synchronized long getMappedBytes() {
+        return this.mappedBytes;
+    }
+
+    /**
+     * Returns the maximum size of the cached mappings.
+     * 
+     * @return The maximum size of the cached mappings.
+     */
+    public long getMaxBytes() {
+        return this.maxBytes;
+    }
+
+    /**
+     * Maps the content of a file in read-only mode.
+     * 
+     * @param file
+     *            The file to map.
+     * @param size
+     *            The number of bytes to map.
+     * @return The mapped buffer.
+     * @throws IOException
+     */
+    private MappedByteBuffer map(File file, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Unable to map a file larger than 2 GB: "
+                    + file);
+        }
+
+        FileInputStream fis = new FileInputStream(file);
+
+        try {
+            // The mapping stays valid once the channel is closed
+            return fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0,
+                    size);
+        } finally {
+            fis.close();
+        }
+    }
+
+    /**
+     * Releases a mapping previously acquired.
+     * 
+     * @param mapping
+     *            The mapping to release.
+     */
+    private synchronized void release(Mapping mapping) {
+        if (mapping.references > 0) {
+            mapping.references--;
+
+            if (mapping.references == 0) {
+                if (mapping.cached) {
+                    evict(this.maxBytes);
+                } else {
+                    this.mappedBytes -= mapping.size;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a stale mapping from the cache.
+     * 
+     * @param mapping
+     *            The mapping to remove.
+     */
+    private void remove(Mapping mapping) {
+        this.mappings.remove(mapping.key);
+        mapping.cached = false;
+
+        if (mapping.references == 0) {
+            this.mappedBytes -= mapping.size;
+        }
+    }
+
+}
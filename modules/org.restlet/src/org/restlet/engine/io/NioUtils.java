@@ -50,7 +50,6 @@ import java.util.logging.Level;
 
 import org.restlet.Context;
 import org.restlet.engine.Edition;
-import org.restlet.engine.Engine;
 import org.restlet.representation.Representation;
 
 /**
@@ -186,7 +185,7 @@ public class NioUtils {
     /**
      * Returns a readable byte channel based on the given representation's
      * content and its write(WritableByteChannel) method. Internally, it uses a
-     * writer thread and a pipe channel.
+     * pooled writer thread and a pipe channel.
      * 
      * @param representation
      *            the representation to get the {@link OutputStream} from.
@@ -201,8 +200,8 @@ public class NioUtils {
             // [ifndef gae]
             final java.nio.channels.Pipe pipe = java.nio.channels.Pipe.open();
 
-            // Get a thread that will handle the task of continuously
-            // writing the representation into the input side of the pipe
+            // Get a task that will continuously write the representation
+            // into the input side of the pipe, run by a pooled writer thread
             Runnable task = new Runnable() {
                 public void run() {
                     WritableByteChannel wbc = null;
@@ -228,14 +227,7 @@ public class NioUtils {
                 }
             };
 
-            org.restlet.Context context = org.restlet.Context.getCurrent();
-
-            if (context != null && context.getExecutorService() != null) {
-                context.getExecutorService().execute(task);
-            } else {
-                Engine.createThreadWithLocalVariables(task, "Restlet-NioUtils")
-                        .start();
-            }
+            IoUtils.executePipeTask(task, "Restlet-NioUtils");
 
             result = pipe.source();
             // [enddef]
@@ -43,21 +43,30 @@ import java.util.concurrent.TimeUnit;
 // [excludes gwt]
 /**
  * Pipe stream that pipes output streams into input streams. Implementation
- * based on a shared synchronized queue.
+ * based on a shared synchronized queue of byte chunks, each write operation
+ * passing a copy of the written bytes to the reader. Large writes are split
+ * into chunks of at most {@link IoUtils#BUFFER_SIZE} bytes, so that the bytes
+ * buffered by the pipe are bounded by the capacity of the queue.
  * 
  * @author Jerome Louvel
  */
 public class PipeStream {
 
+    /** The chunk marking the end of the stream. */
+    private static final byte[] END_CHUNK = new byte[0];
+
+    /** The maximum number of chunks in the queue. */
+    private static final int QUEUE_SIZE = 64;
+
     /** The queue timeout. */
     private static final long QUEUE_TIMEOUT = 5;
 
     /** The supporting synchronized queue. */
-    private final BlockingQueue<Integer> queue;
+    private final BlockingQueue<byte[]> queue;
 
     /** Constructor. */
     public PipeStream() {
-        this.queue = new ArrayBlockingQueue<Integer>(1024);
+        this.queue = new ArrayBlockingQueue<byte[]>(QUEUE_SIZE);
     }
 
     /**
@@ -67,29 +76,67 @@ public class PipeStream {
      */
     public InputStream getInputStream() {
         return new InputStream() {
-            private boolean endReached = false;
+            /** The chunk being read. */
+            private byte[] chunk = null;
 
-            @Override
-            public int read() throws IOException {
-                try {
-                    if (this.endReached) {
-                        return -1;
-                    }
+            /** The index of the next byte to read in the current chunk. */
+            private int index = 0;
 
-                    final Integer value = queue.poll(QUEUE_TIMEOUT,
-                            TimeUnit.SECONDS);
-                    this.endReached = (value == -1);
+            /**
+             * Returns the chunk to read from, waiting for the next one if the
+             * current one is fully read.
+             * 
+             * @return The chunk to read from or null if the end is reached.
+             * @throws IOException
+             */
+            private byte[] getChunk() throws IOException {
+                if (this.chunk == END_CHUNK) {
+                    return null;
+                }
 
-                    if (value == null) {
+                if ((this.chunk == null) || (this.index == this.chunk.length)) {
+                    try {
+                        this.chunk = queue.poll(QUEUE_TIMEOUT,
+                                TimeUnit.SECONDS);
+                        this.index = 0;
+                    } catch (InterruptedException ie) {
+                        throw new IOException(
+                                "Interruption occurred while writing in the queue");
+                    }
+
+                    if (this.chunk == null) {
                         throw new IOException(
                                 "Timeout while reading from the queue-based input stream");
-                    } else {
-                        return value.intValue();
+                    } else if (this.chunk == END_CHUNK) {
+                        return null;
                     }
-                } catch (InterruptedException ie) {
-                    throw new IOException(
-                            "Interruption occurred while writing in the queue");
                 }
+
+                return this.chunk;
+            }
+
+            @Override
+            public int read() throws IOException {
+                byte[] current = getChunk();
+                return (current == null) ? -1 : (current[this.index++] & 0xff);
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+
+                byte[] current = getChunk();
+
+                if (current == null) {
+                    return -1;
+                }
+
+                int result = Math.min(len, current.length - this.index);
+                System.arraycopy(current, this.index, b, off, result);
+                this.index += result;
+                return result;
             }
         };
     }
@@ -101,10 +148,16 @@ public class PipeStream {
      */
     public OutputStream getOutputStream() {
         return new OutputStream() {
-            @Override
-            public void write(int b) throws IOException {
+            /**
+             * Offers a chunk to the reader.
+             * 
+             * @param chunk
+             *            The chunk to offer.
+             * @throws IOException
+             */
+            private void offer(byte[] chunk) throws IOException {
                 try {
-                    if (!queue.offer(b & 0xff, QUEUE_TIMEOUT, TimeUnit.SECONDS)) {
+                    if (!queue.offer(chunk, QUEUE_TIMEOUT, TimeUnit.SECONDS)) {
                         throw new IOException(
                                 "Timeout while writing to the queue-based output stream");
                     }
@@ -116,16 +169,25 @@ public class PipeStream {
 
             @Override
             public void close() throws IOException {
-                try {
-                    if (!queue.offer(-1, QUEUE_TIMEOUT, TimeUnit.SECONDS)) {
-                        throw new IOException(
-                                "Timeout while writing to the queue-based output stream");
-                    }
-                } catch (InterruptedException ie) {
-                    throw new IOException(
-                            "Interruption occurred while writing in the queue");
+                offer(END_CHUNK);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                while (len > 0) {
+                    int size = Math.min(len, IoUtils.BUFFER_SIZE);
+                    byte[] chunk = new byte[size];
+                    System.arraycopy(b, off, chunk, 0, size);
+                    offer(chunk);
+                    off += size;
+                    len -= size;
                 }
             }
+
+            @Override
+            public void write(int b) throws IOException {
+                offer(new byte[] { (byte) b });
+            }
         };
     }
 
@@ -173,12 +173,8 @@ public class ReadableChunkedChannel extends ReadableBufferedChannel {
                                 "An empty chunk size line was detected");
                     }
 
-                    int index = getLineBuilder().indexOf(";");
-                    index = (index == -1) ? getLineBuilder().length() : index;
-
                     try {
-                        setRemainingChunkSize(Integer.parseInt(getLineBuilder()
-                                .substring(0, index).trim(), 16));
+                        setRemainingChunkSize(parseChunkSize(getLineBuilder()));
 
                         if (Context.getCurrentLogger().isLoggable(Level.FINER)) {
                             Context.getCurrentLogger().log(
@@ -186,9 +182,6 @@ public class ReadableChunkedChannel extends ReadableBufferedChannel {
                                     "New readable chunk detected. Size: "
                                             + this.remainingChunkSize);
                         }
-                    } catch (NumberFormatException ex) {
-                        throw new IOException("\"" + getLineBuilder()
-                                + "\" has an invalid chunk size");
                     } finally {
                         clearLineBuilder();
                     }
@@ -278,6 +271,54 @@ public class ReadableChunkedChannel extends ReadableBufferedChannel {
         return result;
     }
 
+    /**
+     * Parses the hexadecimal chunk size of a chunk size line, ignoring the
+     * surrounding spaces and the chunk extensions. The digits are directly
+     * read from the line builder.
+     * 
+     * @param line
+     *            The chunk size line.
+     * @return The chunk size.
+     * @throws IOException
+     */
+    private int parseChunkSize(CharSequence line) throws IOException {
+        int result = 0;
+        int digits = 0;
+        int length = line.length();
+        int i = 0;
+
+        while ((i < length) && (line.charAt(i) <= ' ')) {
+            i++;
+        }
+
+        for (; (i < length) && (line.charAt(i) != ';'); i++) {
+            int digit = Character.digit(line.charAt(i), 16);
+
+            if (digit == -1) {
+                break;
+            }
+
+            if (result > (Integer.MAX_VALUE >> 4)) {
+                throw new IOException("\"" + line
+                        + "\" has a too large chunk size");
+            }
+
+            result = (result << 4) + digit;
+            digits++;
+        }
+
+        while ((i < length) && (line.charAt(i) <= ' ')) {
+            i++;
+        }
+
+        if ((digits == 0) || ((i < length) && (line.charAt(i) != ';'))) {
+            throw new IOException("\"" + line
+                    + "\" has an invalid chunk size");
+        }
+
+        return result;
+    }
+
     /**
      * Sets the chunk state.
      * 
@@ -39,15 +39,21 @@ import java.nio.channels.ReadableByteChannel;
 import java.util.logging.Level;
 
 import org.restlet.Context;
-import org.restlet.engine.util.StringUtils;
 
 // [excludes gwt]
 /**
- * Readable byte channel capable of encoding chunked entities.
+ * Readable byte channel capable of encoding chunked entities. The chunk data is
+ * read in place in the destination buffer, after a reserved chunk size line of
+ * constant length, so that each chunk is contiguous and can be written to the
+ * socket with its framing at once.
  */
 public class ReadableChunkingChannel extends
         WrapperChannel<ReadableByteChannel> implements ReadableByteChannel {
 
+    /** The lower case hexadecimal digits. */
+    private static final byte[] HEX_DIGITS = { '0', '1', '2', '3', '4', '5',
+            '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+
     /** The constant chunk part containing the size of the chunk data. */
     private final int chunkSizeLength;
 
@@ -72,31 +78,29 @@ public class ReadableChunkingChannel extends
     }
 
     /**
-     * Returns an hexadecimal chunk size string with a constant length, adding
-     * the necessary number of leading zeroes.
+     * Puts an hexadecimal chunk size line with a constant length, adding the
+     * necessary number of leading zeroes. The digits are directly written in
+     * the destination buffer.
      * 
      * @param chunkDataSize
      *            The chunk data size value.
      * @param targetBuffer
      *            The destination buffer.
-     * @return The length of the chunk size string.
+     * @return The length of the chunk size line.
      */
-    private int fillChunkSizeString(int chunkDataSize, ByteBuffer targetBuffer) {
-        int result = 0;
-        String chunkDataSizeString = Integer.toHexString(chunkDataSize);
-        result = chunkDataSizeString.length();
+    private int fillChunkSize(int chunkDataSize, ByteBuffer targetBuffer) {
+        int position = targetBuffer.position();
+        int value = chunkDataSize;
 
-        // Add necessary leading zeroes
-        for (int i = chunkDataSizeString.length(); i < this.chunkSizeLength; i++) {
-            targetBuffer.put((byte) 48);
-            result++;
+        for (int i = this.chunkSizeLength - 1; i >= 0; i--) {
+            targetBuffer.put(position + i, HEX_DIGITS[value & 0xf]);
+            value >>>= 4;
         }
 
-        targetBuffer.put(StringUtils.getAsciiBytes(chunkDataSizeString));
+        targetBuffer.position(position + this.chunkSizeLength);
         targetBuffer.put((byte) 13);
         targetBuffer.put((byte) 10);
-        result += 2;
-        return result;
+        return this.chunkSizeLength + 2;
     }
 
     /**
@@ -109,94 +113,69 @@ public class ReadableChunkingChannel extends
      *         been reached.
      */
     public int read(ByteBuffer dst) throws IOException {
+        if (this.lastChunkWritten) {
+            return -1;
+        }
+
         int result = 0;
-        boolean tryAgain = true;
+        int chunkStart = dst.position();
+        int limit = dst.limit();
+        int maxChunkDataSize = dst.remaining() - this.chunkSizeLength - 4;
+
+        if (maxChunkDataSize > 0) {
+            // Read the chunk data in the buffer, after the chunk size line
+            dst.position(chunkStart + this.chunkSizeLength + 2);
+            dst.limit(dst.position() + maxChunkDataSize);
+
+            if (Context.getCurrentLogger().isLoggable(Level.FINER)) {
+                Context.getCurrentLogger().finer(
+                        "Position in destination buffer before chunking | Limit | MaxChunkDataSize : "
+                                + dst.position() + " | " + dst.limit() + " | "
+                                + maxChunkDataSize);
+            }
 
-        while (tryAgain) {
-            if (this.lastChunkWritten) {
-                result = -1;
-                tryAgain = false;
-            } else {
-                int chunkStart = dst.position();
-                int maxChunkDataSize = dst.remaining() - this.chunkSizeLength
-                        - 4;
-                int chunkDataSize = 0;
-
-                if (maxChunkDataSize > 0) {
-                    // Read the chunk data in the buffer
-                    dst.position(chunkStart + this.chunkSizeLength + 2);
-                    dst.limit(dst.position() + maxChunkDataSize);
-
-                    if (Context.getCurrentLogger().isLoggable(Level.FINER)) {
-                        Context.getCurrentLogger().finer(
-                                "Position in destination buffer before chunking | Limit | MaxChunkDataSize : "
-                                        + dst.position() + " | " + dst.limit()
-                                        + " | " + maxChunkDataSize);
-                    }
-
-                    chunkDataSize = getWrappedChannel().read(dst);
-                    dst.limit(dst.capacity());
-
-                    if (chunkDataSize == -1) {
-                        this.lastChunkWritten = true;
-                        tryAgain = false;
-                        dst.position(chunkStart);
-
-                        // Rewind and put the chunk size in the buffer
-                        result += fillChunkSizeString(0, dst);
-
-                        // End chunked entity
-                        dst.put((byte) 13);
-                        dst.put((byte) 10);
-                        result += 2;
-                    } else if (chunkDataSize > 0) {
-                        dst.put((byte) 13);
-                        dst.put((byte) 10);
-                        dst.position(chunkStart);
-
-                        // Put the chunk size line
-                        fillChunkSizeString(chunkDataSize, dst);
-
-                        // Restore buffer state
-                        if (Context.getCurrentLogger().isLoggable(Level.FINER)) {
-                            Context.getCurrentLogger()
-                                    .finer("Old chunking position in destination buffer | Limit | MaxChunkDataSize | ChunkDataSize : "
-                                            + dst.position()
-                                            + " | "
-                                            + dst.limit()
-                                            + " | "
-                                            + maxChunkDataSize
-                                            + " | "
-                                            + chunkDataSize);
-                        }
-
-                        dst.position(dst.position() + chunkDataSize + 2);
-
-                        if (Context.getCurrentLogger().isLoggable(Level.FINER)) {
-                            Context.getCurrentLogger()
-                                    .finer("New chunking position in destination buffer | Limit | MaxChunkDataSize | ChunkDataSize : "
-                                            + dst.position()
-                                            + " | "
-                                            + dst.limit()
-                                            + " | "
-                                            + maxChunkDataSize
-                                            + " | "
-                                            + chunkDataSize);
-                        }
-
-                        result += dst.position() - chunkStart;
-                    } else {
-                        // Nothing read on the wrapped channel. Try again later.
-                        dst.position(chunkStart);
-                    }
-                } else {
-                    // Not enough space in the buffer to read a chunk. Try again
-                    // later.
-                    tryAgain = false;
+            int chunkDataSize = getWrappedChannel().read(dst);
+            dst.limit(limit);
+
+            if (chunkDataSize == -1) {
+                this.lastChunkWritten = true;
+                dst.position(chunkStart);
+
+                // Rewind and put the last chunk size in the buffer
+                result += fillChunkSize(0, dst);
+
+                // End chunked entity
+                dst.put((byte) 13);
+                dst.put((byte) 10);
+                result += 2;
+            } else if (chunkDataSize > 0) {
+                dst.put((byte) 13);
+                dst.put((byte) 10);
+                dst.position(chunkStart);
+
+                // Put the chunk size line in the reserved space
+                fillChunkSize(chunkDataSize, dst);
+                dst.position(dst.position() + chunkDataSize + 2);
+
+                if (Context.getCurrentLogger().isLoggable(Level.FINER)) {
+                    Context.getCurrentLogger().finer(
+                            "New chunking position in destination buffer | Limit | MaxChunkDataSize | ChunkDataSize : "
+                                    + dst.position() + " | " + dst.limit()
+                                    + " | " + maxChunkDataSize + " | "
+                                    + chunkDataSize);
                 }
+
+                // A single chunk is read at a time so that streamed content
+                // isn't delayed by a source waiting for more data
+                result += dst.position() - chunkStart;
+            } else {
+                // Nothing read on the wrapped channel. Try again later.
+                dst.position(chunkStart);
             }
         }
 
+        // Otherwise, not enough space in the buffer to read a chunk. Try
+        // again later.
         return result;
     }
 }
@@ -0,0 +1,666 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.local;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.restlet.data.CharacterSet;
+import org.restlet.data.Disposition;
+import org.restlet.data.Encoding;
+import org.restlet.data.Language;
+import org.restlet.data.LocalReference;
+import org.restlet.data.MediaType;
+import org.restlet.data.Tag;
+import org.restlet.engine.application.CompressionPool;
+import org.restlet.engine.application.CompressionPool.DeflaterStream;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.Representation;
+
+/**
+ * In-memory cache of the small static files served by a
+ * {@link org.restlet.resource.Directory}. For each target URI, the resolution
+ * made by {@link DirectoryServerResource} is kept along with the content and
+ * metadata of the file variants, so that GET and HEAD requests, conditional or
+ * not, don't access the file system. A GZip compressed version of each file
+ * is precomputed, and kept if it is smaller than the original.<br>
+ * <br>
+ * The cached files are revalidated by comparing their size and modification
+ * date, and the modification date of their directory in order to detect new
+ * variants, at most once per revalidation delay. The total size of the cached
+ * content is bounded, the least recently used entries being evicted first.
+ * 
+ * @author Jerome Louvel
+ */
+public class DirectoryCache {
+
+    /**
+     * Cached file variant of a target resource.
+     */
+    public static final class CachedFile {
+
+        /** The character set. */
+        private final CharacterSet characterSet;
+
+        /** The file content. */
+        private final byte[] content;
+
+        /** The disposition file name. */
+        private final String dispositionFilename;
+
+        /** The disposition type. */
+        private final String dispositionType;
+
+        /** The encodings. */
+        private final List<Encoding> encodings;
+
+        /** The expiration date. */
+        private final Date expirationDate;
+
+        /** The file handle. */
+        private final File file;
+
+        /** The GZip compressed content, or null. */
+        private final byte[] gzipContent;
+
+        /** The tag of the GZip compressed content. */
+        private final Tag gzipTag;
+
+        /** The languages. */
+        private final List<Language> languages;
+
+        /** The modification date of the file when read. */
+        private final long lastModified;
+
+        /** The size of the file when read. */
+        private final long length;
+
+        /** The location relative to the base reference, or null. */
+        private final String locationPart;
+
+        /** The media type. */
+        private final MediaType mediaType;
+
+        /** The modification date. */
+        private final Date modificationDate;
+
+        /** The tag. */
+        private final Tag tag;
+
+        /**
+         * Constructor.
+         * 
+         * @param representation
+         *            The file representation to cache.
+         * @param content
+         *            The file content.
+         * @param gzipContent
+         *            The GZip compressed content, or null.
+         * @param lastModified
+         *            The modification date of the file when read.
+         * @param locationPart
+         *            The location relative to the base reference, or null.
+         */
+        private CachedFile(FileRepresentation representation, byte[] content,
+                byte[] gzipContent, long lastModified, String locationPart) {
+            this.characterSet = representation.getCharacterSet();
+            this.content = content;
+            this.encodings = new ArrayList<Encoding>(
+                    representation.getEncodings());
+            this.expirationDate = representation.getExpirationDate();
+            this.file = representation.getFile();
+            this.gzipContent = gzipContent;
+            this.languages = new ArrayList<Language>(
+                    representation.getLanguages());
+            this.lastModified = lastModified;
+            this.length = content.length;
+            this.locationPart = locationPart;
+            this.mediaType = representation.getMediaType();
+            this.modificationDate = representation.getModificationDate();
+
+            if (representation.getDisposition() != null) {
+                this.dispositionFilename = representation.getDisposition()
+                        .getFilename();
+                this.dispositionType = representation.getDisposition()
+                        .getType();
+            } else {
+                this.dispositionFilename = null;
+                this.dispositionType = null;
+            }
+
+            if (representation.getTag() != null) {
+                this.tag = representation.getTag();
+            } else {
+                this.tag = new Tag(Long.toHexString(lastModified) + "-"
+                        + Long.toHexString(this.length), false);
+            }
+
+            this.gzipTag = new Tag(this.tag.getName() + "-gzip",
+                    this.tag.isWeak());
+        }
+
+        /**
+         * Creates a new representation of the cached file.
+         * 
+         * @param gzip
+         *            Indicates if the GZip compressed content should be used,
+         *            if available.
+         * @return The new representation.
+         */
+        public Representation createRepresentation(boolean gzip) {
+            boolean compressed = gzip && hasGzipContent();
+            byte[] bytes = compressed ? this.gzipContent : this.content;
+            Representation result = new ByteArrayRepresentation(bytes,
+                    this.mediaType, bytes.length);
+            result.setCharacterSet(this.characterSet);
+            result.getEncodings().addAll(this.encodings);
+            result.getLanguages().addAll(this.languages);
+            result.setExpirationDate(this.expirationDate);
+            result.setModificationDate(this.modificationDate);
+
+            if (this.dispositionType != null) {
+                Disposition disposition = new Disposition(this.dispositionType);
+                disposition.setFilename(this.dispositionFilename);
+                result.setDisposition(disposition);
+            }
+
+            if (compressed) {
+                result.getEncodings().add(Encoding.GZIP);
+                result.setTag(this.gzipTag);
+            } else {
+                result.setTag(this.tag);
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns the location relative to the base reference of the
+         * directory, or null if the location is the request reference.
+         * 
+         * @return The location relative to the base reference or null.
+         */
+        public String getLocationPart() {
+            return this.locationPart;
+        }
+
+        /**
+         * Returns the number of cached bytes.
+         * 
+         * @return The number of cached bytes.
+         */
+        private long getSize() {
+            return this.content.length
+                    + (hasGzipContent() ? this.gzipContent.length : 0);
+        }
+
+        /**
+         * Indicates if a GZip compressed content is available.
+         * 
+         * @return True if a GZip compressed content is available.
+         */
+        public boolean hasGzipContent() {
+            return this.gzipContent != null;
+        }
+
+        /**
+         * Indicates if the file is unchanged since it was read.
+         * 
+         * @return True if the file is unchanged since it was read.
+         */
+        private boolean isValid() {
+            return (this.file.lastModified() == this.lastModified)
+                    && (this.file.length() == this.length);
+        }
+    }
+
+    /**
+     * Cached resolution of a target URI.
+     */
+    public static final class Entry {
+
+        /** The local base name of the resource. */
+        private final String baseName;
+
+        /** The time of the last revalidation. */
+        private volatile long checkedTime;
+
+        /** The directory of the variants, or null. */
+        private final File directory;
+
+        /** The modification date of the directory when read. */
+        private final long directoryModified;
+
+        /** Indicates if the target resource is a directory. */
+        private final boolean directoryTarget;
+
+        /** The context's directory URI. */
+        private final String directoryUri;
+
+        /** The cached file variants. */
+        private final List<CachedFile> files;
+
+        /** Indicates if the target resource is a file. */
+        private final boolean fileTarget;
+
+        /** Indicates if the target resource is a directory with an index. */
+        private final boolean indexTarget;
+
+        /** The resource path relative to the directory URI. */
+        private final String relativePart;
+
+        /** The number of cached bytes. */
+        private final long size;
+
+        /** The context's target URI. */
+        private final String targetUri;
+
+        /**
+         * Constructor.
+         * 
+         * @param baseName
+         *            The local base name of the resource.
+         * @param directoryTarget
+         *            Indicates if the target resource is a directory.
+         * @param directoryUri
+         *            The context's directory URI.
+         * @param fileTarget
+         *            Indicates if the target resource is a file.
+         * @param indexTarget
+         *            Indicates if the target resource is a directory with an
+         *            index.
+         * @param relativePart
+         *            The resource path relative to the directory URI.
+         * @param targetUri
+         *            The context's target URI.
+         * @param files
+         *            The cached file variants.
+         */
+        public Entry(String baseName, boolean directoryTarget,
+                String directoryUri, boolean fileTarget, boolean indexTarget,
+                String relativePart, String targetUri, List<CachedFile> files) {
+            this.baseName = baseName;
+            this.checkedTime = System.currentTimeMillis();
+            this.directoryTarget = directoryTarget;
+            this.directoryUri = directoryUri;
+            this.files = Collections
+                    .unmodifiableList(new ArrayList<CachedFile>(files));
+            this.fileTarget = fileTarget;
+            this.indexTarget = indexTarget;
+            this.relativePart = relativePart;
+            this.targetUri = targetUri;
+
+            if ((directoryUri != null) && directoryUri.startsWith("file:")) {
+                this.directory = new LocalReference(directoryUri).getFile();
+                this.directoryModified = this.directory.lastModified();
+            } else {
+                this.directory = null;
+                this.directoryModified = 0L;
+            }
+
+            long total = 0L;
+
+            for (CachedFile file : this.files) {
+                total += file.getSize();
+            }
+
+            this.size = total;
+        }
+
+        /**
+         * Returns the local base name of the resource.
+         * 
+         * @return The local base name of the resource.
+         */
+        public String getBaseName() {
+            return this.baseName;
+        }
+
+        /**
+         * Returns the context's directory URI.
+         * 
+         * @return The context's directory URI.
+         */
+        public String getDirectoryUri() {
+            return this.directoryUri;
+        }
+
+        /**
+         * Returns the cached file variants.
+         * 
+         * @return The cached file variants.
+         */
+        public List<CachedFile> getFiles() {
+            return this.files;
+        }
+
+        /**
+         * Returns the resource path relative to the directory URI.
+         * 
+         * @return The resource path relative to the directory URI.
+         */
+        public String getRelativePart() {
+            return this.relativePart;
+        }
+
+        /**
+         * Returns the context's target URI.
+         * 
+         * @return The context's target URI.
+         */
+        public String getTargetUri() {
+            return this.targetUri;
+        }
+
+        /**
+         * Indicates if the target resource is a directory.
+         * 
+         * @return True if the target resource is a directory.
+         */
+        public boolean isDirectoryTarget() {
+            return this.directoryTarget;
+        }
+
+        /**
+         * Indicates if the target resource is a file.
+         * 
+         * @return True if the target resource is a file.
+         */
+        public boolean isFileTarget() {
+            return this.fileTarget;
+        }
+
+        /**
+         * Indicates if a GZip compressed content is available for one of the
+         * variants.
+         * 
+         * @return True if a GZip compressed content is available.
+         */
+        public boolean isGzipAvailable() {
+            for (CachedFile file : this.files) {
+                if (file.hasGzipContent()) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Indicates if the target resource is a directory with an index.
+         * 
+         * @return True if the target resource is a directory with an index.
+         */
+        public boolean isIndexTarget() {
+            return this.indexTarget;
+        }
+
+        /**
+         * Revalidates the entry if the revalidation delay has elapsed.
+         * 
+         * @param revalidationDelay
+         *            The revalidation delay in milliseconds.
+         * @return True if the entry is still valid.
+         */
+        private boolean revalidate(long revalidationDelay) {
+            long now = System.currentTimeMillis();
+
+            if (now - this.checkedTime < revalidationDelay) {
+                return true;
+            }
+
+            if ((this.directory != null)
+                    && (this.directory.lastModified() != this.directoryModified)) {
+                // Variants may have been added or removed
+                return false;
+            }
+
+            for (CachedFile file : this.files) {
+                if (!file.isValid()) {
+                    return false;
+                }
+            }
+
+            this.checkedTime = now;
+            return true;
+        }
+    }
+
+    /** The cached entries by target URI, from the least recently used. */
+    private final Map<String, Entry> entries;
+
+    /** The maximum number of cached bytes. */
+    private final long maxBytes;
+
+    /** The maximum size of a cached file. */
+    private final long maxFileSize;
+
+    /** The delay between two revalidations of an entry in milliseconds. */
+    private final long revalidationDelay;
+
+    /** The number of cached bytes. */
+    private long size;
+
+    /**
+     * Default constructor. Caches up to 16 MB of files smaller than 64 KB,
+     * revalidated at most once per second.
+     */
+    public DirectoryCache() {
+        this(16L * 1024 * 1024, 64L * 1024, 1000L);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxBytes
+     *            The maximum number of cached bytes.
+     * @param maxFileSize
+     *            The maximum size of a cached file.
+     * @param revalidationDelay
+     *            The delay between two revalidations of an entry in
+     *            milliseconds.
+     */
+    public DirectoryCache(long maxBytes, long maxFileSize,
+            long revalidationDelay) {
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        this.maxBytes = maxBytes;
+        this.maxFileSize = maxFileSize;
+        this.revalidationDelay = revalidationDelay;
+        this.size = 0L;
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.size = 0L;
+    }
+
+    /**
+     * Reads a file representation to cache it. Returns null if the file is too
+     * large or if it can't be read.
+     * 
+     * @param representation
+     *            The file representation to cache.
+     * @param locationPart
+     *            The location relative to the base reference of the directory,
+     *            or null if the location is the request reference.
+     * @return The cached file or null.
+     */
+    public CachedFile createFile(FileRepresentation representation,
+            String locationPart) {
+        File file = representation.getFile();
+
+        if ((file == null) || !file.isFile()
+                || (file.length() > this.maxFileSize)) {
+            return null;
+        }
+
+        try {
+            long lastModified = file.lastModified();
+            ByteArrayOutputStream content = new ByteArrayOutputStream(
+                    (int) file.length());
+            BioUtils.copy(representation.getStream(), content);
+            byte[] bytes = content.toByteArray();
+
+            if ((bytes.length != file.length())
+                    || (file.lastModified() != lastModified)) {
+                // Modified while being read
+                return null;
+            }
+
+            ByteArrayOutputStream gzipContent = new ByteArrayOutputStream(
+                    bytes.length);
+            DeflaterStream gos = CompressionPool.getInstance()
+                    .createGzipStream(gzipContent,
+                            Deflater.DEFAULT_COMPRESSION);
+            gos.write(bytes);
+            gos.finish();
+
+            return new CachedFile(representation, bytes,
+                    (gzipContent.size() < bytes.length) ? gzipContent
+                            .toByteArray() : null, lastModified, locationPart);
+        } catch (IOException ioe) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the valid entry for a target URI, or null.
+     * 
+     * @param targetUri
+     *            The target URI.
+     * @return The valid entry or null.
+     */
+    public Entry get(String targetUri) {
+        Entry result;
+
+        synchronized (this) {
+            result = this.entries.get(targetUri);
+        }
+
+        if ((result != null) && !result.revalidate(this.revalidationDelay)) {
+            synchronized (this) {
+                if (this.entries.get(targetUri) == result) {
+                    this.entries.remove(targetUri);
+                    this.size -= result.size;
+                }
+            }
+
+            result = null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of cached bytes.
+     * 
+     * @return The maximum number of cached bytes.
+     */
+    public long getMaxBytes() {
+        return this.maxBytes;
+    }
+
+    /**
+     * Returns the maximum size of a cached file.
+     * 
+     * @return The maximum size of a cached file.
+     */
+    public long getMaxFileSize() {
+        return this.maxFileSize;
+    }
+
+    /**
+     * Returns the delay between two revalidations of an entry in
+     * milliseconds.
+     * 
+     * @return The delay between two revalidations of an entry.
+     */
+    public long getRevalidationDelay() {
+        return this.revalidationDelay;
+    }
+
+    /**
+     * Returns the number of cached bytes.
+     * 
+     * @return The number of cached bytes.
+     */
+    public synchronized long getSize() {
+        return this.size;
+    }
+
+    /**
+     * Caches an entry, evicting the least recently used ones if needed.
+     * 
+     * @param targetUri
+     *            The target URI.
+     * @param entry
+     *            The entry to cache.
+     */
+    public synchronized void put(String targetUri, Entry entry) {
+        if (entry.size > this.maxBytes) {
+            return;
+        }
+
+        Entry previous = this.entries.put(targetUri, entry);
+
+        if (previous != null) {
+            this.size -= previous.size;
+        }
+
+        this.size += entry.size;
+
+        Iterator<Entry> iter = this.entries.values().iterator();
+
+        while ((this.size > this.maxBytes) && iter.hasNext()) {
+            this.size -= iter.next().size;
+            iter.remove();
+        }
+    }
+
+}
@@ -44,12 +44,17 @@ import java.util.logging.Level;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
+import org.restlet.data.Dimension;
+import org.restlet.data.Encoding;
 import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.data.Preference;
 import org.restlet.data.Reference;
 import org.restlet.data.ReferenceList;
 import org.restlet.data.Status;
+import org.restlet.engine.application.Encoder;
+import org.restlet.engine.local.DirectoryCache.CachedFile;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.representation.Variant;
 import org.restlet.resource.Directory;
@@ -124,6 +129,83 @@ public class DirectoryServerResource extends ServerResource {
     /** The unique representation of the target URI, if it exists. */
     private volatile Reference uniqueReference;
 
+    /**
+     * Caches the resolution of the target URI along with the file variants,
+     * if they are all small enough.
+     * 
+     * @param cache
+     *            The directory cache.
+     * @param key
+     *            The target URI before resolution.
+     */
+    private void cacheEntry(DirectoryCache cache, String key) {
+        List<Variant> variants = getVariants(Method.GET);
+
+        if (!isExisting() || this.directoryRedirection || (variants == null)
+                || variants.isEmpty()) {
+            return;
+        }
+
+        List<CachedFile> files = new ArrayList<CachedFile>();
+        String baseRef = (this.directoryContent == null) ? null
+                : getVariantsBaseRef();
+
+        for (Variant variant : variants) {
+            if (!(variant instanceof FileRepresentation)) {
+                return;
+            }
+
+            String locationPart = null;
+
+            if (baseRef != null) {
+                String location = variant.getLocationRef().toString();
+
+                if (!location.startsWith(baseRef)) {
+                    return;
+                }
+
+                locationPart = location.substring(baseRef.length());
+            }
+
+            CachedFile file = cache.createFile((FileRepresentation) variant,
+                    locationPart);
+
+            if (file == null) {
+                return;
+            }
+
+            files.add(file);
+        }
+
+        cache.put(key, new DirectoryCache.Entry(this.baseName,
+                this.directoryTarget, this.directoryUri, this.fileTarget,
+                this.indexTarget, this.relativePart, this.targetUri, files));
+    }
+
+    /**
+     * Checks if the resource is located in a sub directory, in case the
+     * directory isn't deeply accessible.
+     */
+    private void checkDeepAccess() {
+        if (isExisting() && !this.directory.isDeeplyAccessible()) {
+            // Count the number of "/" character.
+            int index = this.relativePart.indexOf("/");
+            if (index != -1) {
+                index = this.relativePart.indexOf("/", index);
+                setExisting((index == -1));
+            }
+        }
+    }
+
+    /**
+     * Clears the cache of the parent directory, if any, after a modification.
+     */
+    private void clearCache() {
+        if (getDirectory().getCache() != null) {
+            getDirectory().getCache().clear();
+        }
+    }
+
     @Override
     public Representation delete() throws ResourceException {
         if (this.directory.isModifiable()) {
@@ -154,6 +236,7 @@ public class DirectoryServerResource extends ServerResource {
                 }
             }
 
+            clearCache();
             setStatus(contextResponse.getStatus());
         } else {
             setStatus(Status.CLIENT_ERROR_METHOD_NOT_ALLOWED,
@@ -219,10 +302,23 @@ public class DirectoryServerResource extends ServerResource {
                 this.targetUri = directory.getRootRef().toString();
             }
 
+            // The cache only applies to GET and HEAD requests
+            DirectoryCache cache = null;
+
+            if (Method.GET.equals(getMethod())
+                    || Method.HEAD.equals(getMethod())) {
+                cache = getDirectory().getCache();
+            }
+
+            String cacheKey = this.targetUri;
+
             if (getClientDispatcher() == null) {
                 getLogger().warning(
                         "No client dispatcher is available on the context. Can't get the target URI: "
                                 + this.targetUri);
+            } else if ((cache != null) && restoreEntry(cache, cacheKey)) {
+                getLogger().fine("Cached target URI: " + cacheKey);
+                checkDeepAccess();
             } else {
                 // Try to detect the presence of a directory
                 Response contextResponse = getRepresentation(this.targetUri);
@@ -385,15 +481,11 @@ public class DirectoryServerResource extends ServerResource {
                     }
                 }
 
-                // Check if the resource is located in a sub directory.
-                if (isExisting() && !this.directory.isDeeplyAccessible()) {
-                    // Count the number of "/" character.
-                    int index = this.relativePart.indexOf("/");
-                    if (index != -1) {
-                        index = this.relativePart.indexOf("/", index);
-                        setExisting((index == -1));
-                    }
+                if (cache != null) {
+                    cacheEntry(cache, cacheKey);
                 }
+
+                checkDeepAccess();
             }
 
             // Log results
@@ -595,21 +687,7 @@ public class DirectoryServerResource extends ServerResource {
                     SortedSet<Representation> resultSet = new TreeSet<Representation>(
                             getRepresentationsComparator());
 
-                    // Compute the base reference (from a call's client point of
-                    // view)
-                    String baseRef = getReference().getBaseRef().toString(
-                            false, false);
-
-                    if (!baseRef.endsWith("/")) {
-                        baseRef += "/";
-                    }
-
-                    int lastIndex = this.relativePart.lastIndexOf("/");
-
-                    if (lastIndex != -1) {
-                        baseRef += this.relativePart.substring(0, lastIndex);
-                    }
-
+                    String baseRef = getVariantsBaseRef();
                     int rootLength = getDirectoryUri().length();
 
                     if (this.baseName != null) {
@@ -697,6 +775,28 @@ public class DirectoryServerResource extends ServerResource {
         return result;
     }
 
+    /**
+     * Returns the base reference of the variants, from a call's client point of
+     * view.
+     * 
+     * @return The base reference of the variants.
+     */
+    private String getVariantsBaseRef() {
+        String result = getReference().getBaseRef().toString(false, false);
+
+        if (!result.endsWith("/")) {
+            result += "/";
+        }
+
+        int lastIndex = this.relativePart.lastIndexOf("/");
+
+        if (lastIndex != -1) {
+            result += this.relativePart.substring(0, lastIndex);
+        }
+
+        return result;
+    }
+
     /**
      * Returns the references of the representations of the target resource
      * according to the directory handler property
@@ -739,8 +839,12 @@ public class DirectoryServerResource extends ServerResource {
                                     firstDotIndex);
                         }
 
+                        // Precompressed siblings are served separately
+                        boolean sibling = getDirectory().isPrecompressed()
+                                && fullEntryName.endsWith(".gz");
+
                         // Check if the current file is a valid variant
-                        if (baseEntryName.equals(this.baseName)) {
+                        if (!sibling && baseEntryName.equals(this.baseName)) {
                             // Test if the variant is included in the base
                             // prototype variant
                             Variant variant = new Variant();
@@ -791,6 +895,19 @@ public class DirectoryServerResource extends ServerResource {
             }
         } else {
             result = super.handle();
+
+            if (getDirectory().isPrecompressed()
+                    && (result instanceof FileRepresentation)
+                    && (getResponseEntity() == result) && isGzipAccepted()) {
+                Representation sibling = Encoder
+                        .getGzipSibling((FileRepresentation) result);
+
+                if (sibling != null) {
+                    getResponse().getDimensions().add(Dimension.ENCODING);
+                    getResponse().setEntity(sibling);
+                    result = sibling;
+                }
+            }
         }
 
         return result;
@@ -805,6 +922,26 @@ public class DirectoryServerResource extends ServerResource {
         return this.directoryTarget;
     }
 
+    /**
+     * Indicates if the client accepts the GZip encoding.
+     * 
+     * @return True if the client accepts the GZip encoding.
+     */
+    private boolean isGzipAccepted() {
+        for (Preference<Encoding> pref : getClientInfo()
+                .getAcceptedEncodings()) {
+            Encoding encoding = pref.getMetadata();
+
+            if ((pref.getQuality() > 0)
+                    && (Encoding.GZIP.equals(encoding) || Encoding.ALL
+                            .equals(encoding))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     /**
      * Indicates if the target resource is a file.
      * 
@@ -827,6 +964,7 @@ public class DirectoryServerResource extends ServerResource {
             Response contextResponse = new Response(contextRequest);
             contextRequest.setResourceRef(this.targetUri);
             getClientDispatcher().handle(contextRequest, contextResponse);
+            clearCache();
             setStatus(contextResponse.getStatus());
         } else {
             setStatus(Status.CLIENT_ERROR_METHOD_NOT_ALLOWED,
@@ -836,6 +974,59 @@ public class DirectoryServerResource extends ServerResource {
         return null;
     }
 
+    /**
+     * Restores the resolution of the target URI and the variants from the
+     * directory cache.
+     * 
+     * @param cache
+     *            The directory cache.
+     * @param key
+     *            The target URI before resolution.
+     * @return True if a valid entry was restored.
+     */
+    private boolean restoreEntry(DirectoryCache cache, String key) {
+        DirectoryCache.Entry entry = cache.get(key);
+
+        if ((entry == null) || (getReference().getBaseRef() == null)) {
+            return false;
+        }
+
+        this.baseName = entry.getBaseName();
+        this.directoryTarget = entry.isDirectoryTarget();
+        this.directoryUri = entry.getDirectoryUri();
+        this.fileTarget = entry.isFileTarget();
+        this.indexTarget = entry.isIndexTarget();
+        this.relativePart = entry.getRelativePart();
+        this.targetUri = entry.getTargetUri();
+
+        String baseRef = getVariantsBaseRef();
+        boolean gzip = false;
+
+        if (entry.isGzipAvailable()) {
+            getResponse().getDimensions().add(Dimension.ENCODING);
+            gzip = isGzipAccepted();
+        }
+
+        List<Variant> variants = new ArrayList<Variant>();
+
+        for (CachedFile file : entry.getFiles()) {
+            Representation variant = file.createRepresentation(gzip);
+
+            if (file.getLocationPart() != null) {
+                variant.setLocationRef(baseRef + file.getLocationPart());
+            } else if (getOriginalRef() != null) {
+                variant.setLocationRef(getRequest().getOriginalRef());
+            } else {
+                variant.setLocationRef(getReference());
+            }
+
+            variants.add(variant);
+        }
+
+        this.variantsGet = variants;
+        return true;
+    }
+
     /**
      * Sets the context's target URI (file, clap URI).
      * 
@@ -42,6 +42,7 @@ import java.lang.reflect.TypeVariable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import org.restlet.Context;
 import org.restlet.data.CharacterSet;
@@ -53,6 +54,7 @@ import org.restlet.data.Method;
 import org.restlet.data.Parameter;
 import org.restlet.representation.Representation;
 import org.restlet.representation.Variant;
+import org.restlet.resource.ResultFuture;
 import org.restlet.service.MetadataService;
 
 // [excludes gwt]
@@ -372,13 +374,33 @@ public class AnnotationInfo {
     }
 
     /**
-     * Returns the output type of the Java method.
+     * Returns the output type of the Java method. If the method is
+     * asynchronous, this is the type of the value of the returned future, or
+     * {@link Representation} if it can't be determined.
      * 
      * @return The output type of the Java method.
+     * @see #isAsynchronous()
      */
     public Class<?> getJavaOutputType() {
-        return getJavaActualType(javaMethodImpl.getReturnType(),
-                javaMethodImpl.getGenericReturnType());
+        Class<?> result = null;
+        Type genericType = javaMethodImpl.getGenericReturnType();
+
+        if (isAsynchronous()) {
+            if (genericType instanceof ParameterizedType) {
+                Type valueType = ((ParameterizedType) genericType)
+                        .getActualTypeArguments()[0];
+                result = getJavaActualType(getTypeClass(valueType), valueType);
+            }
+
+            if (result == null) {
+                result = Representation.class;
+            }
+        } else {
+            result = getJavaActualType(javaMethodImpl.getReturnType(),
+                    genericType);
+        }
+
+        return result;
     }
 
     /**
@@ -566,6 +588,19 @@ public class AnnotationInfo {
         return result;
     }
 
+    /**
+     * Indicates if the Java method is asynchronous, meaning that it returns a
+     * {@link Future} or a {@link ResultFuture} completed when the response is
+     * received, instead of blocking the calling thread.
+     * 
+     * @return True if the Java method is asynchronous.
+     */
+    public boolean isAsynchronous() {
+        Class<?> returnType = javaMethodImpl.getReturnType();
+        return Future.class.isAssignableFrom(returnType)
+                && returnType.isAssignableFrom(ResultFuture.class);
+    }
+
     /**
      * Indicates if the annotated method described is compatible with the given
      * parameters.
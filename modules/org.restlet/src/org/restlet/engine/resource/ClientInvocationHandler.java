@@ -255,21 +255,28 @@ public class ClientInvocationHandler<T> implements InvocationHandler {
                     }
                 }
 
-                // Effectively handle the call
-                Response response = getClientResource().handleOutbound(request);
-
-                // Handle the response
-                if (isSynchronous) {
-                    if (response.getStatus().isError()) {
-                        getClientResource().doError(response.getStatus());
-                    }
+                if (annotationInfo.isAsynchronous()) {
+                    // Return a future completed when the response is received
+                    result = getClientResource().handleAsync(request,
+                            annotationInfo.getJavaOutputType());
+                } else {
+                    // Effectively handle the call
+                    Response response = getClientResource().handleOutbound(
+                            request);
+
+                    // Handle the response
+                    if (isSynchronous) {
+                        if (response.getStatus().isError()) {
+                            getClientResource().doError(response.getStatus());
+                        }
 
-                    if (!annotationInfo.getJavaOutputType().equals(void.class)) {
-                        result = getClientResource()
-                                .toObject(
-                                        (response == null ? null
-                                                : response.getEntity()),
-                                        annotationInfo.getJavaOutputType());
+                        if (!annotationInfo.getJavaOutputType().equals(
+                                void.class)) {
+                            result = getClientResource().toObject(
+                                    (response == null ? null : response
+                                            .getEntity()),
+                                    annotationInfo.getJavaOutputType());
+                        }
                     }
                 }
             }
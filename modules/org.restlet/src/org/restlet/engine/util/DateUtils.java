@@ -184,6 +184,12 @@ public final class DateUtils {
         }
 
         // [ifndef gwt]
+        String result = HttpDateFormat.format(date, format);
+
+        if (result != null) {
+            return result;
+        }
+
         java.text.DateFormat formatter = null;
 
         if (FORMAT_RFC_3339.get(0).equals(format)) {
@@ -247,6 +253,12 @@ public final class DateUtils {
         for (int i = 0; (result == null) && (i < formatsSize); i++) {
             format = formats.get(i);
             // [ifndef gwt]
+            result = HttpDateFormat.parse(date, format);
+
+            if (result != null) {
+                continue;
+            }
+
             java.text.DateFormat parser = null;
 
             if (FORMAT_RFC_3339.get(0).equals(format)) {
@@ -0,0 +1,593 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.Date;
+
+/**
+ * Thread-safe formatter and parser for the HTTP date formats, that is RFC 1123,
+ * RFC 1036 and ANSI C's asctime() formats, always in the GMT time zone. It
+ * avoids the creation of a {@link java.text.SimpleDateFormat} for each call
+ * and keeps the last formatted and parsed dates in small caches indexed by
+ * second, which makes the formatting of the current date cheap for all the
+ * messages sent during the same second.<br>
+ * <br>
+ * Only the canonical form of each format is handled. For other input, and for
+ * years outside the 1600-9999 range, the methods return null so that the
+ * caller can fall back to a regular date format.
+ * 
+ * @author Jerome Louvel
+ * @see DateUtils
+ */
+public final class HttpDateFormat {
+
+    /**
+     * Date formatted or parsed, immutable so that it can be safely shared
+     * between threads.
+     */
+    private static final class CachedDate {
+
+        /** The format style. */
+        private final int style;
+
+        /** The formatted date. */
+        private final String text;
+
+        /** The time in seconds since January 1, 1970, 00:00:00 GMT. */
+        private final long time;
+
+        /**
+         * Constructor.
+         * 
+         * @param style
+         *            The format style.
+         * @param text
+         *            The formatted date.
+         * @param time
+         *            The time in seconds since January 1, 1970, 00:00:00 GMT.
+         */
+        private CachedDate(int style, String text, long time) {
+            this.style = style;
+            this.text = text;
+            this.time = time;
+        }
+    }
+
+    /** ANSI C's asctime() format style. */
+    private static final int ASC_TIME = 0;
+
+    /** The number of entries of each cache, must be a power of two. */
+    private static final int CACHE_SIZE = 64;
+
+    /** The short names of the days of week, starting with Sunday. */
+    private static final String[] DAYS = { "Sun", "Mon", "Tue", "Wed", "Thu",
+            "Fri", "Sat" };
+
+    /** The cache of formatted dates, indexed by second. */
+    private static final CachedDate[] FORMATTED = new CachedDate[CACHE_SIZE];
+
+    /** The long names of the days of week, starting with Sunday. */
+    private static final String[] LONG_DAYS = { "Sunday", "Monday",
+            "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday" };
+
+    /** The short names of the months. */
+    private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr",
+            "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" };
+
+    /** The cache of parsed dates, indexed by hash code. */
+    private static final CachedDate[] PARSED = new CachedDate[CACHE_SIZE];
+
+    /** RFC 1036 format style. */
+    private static final int RFC_1036 = 1;
+
+    /** RFC 1123 format style. */
+    private static final int RFC_1123 = 2;
+
+    /**
+     * Appends a number padded with zeros.
+     * 
+     * @param chars
+     *            The target characters.
+     * @param index
+     *            The index of the first character to write.
+     * @param value
+     *            The positive number.
+     * @param digits
+     *            The number of digits.
+     * @return The index following the written characters.
+     */
+    private static int append(char[] chars, int index, int value, int digits) {
+        for (int i = index + digits - 1; i >= index; i--) {
+            chars[i] = (char) ('0' + (value % 10));
+            value /= 10;
+        }
+
+        return index + digits;
+    }
+
+    /**
+     * Appends a string.
+     * 
+     * @param chars
+     *            The target characters.
+     * @param index
+     *            The index of the first character to write.
+     * @param value
+     *            The string to write.
+     * @return The index following the written characters.
+     */
+    private static int append(char[] chars, int index, String value) {
+        value.getChars(0, value.length(), chars, index);
+        return index + value.length();
+    }
+
+    /**
+     * Appends the time of day, as hours, minutes and seconds separated by
+     * colons.
+     * 
+     * @param chars
+     *            The target characters.
+     * @param index
+     *            The index of the first character to write.
+     * @param secondOfDay
+     *            The second of the day.
+     * @return The index following the written characters.
+     */
+    private static int appendTime(char[] chars, int index, int secondOfDay) {
+        int i = append(chars, index, secondOfDay / 3600, 2);
+        chars[i++] = ':';
+        i = append(chars, i, (secondOfDay / 60) % 60, 2);
+        chars[i++] = ':';
+        return append(chars, i, secondOfDay % 60, 2);
+    }
+
+    /**
+     * Formats a date, using a cached value if the same second was recently
+     * formatted. Returns null if the pattern isn't one of the HTTP date
+     * formats of {@link DateUtils} or if the year is out of range.
+     * 
+     * @param date
+     *            The date to format.
+     * @param pattern
+     *            The date pattern.
+     * @return The formatted date or null.
+     */
+    public static String format(Date date, String pattern) {
+        int style = getStyle(pattern);
+
+        if (style == -1) {
+            return null;
+        }
+
+        long time = date.getTime();
+        long seconds = (time >= 0) ? time / 1000 : (time - 999) / 1000;
+        int slot = (int) (seconds & (CACHE_SIZE - 1));
+        CachedDate cached = FORMATTED[slot];
+
+        if ((cached != null) && (cached.time == seconds)
+                && (cached.style == style)) {
+            return cached.text;
+        }
+
+        String result = format(seconds, style);
+
+        if (result != null) {
+            FORMATTED[slot] = new CachedDate(style, result, seconds);
+        }
+
+        return result;
+    }
+
+    /**
+     * Formats a date.
+     * 
+     * @param seconds
+     *            The time in seconds since January 1, 1970, 00:00:00 GMT.
+     * @param style
+     *            The format style.
+     * @return The formatted date or null if the year is out of range.
+     */
+    private static String format(long seconds, int style) {
+        long days = (seconds >= 0) ? seconds / 86400
+                : (seconds - 86399) / 86400;
+        int secondOfDay = (int) (seconds - days * 86400);
+        long[] civil = toCivil(days);
+
+        if ((civil[0] < 1600) || (civil[0] > 9999)) {
+            return null;
+        }
+
+        int year = (int) civil[0];
+        String month = MONTHS[(int) civil[1] - 1];
+        int day = (int) civil[2];
+        int dayOfWeek = (int) (((days + 4) % 7 + 7) % 7);
+        char[] chars = new char[40];
+        int i = 0;
+
+        switch (style) {
+        case RFC_1123:
+            i = append(chars, i, DAYS[dayOfWeek]);
+            chars[i++] = ',';
+            chars[i++] = ' ';
+            i = append(chars, i, day, 2);
+            chars[i++] = ' ';
+            i = append(chars, i, month);
+            chars[i++] = ' ';
+            i = append(chars, i, year, 4);
+            chars[i++] = ' ';
+            i = appendTime(chars, i, secondOfDay);
+            i = append(chars, i, " GMT");
+            break;
+
+        case RFC_1036:
+            i = append(chars, i, LONG_DAYS[dayOfWeek]);
+            chars[i++] = ',';
+            chars[i++] = ' ';
+            i = append(chars, i, day, 2);
+            chars[i++] = '-';
+            i = append(chars, i, month);
+            chars[i++] = '-';
+            i = append(chars, i, year % 100, 2);
+            chars[i++] = ' ';
+            i = appendTime(chars, i, secondOfDay);
+            i = append(chars, i, " GMT");
+            break;
+
+        default:
+            i = append(chars, i, DAYS[dayOfWeek]);
+            chars[i++] = ' ';
+            i = append(chars, i, month);
+            chars[i++] = ' ';
+            i = append(chars, i, day, 2);
+            chars[i++] = ' ';
+            i = appendTime(chars, i, secondOfDay);
+            chars[i++] = ' ';
+            i = append(chars, i, year, 4);
+            break;
+        }
+
+        return new String(chars, 0, i);
+    }
+
+    /**
+     * Returns the number of days in a month.
+     * 
+     * @param year
+     *            The year.
+     * @param month
+     *            The month, from 1 to 12.
+     * @return The number of days in the month.
+     */
+    private static int getDaysInMonth(long year, int month) {
+        if (month == 2) {
+            boolean leap = ((year % 4) == 0)
+                    && (((year % 100) != 0) || ((year % 400) == 0));
+            return leap ? 29 : 28;
+        }
+
+        boolean shortMonth = (month == 4) || (month == 6) || (month == 9)
+                || (month == 11);
+        return shortMonth ? 30 : 31;
+    }
+
+    /**
+     * Returns the style matching a date pattern of {@link DateUtils}.
+     * 
+     * @param pattern
+     *            The date pattern.
+     * @return The format style or -1 if the pattern isn't supported.
+     */
+    private static int getStyle(String pattern) {
+        if (DateUtils.FORMAT_RFC_1123.get(0).equals(pattern)) {
+            return RFC_1123;
+        } else if (DateUtils.FORMAT_RFC_1036.get(0).equals(pattern)) {
+            return RFC_1036;
+        } else if (DateUtils.FORMAT_ASC_TIME.get(0).equals(pattern)) {
+            return ASC_TIME;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the index of a name in an array, starting at a given position of
+     * the text to parse.
+     * 
+     * @param text
+     *            The text to parse.
+     * @param index
+     *            The position of the name.
+     * @param names
+     *            The candidate names.
+     * @return The index of the name found or -1.
+     */
+    private static int indexOf(String text, int index, String[] names) {
+        for (int i = 0; i < names.length; i++) {
+            if (text.startsWith(names[i], index)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Parses a date, using a cached value if the same text was recently
+     * parsed. Returns null if the pattern isn't one of the HTTP date formats
+     * of {@link DateUtils} or if the text isn't in the canonical form of the
+     * format.
+     * 
+     * @param text
+     *            The text to parse.
+     * @param pattern
+     *            The date pattern.
+     * @return The parsed date or null.
+     */
+    public static Date parse(String text, String pattern) {
+        int style = getStyle(pattern);
+
+        if (style == -1) {
+            return null;
+        }
+
+        int slot = text.hashCode() & (CACHE_SIZE - 1);
+        CachedDate cached = PARSED[slot];
+
+        if ((cached != null) && (cached.style == style)
+                && cached.text.equals(text)) {
+            return new Date(cached.time * 1000);
+        }
+
+        long seconds = parse(text, style);
+
+        if (seconds == Long.MIN_VALUE) {
+            return null;
+        }
+
+        PARSED[slot] = new CachedDate(style, text, seconds);
+        return new Date(seconds * 1000);
+    }
+
+    /**
+     * Parses a date.
+     * 
+     * @param text
+     *            The text to parse.
+     * @param style
+     *            The format style.
+     * @return The time in seconds since January 1, 1970, 00:00:00 GMT or
+     *         {@link Long#MIN_VALUE} if the text isn't in the canonical form.
+     */
+    private static long parse(String text, int style) {
+        long result = Long.MIN_VALUE;
+        int i = 0;
+        int dayOfWeek = -1;
+        int day = -1;
+        int month = -1;
+        int year = -1;
+        int secondOfDay = -1;
+
+        switch (style) {
+        case RFC_1123:
+            // Sun, 06 Nov 1994 08:49:37 GMT
+            dayOfWeek = indexOf(text, i, DAYS);
+
+            if ((dayOfWeek != -1) && (text.length() == 29)
+                    && text.startsWith(", ", 3) && (text.charAt(7) == ' ')
+                    && (text.charAt(11) == ' ') && (text.charAt(16) == ' ')
+                    && text.startsWith(" GMT", 25)) {
+                day = parseNumber(text, 5, 2);
+                month = indexOf(text, 8, MONTHS);
+                year = parseNumber(text, 12, 4);
+                secondOfDay = parseTime(text, 17);
+            }
+
+            break;
+
+        case RFC_1036:
+            // Sunday, 06-Nov-94 08:49:37 GMT
+            dayOfWeek = indexOf(text, i, LONG_DAYS);
+
+            if (dayOfWeek != -1) {
+                i = LONG_DAYS[dayOfWeek].length();
+
+                if ((text.length() == i + 24) && text.startsWith(", ", i)
+                        && (text.charAt(i + 4) == '-')
+                        && (text.charAt(i + 8) == '-')
+                        && (text.charAt(i + 11) == ' ')
+                        && text.startsWith(" GMT", i + 20)) {
+                    day = parseNumber(text, i + 2, 2);
+                    month = indexOf(text, i + 5, MONTHS);
+                    year = parseYear(parseNumber(text, i + 9, 2));
+                    secondOfDay = parseTime(text, i + 12);
+                }
+            }
+
+            break;
+
+        default:
+            // Sun Nov  6 08:49:37 1994
+            dayOfWeek = indexOf(text, i, DAYS);
+
+            if ((dayOfWeek != -1) && (text.length() == 24)
+                    && (text.charAt(3) == ' ') && (text.charAt(7) == ' ')
+                    && (text.charAt(10) == ' ') && (text.charAt(19) == ' ')) {
+                month = indexOf(text, 4, MONTHS);
+                day = (text.charAt(8) == ' ') ? parseNumber(text, 9, 1)
+                        : parseNumber(text, 8, 2);
+                secondOfDay = parseTime(text, 11);
+                year = parseNumber(text, 20, 4);
+            }
+
+            break;
+        }
+
+        if ((month != -1) && (year >= 1600) && (secondOfDay != -1)
+                && (day >= 1) && (day <= getDaysInMonth(year, month + 1))) {
+            result = toEpochDays(year, month + 1, day) * 86400 + secondOfDay;
+        }
+
+        return result;
+    }
+
+    /**
+     * Parses a positive decimal number.
+     * 
+     * @param text
+     *            The text to parse.
+     * @param index
+     *            The index of the first digit.
+     * @param digits
+     *            The number of digits.
+     * @return The number parsed or -1 if a character isn't a digit.
+     */
+    private static int parseNumber(String text, int index, int digits) {
+        int result = 0;
+
+        for (int i = index; i < index + digits; i++) {
+            char c = text.charAt(i);
+
+            if ((c < '0') || (c > '9')) {
+                return -1;
+            }
+
+            result = result * 10 + (c - '0');
+        }
+
+        return result;
+    }
+
+    /**
+     * Parses the time of day, as hours, minutes and seconds separated by
+     * colons.
+     * 
+     * @param text
+     *            The text to parse.
+     * @param index
+     *            The index of the first character.
+     * @return The second of the day or -1 if the time is invalid.
+     */
+    private static int parseTime(String text, int index) {
+        int hours = parseNumber(text, index, 2);
+        int minutes = parseNumber(text, index + 3, 2);
+        int seconds = parseNumber(text, index + 6, 2);
+
+        if ((text.charAt(index + 2) != ':') || (text.charAt(index + 5) != ':')
+                || (hours < 0) || (hours > 23) || (minutes < 0)
+                || (minutes > 59) || (seconds < 0) || (seconds > 59)) {
+            return -1;
+        }
+
+        return hours * 3600 + minutes * 60 + seconds;
+    }
+
+    /**
+     * Expands a two digits year like {@link java.text.SimpleDateFormat}, in the
+     * century starting 80 years before the current year. The ambiguous first
+     * year of this century isn't handled.
+     * 
+     * @param twoDigitsYear
+     *            The two digits year.
+     * @return The expanded year or -1.
+     */
+    private static int parseYear(int twoDigitsYear) {
+        if (twoDigitsYear < 0) {
+            return -1;
+        }
+
+        long now = System.currentTimeMillis() / 86400000L;
+        int startYear = (int) toCivil(now)[0] - 80;
+
+        if (twoDigitsYear == (startYear % 100)) {
+            return -1;
+        }
+
+        int result = (startYear / 100) * 100 + twoDigitsYear;
+        return (result < startYear) ? result + 100 : result;
+    }
+
+    /**
+     * Returns the civil date of a number of days since January 1, 1970, in the
+     * proleptic Gregorian calendar.
+     * 
+     * @param epochDays
+     *            The number of days since January 1, 1970.
+     * @return The year, month (from 1 to 12) and day of month.
+     */
+    private static long[] toCivil(long epochDays) {
+        long z = epochDays + 719468;
+        long era = ((z >= 0) ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524
+                - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra
+                - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        long month = (mp < 10) ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + ((month <= 2) ? 1 : 0);
+        return new long[] { year, month, day };
+    }
+
+    /**
+     * Returns the number of days since January 1, 1970 of a date of the
+     * proleptic Gregorian calendar.
+     * 
+     * @param year
+     *            The year.
+     * @param month
+     *            The month, from 1 to 12.
+     * @param day
+     *            The day of month, from 1 to 31.
+     * @return The number of days since January 1, 1970.
+     */
+    private static long toEpochDays(long year, int month, int day) {
+        long y = (month <= 2) ? year - 1 : year;
+        long era = ((y >= 0) ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + ((month > 2) ? -3 : 9)) + 2) / 5
+                + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+                + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Private constructor to ensure that the class acts as a true utility
+     * class i.e. it isn't instantiable and extensible.
+     */
+    private HttpDateFormat() {
+    }
+
+}
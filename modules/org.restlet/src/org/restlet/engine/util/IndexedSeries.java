@@ -0,0 +1,395 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+
+import org.restlet.util.NamedValue;
+import org.restlet.util.Series;
+
+/**
+ * Series keeping a lazily built hash index of its entries by case-insensitive
+ * name. Lookups by name such as {@link #getFirst(String, boolean)} or
+ * {@link #getValues(String, String, boolean)} don't need to scan and compare
+ * all the entries anymore, which is useful for HTTP headers that are looked up
+ * many times per call.<br>
+ * <br>
+ * The index is rebuilt after any structural change of the series, except
+ * when entries are only appended in which case it is incrementally updated.
+ * Note that changing the name of an entry already added isn't detected.<br>
+ * <br>
+ * Like the {@link Vector} used by default by {@link Series}, the entries are
+ * synchronized and the index is updated while holding the same lock, so
+ * concurrent lookups and modifications remain safe.
+ * 
+ * @author Jerome Louvel
+ * @param <T>
+ *            The contained type
+ */
+public class IndexedSeries<T extends NamedValue<String>> extends Series<T> {
+
+    /**
+     * Synchronized list of entries counting the modifications that can't be
+     * detected with the modification count of {@link Vector}.
+     * 
+     * @param <E>
+     *            The contained type
+     */
+    private static final class EntryList<E> extends Vector<E> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The number of entries appended to the end of the list. */
+        private int appendCount;
+
+        /** The number of entries replaced. */
+        private int setCount;
+
+        /**
+         * Constructor.
+         */
+        private EntryList() {
+            super();
+        }
+
+        @Override
+        public synchronized boolean add(E element) {
+            boolean result = super.add(element);
+            this.appendCount++;
+            return result;
+        }
+
+        /**
+         * Returns the number of structural modifications.
+         * 
+         * @return The number of structural modifications.
+         */
+        private synchronized int getModCount() {
+            return this.modCount;
+        }
+
+        @Override
+        public synchronized E set(int index, E element) {
+            E result = super.set(index, element);
+            this.setCount++;
+            return result;
+        }
+    }
+
+    /**
+     * Creates an array of entry lists.
+     * 
+     * @param <E>
+     *            The contained type
+     * @param capacity
+     *            The array length.
+     * @return The new array of entry lists.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> List<E>[] createBuckets(int capacity) {
+        return (List<E>[]) new List<?>[capacity];
+    }
+
+    /**
+     * Returns the case-insensitive hash code of a name, consistent with
+     * {@link String#equalsIgnoreCase(String)}.
+     * 
+     * @param name
+     *            The name.
+     * @return The case-insensitive hash code.
+     */
+    private static int hash(String name) {
+        int result = 0;
+        char c;
+
+        for (int i = 0; i < name.length(); i++) {
+            c = name.charAt(i);
+
+            if ((c >= 'A') && (c <= 'Z')) {
+                c += 32;
+            } else if (c >= 128) {
+                c = Character.toLowerCase(Character.toUpperCase(c));
+            }
+
+            result = 31 * result + c;
+        }
+
+        return result ^ (result >>> 16);
+    }
+
+    /** The entries grouped by name for each slot of the index. */
+    private List<T>[] buckets;
+
+    /** The entry class. */
+    private final Class<T> entryClass;
+
+    /** The list of entries. */
+    private final EntryList<T> entries;
+
+    /** The hash codes of the names for each slot of the index. */
+    private int[] hashes;
+
+    /** The number of appended entries when the index was last updated. */
+    private int indexedAppendCount;
+
+    /** The modification count when the index was last updated. */
+    private int indexedModCount;
+
+    /** The number of replaced entries when the index was last updated. */
+    private int indexedSetCount;
+
+    /** The number of entries when the index was last updated. */
+    private int indexedSize;
+
+    /** The names for each slot of the index. */
+    private String[] names;
+
+    /** The number of entries with a null name when the index was updated. */
+    private int nullNames;
+
+    /**
+     * Constructor.
+     * 
+     * @param entryClass
+     *            The entry class.
+     */
+    public IndexedSeries(Class<T> entryClass) {
+        this(entryClass, new EntryList<T>());
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param entryClass
+     *            The entry class.
+     * @param entries
+     *            The list of entries.
+     */
+    private IndexedSeries(Class<T> entryClass, EntryList<T> entries) {
+        super(entryClass, entries);
+        this.entryClass = entryClass;
+        this.entries = entries;
+        this.buckets = null;
+    }
+
+    /**
+     * Returns the entries whose name equals the given one, ignoring the case.
+     * Must be called while holding the lock of the entries.
+     * 
+     * @param name
+     *            The name to look up.
+     * @return The matching entries or null.
+     */
+    private List<T> getBucket(String name) {
+        updateIndex();
+        int hash = hash(name);
+        int mask = this.names.length - 1;
+
+        for (int i = hash & mask; this.names[i] != null; i = (i + 1) & mask) {
+            if ((this.hashes[i] == hash)
+                    && this.names[i].equalsIgnoreCase(name)) {
+                return this.buckets[i];
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public T getFirst(String name, boolean ignoreCase) {
+        if (name == null) {
+            return super.getFirst(name, ignoreCase);
+        }
+
+        synchronized (this.entries) {
+            List<T> bucket = getBucket(name);
+
+            if (bucket != null) {
+                for (T entry : bucket) {
+                    if (ignoreCase || name.equals(entry.getName())) {
+                        return entry;
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public String getValues(String name, String separator, boolean ignoreCase) {
+        if (name == null) {
+            return super.getValues(name, separator, ignoreCase);
+        }
+
+        String result = null;
+        StringBuilder sb = null;
+
+        synchronized (this.entries) {
+            List<T> bucket = getBucket(name);
+
+            if (this.nullNames > 0) {
+                // Keep the behavior of the superclass with unnamed entries
+                return super.getValues(name, separator, ignoreCase);
+            }
+
+            if (bucket != null) {
+                for (T entry : bucket) {
+                    if (ignoreCase || name.equals(entry.getName())) {
+                        if (sb == null) {
+                            if (result == null) {
+                                result = entry.getValue();
+                            } else {
+                                sb = new StringBuilder();
+                                sb.append(result).append(separator)
+                                        .append(entry.getValue());
+                            }
+                        } else {
+                            sb.append(separator).append(entry.getValue());
+                        }
+                    }
+                }
+            }
+        }
+
+        if (sb != null) {
+            result = sb.toString();
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds an entry to the index.
+     * 
+     * @param entry
+     *            The entry to index.
+     */
+    private void index(T entry) {
+        String name = entry.getName();
+
+        if (name == null) {
+            this.nullNames++;
+        } else {
+            int hash = hash(name);
+            int mask = this.names.length - 1;
+            int i = hash & mask;
+
+            while ((this.names[i] != null)
+                    && ((this.hashes[i] != hash) || !this.names[i]
+                            .equalsIgnoreCase(name))) {
+                i = (i + 1) & mask;
+            }
+
+            if (this.names[i] == null) {
+                this.names[i] = name;
+                this.hashes[i] = hash;
+                this.buckets[i] = new ArrayList<T>(2);
+            }
+
+            this.buckets[i].add(entry);
+        }
+    }
+
+    @Override
+    public Series<T> subList(String name, boolean ignoreCase) {
+        if (name == null) {
+            return super.subList(name, ignoreCase);
+        }
+
+        Series<T> result = new Series<T>(this.entryClass);
+
+        synchronized (this.entries) {
+            List<T> bucket = getBucket(name);
+
+            if (bucket != null) {
+                for (T entry : bucket) {
+                    if (ignoreCase || name.equals(entry.getName())) {
+                        result.add(entry);
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Updates the index if the entries changed since the last update. Must be
+     * called while holding the lock of the entries.
+     */
+    private void updateIndex() {
+        int size = this.entries.size();
+        int appended = size - this.indexedSize;
+        int modified = this.entries.getModCount() - this.indexedModCount;
+        int appendCount = this.entries.appendCount - this.indexedAppendCount;
+        boolean replaced = (this.entries.setCount != this.indexedSetCount);
+
+        if ((this.buckets == null) || (modified != 0) || replaced) {
+            if ((this.buckets != null) && (appended > 0)
+                    && (modified == appended) && (appendCount == appended)
+                    && !replaced && (2 * size <= this.names.length)) {
+                // Entries were only appended, index them
+                for (int i = this.indexedSize; i < size; i++) {
+                    index(this.entries.get(i));
+                }
+            } else {
+                // Rebuild the whole index
+                int capacity = 8;
+
+                while (capacity < 4 * size) {
+                    capacity <<= 1;
+                }
+
+                this.buckets = createBuckets(capacity);
+                this.hashes = new int[capacity];
+                this.names = new String[capacity];
+                this.nullNames = 0;
+
+                for (T entry : this.entries) {
+                    index(entry);
+                }
+            }
+
+            this.indexedAppendCount = this.entries.appendCount;
+            this.indexedModCount = this.entries.getModCount();
+            this.indexedSetCount = this.entries.setCount;
+            this.indexedSize = size;
+        }
+    }
+
+}
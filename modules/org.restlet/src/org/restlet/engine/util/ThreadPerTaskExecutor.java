@@ -0,0 +1,235 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.util;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor running each task on its own thread, created on demand and reused
+ * while idle, instead of a bounded pool of threads. The number of tasks running
+ * concurrently is limited by a number of permits. Tasks submitted while no
+ * permit is available wait in a pending queue, without blocking the submitting
+ * thread, until a running task completes and releases its permit.
+ * 
+ * @author Jerome Louvel
+ */
+public class ThreadPerTaskExecutor extends ThreadPoolExecutor {
+
+    /** The maximum number of tasks running concurrently. */
+    private final int maxPermits;
+
+    /** The tasks waiting for a permit. */
+    private final Queue<Runnable> pendingTasks;
+
+    /** The permits of running tasks. */
+    private final Semaphore permits;
+
+    /** Indicates if a shutdown was requested. */
+    private volatile boolean shutdownRequested;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxPermits
+     *            The maximum number of tasks running concurrently.
+     * @param keepAliveTimeMs
+     *            The time for an idle thread to wait for a new task before
+     *            being collected.
+     * @param threadFactory
+     *            The factory of threads.
+     */
+    public ThreadPerTaskExecutor(int maxPermits, long keepAliveTimeMs,
+            ThreadFactory threadFactory) {
+        super(0, Integer.MAX_VALUE, keepAliveTimeMs, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<Runnable>(), threadFactory);
+        this.maxPermits = maxPermits;
+        this.pendingTasks = new ConcurrentLinkedQueue<Runnable>();
+        this.permits = new Semaphore(maxPermits);
+        this.shutdownRequested = false;
+    }
+
+    /**
+     * Runs pending tasks as long as permits are available.
+     */
+    private void dispatch() {
+        boolean dispatching = true;
+
+        while (dispatching && !this.pendingTasks.isEmpty()
+                && this.permits.tryAcquire()) {
+            final Runnable task = this.pendingTasks.poll();
+
+            if (task == null) {
+                this.permits.release();
+            } else {
+                Runnable permitTask = new Runnable() {
+                    public void run() {
+                        try {
+                            task.run();
+                        } finally {
+                            permits.release();
+                            dispatch();
+                        }
+                    }
+
+                    @Override
+                    public String toString() {
+                        return task.toString();
+                    }
+                };
+
+                try {
+                    super.execute(permitTask);
+                } catch (RejectedExecutionException ree) {
+                    // The executor has been shut down, run the remaining
+                    // task in the current thread
+                    permitTask.run();
+                    dispatching = false;
+                }
+            }
+        }
+
+        if (this.shutdownRequested && this.pendingTasks.isEmpty()
+                && (getAvailablePermits() == getMaxPermits())
+                && !super.isShutdown()) {
+            // No more task pending nor being dispatched
+            super.shutdown();
+        }
+    }
+
+    /**
+     * Executes the given task when a permit is available.
+     * 
+     * @param task
+     *            The task to execute.
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+
+        if (this.shutdownRequested) {
+            getRejectedExecutionHandler().rejectedExecution(task, this);
+        } else {
+            this.pendingTasks.offer(task);
+            dispatch();
+        }
+    }
+
+    /**
+     * Returns the number of permits available.
+     * 
+     * @return The number of permits available.
+     */
+    public int getAvailablePermits() {
+        return this.permits.availablePermits();
+    }
+
+    /**
+     * Returns the maximum number of tasks running concurrently.
+     * 
+     * @return The maximum number of tasks running concurrently.
+     */
+    public int getMaxPermits() {
+        return maxPermits;
+    }
+
+    /**
+     * Returns the number of tasks waiting for a permit.
+     * 
+     * @return The number of tasks waiting for a permit.
+     */
+    public int getPendingCount() {
+        return this.pendingTasks.size();
+    }
+
+    /**
+     * Indicates if a shutdown was requested. Pending tasks are still run.
+     * 
+     * @return True if a shutdown was requested.
+     */
+    @Override
+    public boolean isShutdown() {
+        return this.shutdownRequested || super.isShutdown();
+    }
+
+    /**
+     * Indicates if all the permits are used by running tasks.
+     * 
+     * @return True if all the permits are used by running tasks.
+     */
+    public boolean isSaturated() {
+        return getAvailablePermits() <= 0;
+    }
+
+    /**
+     * Initiates an orderly shutdown. Pending and running tasks are completed
+     * but new tasks are rejected.
+     */
+    @Override
+    public void shutdown() {
+        this.shutdownRequested = true;
+        dispatch();
+    }
+
+    /**
+     * Attempts to stop all running tasks and returns the tasks that were
+     * waiting for a permit or a thread.
+     * 
+     * @return The list of tasks that never started.
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        this.shutdownRequested = true;
+        List<Runnable> result = super.shutdownNow();
+        Runnable task = this.pendingTasks.poll();
+
+        while (task != null) {
+            result.add(task);
+            task = this.pendingTasks.poll();
+        }
+
+        return result;
+    }
+
+}
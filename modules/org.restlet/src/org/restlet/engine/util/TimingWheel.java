@@ -0,0 +1,257 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hashed timing wheel tracking deadlines of items. Scheduling, rescheduling
+ * and canceling an item are constant time operations, and expiring items only
+ * visits the slots of the elapsed ticks, whatever the number of items tracked.
+ * Deadlines are detected with a precision of one tick. Items whose deadline is
+ * beyond the wheel span stay in their slot until a later rotation.<br>
+ * <br>
+ * Note that this class isn't thread safe and is meant to be confined to a
+ * single thread such as a connection controller.
+ * 
+ * @author Jerome Louvel
+ * @param <T>
+ *            The type of tracked items.
+ */
+public class TimingWheel<T> {
+
+    /**
+     * Entry of the wheel associating an item to its deadline.
+     * 
+     * @param <T>
+     *            The type of tracked item.
+     */
+    private static class Entry<T> {
+
+        /** The deadline in milliseconds. */
+        private long deadline;
+
+        /** The tracked item. */
+        private final T item;
+
+        /** The index of the slot containing the entry. */
+        private int slot;
+
+        /**
+         * Constructor.
+         * 
+         * @param item
+         *            The tracked item.
+         */
+        private Entry(T item) {
+            this.item = item;
+        }
+    }
+
+    /** The entries indexed by item. */
+    private final Map<T, Entry<T>> entries;
+
+    /** The last tick fully processed. */
+    private long lastTick;
+
+    /** The mask to apply to a tick to obtain a slot index. */
+    private final int mask;
+
+    /** The slots of the wheel. */
+    private final List<Set<Entry<T>>> slots;
+
+    /** The duration of a tick in milliseconds. */
+    private final long tickDuration;
+
+    /**
+     * Constructor.
+     * 
+     * @param tickDuration
+     *            The duration of a tick in milliseconds.
+     * @param ticksPerWheel
+     *            The number of ticks per wheel rotation, rounded up to the
+     *            next power of two.
+     */
+    public TimingWheel(long tickDuration, int ticksPerWheel) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException(
+                    "The tick duration must be strictly positive");
+        }
+
+        int size = 1;
+
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+
+        this.entries = new HashMap<T, Entry<T>>();
+        this.mask = size - 1;
+        this.slots = new ArrayList<Set<Entry<T>>>(size);
+
+        for (int i = 0; i < size; i++) {
+            this.slots.add(new HashSet<Entry<T>>());
+        }
+
+        this.tickDuration = tickDuration;
+        this.lastTick = (System.currentTimeMillis() / tickDuration) - 1;
+    }
+
+    /**
+     * Stops tracking the given item.
+     * 
+     * @param item
+     *            The item to cancel.
+     * @return True if the item was tracked.
+     */
+    public boolean cancel(T item) {
+        Entry<T> entry = this.entries.remove(item);
+
+        if (entry != null) {
+            this.slots.get(entry.slot).remove(entry);
+        }
+
+        return entry != null;
+    }
+
+    /**
+     * Stops tracking all items.
+     */
+    public void clear() {
+        this.entries.clear();
+
+        for (Set<Entry<T>> slot : this.slots) {
+            slot.clear();
+        }
+    }
+
+    /**
+     * Removes the items whose deadline has been reached and adds them to the
+     * given collection. Only the slots of the ticks fully elapsed since the
+     * previous call are visited.
+     * 
+     * @param now
+     *            The current time in milliseconds.
+     * @param expired
+     *            The collection receiving the expired items.
+     * @return The number of expired items.
+     */
+    public int expire(long now, Collection<? super T> expired) {
+        int result = 0;
+        long currentTick = (now / this.tickDuration) - 1;
+
+        if (currentTick > this.lastTick) {
+            long firstTick = Math.max(this.lastTick + 1, currentTick
+                    - this.mask);
+
+            for (long tick = firstTick; tick <= currentTick; tick++) {
+                Set<Entry<T>> slot = this.slots.get((int) (tick & this.mask));
+
+                for (Iterator<Entry<T>> iter = slot.iterator(); iter.hasNext();) {
+                    Entry<T> entry = iter.next();
+
+                    if (entry.deadline <= now) {
+                        iter.remove();
+                        this.entries.remove(entry.item);
+                        expired.add(entry.item);
+                        result++;
+                    }
+                }
+            }
+
+            this.lastTick = currentTick;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the duration of a tick in milliseconds.
+     * 
+     * @return The duration of a tick in milliseconds.
+     */
+    public long getTickDuration() {
+        return tickDuration;
+    }
+
+    /**
+     * Indicates if no item is tracked.
+     * 
+     * @return True if no item is tracked.
+     */
+    public boolean isEmpty() {
+        return this.entries.isEmpty();
+    }
+
+    /**
+     * Tracks the deadline of the given item, replacing any previous one.
+     * Deadlines already reached expire on the next tick.
+     * 
+     * @param item
+     *            The item to track.
+     * @param deadline
+     *            The deadline in milliseconds.
+     */
+    public void schedule(T item, long deadline) {
+        Entry<T> entry = this.entries.get(item);
+
+        if (entry == null) {
+            entry = new Entry<T>(item);
+            this.entries.put(item, entry);
+        } else {
+            this.slots.get(entry.slot).remove(entry);
+        }
+
+        long tick = Math.max(deadline / this.tickDuration, this.lastTick + 1);
+        entry.deadline = deadline;
+        entry.slot = (int) (tick & this.mask);
+        this.slots.get(entry.slot).add(entry);
+    }
+
+    /**
+     * Returns the number of items tracked.
+     * 
+     * @return The number of items tracked.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+}
@@ -0,0 +1,396 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.representation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.WritableByteChannel;
+import java.util.Date;
+
+import org.restlet.data.Disposition;
+import org.restlet.data.MediaType;
+import org.restlet.data.Range;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.io.MappedFileCache;
+import org.restlet.engine.io.NioUtils;
+
+// [excludes gwt]
+/**
+ * Representation based on a memory-mapped, read-only static file. It is
+ * intended for large files that are repeatedly served, as their content is
+ * read from the mapping shared by all the representations of the same file
+ * instead of being copied in heap buffers for each request. The mappings are
+ * managed by a {@link MappedFileCache} that caps the number of mapped
+ * bytes.<br>
+ * <br>
+ * The mapping is acquired on first use and released with the representation.
+ * Note that files larger than 2 GB can't be mapped and that the file must not
+ * be truncated while mapped, use {@link FileRepresentation} otherwise.
+ * 
+ * @author Jerome Louvel
+ */
+public class MappedFileRepresentation extends Representation {
+
+    /**
+     * Readable channel reading the content of a byte buffer.
+     */
+    private static final class BufferChannel implements ReadableByteChannel {
+
+        /** The source buffer, or null if the channel is closed. */
+        private volatile ByteBuffer buffer;
+
+        /**
+         * Constructor.
+         * 
+         * @param buffer
+         *            The source buffer.
+         */
+        private BufferChannel(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public void close() {
+            this.buffer = null;
+        }
+
+        public boolean isOpen() {
+            return this.buffer != null;
+        }
+
+        public int read(ByteBuffer dst) throws IOException {
+            ByteBuffer source = this.buffer;
+
+            if (source == null) {
+                throw new IOException("The channel is closed");
+            } else if (!source.hasRemaining()) {
+                return -1;
+            }
+
+            int result = Math.min(source.remaining(), dst.remaining());
+            ByteBuffer slice = source.slice();
+            slice.limit(result);
+            dst.put(slice);
+            source.position(source.position() + result);
+            return result;
+        }
+    }
+
+    /**
+     * Input stream reading the content of a byte buffer.
+     */
+    private static final class BufferInputStream extends InputStream {
+
+        /** The source buffer. */
+        private final ByteBuffer buffer;
+
+        /**
+         * Constructor.
+         * 
+         * @param buffer
+         *            The source buffer.
+         */
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? (this.buffer.get() & 0xff)
+                    : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            } else if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int result = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, result);
+            return result;
+        }
+
+        @Override
+        public long skip(long n) {
+            int result = (int) Math.max(0,
+                    Math.min(n, this.buffer.remaining()));
+            this.buffer.position(this.buffer.position() + result);
+            return result;
+        }
+    }
+
+    /** The cache providing the file mapping. */
+    private final MappedFileCache cache;
+
+    /** The file handle. */
+    private volatile File file;
+
+    /** The acquired file mapping, or null. */
+    private volatile MappedFileCache.Mapping mapping;
+
+    /**
+     * Constructor that does not set an expiration date for {@code file}.
+     * 
+     * @param file
+     *            The represented file.
+     * @param mediaType
+     *            The representation's media type.
+     * @see #MappedFileRepresentation(File, MediaType, int)
+     */
+    public MappedFileRepresentation(File file, MediaType mediaType) {
+        this(file, mediaType, -1);
+    }
+
+    /**
+     * Constructor using the shared mapping cache. If a positive "timeToLive"
+     * parameter is given, then the expiration date is set accordingly. If
+     * "timeToLive" is equal to zero, then the expiration date is set to the
+     * current date, meaning that it will immediately expire on the client. If
+     * -1 is given, then no expiration date is set.
+     * 
+     * @param file
+     *            The represented file.
+     * @param mediaType
+     *            The representation's media type.
+     * @param timeToLive
+     *            The time to live before it expires (in seconds).
+     * @see MappedFileCache#getInstance()
+     */
+    public MappedFileRepresentation(File file, MediaType mediaType,
+            int timeToLive) {
+        this(file, mediaType, timeToLive, MappedFileCache.getInstance());
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *            The represented file.
+     * @param mediaType
+     *            The representation's media type.
+     * @param timeToLive
+     *            The time to live before it expires (in seconds).
+     * @param cache
+     *            The cache providing the file mapping.
+     */
+    public MappedFileRepresentation(File file, MediaType mediaType,
+            int timeToLive, MappedFileCache cache) {
+        super(mediaType);
+        this.cache = cache;
+        this.file = file;
+        this.mapping = null;
+        setModificationDate(new Date(file.lastModified()));
+
+        if (timeToLive == 0) {
+            setExpirationDate(null);
+        } else if (timeToLive > 0) {
+            setExpirationDate(new Date(System.currentTimeMillis()
+                    + (1000L * timeToLive)));
+        }
+
+        Disposition disposition = new Disposition();
+        disposition.setFilename(file.getName());
+        setDisposition(disposition);
+    }
+
+    /**
+     * Returns a new read-only buffer sharing the mapped content of the whole
+     * file.
+     * 
+     * @return A new read-only buffer sharing the mapped content.
+     * @throws IOException
+     */
+    public ByteBuffer getBuffer() throws IOException {
+        return getMapping().getBuffer();
+    }
+
+    /**
+     * Returns a new read-only buffer sharing the mapped content of a range of
+     * the file, without copying it.
+     * 
+     * @param range
+     *            The range to slice.
+     * @return A new read-only buffer sharing the mapped content of the range.
+     * @throws IOException
+     */
+    public ByteBuffer getBuffer(Range range) throws IOException {
+        ByteBuffer result = getBuffer();
+        long size = result.capacity();
+        long index = range.getIndex();
+        long length = range.getSize();
+
+        if (index == Range.INDEX_LAST) {
+            index = (length == Range.SIZE_MAX) ? 0 : Math.max(0, size
+                    - length);
+        }
+
+        if ((index < 0) || (index > size)) {
+            throw new IOException("The range is outside of the file: "
+                    + range.getIndex());
+        }
+
+        long end = size;
+
+        if ((length != Range.SIZE_MAX) && (index + length < size)) {
+            end = index + length;
+        }
+
+        result.position((int) index);
+        result.limit((int) end);
+        return result.slice();
+    }
+
+    @Override
+    public ReadableByteChannel getChannel() throws IOException {
+        return new BufferChannel(getBuffer());
+    }
+
+    /**
+     * Returns the file handle.
+     * 
+     * @return the file handle.
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns the file mapping, acquiring it on first use.
+     * 
+     * @return The file mapping.
+     * @throws IOException
+     */
+    private synchronized MappedFileCache.Mapping getMapping()
+            throws IOException {
+        if (this.mapping == null) {
+            if (this.file == null) {
+                throw new IOException("The representation was released");
+            }
+
+            this.mapping = this.cache.acquire(this.file);
+        }
+
+        return this.mapping;
+    }
+
+    @Override
+    public Reader getReader() throws IOException {
+        return BioUtils.getReader(getStream(), getCharacterSet());
+    }
+
+    @Override
+    public long getSize() {
+        if (super.getSize() != UNKNOWN_SIZE) {
+            return super.getSize();
+        }
+
+        return (this.file == null) ? UNKNOWN_SIZE : this.file.length();
+    }
+
+    @Override
+    public InputStream getStream() throws IOException {
+        return new BufferInputStream(getBuffer());
+    }
+
+    @Override
+    public String getText() throws IOException {
+        return BioUtils.getText(this);
+    }
+
+    /**
+     * Releases the file mapping.
+     */
+    @Override
+    public void release() {
+        synchronized (this) {
+            if (this.mapping != null) {
+                this.mapping.release();
+                this.mapping = null;
+            }
+
+            this.file = null;
+        }
+
+        super.release();
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        BioUtils.copy(getStream(), outputStream);
+    }
+
+    /**
+     * Writes the representation to a byte channel. The mapped content is
+     * directly written.
+     * 
+     * @param writableChannel
+     *            A writable byte channel.
+     */
+    @Override
+    public void write(WritableByteChannel writableChannel) throws IOException {
+        ByteBuffer buffer = getBuffer();
+        SelectableChannel selectableChannel = null;
+
+        if (writableChannel instanceof SelectableChannel) {
+            selectableChannel = (SelectableChannel) writableChannel;
+        }
+
+        while (buffer.hasRemaining()) {
+            NioUtils.waitForState(selectableChannel, SelectionKey.OP_WRITE);
+            writableChannel.write(buffer);
+        }
+    }
+
+    @Override
+    public void write(Writer writer) throws IOException {
+        BioUtils.copy(getReader(), writer);
+    }
+
+}
@@ -561,6 +561,56 @@ public class ClientResource extends Resource {
         return new Request(getRequest());
     }
 
+    // [ifndef gwt] method
+    /**
+     * Creates a new request by cloning the one wrapped by this class, setting
+     * the method and the object entity. Automatically serializes the object
+     * using the {@link org.restlet.service.ConverterService} and adjusts the
+     * client preferences to the expected class of the response entity, unless
+     * they were set.
+     * 
+     * @param method
+     *            The request method to use.
+     * @param entity
+     *            The object entity to send.
+     * @param resultClass
+     *            The expected class for the response entity object.
+     * @return The new request.
+     * @throws ResourceException
+     */
+    protected Request createRequest(Method method, Object entity,
+            Class<?> resultClass) throws ResourceException {
+        org.restlet.service.ConverterService cs = getConverterService();
+        ClientInfo clientInfo = getClientInfo();
+
+        if (clientInfo.getAcceptedMediaTypes().isEmpty()) {
+            cs.updatePreferences(clientInfo.getAcceptedMediaTypes(),
+                    resultClass);
+        }
+
+        // Prepare the request by cloning the prototype request
+        Request result = createRequest();
+        result.setMethod(method);
+        result.setClientInfo(clientInfo);
+
+        if (entity != null) {
+            List<? extends Variant> entityVariants;
+            try {
+                entityVariants = cs.getVariants(entity.getClass(), null);
+                result.setEntity(toRepresentation(
+                        entity,
+                        getConnegService().getPreferredVariant(entityVariants,
+                                result, getMetadataService())));
+            } catch (IOException e) {
+                throw new ResourceException(e);
+            }
+        } else {
+            result.setEntity(null);
+        }
+
+        return result;
+    }
+
     /**
      * Creates a new response for the given request.
      * 
@@ -619,6 +669,26 @@ public class ClientResource extends Resource {
         return handle(Method.DELETE, mediaType);
     }
 
+    // [ifndef gwt] method
+    /**
+     * Asynchronously deletes the target resource and all its representations.
+     * The returned future fails with a resource exception if a success status
+     * is not returned.
+     * 
+     * @param <T>
+     *            The expected type for the response entity.
+     * @param resultClass
+     *            The expected class for the response entity object.
+     * @return The future response entity object.
+     * @see #handleAsync(Request, Class)
+     * @see <a
+     *      href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec9.html#sec9.7">HTTP
+     *      DELETE method</a>
+     */
+    public <T> ResultFuture<T> deleteAsync(Class<T> resultClass) {
+        return handleAsync(Method.DELETE, null, resultClass);
+    }
+
     /**
      * By default, it throws a new resource exception. This can be overridden to
      * provide a different behavior.
@@ -717,6 +787,27 @@ public class ClientResource extends Resource {
         return handle(Method.GET, mediaType);
     }
 
+    // [ifndef gwt] method
+    /**
+     * Asynchronously represents the resource in the given object class. Note
+     * that the client preferences will be automatically adjusted, but only for
+     * this request. The returned future fails with a resource exception if a
+     * success status is not returned.
+     * 
+     * @param <T>
+     *            The expected type for the response entity.
+     * @param resultClass
+     *            The expected class for the response entity object.
+     * @return The future response entity object.
+     * @see #handleAsync(Request, Class)
+     * @see <a
+     *      href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec9.html#sec9.3">HTTP
+     *      GET method</a>
+     */
+    public <T> ResultFuture<T> getAsync(Class<T> resultClass) {
+        return handleAsync(Method.GET, null, resultClass);
+    }
+
     /**
      * Returns the attribute value by looking up the given name in the response
      * attributes maps. The toString() method is then invoked on the attribute
@@ -1019,33 +1110,7 @@ public class ClientResource extends Resource {
      */
     protected <T> T handle(Method method, Object entity, Class<T> resultClass)
             throws ResourceException {
-        org.restlet.service.ConverterService cs = getConverterService();
-        ClientInfo clientInfo = getClientInfo();
-
-        if (clientInfo.getAcceptedMediaTypes().isEmpty()) {
-            cs.updatePreferences(clientInfo.getAcceptedMediaTypes(),
-                    resultClass);
-        }
-
-        // Prepare the request by cloning the prototype request
-        Request request = createRequest();
-        request.setMethod(method);
-        request.setClientInfo(clientInfo);
-
-        if (entity != null) {
-            List<? extends Variant> entityVariants;
-            try {
-                entityVariants = cs.getVariants(entity.getClass(), null);
-                request.setEntity(toRepresentation(
-                        entity,
-                        getConnegService().getPreferredVariant(entityVariants,
-                                request, getMetadataService())));
-            } catch (IOException e) {
-                throw new ResourceException(e);
-            }
-        } else {
-            request.setEntity(null);
-        }
+        Request request = createRequest(method, entity, resultClass);
 
         // Actually handle the call
         Response response = handleOutbound(request);
@@ -1201,6 +1266,94 @@ public class ClientResource extends Resource {
         }
     }
 
+    // [ifndef gwt] method
+    /**
+     * Asynchronously handles an object entity. Automatically serializes the
+     * object using the {@link org.restlet.service.ConverterService}.
+     * 
+     * @param <T>
+     *            The expected type for the response entity.
+     * @param method
+     *            The request method to use.
+     * @param entity
+     *            The object entity to send.
+     * @param resultClass
+     *            The class of the response entity.
+     * @return The future response object entity.
+     * @see #handleAsync(Request, Class)
+     */
+    protected <T> ResultFuture<T> handleAsync(Method method, Object entity,
+            Class<T> resultClass) {
+        ResultFuture<T> result = null;
+
+        try {
+            result = handleAsync(createRequest(method, entity, resultClass),
+                    resultClass);
+        } catch (ResourceException e) {
+            result = new ResultFuture<T>();
+            result.onFailure(e);
+        }
+
+        return result;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Asynchronously handles the call by invoking the next handler, without
+     * waiting for the response. The returned future is completed when the
+     * response is received, by the connector thread calling back the
+     * {@link Request#getOnResponse()} callback. It fails with a resource
+     * exception if an error status is received, otherwise the response entity
+     * is converted to the expected class using the
+     * {@link org.restlet.service.ConverterService}.<br>
+     * <br>
+     * Note that the next handler must support asynchronous calls, like the
+     * internal HTTP client connector does. Also, as the conversion is done by
+     * the thread completing the future, it shouldn't be blocked by the
+     * listeners registered on the future.
+     * 
+     * @param <T>
+     *            The expected type for the response entity.
+     * @param request
+     *            The request to send.
+     * @param resultClass
+     *            The expected class for the response entity object.
+     * @return The future response entity object.
+     */
+    public <T> ResultFuture<T> handleAsync(Request request,
+            final Class<T> resultClass) {
+        final ResultFuture<T> result = new ResultFuture<T>();
+        request.setOnResponse(new Uniform() {
+            public void handle(Request request, Response response) {
+                if (response.getStatus().isError()) {
+                    result.onFailure(new ResourceException(response
+                            .getStatus()));
+                } else {
+                    try {
+                        result.onSuccess(toObject(response.getEntity(),
+                                resultClass));
+                    } catch (Throwable t) {
+                        result.onFailure(t);
+                    }
+                }
+            }
+        });
+
+        try {
+            if (getNext() == null) {
+                result.onFailure(new ResourceException(
+                        Status.CONNECTOR_ERROR_INTERNAL,
+                        "No next Restlet has been provided"));
+            } else {
+                handleOutbound(request);
+            }
+        } catch (Throwable t) {
+            result.onFailure(t);
+        }
+
+        return result;
+    }
+
     /**
      * Handles the inbound call. Note that only synchronous calls are processed.
      * 
@@ -1556,6 +1709,29 @@ public class ClientResource extends Resource {
         return handle(Method.POST, entity);
     }
 
+    // [ifndef gwt] method
+    /**
+     * Asynchronously posts an object entity. Automatically serializes the
+     * object using the {@link org.restlet.service.ConverterService}. The
+     * returned future fails with a resource exception if a success status is
+     * not returned.
+     * 
+     * @param <T>
+     *            The expected type for the response entity.
+     * @param entity
+     *            The object entity to post.
+     * @param resultClass
+     *            The class of the response entity.
+     * @return The future response object entity.
+     * @see #handleAsync(Request, Class)
+     * @see <a
+     *      href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec9.html#sec9.5">HTTP
+     *      POST method</a>
+     */
+    public <T> ResultFuture<T> postAsync(Object entity, Class<T> resultClass) {
+        return handleAsync(Method.POST, entity, resultClass);
+    }
+
     /**
      * Puts an object entity. Automatically serializes the object using the
      * {@link org.restlet.service.ConverterService}.
@@ -1636,6 +1812,29 @@ public class ClientResource extends Resource {
         return handle(Method.PUT, entity);
     }
 
+    // [ifndef gwt] method
+    /**
+     * Asynchronously puts an object entity. Automatically serializes the object
+     * using the {@link org.restlet.service.ConverterService}. The returned
+     * future fails with a resource exception if a success status is not
+     * returned.
+     * 
+     * @param <T>
+     *            The expected type for the response entity.
+     * @param entity
+     *            The object entity to put.
+     * @param resultClass
+     *            The class of the response entity.
+     * @return The future response object entity.
+     * @see #handleAsync(Request, Class)
+     * @see <a
+     *      href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec9.html#sec9.6">HTTP
+     *      PUT method</a>
+     */
+    public <T> ResultFuture<T> putAsync(Object entity, Class<T> resultClass) {
+        return handleAsync(Method.PUT, entity, resultClass);
+    }
+
     /**
      * Effectively redirects a client call. By default, it checks for infinite
      * loops and unavailable entities, the references list is updated and the
@@ -43,6 +43,7 @@ import org.restlet.Response;
 import org.restlet.data.MediaType;
 import org.restlet.data.Reference;
 import org.restlet.data.ReferenceList;
+import org.restlet.engine.local.DirectoryCache;
 import org.restlet.engine.local.DirectoryServerResource;
 import org.restlet.engine.util.AlphaNumericComparator;
 import org.restlet.engine.util.AlphabeticalComparator;
@@ -79,6 +80,13 @@ import org.restlet.representation.Variant;
  * idea</a>, using a different and faster implementation contributed by Rob
  * Heittman.<br>
  * <br>
+ * Small static files can be kept in memory by setting a
+ * {@link DirectoryCache} with the {@link #setCache(DirectoryCache)} method, so
+ * that GET and HEAD requests don't access the file system each time. When the
+ * "precompressed" property is turned on, files having a more recent ".gz"
+ * sibling file are served with the GZip encoding from this sibling to the
+ * clients accepting it.<br>
+ * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
  * should be especially careful when storing state in member variables.
@@ -89,6 +97,9 @@ import org.restlet.representation.Variant;
  */
 public class Directory extends Finder {
 
+    /** The optional cache of small static files. */
+    private volatile DirectoryCache cache;
+
     /** The reference comparator to sort index pages. */
     private volatile Comparator<Reference> comparator;
 
@@ -115,6 +126,9 @@ public class Directory extends Finder {
     /** Indicates if the best content is automatically negotiated. */
     private volatile boolean negotiatingContent;
 
+    /** Indicates if the precompressed sibling files are served. */
+    private volatile boolean precompressed;
+
     /** The absolute root reference (file, clap URI). */
     private volatile Reference rootRef;
 
@@ -128,6 +142,7 @@ public class Directory extends Finder {
      */
     public Directory(Context context, Reference rootLocalReference) {
         super(context);
+        this.cache = null;
 
         // First, let's normalize the root reference to prevent any issue with
         // relative paths inside the reference leading to listing issues.
@@ -148,6 +163,7 @@ public class Directory extends Finder {
         this.listingAllowed = false;
         this.modifiable = false;
         this.negotiatingContent = true;
+        this.precompressed = false;
         setTargetClass(DirectoryServerResource.class);
     }
 
@@ -173,6 +189,15 @@ public class Directory extends Finder {
         this(context, new Reference(rootUri));
     }
 
+    /**
+     * Returns the optional cache of small static files. Null by default.
+     * 
+     * @return The optional cache of small static files.
+     */
+    public DirectoryCache getCache() {
+        return this.cache;
+    }
+
     /**
      * Returns the reference comparator used to sort index pages. The default
      * implementation used a friendly alphanum sorting.
@@ -287,6 +312,30 @@ public class Directory extends Finder {
         return this.negotiatingContent;
     }
 
+    /**
+     * Indicates if a file is served from its precompressed sibling file, with
+     * the same name plus a ".gz" extension, when present and not older than
+     * the file and when the client accepts the GZip encoding. Default value is
+     * false.
+     * 
+     * @return True if the precompressed sibling files are served.
+     */
+    public boolean isPrecompressed() {
+        return this.precompressed;
+    }
+
+    /**
+     * Sets the optional cache of small static files. Note that the cache is
+     * cleared when the directory is modified by PUT or DELETE requests, other
+     * modifications being detected by revalidation.
+     * 
+     * @param cache
+     *            The cache of small static files or null.
+     */
+    public void setCache(DirectoryCache cache) {
+        this.cache = cache;
+    }
+
     /**
      * Sets the reference comparator used to sort index pages.
      * 
@@ -350,6 +399,18 @@ public class Directory extends Finder {
         this.negotiatingContent = negotiatingContent;
     }
 
+    /**
+     * Indicates if a file is served from its precompressed sibling file, with
+     * the same name plus a ".gz" extension, when present and not older than
+     * the file and when the client accepts the GZip encoding.
+     * 
+     * @param precompressed
+     *            True if the precompressed sibling files are served.
+     */
+    public void setPrecompressed(boolean precompressed) {
+        this.precompressed = precompressed;
+    }
+
     /**
      * Sets the root URI from which the relative resource URIs will be lookep
      * up.
@@ -0,0 +1,290 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+
+// [excludes gwt]
+/**
+ * Future result of an asynchronous call. It is completed through the
+ * {@link Result} callback methods, typically by a connector thread when the
+ * response is received, so that no thread is blocked while the call is
+ * outstanding. The outcome can either be waited for with the {@link Future}
+ * methods or be handled by {@link Result} listeners registered with
+ * {@link #addResult(Result)}.<br>
+ * <br>
+ * Note that cancelling a future only completes it with a
+ * {@link CancellationException}, the underlying call isn't aborted.
+ * 
+ * @param <T>
+ *            The class of the result object returned in case of success.
+ * @author Jerome Louvel
+ */
+public class ResultFuture<T> implements Future<T>, Result<T> {
+
+    /** Indicates if the future was cancelled. */
+    private volatile boolean cancelled;
+
+    /** Indicates if the future was completed. */
+    private volatile boolean done;
+
+    /** The exception or error caught in case of failure. */
+    private volatile Throwable failure;
+
+    /** The latch released on completion. */
+    private final CountDownLatch latch;
+
+    /** The listeners to call back on completion. */
+    private final List<Result<? super T>> results;
+
+    /** The result object in case of success. */
+    private volatile T value;
+
+    /**
+     * Constructor.
+     */
+    public ResultFuture() {
+        this.cancelled = false;
+        this.done = false;
+        this.failure = null;
+        this.latch = new CountDownLatch(1);
+        this.results = new ArrayList<Result<? super T>>();
+        this.value = null;
+    }
+
+    /**
+     * Registers a listener to call back on completion. If the future is
+     * already completed, the listener is immediately called back by the
+     * current thread. Otherwise it will be called back by the thread
+     * completing the future, which shouldn't be blocked.
+     * 
+     * @param result
+     *            The listener to call back.
+     */
+    public void addResult(Result<? super T> result) {
+        boolean completed;
+
+        synchronized (this.results) {
+            completed = isDone();
+
+            if (!completed) {
+                this.results.add(result);
+            }
+        }
+
+        if (completed) {
+            callback(result);
+        }
+    }
+
+    /**
+     * Calls back a listener with the outcome of the future.
+     * 
+     * @param result
+     *            The listener to call back.
+     */
+    private void callback(Result<? super T> result) {
+        try {
+            if (this.failure != null) {
+                result.onFailure(this.failure);
+            } else {
+                result.onSuccess(this.value);
+            }
+        } catch (Throwable t) {
+            Context.getCurrentLogger().log(Level.WARNING,
+                    "Unexpected error or exception inside a result listener",
+                    t);
+        }
+    }
+
+    /**
+     * Cancels the future, which is completed with a
+     * {@link CancellationException}. The underlying call isn't aborted.
+     * 
+     * @param mayInterruptIfRunning
+     *            Ignored as no thread is running the call on behalf of the
+     *            future.
+     * @return True if the future was cancelled, false if it was already done.
+     */
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return complete(null, new CancellationException(), true);
+    }
+
+    /**
+     * Completes the future with a result unless it is already done, then
+     * calls back the registered listeners.
+     * 
+     * @param value
+     *            The result object in case of success.
+     * @param failure
+     *            The exception or error caught in case of failure.
+     * @param cancelled
+     *            True if the future is cancelled.
+     * @return True if the future was completed by this call.
+     */
+    private boolean complete(T value, Throwable failure, boolean cancelled) {
+        List<Result<? super T>> listeners = null;
+
+        synchronized (this.results) {
+            if (!isDone()) {
+                this.value = value;
+                this.failure = failure;
+                this.cancelled = cancelled;
+                this.done = true;
+                listeners = new ArrayList<Result<? super T>>(this.results);
+                this.results.clear();
+            }
+        }
+
+        if (listeners != null) {
+            this.latch.countDown();
+
+            for (Result<? super T> listener : listeners) {
+                callback(listener);
+            }
+        }
+
+        return (listeners != null);
+    }
+
+    /**
+     * Waits for the completion of the future and returns the result object.
+     * 
+     * @return The result object.
+     * @throws CancellationException
+     *             If the future was cancelled.
+     * @throws ExecutionException
+     *             If the call failed.
+     * @throws InterruptedException
+     *             If the current thread was interrupted while waiting.
+     */
+    public T get() throws InterruptedException, ExecutionException {
+        this.latch.await();
+        return getValue();
+    }
+
+    /**
+     * Waits at most the given time for the completion of the future and
+     * returns the result object.
+     * 
+     * @param timeout
+     *            The maximum time to wait.
+     * @param unit
+     *            The time unit of the timeout argument.
+     * @return The result object.
+     * @throws CancellationException
+     *             If the future was cancelled.
+     * @throws ExecutionException
+     *             If the call failed.
+     * @throws InterruptedException
+     *             If the current thread was interrupted while waiting.
+     * @throws TimeoutException
+     *             If the wait timed out.
+     */
+    public T get(long timeout, TimeUnit unit) throws InterruptedException,
+            ExecutionException, TimeoutException {
+        if (!this.latch.await(timeout, unit)) {
+            throw new TimeoutException("The call wasn't completed in time");
+        }
+
+        return getValue();
+    }
+
+    /**
+     * Returns the result object of a completed future.
+     * 
+     * @return The result object.
+     * @throws ExecutionException
+     *             If the call failed.
+     */
+    private T getValue() throws ExecutionException {
+        if (isCancelled()) {
+            throw new CancellationException();
+        } else if (this.failure != null) {
+            throw new ExecutionException(this.failure);
+        }
+
+        return this.value;
+    }
+
+    /**
+     * Indicates if the future was cancelled.
+     * 
+     * @return True if the future was cancelled.
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Indicates if the future was completed, either by a success, a failure or
+     * a cancellation.
+     * 
+     * @return True if the future was completed.
+     */
+    public boolean isDone() {
+        return this.done;
+    }
+
+    /**
+     * Completes the future with a failure, unless it is already done.
+     * 
+     * @param caught
+     *            The exception or error caught.
+     */
+    public void onFailure(Throwable caught) {
+        complete(null, caught, false);
+    }
+
+    /**
+     * Completes the future with a success, unless it is already done.
+     * 
+     * @param result
+     *            The result object.
+     */
+    public void onSuccess(T result) {
+        complete(result, null, false);
+    }
+
+}
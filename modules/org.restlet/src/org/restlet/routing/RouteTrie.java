@@ -0,0 +1,387 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ *
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ *
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ *
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ *
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ *
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ *
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ *
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ *
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ *
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.routing;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Reference;
+
+/**
+ * Prefix trie compiled from the URI templates of a list of routes. It is used
+ * to quickly select the few routes that can possibly match a given call, in
+ * time proportional to the length of the remaining part of the resource
+ * reference instead of the number of routes. The selected routes must still be
+ * scored as usual, the trie being only a necessary condition.<br>
+ * <br>
+ * The literal characters of each template are indexed one by one, and
+ * variables covering a whole path segment are indexed as wildcard edges as long
+ * as their type can't match a "/" character (see
+ * {@link Variable#TYPE_URI_SEGMENT} for example). The indexing of a template
+ * stops at the first part that can't be expressed this way, and routes that
+ * aren't based on templates are always selected.<br>
+ * <br>
+ * Note that instances are immutable snapshots. Changes made to the templates
+ * of indexed routes are not reflected, a new trie must be compiled instead.
+ *
+ * @author Jerome Louvel
+ */
+public class RouteTrie {
+
+    /**
+     * Node of the trie.
+     */
+    private static final class Node {
+
+        /** The child nodes indexed by literal character. */
+        private final Map<Character, Node> children;
+
+        /** The indexes of the routes whose indexed prefix ends here. */
+        private int[] routes;
+
+        /** The child node reached by skipping a whole path segment. */
+        private Node segment;
+
+        /**
+         * Constructor.
+         */
+        private Node() {
+            this.children = new HashMap<Character, Node>();
+            this.routes = null;
+            this.segment = null;
+        }
+
+        /**
+         * Adds the index of a route whose indexed prefix ends here.
+         *
+         * @param index
+         *            The route index.
+         */
+        private void addRoute(int index) {
+            if (this.routes == null) {
+                this.routes = new int[] { index };
+            } else {
+                int[] newRoutes = new int[this.routes.length + 1];
+                System.arraycopy(this.routes, 0, newRoutes, 0,
+                        this.routes.length);
+                newRoutes[this.routes.length] = index;
+                this.routes = newRoutes;
+            }
+        }
+
+        /**
+         * Returns the child node for a literal character, creating it if
+         * needed.
+         *
+         * @param c
+         *            The literal character.
+         * @return The child node.
+         */
+        private Node getChild(char c) {
+            Node result = this.children.get(c);
+
+            if (result == null) {
+                result = new Node();
+                this.children.put(c, result);
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns the child node for a whole segment variable, creating it if
+         * needed.
+         *
+         * @return The child node.
+         */
+        private Node getSegment() {
+            if (this.segment == null) {
+                this.segment = new Node();
+            }
+
+            return this.segment;
+        }
+    }
+
+    /**
+     * Indicates if the score method of a route is the one of
+     * {@link TemplateRoute}, meaning that it can be indexed.
+     *
+     * @param route
+     *            The route to test.
+     * @return True if the route can be indexed.
+     */
+    private static boolean isIndexable(Route route) {
+        boolean result = false;
+
+        if (route instanceof TemplateRoute) {
+            try {
+                result = (route.getClass()
+                        .getMethod("score", Request.class, Response.class)
+                        .getDeclaringClass() == TemplateRoute.class);
+            } catch (NoSuchMethodException e) {
+                result = false;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if a variable can only match characters inside a path segment,
+     * excluding the "/" and "?" characters.
+     *
+     * @param variable
+     *            The variable to test.
+     * @return True if the variable can only match inside a path segment.
+     */
+    private static boolean isSegmentVariable(Variable variable) {
+        if ((variable == null) || variable.isFixed()) {
+            return false;
+        }
+
+        switch (variable.getType()) {
+        case Variable.TYPE_ALPHA:
+        case Variable.TYPE_ALPHA_DIGIT:
+        case Variable.TYPE_DIGIT:
+        case Variable.TYPE_TOKEN:
+        case Variable.TYPE_URI_SEGMENT:
+        case Variable.TYPE_URI_UNRESERVED:
+        case Variable.TYPE_WORD:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /** The root node for the routes not matching the query. */
+    private final Node pathRoot;
+
+    /** The root node for the routes matching the query, or null. */
+    private final Node queryRoot;
+
+    /** The indexed routes. */
+    private final List<Route> routes;
+
+    /**
+     * Constructor. Compiles the given list of routes.
+     *
+     * @param routes
+     *            The routes to index.
+     */
+    public RouteTrie(List<Route> routes) {
+        this.routes = Collections.unmodifiableList(new ArrayList<Route>(
+                routes));
+        this.pathRoot = new Node();
+        Node queryNode = null;
+
+        for (int i = 0; i < this.routes.size(); i++) {
+            Route route = this.routes.get(i);
+
+            if (isIndexable(route)
+                    && (((TemplateRoute) route).getTemplate() != null)) {
+                TemplateRoute templateRoute = (TemplateRoute) route;
+                Node root = this.pathRoot;
+
+                if (templateRoute.isMatchingQuery()) {
+                    if (queryNode == null) {
+                        queryNode = new Node();
+                    }
+
+                    root = queryNode;
+                }
+
+                index(templateRoute.getTemplate(), root).addRoute(i);
+            } else {
+                this.pathRoot.addRoute(i);
+            }
+        }
+
+        this.queryRoot = queryNode;
+    }
+
+    /**
+     * Collects the indexes of the routes reachable from a given node while
+     * walking the remaining part of a reference.
+     *
+     * @param node
+     *            The start node.
+     * @param remainingPart
+     *            The remaining part of the reference.
+     * @param index
+     *            The current index in the remaining part.
+     * @param result
+     *            The set of route indexes to update.
+     */
+    private void collect(Node node, String remainingPart, int index,
+            BitSet result) {
+        int i = index;
+
+        for (Node current = node; current != null;) {
+            if (current.routes != null) {
+                for (int route : current.routes) {
+                    result.set(route);
+                }
+            }
+
+            if (current.segment != null) {
+                int next = remainingPart.indexOf('/', i);
+
+                if (next != -1) {
+                    collect(current.segment, remainingPart, next, result);
+                }
+            }
+
+            current = (i < remainingPart.length()) ? current.children
+                    .get(remainingPart.charAt(i++)) : null;
+        }
+    }
+
+    /**
+     * Returns the indexed routes that can possibly match the given call, in
+     * their original order. Returns null if the selection isn't possible, for
+     * example if the request has no resource reference.
+     *
+     * @param request
+     *            The request to route.
+     * @return The candidate routes or null.
+     */
+    public List<Route> getCandidates(Request request) {
+        Reference resourceRef = request.getResourceRef();
+
+        if (resourceRef == null) {
+            return null;
+        }
+
+        String pathPart = resourceRef.getRemainingPart(false, false);
+
+        if (pathPart == null) {
+            return null;
+        }
+
+        BitSet selected = new BitSet(this.routes.size());
+        collect(this.pathRoot, pathPart, 0, selected);
+
+        if (this.queryRoot != null) {
+            String queryPart = resourceRef.getRemainingPart(false, true);
+
+            if (queryPart == null) {
+                return null;
+            }
+
+            collect(this.queryRoot, queryPart, 0, selected);
+        }
+
+        List<Route> result = new ArrayList<Route>(selected.cardinality());
+
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected
+                .nextSetBit(i + 1)) {
+            result.add(this.routes.get(i));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the unmodifiable list of indexed routes.
+     *
+     * @return The unmodifiable list of indexed routes.
+     */
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Indexes the pattern of a template from a given root node, as far as it
+     * can be expressed by the trie.
+     *
+     * @param template
+     *            The template to index.
+     * @param root
+     *            The root node.
+     * @return The node where the indexed prefix ends.
+     */
+    private Node index(Template template, Node root) {
+        Node result = root;
+        String pattern = template.getPattern();
+        boolean indexing = (pattern != null);
+
+        for (int i = 0; indexing && (i < pattern.length());) {
+            char next = pattern.charAt(i);
+
+            if (next == '{') {
+                int end = pattern.indexOf('}', i);
+                indexing = (end > i + 1)
+                        && ((i == 0) || (pattern.charAt(i - 1) == '/'))
+                        && (end + 1 < pattern.length())
+                        && (pattern.charAt(end + 1) == '/');
+
+                for (int j = i + 1; indexing && (j < end); j++) {
+                    indexing = Reference.isUnreserved(pattern.charAt(j));
+                }
+
+                if (indexing) {
+                    Variable variable = template.getVariables().get(
+                            pattern.substring(i + 1, end));
+
+                    if (variable == null) {
+                        variable = template.getDefaultVariable();
+                    }
+
+                    indexing = isSegmentVariable(variable);
+                }
+
+                if (indexing) {
+                    result = result.getSegment();
+                    i = end + 1;
+                }
+            } else if ((next == '}') || (next == '+')) {
+                // Not quoted as literal characters by the Regex pattern
+                indexing = false;
+            } else {
+                result = result.getChild(next);
+                i++;
+            }
+        }
+
+        return result;
+    }
+
+}
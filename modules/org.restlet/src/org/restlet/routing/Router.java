@@ -62,6 +62,12 @@ import org.restlet.util.RouteList;
  * <li>Custom</li>
  * </ul>
  * <br>
+ * The best match and first match modes can also be indexed (see
+ * {@link #setIndexedRouting(boolean)}). In this case, the URI templates of the
+ * routes are compiled into a {@link RouteTrie} so that only the routes that can
+ * possibly match are scored, which is much faster for large numbers of routes
+ * while producing the same result.<br>
+ * <br>
  * Note that for routes using URI patterns will update the resource reference's
  * base reference during the routing if they are selected. It is also important
  * to know that the routing is very strict about path separators in your URI
@@ -145,6 +151,9 @@ public class Router extends Restlet {
     /** The default route tested if no other one was available. */
     private volatile Route defaultRoute;
 
+    /** Indicates if the best and first match modes use the compiled trie. */
+    private volatile boolean indexedRouting;
+
     /**
      * The maximum number of attempts if no attachment could be matched on the
      * first attempt.
@@ -185,6 +194,7 @@ public class Router extends Restlet {
         this.defaultMatchingMode = Template.MODE_EQUALS;
         this.defaultMatchingQuery = false;
         this.defaultRoute = null;
+        this.indexedRouting = false;
         this.routingMode = MODE_FIRST_MATCH;
         this.requiredScore = 0.5F;
         this.maxAttempts = 1;
@@ -541,13 +551,23 @@ public class Router extends Restlet {
                 // Select the routing mode
                 switch (getRoutingMode()) {
                 case MODE_BEST_MATCH:
-                    result = getRoutes().getBest(request, response,
-                            getRequiredScore());
+                    if (isIndexedRouting()) {
+                        result = getRoutes().getIndexedBest(request, response,
+                                getRequiredScore());
+                    } else {
+                        result = getRoutes().getBest(request, response,
+                                getRequiredScore());
+                    }
                     break;
 
                 case MODE_FIRST_MATCH:
-                    result = getRoutes().getFirst(request, response,
-                            getRequiredScore());
+                    if (isIndexedRouting()) {
+                        result = getRoutes().getIndexedFirst(request,
+                                response, getRequiredScore());
+                    } else {
+                        result = getRoutes().getFirst(request, response,
+                                getRequiredScore());
+                    }
                     break;
 
                 case MODE_LAST_MATCH:
@@ -651,6 +671,19 @@ public class Router extends Restlet {
         }
     }
 
+    /**
+     * Indicates if the best match and first match routing modes only score the
+     * routes selected by a prefix trie compiled from the URI templates. By
+     * default, it returns false.
+     * 
+     * @return True if the routing modes are indexed.
+     * @see RouteList#getIndexedBest(Request, Response, float)
+     * @see RouteList#getIndexedFirst(Request, Response, float)
+     */
+    public boolean isIndexedRouting() {
+        return indexedRouting;
+    }
+
     /**
      * Logs the route selected.
      * 
@@ -758,6 +791,20 @@ public class Router extends Restlet {
         this.defaultRoute = defaultRoute;
     }
 
+    /**
+     * Indicates if the best match and first match routing modes only score the
+     * routes selected by a prefix trie compiled from the URI templates. Note
+     * that the trie is compiled again after each change to the list of routes,
+     * but not after a change to the template of an existing route. In this
+     * case, {@link RouteList#reindex()} must be invoked.
+     * 
+     * @param indexedRouting
+     *            True if the routing modes are indexed.
+     */
+    public void setIndexedRouting(boolean indexedRouting) {
+        this.indexedRouting = indexedRouting;
+    }
+
     /**
      * Sets the maximum number of attempts if no attachment could be matched on
      * the first attempt. This is useful when the attachment scoring is dynamic
@@ -261,6 +261,12 @@ public class Template {
     /** The sequence of Regex variable names as found in the pattern string. */
     private volatile List<String> regexVariables;
 
+    /** The internal scanner, used instead of the Regex pattern if possible. */
+    private volatile TemplateScanner scanner;
+
+    /** Indicates if the internal scanner has been compiled. */
+    private volatile boolean scannerCompiled;
+
     /** The map of variables associated to the route's template. */
     private final Map<String, Variable> variables;
 
@@ -597,6 +603,27 @@ public class Template {
         return rv;
     }
 
+    /**
+     * Compiles the URI pattern into a scanner if possible. The scanner matches
+     * formatted strings without regular expressions when the pattern only
+     * contains literal text and variables of simple types such as
+     * {@link Variable#TYPE_URI_SEGMENT}.
+     * 
+     * @return The scanner or null if the Regex pattern must be used.
+     */
+    private TemplateScanner getScanner() {
+        if (!this.scannerCompiled) {
+            synchronized (this) {
+                if (!this.scannerCompiled) {
+                    this.scanner = TemplateScanner.compile(this);
+                    this.scannerCompiled = true;
+                }
+            }
+        }
+
+        return this.scanner;
+    }
+
     /**
      * Returns the list of variable names in the template.
      * 
@@ -681,9 +708,13 @@ public class Template {
      */
     public int match(String formattedString) {
         int result = -1;
+        TemplateScanner scanner = (formattedString == null) ? null
+                : getScanner();
 
         try {
-            if (formattedString != null) {
+            if (scanner != null) {
+                result = scanner.scan(formattedString, getMatchingMode(), null);
+            } else if (formattedString != null) {
                 final Matcher matcher = getRegexPattern().matcher(
                         formattedString);
 
@@ -741,7 +772,22 @@ public class Template {
             boolean loggable) {
         int result = -1;
 
-        if (formattedString != null) {
+        TemplateScanner scanner = (formattedString == null) ? null
+                : getScanner();
+
+        if (scanner != null) {
+            int[] bounds = new int[2 * scanner.getVariableCount()];
+            result = scanner.scan(formattedString, getMatchingMode(), bounds);
+
+            if (result != -1) {
+                // Update the attributes with the variables value
+                for (int i = 0; i < scanner.getVariableCount(); i++) {
+                    updateVariable(scanner.getVariableName(i), formattedString
+                            .substring(bounds[2 * i], bounds[2 * i + 1]),
+                            variables, loggable);
+                }
+            }
+        } else if (formattedString != null) {
             try {
                 Matcher matcher = getRegexPattern().matcher(formattedString);
                 boolean matched = ((getMatchingMode() == MODE_EQUALS) && matcher
@@ -754,26 +800,9 @@ public class Template {
                     result = matcher.end();
 
                     // Update the attributes with the variables value
-                    String attributeName = null;
-                    String attributeValue = null;
-
                     for (int i = 0; i < getRegexVariables().size(); i++) {
-                        attributeName = getRegexVariables().get(i);
-                        attributeValue = matcher.group(i + 1);
-                        Variable var = getVariables().get(attributeName);
-
-                        if ((var != null) && var.isDecodingOnParse()) {
-                            attributeValue = Reference.decode(attributeValue);
-                        }
-
-                        if (loggable) {
-                            getLogger().fine(
-                                    "Template variable \"" + attributeName
-                                            + "\" matched with value \""
-                                            + attributeValue + "\"");
-                        }
-
-                        variables.put(attributeName, attributeValue);
+                        updateVariable(getRegexVariables().get(i),
+                                matcher.group(i + 1), variables, loggable);
                     }
                 }
             } catch (StackOverflowError soe) {
@@ -901,6 +930,8 @@ public class Template {
     public void setPattern(String pattern) {
         this.pattern = pattern;
         this.regexPattern = null;
+        this.scannerCompiled = false;
+        this.scanner = null;
     }
 
     /**
@@ -921,4 +952,36 @@ public class Template {
         }
     }
 
+    /**
+     * Updates a map of variables with a parsed value, decoding it if required
+     * by the variable descriptor.
+     * 
+     * @param name
+     *            The variable name.
+     * @param value
+     *            The parsed value.
+     * @param variables
+     *            The map of variables to update.
+     * @param loggable
+     *            True if the parsing should be logged.
+     */
+    private void updateVariable(String name, String value,
+            Map<String, Object> variables, boolean loggable) {
+        String attributeValue = value;
+        Variable var = getVariables().get(name);
+
+        if ((var != null) && var.isDecodingOnParse()) {
+            attributeValue = Reference.decode(attributeValue);
+        }
+
+        if (loggable) {
+            getLogger().fine(
+                    "Template variable \"" + name
+                            + "\" matched with value \"" + attributeValue
+                            + "\"");
+        }
+
+        variables.put(name, attributeValue);
+    }
+
 }
@@ -0,0 +1,385 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restlet.data.Reference;
+
+/**
+ * Hand-written scanner compiled from a URI template, matching formatted strings
+ * without relying on regular expressions. It is only available for templates
+ * made of literal text and variables of simple types (see
+ * {@link Variable#TYPE_URI_SEGMENT} for example), separated by literal
+ * characters that these variables can't match. In this case, the greedy Regex
+ * matching can't backtrack and the scanning gives exactly the same result as
+ * the Regex pattern.
+ * 
+ * @see Template
+ * @author Jerome Louvel
+ */
+final class TemplateScanner {
+
+    /**
+     * Compiles a scanner for a given template, using the current variable
+     * descriptors.
+     * 
+     * @param template
+     *            The template to compile.
+     * @return The scanner or null if the template can't be scanned without
+     *         regular expressions.
+     */
+    static TemplateScanner compile(Template template) {
+        String pattern = template.getPattern();
+
+        if (pattern == null) {
+            return null;
+        }
+
+        List<String> literals = new ArrayList<String>();
+        List<String> names = new ArrayList<String>();
+        List<Variable> variables = new ArrayList<Variable>();
+        StringBuilder literal = new StringBuilder();
+
+        for (int i = 0; i < pattern.length(); i++) {
+            char next = pattern.charAt(i);
+
+            if (next == '{') {
+                int end = pattern.indexOf('}', i);
+
+                if (end <= i + 1) {
+                    // Empty or unterminated variable
+                    return null;
+                }
+
+                String name = pattern.substring(i + 1, end);
+
+                for (int j = 0; j < name.length(); j++) {
+                    if (!Reference.isUnreserved(name.charAt(j))) {
+                        return null;
+                    }
+                }
+
+                if (names.contains(name)) {
+                    // Back references aren't supported
+                    return null;
+                }
+
+                Variable variable = template.getVariables().get(name);
+
+                if (variable == null) {
+                    variable = template.getDefaultVariable();
+                }
+
+                if ((variable == null) || variable.isFixed()
+                        || !isScannable(variable.getType())) {
+                    return null;
+                }
+
+                if (!variables.isEmpty()) {
+                    // The previous variable must stop before this literal
+                    if ((literal.length() == 0)
+                            || accepts(variables.get(variables.size() - 1)
+                                    .getType(), literal.charAt(0))) {
+                        return null;
+                    }
+                }
+
+                literals.add(literal.toString());
+                literal = new StringBuilder();
+                names.add(name);
+                variables.add(variable);
+                i = end;
+            } else if ((next == '}') || (next == '+')) {
+                // Not quoted as literal characters by the Regex pattern
+                return null;
+            } else {
+                literal.append(next);
+            }
+        }
+
+        if (!variables.isEmpty() && (literal.length() > 0)
+                && accepts(variables.get(variables.size() - 1).getType(),
+                        literal.charAt(0))) {
+            return null;
+        }
+
+        literals.add(literal.toString());
+        int[] types = new int[variables.size()];
+        boolean[] required = new boolean[variables.size()];
+
+        for (int i = 0; i < types.length; i++) {
+            types[i] = variables.get(i).getType();
+            required[i] = variables.get(i).isRequired();
+        }
+
+        return new TemplateScanner(literals.toArray(new String[literals
+                .size()]), names.toArray(new String[names.size()]), types,
+                required);
+    }
+
+    /**
+     * Indicates if a variable of the given type can start with the given
+     * character.
+     * 
+     * @param type
+     *            The variable type.
+     * @param character
+     *            The character to test.
+     * @return True if the variable can start with the given character.
+     */
+    private static boolean accepts(int type, char character) {
+        return isClassChar(type, character)
+                || ((type == Variable.TYPE_URI_SEGMENT) && (character == '%'));
+    }
+
+    /**
+     * Indicates if a character is an ASCII letter.
+     * 
+     * @param character
+     *            The character to test.
+     * @return True if the character is an ASCII letter.
+     */
+    private static boolean isAlpha(char character) {
+        return ((character >= 'a') && (character <= 'z'))
+                || ((character >= 'A') && (character <= 'Z'));
+    }
+
+    /**
+     * Indicates if a character belongs to the single character class of a
+     * variable type, percent-encoded triplets excluded.
+     * 
+     * @param type
+     *            The variable type.
+     * @param character
+     *            The character to test.
+     * @return True if the character belongs to the class.
+     */
+    private static boolean isClassChar(int type, char character) {
+        switch (type) {
+        case Variable.TYPE_ALPHA:
+            return isAlpha(character);
+        case Variable.TYPE_DIGIT:
+            return isDigit(character);
+        case Variable.TYPE_ALPHA_DIGIT:
+            return isAlpha(character) || isDigit(character);
+        case Variable.TYPE_WORD:
+            return isAlpha(character) || isDigit(character)
+                    || (character == '_');
+        case Variable.TYPE_URI_UNRESERVED:
+            return Reference.isUnreserved(character);
+        case Variable.TYPE_URI_SEGMENT:
+            return Reference.isUnreserved(character)
+                    || Reference.isSubDelimiter(character)
+                    || (character == ':') || (character == '@');
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Indicates if a character is an ASCII digit.
+     * 
+     * @param character
+     *            The character to test.
+     * @return True if the character is an ASCII digit.
+     */
+    private static boolean isDigit(char character) {
+        return (character >= '0') && (character <= '9');
+    }
+
+    /**
+     * Indicates if a character is an hexadecimal digit.
+     * 
+     * @param character
+     *            The character to test.
+     * @return True if the character is an hexadecimal digit.
+     */
+    private static boolean isHexDigit(char character) {
+        return isDigit(character)
+                || ((character >= 'a') && (character <= 'f'))
+                || ((character >= 'A') && (character <= 'F'));
+    }
+
+    /**
+     * Indicates if variables of a given type can be scanned.
+     * 
+     * @param type
+     *            The variable type.
+     * @return True if variables of a given type can be scanned.
+     */
+    private static boolean isScannable(int type) {
+        switch (type) {
+        case Variable.TYPE_ALPHA:
+        case Variable.TYPE_ALPHA_DIGIT:
+        case Variable.TYPE_DIGIT:
+        case Variable.TYPE_URI_SEGMENT:
+        case Variable.TYPE_URI_UNRESERVED:
+        case Variable.TYPE_WORD:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * The literal parts. The literal at index i precedes the variable at the
+     * same index, the last one follows the last variable.
+     */
+    private final String[] literals;
+
+    /** The variable names. */
+    private final String[] names;
+
+    /** The variable required flags. */
+    private final boolean[] required;
+
+    /** The variable types. */
+    private final int[] types;
+
+    /**
+     * Constructor.
+     * 
+     * @param literals
+     *            The literal parts.
+     * @param names
+     *            The variable names.
+     * @param types
+     *            The variable types.
+     * @param required
+     *            The variable required flags.
+     */
+    private TemplateScanner(String[] literals, String[] names, int[] types,
+            boolean[] required) {
+        this.literals = literals;
+        this.names = names;
+        this.types = types;
+        this.required = required;
+    }
+
+    /**
+     * Returns the number of variables.
+     * 
+     * @return The number of variables.
+     */
+    public int getVariableCount() {
+        return this.names.length;
+    }
+
+    /**
+     * Returns the name of a variable.
+     * 
+     * @param index
+     *            The variable index.
+     * @return The variable name.
+     */
+    public String getVariableName(int index) {
+        return this.names[index];
+    }
+
+    /**
+     * Scans a formatted string.
+     * 
+     * @param formattedString
+     *            The string to scan.
+     * @param matchingMode
+     *            The matching mode, see {@link Template#MODE_EQUALS} and
+     *            {@link Template#MODE_STARTS_WITH}.
+     * @param bounds
+     *            The array updated with the start and end indexes of each
+     *            variable value, or null. Its length must be at least twice the
+     *            number of variables.
+     * @return The number of matched characters or -1 if the match failed.
+     */
+    public int scan(String formattedString, int matchingMode, int[] bounds) {
+        if ((matchingMode != Template.MODE_EQUALS)
+                && (matchingMode != Template.MODE_STARTS_WITH)) {
+            return -1;
+        }
+
+        if (!formattedString.startsWith(this.literals[0])) {
+            return -1;
+        }
+
+        int length = formattedString.length();
+        int index = this.literals[0].length();
+
+        for (int i = 0; i < this.types.length; i++) {
+            int start = index;
+            int type = this.types[i];
+            boolean scanning = true;
+
+            while (scanning && (index < length)) {
+                char next = formattedString.charAt(index);
+
+                if (isClassChar(type, next)) {
+                    index++;
+                } else if ((type == Variable.TYPE_URI_SEGMENT)
+                        && (next == '%') && (index + 2 < length)
+                        && isHexDigit(formattedString.charAt(index + 1))
+                        && isHexDigit(formattedString.charAt(index + 2))) {
+                    index += 3;
+                } else {
+                    scanning = false;
+                }
+            }
+
+            if (this.required[i] && (index == start)) {
+                return -1;
+            }
+
+            if (bounds != null) {
+                bounds[2 * i] = start;
+                bounds[2 * i + 1] = index;
+            }
+
+            String literal = this.literals[i + 1];
+
+            if (!formattedString.startsWith(literal, index)) {
+                return -1;
+            }
+
+            index += literal.length();
+        }
+
+        if ((matchingMode == Template.MODE_EQUALS) && (index != length)) {
+            return -1;
+        }
+
+        return index;
+    }
+
+}
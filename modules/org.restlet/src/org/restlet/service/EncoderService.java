@@ -37,16 +37,24 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import org.restlet.Context;
 import org.restlet.data.Encoding;
 import org.restlet.data.MediaType;
+import org.restlet.engine.application.EncodeCache;
 import org.restlet.engine.application.Encoder;
 import org.restlet.representation.Representation;
 import org.restlet.routing.Filter;
 
 /**
- * Application service automatically encoding or compressing request entities.
+ * Application service automatically encoding or compressing request
+ * entities.<br>
+ * <br>
+ * The compression level can be adjusted to trade CPU for bandwidth. Strongly
+ * tagged entities can be compressed only once by setting an
+ * {@link EncodeCache}, and file entities can be replaced by their
+ * precompressed ".gz" sibling files when present and up-to-date.
  * 
  * @author Jerome Louvel
  */
@@ -93,6 +101,16 @@ public class EncoderService extends Service {
      */
     private volatile List<MediaType> acceptedMediaTypes;
 
+    /**
+     * The optional cache of encoded entities.
+     */
+    private volatile EncodeCache cache;
+
+    /**
+     * The compression level.
+     */
+    private volatile int compressionLevel;
+
     /**
      * The media types that should be ignored.
      */
@@ -103,6 +121,11 @@ public class EncoderService extends Service {
      */
     private volatile long mininumSize;
 
+    /**
+     * Indicates if the precompressed sibling files should be served.
+     */
+    private volatile boolean precompressed;
+
     /**
      * Constructor.
      */
@@ -120,7 +143,10 @@ public class EncoderService extends Service {
         super(enabled);
         this.mininumSize = DEFAULT_MINIMUM_SIZE;
         this.acceptedMediaTypes = getDefaultAcceptedMediaTypes();
+        this.cache = null;
+        this.compressionLevel = Deflater.DEFAULT_COMPRESSION;
         this.ignoredMediaTypes = getDefaultIgnoredMediaTypes();
+        this.precompressed = false;
     }
 
     /**
@@ -201,6 +227,25 @@ public class EncoderService extends Service {
         return this.acceptedMediaTypes;
     }
 
+    /**
+     * Returns the optional cache of encoded entities. Null by default.
+     * 
+     * @return The optional cache of encoded entities.
+     */
+    public EncodeCache getCache() {
+        return this.cache;
+    }
+
+    /**
+     * Returns the compression level, from 0 (no compression) to 9 (best
+     * compression), or -1 for the default level of the compressor.
+     * 
+     * @return The compression level.
+     */
+    public int getCompressionLevel() {
+        return this.compressionLevel;
+    }
+
     /**
      * Returns the media types that should be ignored.
      * 
@@ -221,6 +266,46 @@ public class EncoderService extends Service {
         return this.mininumSize;
     }
 
+    /**
+     * Indicates if a file entity should be replaced by its precompressed
+     * sibling file, with the same name plus a ".gz" extension, when present
+     * and not older than the file. The GZip encoding must be accepted by the
+     * client. False by default.
+     * 
+     * @return True if the precompressed sibling files should be served.
+     */
+    public boolean isPrecompressed() {
+        return this.precompressed;
+    }
+
+    /**
+     * Sets the optional cache of encoded entities. Only the entities with a
+     * strong tag are cached, keyed by the reference of their resource.
+     * 
+     * @param cache
+     *            The optional cache of encoded entities.
+     */
+    public void setCache(EncodeCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Sets the compression level, from 0 (no compression) to 9 (best
+     * compression), or -1 for the default level of the compressor.
+     * 
+     * @param compressionLevel
+     *            The compression level.
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if ((compressionLevel < Deflater.DEFAULT_COMPRESSION)
+                || (compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level: "
+                    + compressionLevel);
+        }
+
+        this.compressionLevel = compressionLevel;
+    }
+
     /**
      * Sets the minimum size a representation must have before compression is
      * done.
@@ -233,4 +318,16 @@ public class EncoderService extends Service {
         this.mininumSize = mininumSize;
     }
 
+    /**
+     * Indicates if a file entity should be replaced by its precompressed
+     * sibling file, with the same name plus a ".gz" extension, when present
+     * and not older than the file.
+     * 
+     * @param precompressed
+     *            True if the precompressed sibling files should be served.
+     */
+    public void setPrecompressed(boolean precompressed) {
+        this.precompressed = precompressed;
+    }
+
 }
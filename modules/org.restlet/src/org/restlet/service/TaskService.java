@@ -33,6 +33,7 @@
 
 package org.restlet.service;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -53,6 +54,7 @@ import org.restlet.Application;
 import org.restlet.Context;
 import org.restlet.Response;
 import org.restlet.engine.Engine;
+import org.restlet.engine.util.ThreadPerTaskExecutor;
 import org.restlet.routing.VirtualHost;
 
 /**
@@ -69,7 +71,11 @@ import org.restlet.routing.VirtualHost;
  * Resources that are part of your context. In general this context corresponds
  * to a parent Application's context. If you want to have your own service
  * instance, you can use the {@link TaskService#wrap(ScheduledExecutorService)}
- * method to ensure that thread local variables are correctly set.
+ * method to ensure that thread local variables are correctly set.<br>
+ * <br>
+ * Finally, immediate tasks that block for a long time can each run on their
+ * own thread, with a limit on the number of tasks running concurrently. See
+ * the {@link #setMaxConcurrentTasks(int)} method.
  * 
  * @author Jerome Louvel
  * @author Doug Lea (docs of ExecutorService in public domain)
@@ -96,6 +102,72 @@ public class TaskService extends Service implements ScheduledExecutorService {
         }
     }
 
+    /**
+     * Wraps a value-returning task to ensure that the thread executing it will
+     * have the thread local variables copied from the calling thread.
+     * 
+     * @param callable
+     *            The task to wrap.
+     * @return The wrapper task to execute.
+     */
+    private static <T> Callable<T> wrap(final Callable<T> callable) {
+        // Save the thread local variables
+        final Application currentApplication = Application.getCurrent();
+        final Context currentContext = Context.getCurrent();
+        final Integer currentVirtualHost = VirtualHost.getCurrent();
+        final Response currentResponse = Response.getCurrent();
+
+        return new Callable<T>() {
+            public T call() throws Exception {
+                // Copy the thread local variables
+                Response.setCurrent(currentResponse);
+                Context.setCurrent(currentContext);
+                VirtualHost.setCurrent(currentVirtualHost);
+                Application.setCurrent(currentApplication);
+
+                try {
+                    // Run the user task
+                    return callable.call();
+                } finally {
+                    Engine.clearThreadLocalVariables();
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps a task to ensure that the thread executing it will have the thread
+     * local variables copied from the calling thread.
+     * 
+     * @param runnable
+     *            The task to wrap.
+     * @return The wrapper task to execute.
+     */
+    private static Runnable wrap(final Runnable runnable) {
+        // Save the thread local variables
+        final Application currentApplication = Application.getCurrent();
+        final Context currentContext = Context.getCurrent();
+        final Integer currentVirtualHost = VirtualHost.getCurrent();
+        final Response currentResponse = Response.getCurrent();
+
+        return new Runnable() {
+            public void run() {
+                // Copy the thread local variables
+                Response.setCurrent(currentResponse);
+                Context.setCurrent(currentContext);
+                VirtualHost.setCurrent(currentVirtualHost);
+                Application.setCurrent(currentApplication);
+
+                try {
+                    // Run the user task
+                    runnable.run();
+                } finally {
+                    Engine.clearThreadLocalVariables();
+                }
+            }
+        };
+    }
+
     /**
      * Wraps a JDK executor service to ensure that the threads executing the
      * tasks will have the thread local variables copied from the calling
@@ -116,28 +188,7 @@ public class TaskService extends Service implements ScheduledExecutorService {
             }
 
             public void execute(final Runnable runnable) {
-                // Save the thread local variables
-                final Application currentApplication = Application.getCurrent();
-                final Context currentContext = Context.getCurrent();
-                final Integer currentVirtualHost = VirtualHost.getCurrent();
-                final Response currentResponse = Response.getCurrent();
-
-                executorService.execute(new Runnable() {
-                    public void run() {
-                        // Copy the thread local variables
-                        Response.setCurrent(currentResponse);
-                        Context.setCurrent(currentContext);
-                        VirtualHost.setCurrent(currentVirtualHost);
-                        Application.setCurrent(currentApplication);
-
-                        try {
-                            // Run the user task
-                            runnable.run();
-                        } finally {
-                            Engine.clearThreadLocalVariables();
-                        }
-                    }
-                });
+                executorService.execute(wrap(runnable));
             }
 
             @SuppressWarnings({ "rawtypes", "unchecked" })
@@ -216,6 +267,26 @@ public class TaskService extends Service implements ScheduledExecutorService {
         };
     }
 
+    /**
+     * Wraps a collection of value-returning tasks to ensure that the threads
+     * executing them will have the thread local variables copied from the
+     * calling thread.
+     * 
+     * @param tasks
+     *            The tasks to wrap.
+     * @return The list of wrapper tasks to execute.
+     */
+    private static <T> List<Callable<T>> wrapAll(
+            Collection<? extends Callable<T>> tasks) {
+        List<Callable<T>> result = new ArrayList<Callable<T>>(tasks.size());
+
+        for (Callable<T> task : tasks) {
+            result.add(wrap(task));
+        }
+
+        return result;
+    }
+
     /**
      * Allow {@link #shutdown()} and {@link #shutdownNow()} methods to
      * effectively shutdown the wrapped executor service.
@@ -228,6 +299,17 @@ public class TaskService extends Service implements ScheduledExecutorService {
     /** The core pool size defining the maximum number of threads. */
     private volatile int corePoolSize;
 
+    /**
+     * The maximum number of immediate tasks running concurrently on their own
+     * thread, or 0 if they run on the core pool.
+     */
+    private volatile int maxConcurrentTasks;
+
+    /**
+     * The JDK executor service running each immediate task on its own thread.
+     */
+    private volatile ExecutorService threadPerTaskService;
+
     /**
      * Constructor. Enables the service and set the core pool size to 4 by
      * default.
@@ -257,6 +339,7 @@ public class TaskService extends Service implements ScheduledExecutorService {
     public TaskService(boolean enabled, int corePoolSize) {
         super(enabled);
         this.corePoolSize = corePoolSize;
+        this.maxConcurrentTasks = 0;
         this.shutdownAllowed = false;
     }
 
@@ -285,7 +368,13 @@ public class TaskService extends Service implements ScheduledExecutorService {
     public boolean awaitTermination(long timeout, TimeUnit unit)
             throws InterruptedException {
         startIfNeeded();
-        return getWrapped().awaitTermination(timeout, unit);
+        boolean result = getWrapped().awaitTermination(timeout, unit);
+
+        if (result && (getThreadPerTaskService() != null)) {
+            result = getThreadPerTaskService().awaitTermination(timeout, unit);
+        }
+
+        return result;
     }
 
     /**
@@ -302,6 +391,22 @@ public class TaskService extends Service implements ScheduledExecutorService {
                 createThreadFactory());
     }
 
+    /**
+     * Creates a new JDK executor service running each immediate task on its own
+     * thread, created on demand and reused while idle. The number of tasks
+     * running concurrently is limited by a number of permits, additional tasks
+     * waiting for a running one to complete.
+     * 
+     * @param maxConcurrentTasks
+     *            The maximum number of tasks running concurrently.
+     * @return A new JDK executor service.
+     */
+    protected ExecutorService createThreadPerTaskService(
+            int maxConcurrentTasks) {
+        return new ThreadPerTaskExecutor(maxConcurrentTasks, 60000,
+                createThreadFactory());
+    }
+
     /**
      * Creates a new thread factory that will properly name the Restlet created
      * threads with a "restlet-" prefix.
@@ -320,7 +425,12 @@ public class TaskService extends Service implements ScheduledExecutorService {
      */
     public void execute(Runnable command) {
         startIfNeeded();
-        getWrapped().execute(command);
+
+        if (getThreadPerTaskService() != null) {
+            getThreadPerTaskService().execute(wrap(command));
+        } else {
+            getWrapped().execute(command);
+        }
     }
 
     /**
@@ -341,6 +451,38 @@ public class TaskService extends Service implements ScheduledExecutorService {
         return wrapped;
     }
 
+    /**
+     * Returns the JDK executor service running immediate tasks. This is either
+     * the thread per task service or the wrapped service.
+     * 
+     * @return The JDK executor service running immediate tasks.
+     */
+    private ExecutorService getImmediateService() {
+        return (getThreadPerTaskService() != null) ? getThreadPerTaskService()
+                : getWrapped();
+    }
+
+    /**
+     * Returns the maximum number of immediate tasks running concurrently on
+     * their own thread, or 0 if they run on the core pool.
+     * 
+     * @return The maximum number of immediate tasks running concurrently.
+     */
+    public int getMaxConcurrentTasks() {
+        return maxConcurrentTasks;
+    }
+
+    /**
+     * Returns the JDK executor service running each immediate task on its own
+     * thread.
+     * 
+     * @return The JDK executor service running each immediate task on its own
+     *         thread.
+     */
+    private ExecutorService getThreadPerTaskService() {
+        return threadPerTaskService;
+    }
+
     /**
      * Executes the given tasks, returning a list of Futures holding their
      * status and results when all complete.<br>
@@ -357,7 +499,7 @@ public class TaskService extends Service implements ScheduledExecutorService {
     @SuppressWarnings({ "rawtypes", "unchecked" })
     public List invokeAll(Collection tasks) throws InterruptedException {
         startIfNeeded();
-        return getWrapped().invokeAll(tasks);
+        return getImmediateService().invokeAll(wrapAll(tasks));
     }
 
     /**
@@ -386,7 +528,8 @@ public class TaskService extends Service implements ScheduledExecutorService {
     public List invokeAll(Collection tasks, long timeout, TimeUnit unit)
             throws InterruptedException {
         startIfNeeded();
-        return getWrapped().invokeAll(tasks, timeout, unit);
+        return getImmediateService().invokeAll(wrapAll(tasks), timeout,
+                unit);
     }
 
     /**
@@ -409,7 +552,7 @@ public class TaskService extends Service implements ScheduledExecutorService {
     public Object invokeAny(Collection tasks) throws InterruptedException,
             ExecutionException {
         startIfNeeded();
-        return getWrapped().invokeAny(tasks);
+        return getImmediateService().invokeAny(wrapAll(tasks));
     }
 
     /**
@@ -436,7 +579,8 @@ public class TaskService extends Service implements ScheduledExecutorService {
     public Object invokeAny(Collection tasks, long timeout, TimeUnit unit)
             throws InterruptedException, ExecutionException, TimeoutException {
         startIfNeeded();
-        return getWrapped().invokeAny(tasks, timeout, unit);
+        return getImmediateService().invokeAny(wrapAll(tasks), timeout,
+                unit);
     }
 
     /**
@@ -467,7 +611,13 @@ public class TaskService extends Service implements ScheduledExecutorService {
      * @return True if all tasks have completed following shut down.
      */
     public boolean isTerminated() {
-        return (getWrapped() == null) || getWrapped().isTerminated();
+        boolean result = (getWrapped() == null) || getWrapped().isTerminated();
+
+        if (result && (getThreadPerTaskService() != null)) {
+            result = getThreadPerTaskService().isTerminated();
+        }
+
+        return result;
     }
 
     /**
@@ -591,6 +741,22 @@ public class TaskService extends Service implements ScheduledExecutorService {
         this.corePoolSize = corePoolSize;
     }
 
+    /**
+     * Sets the maximum number of immediate tasks running concurrently on their
+     * own thread. Immediate tasks are the ones executed, submitted or invoked
+     * without a delay. If strictly positive, each of them runs on its own
+     * thread, created on demand and reused while idle, suiting tasks that block
+     * for a long time. Otherwise, they run on the core pool like scheduled
+     * tasks. Must be set before the service is started.
+     * 
+     * @param maxConcurrentTasks
+     *            The maximum number of immediate tasks running concurrently,
+     *            or 0 to run them on the core pool.
+     */
+    public void setMaxConcurrentTasks(int maxConcurrentTasks) {
+        this.maxConcurrentTasks = maxConcurrentTasks;
+    }
+
     /**
      * Indicates if the {@link #shutdown()} and {@link #shutdownNow()} methods
      * are allowed to effectively shutdown the wrapped executor service.
@@ -619,6 +785,10 @@ public class TaskService extends Service implements ScheduledExecutorService {
     public void shutdown() {
         if (isShutdownAllowed() && (getWrapped() != null)) {
             getWrapped().shutdown();
+
+            if (getThreadPerTaskService() != null) {
+                getThreadPerTaskService().shutdown();
+            }
         }
     }
 
@@ -630,8 +800,17 @@ public class TaskService extends Service implements ScheduledExecutorService {
      * @return The list of tasks that never commenced execution;
      */
     public List<Runnable> shutdownNow() {
-        return isShutdownAllowed() && (getWrapped() != null) ? getWrapped()
-                .shutdownNow() : Collections.<Runnable> emptyList();
+        List<Runnable> result = Collections.<Runnable> emptyList();
+
+        if (isShutdownAllowed() && (getWrapped() != null)) {
+            result = new ArrayList<Runnable>(getWrapped().shutdownNow());
+
+            if (getThreadPerTaskService() != null) {
+                result.addAll(getThreadPerTaskService().shutdownNow());
+            }
+        }
+
+        return result;
     }
 
     @Override
@@ -640,6 +819,14 @@ public class TaskService extends Service implements ScheduledExecutorService {
             setWrapped(wrap(createExecutorService(getCorePoolSize())));
         }
 
+        if (getMaxConcurrentTasks() <= 0) {
+            this.threadPerTaskService = null;
+        } else if ((getThreadPerTaskService() == null)
+                || getThreadPerTaskService().isShutdown()) {
+            this.threadPerTaskService = createThreadPerTaskService(
+                    getMaxConcurrentTasks());
+        }
+
         super.start();
     }
 
@@ -664,6 +851,11 @@ public class TaskService extends Service implements ScheduledExecutorService {
         if ((getWrapped() != null) && !getWrapped().isShutdown()) {
             getWrapped().shutdown();
         }
+
+        if ((getThreadPerTaskService() != null)
+                && !getThreadPerTaskService().isShutdown()) {
+            getThreadPerTaskService().shutdown();
+        }
     }
 
     /**
@@ -677,7 +869,7 @@ public class TaskService extends Service implements ScheduledExecutorService {
      */
     public <T> Future<T> submit(Callable<T> task) {
         startIfNeeded();
-        return getWrapped().submit(task);
+        return getImmediateService().submit(wrap(task));
     }
 
     /**
@@ -689,7 +881,7 @@ public class TaskService extends Service implements ScheduledExecutorService {
      */
     public Future<?> submit(Runnable task) {
         startIfNeeded();
-        return getWrapped().submit(task);
+        return getImmediateService().submit(wrap(task));
     }
 
     /**
@@ -703,7 +895,7 @@ public class TaskService extends Service implements ScheduledExecutorService {
      */
     public <T> Future<T> submit(Runnable task, T result) {
         startIfNeeded();
-        return getWrapped().submit(task, result);
+        return getImmediateService().submit(wrap(task), result);
     }
 
 }
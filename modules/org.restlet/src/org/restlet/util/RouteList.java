@@ -33,6 +33,7 @@
 
 package org.restlet.util;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
@@ -42,6 +43,7 @@ import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
 import org.restlet.routing.Route;
+import org.restlet.routing.RouteTrie;
 
 /**
  * Modifiable list of routes with some helper methods. Note that this class
@@ -50,7 +52,9 @@ import org.restlet.routing.Route;
  * {@link List}, in particular all the helper methods in {@link Collections}.<br>
  * <br>
  * Note that structural changes to this list are thread-safe, using an
- * underlying {@link CopyOnWriteArrayList}.
+ * underlying {@link CopyOnWriteArrayList}. They also discard the
+ * {@link RouteTrie} lazily compiled by the indexed selection methods such as
+ * {@link #getIndexedBest(Request, Response, float)}.
  * 
  * @author Jerome Louvel
  * @see java.util.Collections
@@ -60,6 +64,9 @@ public final class RouteList extends WrapperList<Route> {
     /** The index of the last route used in the round robin mode. */
     private volatile int lastIndex;
 
+    /** The compiled prefix trie of the routes. */
+    private volatile RouteTrie trie;
+
     /**
      * Constructor.
      */
@@ -79,6 +86,40 @@ public final class RouteList extends WrapperList<Route> {
         this.lastIndex = -1;
     }
 
+    @Override
+    public synchronized boolean add(Route element) {
+        boolean result = super.add(element);
+        this.trie = null;
+        return result;
+    }
+
+    @Override
+    public synchronized void add(int index, Route element) {
+        super.add(index, element);
+        this.trie = null;
+    }
+
+    @Override
+    public synchronized boolean addAll(Collection<? extends Route> elements) {
+        boolean result = super.addAll(elements);
+        this.trie = null;
+        return result;
+    }
+
+    @Override
+    public synchronized boolean addAll(int index,
+            Collection<? extends Route> elements) {
+        boolean result = super.addAll(index, elements);
+        this.trie = null;
+        return result;
+    }
+
+    @Override
+    public synchronized void clear() {
+        super.clear();
+        this.trie = null;
+    }
+
     /**
      * Returns the best route match for a given call.
      * 
@@ -130,6 +171,78 @@ public final class RouteList extends WrapperList<Route> {
         return null;
     }
 
+    /**
+     * Returns the best route match for a given call, only scoring the routes
+     * selected by the compiled {@link RouteTrie}. The result is the same as the
+     * one of {@link #getBest(Request, Response, float)} as long as the
+     * templates of the routes aren't modified after their addition to the
+     * list. Otherwise, {@link #reindex()} must be invoked.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The best route match or null.
+     */
+    public Route getIndexedBest(Request request, Response response,
+            float requiredScore) {
+        List<Route> candidates = getTrie().getCandidates(request);
+
+        if (candidates == null) {
+            return getBest(request, response, requiredScore);
+        }
+
+        Route result = null;
+        float bestScore = 0F;
+        float score;
+
+        for (Route current : candidates) {
+            score = current.score(request, response);
+
+            if ((score > bestScore) && (score >= requiredScore)) {
+                bestScore = score;
+                result = current;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the first route match for a given call, only scoring the routes
+     * selected by the compiled {@link RouteTrie}. The result is the same as the
+     * one of {@link #getFirst(Request, Response, float)} as long as the
+     * templates of the routes aren't modified after their addition to the
+     * list. Otherwise, {@link #reindex()} must be invoked.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The first route match or null.
+     */
+    public Route getIndexedFirst(Request request, Response response,
+            float requiredScore) {
+        List<Route> candidates = getTrie().getCandidates(request);
+
+        if (candidates == null) {
+            return getFirst(request, response, requiredScore);
+        }
+
+        for (Route current : candidates) {
+            if (current.score(request, response) >= requiredScore) {
+                return current;
+            }
+        }
+
+        // No match found
+        return null;
+    }
+
     /**
      * Returns the last route match for a given call.
      * 
@@ -229,6 +342,59 @@ public final class RouteList extends WrapperList<Route> {
         return null;
     }
 
+    /**
+     * Returns the prefix trie compiled from the current routes. Compiles it
+     * first if needed.
+     * 
+     * @return The prefix trie compiled from the current routes.
+     */
+    private RouteTrie getTrie() {
+        // Lazy initialization with double-check.
+        RouteTrie result = this.trie;
+
+        if (result == null) {
+            synchronized (this) {
+                result = this.trie;
+
+                if (result == null) {
+                    this.trie = result = new RouteTrie(this);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Discards the compiled prefix trie so that it is compiled again on the
+     * next indexed selection. Must be invoked when the templates of the routes
+     * are modified after their addition to the list.
+     */
+    public synchronized void reindex() {
+        this.trie = null;
+    }
+
+    @Override
+    public synchronized Route remove(int index) {
+        Route result = super.remove(index);
+        this.trie = null;
+        return result;
+    }
+
+    @Override
+    public synchronized boolean remove(Object element) {
+        boolean result = super.remove(element);
+        this.trie = null;
+        return result;
+    }
+
+    @Override
+    public synchronized boolean removeAll(Collection<?> elements) {
+        boolean result = super.removeAll(elements);
+        this.trie = null;
+        return result;
+    }
+
     /**
      * Removes all routes routing to a given target.
      * 
@@ -243,6 +409,20 @@ public final class RouteList extends WrapperList<Route> {
         }
     }
 
+    @Override
+    public synchronized boolean retainAll(Collection<?> elements) {
+        boolean result = super.retainAll(elements);
+        this.trie = null;
+        return result;
+    }
+
+    @Override
+    public synchronized Route set(int index, Route element) {
+        Route result = super.set(index, element);
+        this.trie = null;
+        return result;
+    }
+
     /**
      * Returns a view of the portion of this list between the specified
      * fromIndex, inclusive, and toIndex, exclusive.